@@ -16,6 +16,8 @@
 
 package dagger.internal.codegen;
 
+import static dagger.internal.codegen.base.TimingReport.Kind.STEP;
+
 import androidx.room.compiler.processing.XProcessingEnv;
 import androidx.room.compiler.processing.XProcessingEnvConfig;
 import androidx.room.compiler.processing.XProcessingStep;
@@ -32,6 +34,7 @@ import dagger.Provides;
 import dagger.internal.codegen.base.ClearableCache;
 import dagger.internal.codegen.base.SourceFileGenerationException;
 import dagger.internal.codegen.base.SourceFileGenerator;
+import dagger.internal.codegen.base.TimingReport;
 import dagger.internal.codegen.binding.BindingGraphFactory;
 import dagger.internal.codegen.binding.InjectBindingRegistry;
 import dagger.internal.codegen.binding.MembersInjectionBinding;
@@ -78,6 +81,7 @@ final class DelegateComponentProcessor {
   @Inject ValidationBindingGraphPlugins validationBindingGraphPlugins;
   @Inject ExternalBindingGraphPlugins externalBindingGraphPlugins;
   @Inject Set<ClearableCache> clearableCaches;
+  @Inject TimingReport timingReport;
 
   public void initialize(
       XProcessingEnv env,
@@ -117,7 +121,8 @@ final class DelegateComponentProcessor {
 
   public void postRound(XProcessingEnv env, XRoundEnv roundEnv) {
     if (!roundEnv.isProcessingOver()) {
-      try {
+      try (TimingReport.Timer timer =
+          timingReport.start(STEP, "InjectBindingRegistry", "generateSourcesForRequiredBindings")) {
         injectBindingRegistry.generateSourcesForRequiredBindings(
             factoryGenerator, membersInjectorGenerator);
       } catch (SourceFileGenerationException e) {
@@ -126,6 +131,7 @@ final class DelegateComponentProcessor {
     } else {
       validationBindingGraphPlugins.endPlugins();
       externalBindingGraphPlugins.endPlugins();
+      timingReport.write();
     }
     clearableCaches.forEach(ClearableCache::clearCache);
   }
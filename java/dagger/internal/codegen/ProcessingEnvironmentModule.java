@@ -51,9 +51,9 @@ interface ProcessingEnvironmentModule {
 
   @Provides
   static XFiler filer(CompilerOptions compilerOptions, XProcessingEnv xProcessingEnv) {
-    return compilerOptions.headerCompilation() || !compilerOptions.formatGeneratedSource()
-        ? xProcessingEnv.getFiler()
-        : XConverters.toXProcessing(
-            new FormattingFiler(XConverters.toJavac(xProcessingEnv.getFiler())), xProcessingEnv);
+    return compilerOptions.formatsWrittenSource()
+        ? XConverters.toXProcessing(
+            new FormattingFiler(XConverters.toJavac(xProcessingEnv.getFiler())), xProcessingEnv)
+        : xProcessingEnv.getFiler();
   }
 }
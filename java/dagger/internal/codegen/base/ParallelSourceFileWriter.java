@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static androidx.room.compiler.processing.compat.XConverters.toJavac;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.XElement;
+import androidx.room.compiler.processing.XFiler;
+import androidx.room.compiler.processing.XMessager;
+import androidx.room.compiler.processing.XProcessingEnv;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.inject.Inject;
+import javax.lang.model.element.Element;
+
+/**
+ * Writes the files of {@link SourceFileGenerator}s after rendering them to source on a pool of
+ * threads, for {@code -Adagger.parallelComponentRendering=ENABLED}. Components are not resolved or
+ * validated concurrently; see {@link CompilerOptions#parallelComponentRendering()}.
+ *
+ * <p>The types of each file are still built on the processing thread, since building them uses the
+ * processing environment, which isn't thread-safe. Only rendering the built {@link JavaFile}s, and
+ * formatting them if {@link CompilerOptions#formatsWrittenSource()}, happen on the pool, where they
+ * overlap with the processing of the next input. {@link #writePendingFiles} writes the files, and
+ * reports any errors, on the processing thread in the order that they were generated, so the output
+ * doesn't depend on how the pool schedules them. The written files are byte-for-byte the same as
+ * those written by {@link SourceFileGenerator#generate}.
+ */
+public final class ParallelSourceFileWriter {
+  private final XProcessingEnv processingEnv;
+  private final CompilerOptions compilerOptions;
+  private final List<PendingFile> pendingFiles = new ArrayList<>();
+  private ExecutorService executor;
+
+  @Inject
+  ParallelSourceFileWriter(XProcessingEnv processingEnv, CompilerOptions compilerOptions) {
+    this.processingEnv = processingEnv;
+    this.compilerOptions = compilerOptions;
+  }
+
+  /**
+   * Builds the files to be generated for {@code input} and starts rendering them. Writes any
+   * generation exception to {@code messager} and does not throw.
+   */
+  public <T> void generate(SourceFileGenerator<T> generator, T input, XMessager messager) {
+    ImmutableList<JavaFile> javaFiles;
+    try {
+      javaFiles = generator.javaFiles(input);
+    } catch (SourceFileGenerationException e) {
+      e.printMessageTo(messager);
+      return;
+    }
+    XElement originatingElement = generator.originatingElement(input);
+    for (JavaFile javaFile : javaFiles) {
+      pendingFiles.add(
+          new PendingFile(
+              javaFile, originatingElement, executor().submit(() -> render(javaFile))));
+    }
+  }
+
+  /**
+   * Writes the files of every {@link #generate} call since the last call to this method. Writes any
+   * generation exception to {@code messager} and does not throw.
+   */
+  public void writePendingFiles(XMessager messager) {
+    try {
+      for (PendingFile pendingFile : pendingFiles) {
+        try {
+          write(pendingFile);
+        } catch (SourceFileGenerationException e) {
+          e.printMessageTo(messager);
+        }
+      }
+    } finally {
+      pendingFiles.clear();
+      if (executor != null) {
+        executor.shutdown();
+        executor = null;
+      }
+    }
+  }
+
+  private ExecutorService executor() {
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(
+              Runtime.getRuntime().availableProcessors(),
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-source-writer-%d")
+                  .build());
+    }
+    return executor;
+  }
+
+  private String render(JavaFile javaFile) {
+    String source = javaFile.toString();
+    if (compilerOptions.formatsWrittenSource()) {
+      try {
+        source = new Formatter().formatSource(source);
+      } catch (FormatterException e) {
+        // Like FormattingFiler, write the unformatted source if it can't be formatted.
+      }
+    }
+    return source;
+  }
+
+  private void write(PendingFile pendingFile) throws SourceFileGenerationException {
+    JavaFile javaFile = pendingFile.javaFile;
+    ClassName className = ClassName.get(javaFile.packageName, javaFile.typeSpec.name);
+    try {
+      String source = Uninterruptibles.getUninterruptibly(pendingFile.source);
+      try (Writer writer = openWriter(javaFile, pendingFile.originatingElement)) {
+        writer.write(source);
+      }
+    } catch (ExecutionException e) {
+      throw new SourceFileGenerationException(
+          Optional.of(className), e.getCause(), pendingFile.originatingElement);
+    } catch (IOException | RuntimeException e) {
+      throw new SourceFileGenerationException(
+          Optional.of(className), e, pendingFile.originatingElement);
+    }
+  }
+
+  /**
+   * Opens the file for {@code javaFile} the way that {@link XFiler#write(JavaFile, XFiler.Mode)}
+   * does on each backend, so that the written bytes are the same as when the files aren't rendered
+   * in parallel.
+   */
+  private Writer openWriter(JavaFile javaFile, XElement originatingElement) throws IOException {
+    switch (processingEnv.getBackend()) {
+      case JAVAC:
+        // Like JavaFile.writeTo(Filer), which encodes the source in the compilation's encoding.
+        return toJavac(processingEnv.getFiler())
+            .createSourceFile(
+                javaFile.packageName.isEmpty()
+                    ? javaFile.typeSpec.name
+                    : javaFile.packageName + "." + javaFile.typeSpec.name,
+                javaFile.typeSpec.originatingElements.toArray(new Element[0]))
+            .openWriter();
+      case KSP:
+        // The KSP filer writes a JavaFile in UTF-8.
+        return new OutputStreamWriter(
+            processingEnv
+                .getFiler()
+                .writeSource(
+                    javaFile.packageName,
+                    javaFile.typeSpec.name,
+                    "java",
+                    ImmutableList.of(originatingElement),
+                    XFiler.Mode.Isolating),
+            UTF_8);
+    }
+    throw new AssertionError("Unexpected backend: " + processingEnv.getBackend());
+  }
+
+  private static final class PendingFile {
+    final JavaFile javaFile;
+    final XElement originatingElement;
+    final Future<String> source;
+
+    PendingFile(JavaFile javaFile, XElement originatingElement, Future<String> source) {
+      this.javaFile = javaFile;
+      this.originatingElement = originatingElement;
+      this.source = source;
+    }
+  }
+}
@@ -86,6 +86,22 @@ public abstract class SourceFileGenerator<T> {
     }
   }
 
+  /**
+   * Returns the files to be generated for {@code T}, without writing them, so that {@link
+   * ParallelSourceFileWriter} can render and write them later.
+   */
+  ImmutableList<JavaFile> javaFiles(T input) throws SourceFileGenerationException {
+    ImmutableList.Builder<JavaFile> javaFiles = ImmutableList.builder();
+    for (TypeSpec.Builder type : topLevelTypes(input)) {
+      try {
+        javaFiles.add(buildJavaFile(input, type));
+      } catch (RuntimeException e) {
+        throw new SourceFileGenerationException(Optional.empty(), e, originatingElement(input));
+      }
+    }
+    return javaFiles.build();
+  }
+
   private JavaFile buildJavaFile(T input, TypeSpec.Builder typeSpecBuilder) {
     XElement originatingElement = originatingElement(input);
     addOriginatingElement(typeSpecBuilder, originatingElement);
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.base;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.XMessager;
+import androidx.room.compiler.processing.XProcessingEnv;
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Ascii;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.tools.Diagnostic;
+
+/**
+ * Records the wall time and allocated bytes of the processor's work, and writes them to the file
+ * given by {@code -Adagger.timingReport=<path>} when processing is over.
+ *
+ * <p>Each entry of the report is identified by a kind ({@code step}, {@code component} or {@code
+ * plugin}), the name of the processing step, component or plugin, and a phase. Entries are summed
+ * over every time their work ran, and are inclusive: the time of a component's {@code validation}
+ * phase includes the time of the plugins that ran during it. Allocated bytes are those of the
+ * thread that did the work, or {@code -1} if the JVM can't measure them.
+ *
+ * <p>If the option isn't set, {@link #start} returns a timer that does nothing. Timers may be
+ * started and closed on any thread, as long as each is closed on the thread that started it.
+ */
+@Singleton
+public final class TimingReport {
+  /** What an entry of the report measures. */
+  public enum Kind {
+    /** A processing step, named by its class. */
+    STEP,
+    /** A component or subcomponent, named by its qualified name. */
+    COMPONENT,
+    /** A binding graph plugin, named by its {@code pluginName()}. */
+    PLUGIN,
+  }
+
+  /** The work of one entry, which is recorded when it is closed. */
+  public interface Timer extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Timer NO_OP_TIMER = () -> {};
+
+  private final XProcessingEnv processingEnv;
+  private final XMessager messager;
+  private final Optional<Path> path;
+  private final Optional<com.sun.management.ThreadMXBean> threads;
+  private final Map<EntryKey, Entry> entries = new LinkedHashMap<>();
+
+  @Inject
+  TimingReport(XProcessingEnv processingEnv, XMessager messager, CompilerOptions compilerOptions) {
+    this.processingEnv = processingEnv;
+    this.messager = messager;
+    this.path = compilerOptions.timingReport().map(Paths::get);
+    this.threads = path.isPresent() ? allocationMeasuringThreads() : Optional.empty();
+  }
+
+  private static Optional<com.sun.management.ThreadMXBean> allocationMeasuringThreads() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+      if (sunThreads.isThreadAllocatedMemorySupported()) {
+        sunThreads.setThreadAllocatedMemoryEnabled(true);
+        return Optional.of(sunThreads);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Returns {@code true} if the report is written. */
+  public boolean isEnabled() {
+    return path.isPresent();
+  }
+
+  /**
+   * Starts the work of the given entry. The returned timer should be closed when the work is done,
+   * usually with a try-with-resources statement.
+   */
+  public Timer start(Kind kind, String name, String phase) {
+    if (!path.isPresent()) {
+      return NO_OP_TIMER;
+    }
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.computeIfAbsent(EntryKey.create(kind, name, phase), Entry::new);
+    }
+    long startNanos = System.nanoTime();
+    long startAllocatedBytes = allocatedBytes();
+    return () ->
+        entry.add(
+            System.nanoTime() - startNanos,
+            threads.isPresent() ? allocatedBytes() - startAllocatedBytes : -1);
+  }
+
+  private long allocatedBytes() {
+    return threads.isPresent()
+        ? threads.get().getThreadAllocatedBytes(Thread.currentThread().getId())
+        : -1;
+  }
+
+  /** Writes the report, if it is enabled. This should be called once processing is over. */
+  public void write() {
+    if (!path.isPresent()) {
+      return;
+    }
+    try {
+      Files.createDirectories(path.get().toAbsolutePath().getParent());
+      Files.write(path.get(), toJson().getBytes(UTF_8));
+    } catch (IOException e) {
+      messager.printMessage(
+          Diagnostic.Kind.WARNING,
+          String.format("Could not write the Dagger timing report to %s: %s", path.get(), e));
+    }
+  }
+
+  /**
+   * Returns the report as a JSON object, whose entries are sorted by kind and then by decreasing
+   * wall time.
+   */
+  private String toJson() {
+    List<Entry> sortedEntries;
+    synchronized (entries) {
+      sortedEntries = new ArrayList<>(entries.values());
+    }
+    sortedEntries.sort(
+        Comparator.comparing((Entry entry) -> entry.key.kind())
+            .thenComparing(Comparator.comparingLong((Entry entry) -> entry.wallNanos).reversed()));
+    StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"backend\": ").append(quote(processingEnv.getBackend().name())).append(",\n");
+    json.append("  \"entries\": [");
+    for (int i = 0; i < sortedEntries.size(); i++) {
+      Entry entry = sortedEntries.get(i);
+      json.append(i == 0 ? "\n" : ",\n");
+      json.append("    {")
+          .append("\"kind\": ")
+          .append(quote(Ascii.toLowerCase(entry.key.kind().name())))
+          .append(", \"name\": ")
+          .append(quote(entry.key.name()))
+          .append(", \"phase\": ")
+          .append(quote(entry.key.phase()))
+          .append(", \"count\": ")
+          .append(entry.count)
+          .append(", \"wallNanos\": ")
+          .append(entry.wallNanos)
+          .append(", \"allocatedBytes\": ")
+          .append(entry.allocatedBytes)
+          .append("}");
+    }
+    json.append(sortedEntries.isEmpty() ? "]\n" : "\n  ]\n");
+    return json.append("}\n").toString();
+  }
+
+  private static String quote(String string) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  @AutoValue
+  abstract static class EntryKey {
+    abstract Kind kind();
+
+    abstract String name();
+
+    abstract String phase();
+
+    static EntryKey create(Kind kind, String name, String phase) {
+      return new AutoValue_TimingReport_EntryKey(kind, name, phase);
+    }
+  }
+
+  private static final class Entry {
+    final EntryKey key;
+    int count;
+    long wallNanos;
+    long allocatedBytes;
+
+    Entry(EntryKey key) {
+      this.key = key;
+    }
+
+    synchronized void add(long wallNanos, long allocatedBytes) {
+      this.count++;
+      this.wallNanos += wallNanos;
+      // Keep -1 if the JVM can't measure allocation, rather than summing it.
+      this.allocatedBytes = allocatedBytes < 0 ? -1 : this.allocatedBytes + allocatedBytes;
+    }
+  }
+}
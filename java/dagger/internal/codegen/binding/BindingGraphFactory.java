@@ -383,6 +383,12 @@ public final class BindingGraphFactory implements ClearableCache {
     final Deque<Key> cycleStack = new ArrayDeque<>();
     final Map<Key, Boolean> keyDependsOnLocalBindingsCache = new HashMap<>();
     final Map<Binding, Boolean> bindingDependsOnLocalBindingsCache = new HashMap<>();
+    // Descendant resolvers look up this resolver's own bindings for every key they resolve, so
+    // cache them once for all of its subcomponents. See getLocalExplicitBindings().
+    final Map<Key, ImmutableSet<ContributionBinding>> localExplicitBindingsCache =
+        new HashMap<>();
+    final Map<Key, ImmutableSet<ContributionBinding>> localExplicitMultibindingsCache =
+        new HashMap<>();
     final Queue<ComponentDescriptor> subcomponentsToResolve = new ArrayDeque<>();
 
     Resolver(
@@ -768,8 +774,20 @@ public final class BindingGraphFactory implements ClearableCache {
     /**
      * Returns the explicit {@link ContributionBinding}s that match the {@code key} from this
      * resolver.
+     *
+     * <p>The result is cached while this resolver isn't resolving any key itself, which is the case
+     * when its subcomponents look up its bindings. While it is resolving, a delegate binding may be
+     * unresolved only because its key is part of the cycle being resolved, so the bindings are
+     * created anew.
      */
     private ImmutableSet<ContributionBinding> getLocalExplicitBindings(Key key) {
+      return cycleStack.isEmpty()
+          ? reentrantComputeIfAbsent(
+              localExplicitBindingsCache, key, this::getLocalExplicitBindingsUncached)
+          : getLocalExplicitBindingsUncached(key);
+    }
+
+    private ImmutableSet<ContributionBinding> getLocalExplicitBindingsUncached(Key key) {
       return new ImmutableSet.Builder<ContributionBinding>()
           .addAll(explicitBindings.get(key))
           // @Binds @IntoMap declarations have key Map<K, V>, unlike @Provides @IntoMap or @Produces
@@ -784,9 +802,17 @@ public final class BindingGraphFactory implements ClearableCache {
 
     /**
      * Returns the explicit multibinding contributions that contribute to the map or set requested
-     * by {@code key} from this resolver.
+     * by {@code key} from this resolver. Like {@link #getLocalExplicitBindings(Key)}, the result is
+     * cached while this resolver isn't resolving any key itself.
      */
     private ImmutableSet<ContributionBinding> getLocalExplicitMultibindings(Key key) {
+      return cycleStack.isEmpty()
+          ? reentrantComputeIfAbsent(
+              localExplicitMultibindingsCache, key, this::getLocalExplicitMultibindingsUncached)
+          : getLocalExplicitMultibindingsUncached(key);
+    }
+
+    private ImmutableSet<ContributionBinding> getLocalExplicitMultibindingsUncached(Key key) {
       ImmutableSet.Builder<ContributionBinding> multibindings = ImmutableSet.builder();
       multibindings.addAll(explicitMultibindings.get(key));
       if (!MapType.isMap(key)
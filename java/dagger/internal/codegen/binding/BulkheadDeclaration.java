@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.binding;
+
+import static dagger.internal.codegen.xprocessing.XElements.closestEnclosingTypeElement;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
+
+import androidx.room.compiler.processing.XAnnotation;
+import androidx.room.compiler.processing.XElement;
+import com.google.auto.value.AutoValue;
+import dagger.internal.codegen.javapoet.TypeNames;
+import java.util.Optional;
+
+/**
+ * The {@link dagger.producers.Bulkhead} group of a {@link dagger.producers.Produces @Produces}
+ * method.
+ */
+@AutoValue
+public abstract class BulkheadDeclaration {
+  /**
+   * Returns the bulkhead of the given method, which is declared either on the method itself or on
+   * its module.
+   */
+  public static Optional<BulkheadDeclaration> forProducesMethod(XElement producesMethod) {
+    return bulkheadAnnotation(producesMethod).map(BulkheadDeclaration::create);
+  }
+
+  /** Returns the {@code @Bulkhead} annotation that applies to the given method, if any. */
+  public static Optional<XAnnotation> bulkheadAnnotation(XElement producesMethod) {
+    if (producesMethod.hasAnnotation(TypeNames.BULKHEAD)) {
+      return Optional.of(producesMethod.getAnnotation(TypeNames.BULKHEAD));
+    }
+    return Optional.ofNullable(
+        closestEnclosingTypeElement(producesMethod).getAnnotation(TypeNames.BULKHEAD));
+  }
+
+  private static BulkheadDeclaration create(XAnnotation annotation) {
+    return new AutoValue_BulkheadDeclaration(
+        annotation.getAsString("value"),
+        annotation.getAsInt("maxInFlight"),
+        getSimpleName(annotation.getAsEnum("onSaturation")));
+  }
+
+  /** The name of the group. */
+  public abstract String name();
+
+  /** The maximum number of methods in the group that may be in flight at once. */
+  public abstract int maxInFlight();
+
+  /** The simple name of the {@code Bulkhead.Saturation} constant. */
+  public abstract String onSaturation();
+}
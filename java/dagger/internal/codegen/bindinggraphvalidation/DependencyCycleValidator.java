@@ -20,7 +20,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.collect.Iterables.limit;
 import static com.google.common.collect.Iterables.skip;
-import static com.google.common.collect.Sets.newHashSetWithExpectedSize;
+import static com.google.common.collect.Sets.newIdentityHashSet;
 import static dagger.internal.codegen.base.RequestKinds.extractKeyType;
 import static dagger.internal.codegen.base.RequestKinds.getRequestKind;
 import static dagger.internal.codegen.extension.DaggerGraphs.shortestPath;
@@ -35,13 +35,13 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.graph.EndpointPair;
-import com.google.common.graph.Graphs;
 import com.google.common.graph.ImmutableNetwork;
 import com.google.common.graph.MutableNetwork;
 import com.google.common.graph.NetworkBuilder;
 import dagger.internal.codegen.base.Formatter;
 import dagger.internal.codegen.base.MapType;
 import dagger.internal.codegen.base.OptionalType;
+import dagger.internal.codegen.base.TarjanSCCs;
 import dagger.internal.codegen.binding.DependencyRequestFormatter;
 import dagger.internal.codegen.javapoet.TypeNames;
 import dagger.internal.codegen.model.Binding;
@@ -54,8 +54,9 @@ import dagger.internal.codegen.model.DependencyRequest;
 import dagger.internal.codegen.model.DiagnosticReporter;
 import dagger.internal.codegen.model.RequestKind;
 import dagger.internal.codegen.validation.ValidationBindingGraphPlugin;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import javax.inject.Inject;
@@ -79,38 +80,64 @@ final class DependencyCycleValidator extends ValidationBindingGraphPlugin {
   public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
     ImmutableNetwork<Node, DependencyEdge> dependencyGraph =
         nonCycleBreakingDependencyGraph(bindingGraph);
-    // First check the graph for a cycle. If there is one, then we'll do more work to report where.
-    if (!Graphs.hasCycle(dependencyGraph)) {
+    // Find the strongly connected components of the graph that contain a cycle, and report one
+    // cycle for each of them: the shortest cycle through the first of its edges. That takes one
+    // search per component, rather than one per edge, and each search stays within its component.
+    Map<Node, ImmutableSet<Node>> stronglyConnectedComponents =
+        stronglyConnectedComponentsWithCycles(dependencyGraph);
+    if (stronglyConnectedComponents.isEmpty()) {
       return;
     }
-    // Check each endpoint pair only once, no matter how many parallel edges connect them.
-    Set<EndpointPair<Node>> dependencyEndpointPairs = dependencyGraph.asGraph().edges();
-    Set<EndpointPair<Node>> visited = newHashSetWithExpectedSize(dependencyEndpointPairs.size());
-    for (EndpointPair<Node> endpointPair : dependencyEndpointPairs) {
-      cycleContainingEndpointPair(endpointPair, dependencyGraph, visited)
-          .ifPresent(cycle -> reportCycle(cycle, bindingGraph, diagnosticReporter));
+    Set<ImmutableSet<Node>> reportedComponents = newIdentityHashSet();
+    for (EndpointPair<Node> endpointPair : dependencyGraph.asGraph().edges()) {
+      ImmutableSet<Node> component = stronglyConnectedComponents.get(endpointPair.source());
+      if (component != null
+          && component.contains(endpointPair.target())
+          && reportedComponents.add(component)) {
+        reportCycle(
+            cycleContainingEndpointPair(endpointPair, dependencyGraph, component),
+            bindingGraph,
+            diagnosticReporter);
+      }
     }
   }
 
-  private Optional<Cycle<Node>> cycleContainingEndpointPair(
-      EndpointPair<Node> endpoints,
-      ImmutableNetwork<Node, DependencyEdge> dependencyGraph,
-      Set<EndpointPair<Node>> visited) {
-    if (!visited.add(endpoints)) {
-      // don't recheck endpoints we already know are part of a cycle
-      return Optional.empty();
-    }
-
-    // If there's a path from the target back to the source, there's a cycle.
-    ImmutableList<Node> cycleNodes =
-        shortestPath(dependencyGraph, endpoints.target(), endpoints.source());
-    if (cycleNodes.isEmpty()) {
-      return Optional.empty();
+  /**
+   * Returns the strongly connected components of {@code dependencyGraph} that contain a cycle,
+   * indexed by each of their nodes. Those are the components with more than one node, and the
+   * single nodes that depend on themselves.
+   */
+  private static Map<Node, ImmutableSet<Node>> stronglyConnectedComponentsWithCycles(
+      ImmutableNetwork<Node, DependencyEdge> dependencyGraph) {
+    Map<Node, ImmutableSet<Node>> componentsByNode = new HashMap<>();
+    for (ImmutableSet<Node> component :
+        TarjanSCCs.compute(
+            ImmutableSet.copyOf(dependencyGraph.nodes()), dependencyGraph::successors)) {
+      Node node = component.iterator().next();
+      if (component.size() > 1 || dependencyGraph.successors(node).contains(node)) {
+        component.forEach(member -> componentsByNode.put(member, component));
+      }
     }
+    return componentsByNode;
+  }
 
-    Cycle<Node> cycle = Cycle.fromPath(cycleNodes);
-    visited.addAll(cycle.endpointPairs()); // no need to check any edge in this cycle again
-    return Optional.of(cycle);
+  /**
+   * Returns the shortest cycle that contains the edge between {@code endpoints}, both of which are
+   * in {@code stronglyConnectedComponent}.
+   */
+  private Cycle<Node> cycleContainingEndpointPair(
+      EndpointPair<Node> endpoints,
+      ImmutableNetwork<Node, DependencyEdge> dependencyGraph,
+      ImmutableSet<Node> stronglyConnectedComponent) {
+    // The path from the target back to the source closes the cycle. Any such path stays within the
+    // endpoints' strongly connected component, so only search that component.
+    return Cycle.fromPath(
+        shortestPath(
+            node ->
+                Iterables.filter(
+                    dependencyGraph.successors(node), stronglyConnectedComponent::contains),
+            endpoints.target(),
+            endpoints.source()));
   }
 
   /**
@@ -46,6 +46,11 @@ final class ProvisionDependencyOnProducerBindingValidator extends ValidationBind
     return "Dagger/ProviderDependsOnProducer";
   }
 
+  @Override
+  public boolean visitsGraphConcurrently() {
+    return true;
+  }
+
   @Override
   public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
     provisionDependenciesOnProductionBindings(bindingGraph)
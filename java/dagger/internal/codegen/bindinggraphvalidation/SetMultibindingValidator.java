@@ -44,6 +44,11 @@ final class SetMultibindingValidator extends ValidationBindingGraphPlugin {
     return "Dagger/SetMultibinding";
   }
 
+  @Override
+  public boolean visitsGraphConcurrently() {
+    return true;
+  }
+
   @Override
   public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
     bindingGraph.bindings().stream()
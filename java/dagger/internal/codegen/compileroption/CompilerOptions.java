@@ -17,6 +17,7 @@
 package dagger.internal.codegen.compileroption;
 
 import androidx.room.compiler.processing.XTypeElement;
+import java.util.Optional;
 import javax.tools.Diagnostic;
 
 /** A collection of options that dictate how the compiler will run. */
@@ -35,8 +36,68 @@ public abstract class CompilerOptions {
 
   public abstract boolean formatGeneratedSource();
 
+  /**
+   * Returns {@code true} if generated source files are formatted as they're written. Source isn't
+   * formatted for header compilations, even if {@link #formatGeneratedSource()} is enabled.
+   */
+  public final boolean formatsWrittenSource() {
+    return formatGeneratedSource() && !headerCompilation();
+  }
+
   public abstract boolean writeProducerNameInToken();
 
+  /**
+   * Returns {@code true} if production components should record the dependencies between their
+   * producer methods in a {@code dagger.producers.monitoring.ProducerGraph} that monitors can
+   * retrieve at runtime.
+   */
+  public abstract boolean producerGraphMetadata();
+
+  /**
+   * Returns {@code true} if production components should create the producers for their {@code
+   * Produces} methods with a few switching classes nested in the component, instead of loading a
+   * generated factory class for each method.
+   *
+   * <p>This is similar to {@link #fastInit(XTypeElement)} for provision bindings, and reduces the
+   * number of classes that are loaded when a production component is first created.
+   */
+  public abstract boolean switchingProducers();
+
+  /**
+   * Returns {@code true} if the generated producers for {@code Produces} methods should report
+   * whether each of their {@code Producer<T>} parameters is requested, and let production component
+   * monitors start those parameters before the method runs.
+   */
+  public abstract boolean speculativePrefetch();
+
+  /**
+   * Returns {@code true} if the source of generated components should be rendered and formatted on
+   * a pool of threads, while the processor goes on to the next component. The files are still
+   * written on the processing thread, with the same contents and in the same order as without this
+   * option.
+   *
+   * <p>Only rendering and formatting run in parallel. Binding graphs are still resolved and
+   * validated on the processing thread, so this can at most save the {@code generation} phase of
+   * the {@code -Adagger.timingReport}, less the cost of starting a pool in each round. It isn't
+   * enabled by default, since that gain hasn't been measured.
+   */
+  public abstract boolean parallelComponentRendering();
+
+  /**
+   * Returns {@code true} if Dagger's own validation plugins that declare they can visit graphs
+   * concurrently should do so on a pool of threads, while the other plugins visit on the processing
+   * thread. External {@code BindingGraphPlugin}s always visit on the processing thread. Diagnostics
+   * are still reported in the order of the plugins.
+   */
+  public abstract boolean concurrentPluginVisits();
+
+  /**
+   * Returns {@code true} if component shards and partitioned initialization methods should be
+   * split by the estimated bytecode size of their contents rather than by a fixed number of
+   * bindings or statements.
+   */
+  public abstract boolean bytecodeSizeSharding();
+
   public abstract Diagnostic.Kind nullableValidationKind();
 
   public final boolean doCheckForNulls() {
@@ -129,6 +190,26 @@ public abstract class CompilerOptions {
    */
   public abstract boolean generatedClassExtendsComponent();
 
+  /**
+   * Returns the path of the file that the processor writes its timing report to, if {@code
+   * dagger.timingReport} is set. The report records the wall time and allocated bytes of each
+   * processing step, component and binding graph plugin.
+   */
+  public Optional<String> timingReport() {
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the path of the startup profile given by {@code dagger.startupProfile}, if set. The
+   * profile lists the keys that an application requests during startup. Their bindings are moved
+   * into the component class rather than a shard, and get the first {@code SwitchingProvider} ids.
+   * It doesn't change when shards or bindings are initialized: every shard is still created in the
+   * component's constructor.
+   */
+  public Optional<String> startupProfile() {
+    return Optional.empty();
+  }
+
   /** Returns the number of bindings allowed per shard. */
   public int keysPerComponentShard(XTypeElement component) {
     return 3500;
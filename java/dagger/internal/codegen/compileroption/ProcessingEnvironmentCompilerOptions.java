@@ -22,6 +22,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Sets.immutableEnumSet;
 import static dagger.internal.codegen.compileroption.FeatureStatus.DISABLED;
 import static dagger.internal.codegen.compileroption.FeatureStatus.ENABLED;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.BYTECODE_SIZE_SHARDING;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.CONCURRENT_PLUGIN_VISITS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.EXPERIMENTAL_AHEAD_OF_TIME_SUBCOMPONENTS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.EXPERIMENTAL_ANDROID_MODE;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.EXPERIMENTAL_DAGGER_ERROR_MESSAGES;
@@ -32,9 +34,13 @@ import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompil
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.IGNORE_PROVISION_KEY_WILDCARDS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.INCLUDE_STACKTRACE_WITH_DEFERRED_ERROR_MESSAGES;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PARALLEL_COMPONENT_RENDERING;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PLUGINS_VISIT_FULL_BINDING_GRAPHS;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.PRODUCER_GRAPH_METADATA;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.SPECULATIVE_PREFETCH;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_MULTIBINDING_VALIDATION;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.STRICT_SUPERFICIAL_VALIDATION;
+import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.SWITCHING_PRODUCERS;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.VALIDATE_TRANSITIVE_COMPONENT_DEPENDENCIES;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.WARN_IF_INJECTION_FACTORY_NOT_GENERATED_UPSTREAM;
 import static dagger.internal.codegen.compileroption.ProcessingEnvironmentCompilerOptions.Feature.WRITE_PRODUCER_NAME_IN_TOKEN;
@@ -76,6 +82,8 @@ import javax.tools.Diagnostic;
 public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions {
   // EnumOption<T> doesn't support integer inputs so just doing this as a 1-off for now.
   private static final String KEYS_PER_COMPONENT_SHARD = "dagger.keysPerComponentShard";
+  private static final String TIMING_REPORT = "dagger.timingReport";
+  private static final String STARTUP_PROFILE = "dagger.startupProfile";
 
   private final XProcessingEnv processingEnv;
   private final XMessager messager;
@@ -124,6 +132,36 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return isEnabled(WRITE_PRODUCER_NAME_IN_TOKEN);
   }
 
+  @Override
+  public boolean producerGraphMetadata() {
+    return isEnabled(PRODUCER_GRAPH_METADATA);
+  }
+
+  @Override
+  public boolean switchingProducers() {
+    return isEnabled(SWITCHING_PRODUCERS);
+  }
+
+  @Override
+  public boolean speculativePrefetch() {
+    return isEnabled(SPECULATIVE_PREFETCH);
+  }
+
+  @Override
+  public boolean parallelComponentRendering() {
+    return isEnabled(PARALLEL_COMPONENT_RENDERING);
+  }
+
+  @Override
+  public boolean concurrentPluginVisits() {
+    return isEnabled(CONCURRENT_PLUGIN_VISITS);
+  }
+
+  @Override
+  public boolean bytecodeSizeSharding() {
+    return isEnabled(BYTECODE_SIZE_SHARDING);
+  }
+
   @Override
   public Diagnostic.Kind nullableValidationKind() {
     return diagnosticKind(NULLABLE_VALIDATION);
@@ -220,6 +258,16 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
     return super.keysPerComponentShard(component);
   }
 
+  @Override
+  public Optional<String> timingReport() {
+    return Optional.ofNullable(options.get(TIMING_REPORT)).filter(path -> !path.isEmpty());
+  }
+
+  @Override
+  public Optional<String> startupProfile() {
+    return Optional.ofNullable(options.get(STARTUP_PROFILE)).filter(path -> !path.isEmpty());
+  }
+
   private boolean isEnabled(KeyOnlyOption keyOnlyOption) {
     return options.containsKey(keyOnlyOption.toString());
   }
@@ -321,6 +369,18 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
 
     WRITE_PRODUCER_NAME_IN_TOKEN,
 
+    PRODUCER_GRAPH_METADATA,
+
+    SWITCHING_PRODUCERS,
+
+    SPECULATIVE_PREFETCH,
+
+    PARALLEL_COMPONENT_RENDERING,
+
+    CONCURRENT_PLUGIN_VISITS,
+
+    BYTECODE_SIZE_SHARDING,
+
     WARN_IF_INJECTION_FACTORY_NOT_GENERATED_UPSTREAM,
 
     INCLUDE_STACKTRACE_WITH_DEFERRED_ERROR_MESSAGES,
@@ -450,6 +510,8 @@ public final class ProcessingEnvironmentCompilerOptions extends CompilerOptions
             .flatMap(CommandLineOption::allNames)
             .collect(toImmutableSet()))
         .add(KEYS_PER_COMPONENT_SHARD)
+        .add(TIMING_REPORT)
+        .add(STARTUP_PROFILE)
         .build();
   }
 
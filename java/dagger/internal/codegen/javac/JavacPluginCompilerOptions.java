@@ -51,6 +51,36 @@ final class JavacPluginCompilerOptions extends CompilerOptions {
     return true;
   }
 
+  @Override
+  public boolean producerGraphMetadata() {
+    return false;
+  }
+
+  @Override
+  public boolean switchingProducers() {
+    return false;
+  }
+
+  @Override
+  public boolean speculativePrefetch() {
+    return false;
+  }
+
+  @Override
+  public boolean parallelComponentRendering() {
+    return false;
+  }
+
+  @Override
+  public boolean concurrentPluginVisits() {
+    return false;
+  }
+
+  @Override
+  public boolean bytecodeSizeSharding() {
+    return false;
+  }
+
   @Override
   public Diagnostic.Kind nullableValidationKind() {
     return NOTE;
@@ -83,14 +83,29 @@ public final class TypeNames {
       ClassName.get("dagger.producers.internal", "AbstractProducer");
   public static final ClassName ABSTRACT_PRODUCES_METHOD_PRODUCER =
       ClassName.get("dagger.producers.internal", "AbstractProducesMethodProducer");
+  public static final ClassName ADMISSION_CONTROL =
+      ClassName.get("dagger.producers", "AdmissionControl");
+  public static final ClassName ADMISSION_CONTROLLER =
+      ClassName.get("dagger.producers.internal", "AdmissionController");
+  public static final ClassName ADMISSION_CONTROLLER_EXECUTION =
+      ADMISSION_CONTROLLER.nestedClass("Execution");
+  public static final ClassName BULKHEAD = ClassName.get("dagger.producers", "Bulkhead");
+  public static final ClassName BULKHEAD_GROUP =
+      ClassName.get("dagger.producers.internal", "BulkheadGroup");
+  public static final ClassName BULKHEAD_SATURATION = BULKHEAD.nestedClass("Saturation");
   public static final ClassName CANCELLATION_LISTENER =
       ClassName.get("dagger.producers.internal", "CancellationListener");
   public static final ClassName CANCELLATION_POLICY =
       ClassName.get("dagger.producers", "CancellationPolicy");
+  public static final ClassName COMPONENT_TASK_SCOPE =
+      ClassName.get("dagger.producers.internal", "ComponentTaskScope");
   public static final ClassName DELEGATE_PRODUCER =
       ClassName.get("dagger.producers.internal", "DelegateProducer");
   public static final ClassName DEPENDENCY_METHOD_PRODUCER =
       ClassName.get("dagger.producers.internal", "DependencyMethodProducer");
+  public static final ClassName HEDGED = ClassName.get("dagger.producers", "Hedged");
+  public static final ClassName HEDGE_POLICY =
+      ClassName.get("dagger.producers.internal", "HedgePolicy");
   public static final ClassName MAP_OF_PRODUCED_PRODUCER =
       ClassName.get("dagger.producers.internal", "MapOfProducedProducer");
   public static final ClassName MAP_OF_PRODUCER_PRODUCER =
@@ -122,6 +137,10 @@ public final class TypeNames {
       PRODUCTION_SUBCOMPONENT.nestedClass("Builder");
   public static final ClassName PRODUCTION_SUBCOMPONENT_FACTORY =
       PRODUCTION_SUBCOMPONENT.nestedClass("Factory");
+  public static final ClassName PRODUCER_GRAPH =
+      ClassName.get("dagger.producers.monitoring", "ProducerGraph");
+  public static final ClassName PRODUCER_GRAPH_COMPONENT =
+      ClassName.get("dagger.producers.monitoring.internal", "ProducerGraphComponent");
   public static final ClassName PRODUCER_TOKEN =
       ClassName.get("dagger.producers.monitoring", "ProducerToken");
   public static final ClassName PRODUCTION_COMPONENT_MONITOR =
@@ -134,6 +153,12 @@ public final class TypeNames {
       ClassName.get("dagger.producers.internal", "SetProducer");
   public static final ClassName PRODUCTION_SCOPE =
       ClassName.get("dagger.producers", "ProductionScope");
+  public static final ClassName PRODUCTION_TASK_SCOPE =
+      ClassName.get("dagger.producers", "ProductionTaskScope");
+  public static final ClassName PRODUCTION_TASK_SCOPE_COMPONENT =
+      ClassName.get("dagger.producers.internal", "ProductionTaskScopeComponent");
+  public static final ClassName STRUCTURED_CONCURRENCY =
+      ClassName.get("dagger.producers", "StructuredConcurrency");
 
   // Other classnames
   public static final ClassName EXECUTOR = ClassName.get("java.util.concurrent", "Executor");
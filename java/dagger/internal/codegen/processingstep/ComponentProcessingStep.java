@@ -21,16 +21,21 @@ import static dagger.internal.codegen.base.ComponentAnnotation.allComponentAnnot
 import static dagger.internal.codegen.base.ComponentAnnotation.rootComponentAnnotations;
 import static dagger.internal.codegen.base.ComponentAnnotation.subcomponentAnnotations;
 import static dagger.internal.codegen.base.ComponentCreatorAnnotation.allCreatorAnnotations;
+import static dagger.internal.codegen.base.TimingReport.Kind.COMPONENT;
 import static java.util.Collections.disjoint;
 
+import androidx.room.compiler.processing.XElement;
 import androidx.room.compiler.processing.XMessager;
+import androidx.room.compiler.processing.XProcessingEnv;
 import androidx.room.compiler.processing.XTypeElement;
 import com.google.auto.common.BasicAnnotationProcessor.ProcessingStep;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 import com.squareup.javapoet.ClassName;
+import dagger.internal.codegen.base.ParallelSourceFileWriter;
 import dagger.internal.codegen.base.SourceFileGenerator;
+import dagger.internal.codegen.base.TimingReport;
 import dagger.internal.codegen.binding.BindingGraph;
 import dagger.internal.codegen.binding.BindingGraphFactory;
 import dagger.internal.codegen.binding.ComponentDescriptor;
@@ -39,6 +44,7 @@ import dagger.internal.codegen.validation.ComponentCreatorValidator;
 import dagger.internal.codegen.validation.ComponentDescriptorValidator;
 import dagger.internal.codegen.validation.ComponentValidator;
 import dagger.internal.codegen.validation.ValidationReport;
+import java.util.Map;
 import java.util.Set;
 import javax.inject.Inject;
 
@@ -55,6 +61,7 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
   private final BindingGraphFactory bindingGraphFactory;
   private final SourceFileGenerator<BindingGraph> componentGenerator;
   private final BindingGraphValidator bindingGraphValidator;
+  private final ParallelSourceFileWriter parallelSourceFileWriter;
 
   @Inject
   ComponentProcessingStep(
@@ -65,7 +72,8 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
       ComponentDescriptor.Factory componentDescriptorFactory,
       BindingGraphFactory bindingGraphFactory,
       SourceFileGenerator<BindingGraph> componentGenerator,
-      BindingGraphValidator bindingGraphValidator) {
+      BindingGraphValidator bindingGraphValidator,
+      ParallelSourceFileWriter parallelSourceFileWriter) {
     this.messager = messager;
     this.componentValidator = componentValidator;
     this.creatorValidator = creatorValidator;
@@ -74,6 +82,7 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
     this.bindingGraphFactory = bindingGraphFactory;
     this.componentGenerator = componentGenerator;
     this.bindingGraphValidator = bindingGraphValidator;
+    this.parallelSourceFileWriter = parallelSourceFileWriter;
   }
 
   @Override
@@ -81,6 +90,14 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
     return union(allComponentAnnotations(), allCreatorAnnotations());
   }
 
+  @Override
+  public ImmutableSet<XElement> process(
+      XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
+    ImmutableSet<XElement> deferredElements = super.process(env, elementsByAnnotation);
+    parallelSourceFileWriter.writePendingFiles(messager);
+    return deferredElements;
+  }
+
   @Override
   protected void process(XTypeElement element, ImmutableSet<ClassName> annotations) {
     if (!disjoint(annotations, rootComponentAnnotations())) {
@@ -95,50 +112,91 @@ final class ComponentProcessingStep extends TypeCheckingProcessingStep<XTypeElem
   }
 
   private void processRootComponent(XTypeElement component) {
-    if (!isComponentValid(component)) {
-      return;
+    String name = component.getQualifiedName();
+    try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "componentValidation")) {
+      if (!isComponentValid(component)) {
+        return;
+      }
     }
-    ComponentDescriptor componentDescriptor =
-        componentDescriptorFactory.rootComponentDescriptor(component);
-    if (!isValid(componentDescriptor)) {
-      return;
+    ComponentDescriptor componentDescriptor;
+    try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "componentDescriptor")) {
+      componentDescriptor = componentDescriptorFactory.rootComponentDescriptor(component);
+    }
+    try (TimingReport.Timer timer =
+        timingReport.start(COMPONENT, name, "componentDescriptorValidation")) {
+      if (!isValid(componentDescriptor)) {
+        return;
+      }
     }
 
     Supplier<dagger.internal.codegen.model.BindingGraph> fullBindingGraphSupplier =
-        Suppliers.memoize(
-            () -> bindingGraphFactory.create(componentDescriptor, true).topLevelBindingGraph());
+        Suppliers.memoize(() -> createFullBindingGraph(name, componentDescriptor));
     if (bindingGraphValidator.shouldDoFullBindingGraphValidation(component)) {
-      if (!bindingGraphValidator.isValid(fullBindingGraphSupplier.get())) {
-        return;
+      dagger.internal.codegen.model.BindingGraph fullBindingGraph = fullBindingGraphSupplier.get();
+      try (TimingReport.Timer timer =
+          timingReport.start(COMPONENT, name, "fullBindingGraphValidation")) {
+        if (!bindingGraphValidator.isValid(fullBindingGraph)) {
+          return;
+        }
       }
     }
 
-    BindingGraph bindingGraph = bindingGraphFactory.create(componentDescriptor, false);
-    if (bindingGraphValidator.isValid(
-        bindingGraph.topLevelBindingGraph(), fullBindingGraphSupplier)) {
-      generateComponent(bindingGraph);
+    BindingGraph bindingGraph;
+    try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "bindingGraph")) {
+      bindingGraph = bindingGraphFactory.create(componentDescriptor, false);
+    }
+    boolean isValid;
+    try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "bindingGraphValidation")) {
+      isValid =
+          bindingGraphValidator.isValid(
+              bindingGraph.topLevelBindingGraph(), fullBindingGraphSupplier);
+    }
+    if (isValid) {
+      try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "generation")) {
+        generateComponent(bindingGraph);
+      }
+    }
+  }
+
+  private dagger.internal.codegen.model.BindingGraph createFullBindingGraph(
+      String name, ComponentDescriptor componentDescriptor) {
+    try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "fullBindingGraph")) {
+      return bindingGraphFactory.create(componentDescriptor, true).topLevelBindingGraph();
     }
   }
 
   private void processSubcomponent(XTypeElement subcomponent) {
-    if (!isComponentValid(subcomponent)) {
-      return;
+    String name = subcomponent.getQualifiedName();
+    try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "componentValidation")) {
+      if (!isComponentValid(subcomponent)) {
+        return;
+      }
     }
     // TODO(dpb): ComponentDescriptorValidator for subcomponents, as we do for root components.
-    ComponentDescriptor subcomponentDescriptor =
-        componentDescriptorFactory.subcomponentDescriptor(subcomponent);
+    ComponentDescriptor subcomponentDescriptor;
+    try (TimingReport.Timer timer = timingReport.start(COMPONENT, name, "componentDescriptor")) {
+      subcomponentDescriptor = componentDescriptorFactory.subcomponentDescriptor(subcomponent);
+    }
     if (!bindingGraphValidator.shouldDoFullBindingGraphValidation(subcomponent)) {
       return;
     }
-    BindingGraph fullBindingGraph = bindingGraphFactory.create(subcomponentDescriptor, true);
+    dagger.internal.codegen.model.BindingGraph fullBindingGraph =
+        createFullBindingGraph(name, subcomponentDescriptor);
     // In this case, we don't actually care about the return value. The important part here is that
     // BindingGraphValidator#isValid() runs all of the SPI plugins and reports any errors.
     // TODO(bcorso): Add a separate API with no return value for this particular case.
-    boolean unusedIsValid = bindingGraphValidator.isValid(fullBindingGraph.topLevelBindingGraph());
+    try (TimingReport.Timer timer =
+        timingReport.start(COMPONENT, name, "fullBindingGraphValidation")) {
+      boolean unusedIsValid = bindingGraphValidator.isValid(fullBindingGraph);
+    }
   }
 
   private void generateComponent(BindingGraph bindingGraph) {
-    componentGenerator.generate(bindingGraph, messager);
+    if (compilerOptions.parallelComponentRendering()) {
+      parallelSourceFileWriter.generate(componentGenerator, bindingGraph, messager);
+    } else {
+      componentGenerator.generate(bindingGraph, messager);
+    }
   }
 
   private void processCreator(XTypeElement creator) {
@@ -19,6 +19,7 @@ package dagger.internal.codegen.processingstep;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.getStackTraceAsString;
 import static com.google.common.collect.Sets.difference;
+import static dagger.internal.codegen.base.TimingReport.Kind.STEP;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableMap;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static javax.tools.Diagnostic.Kind.ERROR;
@@ -33,6 +34,7 @@ import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Maps;
 import com.squareup.javapoet.ClassName;
 import dagger.internal.codegen.base.DaggerSuperficialValidation.ValidationException;
+import dagger.internal.codegen.base.TimingReport;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.xprocessing.XElements;
 import java.util.ArrayList;
@@ -51,13 +53,13 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
   @Inject XMessager messager;
   @Inject CompilerOptions compilerOptions;
   @Inject SuperficialValidator superficialValidator;
+  @Inject TimingReport timingReport;
 
   @Override
   public final ImmutableSet<String> annotations() {
     return annotationClassNames().stream().map(ClassName::canonicalName).collect(toImmutableSet());
   }
 
-  @SuppressWarnings("unchecked") // Subclass must ensure all annotated targets are of valid type.
   @Override
   public ImmutableSet<XElement> process(
       XProcessingEnv env, Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
@@ -65,6 +67,14 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
     // Thus, we can clear the values stored from the previous processing round since that clearly
     // wasn't the final round, and we replace it with any deferred error messages from this round.
     lastDeferredErrorMessages.clear();
+    try (TimingReport.Timer timer = timingReport.start(STEP, stepName(), "process")) {
+      return processElements(elementsByAnnotation);
+    }
+  }
+
+  @SuppressWarnings("unchecked") // Subclass must ensure all annotated targets are of valid type.
+  private ImmutableSet<XElement> processElements(
+      Map<String, ? extends Set<? extends XElement>> elementsByAnnotation) {
     ImmutableSet.Builder<XElement> deferredElements = ImmutableSet.builder();
     inverse(elementsByAnnotation)
         .forEach(
@@ -77,7 +87,10 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
                 //  type, we should try to remove this and handle any additional validation into the
                 //  steps that need it.
                 if (requiresPreValidation()) {
-                  superficialValidator.throwIfNearestEnclosingTypeNotValid(element);
+                  try (TimingReport.Timer timer =
+                      timingReport.start(STEP, stepName(), "superficialValidation")) {
+                    superficialValidator.throwIfNearestEnclosingTypeNotValid(element);
+                  }
                 }
                 process((E) element, annotations);
               } catch (TypeNotPresentException e) {
@@ -100,6 +113,10 @@ abstract class TypeCheckingProcessingStep<E extends XElement> implements XProces
     return deferredElements.build();
   }
 
+  private String stepName() {
+    return getClass().getSimpleName();
+  }
+
   /**
    * Returns {@code true} if this processing step requires pre-validation of the annotated element's
    * nearest enclosing type element.
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen.validation;
+
+import dagger.internal.codegen.model.BindingGraph.ChildFactoryMethodEdge;
+import dagger.internal.codegen.model.BindingGraph.ComponentNode;
+import dagger.internal.codegen.model.BindingGraph.DependencyEdge;
+import dagger.internal.codegen.model.BindingGraph.MaybeBinding;
+import dagger.internal.codegen.model.DiagnosticReporter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.tools.Diagnostic;
+
+/**
+ * A {@link DiagnosticReporter} that records the diagnostics reported to it, so that a plugin can
+ * report them from another thread and they can be {@linkplain #replayTo replayed} later on the
+ * processing thread.
+ */
+final class BufferingDiagnosticReporter extends DiagnosticReporter {
+  private final List<Consumer<DiagnosticReporter>> diagnostics = new ArrayList<>();
+
+  /** Reports the recorded diagnostics to {@code reporter}, in the order they were reported. */
+  void replayTo(DiagnosticReporter reporter) {
+    diagnostics.forEach(diagnostic -> diagnostic.accept(reporter));
+  }
+
+  @Override
+  public synchronized void reportComponent(
+      Diagnostic.Kind diagnosticKind, ComponentNode componentNode, String message) {
+    diagnostics.add(reporter -> reporter.reportComponent(diagnosticKind, componentNode, message));
+  }
+
+  @Override
+  public synchronized void reportBinding(
+      Diagnostic.Kind diagnosticKind, MaybeBinding binding, String message) {
+    diagnostics.add(reporter -> reporter.reportBinding(diagnosticKind, binding, message));
+  }
+
+  @Override
+  public synchronized void reportDependency(
+      Diagnostic.Kind diagnosticKind, DependencyEdge dependencyEdge, String message) {
+    diagnostics.add(reporter -> reporter.reportDependency(diagnosticKind, dependencyEdge, message));
+  }
+
+  @Override
+  public synchronized void reportSubcomponentFactoryMethod(
+      Diagnostic.Kind diagnosticKind,
+      ChildFactoryMethodEdge childFactoryMethodEdge,
+      String message) {
+    diagnostics.add(
+        reporter ->
+            reporter.reportSubcomponentFactoryMethod(
+                diagnosticKind, childFactoryMethodEdge, message));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.validation;
+
+import static dagger.internal.codegen.xprocessing.XElements.closestEnclosingTypeElement;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
+
+import androidx.room.compiler.processing.XMethodElement;
+import com.google.auto.value.AutoValue;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * The {@link dagger.producers.Bulkhead @Bulkhead} groups declared by the {@code @Produces} methods
+ * validated in this compilation, used to check that each group has a single {@code maxInFlight}.
+ */
+@Singleton
+final class BulkheadGroupDeclarations {
+  private final Map<String, Declaration> declarations = new HashMap<>();
+
+  @Inject
+  BulkheadGroupDeclarations() {}
+
+  /**
+   * Records that {@code method} declares the group {@code name} with {@code maxInFlight}, and
+   * returns the name of the method that first declared the group with a different {@code
+   * maxInFlight}, if any.
+   */
+  Optional<String> conflictingDeclaration(String name, int maxInFlight, XMethodElement method) {
+    Declaration declaration =
+        declarations.computeIfAbsent(
+            name,
+            unused ->
+                new AutoValue_BulkheadGroupDeclarations_Declaration(
+                    maxInFlight,
+                    String.format(
+                        "%s.%s",
+                        closestEnclosingTypeElement(method).getQualifiedName(),
+                        getSimpleName(method))));
+    if (declaration.maxInFlight() == maxInFlight) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        String.format("%s with maxInFlight %s", declaration.method(), declaration.maxInFlight()));
+  }
+
+  @AutoValue
+  abstract static class Declaration {
+    abstract int maxInFlight();
+
+    abstract String method();
+  }
+}
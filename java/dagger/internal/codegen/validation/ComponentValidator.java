@@ -170,6 +170,8 @@ public final class ComponentValidator implements ClearableCache {
       }
       validateFields();
       validateUseOfCancellationPolicy();
+      validateUseOfAdmissionControl();
+      validateUseOfStructuredConcurrency();
       validateIsAbstractType();
       validateCreators();
       validateNoReusableAnnotation();
@@ -197,6 +199,29 @@ public final class ComponentValidator implements ClearableCache {
       }
     }
 
+    private void validateUseOfAdmissionControl() {
+      XAnnotation admissionControl = component.getAnnotation(TypeNames.ADMISSION_CONTROL);
+      if (admissionControl == null) {
+        return;
+      }
+      if (!componentKind().isProducer()) {
+        report.addError(
+            "@AdmissionControl may only be applied to production components and subcomponents",
+            component);
+      } else if (admissionControl.getAsInt("maxConcurrentExecutions") <= 0) {
+        report.addError("@AdmissionControl maxConcurrentExecutions must be positive", component);
+      }
+    }
+
+    private void validateUseOfStructuredConcurrency() {
+      if (component.hasAnnotation(TypeNames.STRUCTURED_CONCURRENCY)
+          && !componentKind().isProducer()) {
+        report.addError(
+            "@StructuredConcurrency may only be applied to production components and subcomponents",
+            component);
+      }
+    }
+
     private void validateIsAbstractType() {
       if (!component.isAbstract()) {
         report.addError(invalidTypeError(), component);
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen.validation;
+
+import static dagger.internal.codegen.base.TimingReport.Kind.PLUGIN;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import dagger.internal.codegen.base.TimingReport;
+import dagger.internal.codegen.model.DiagnosticReporter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+
+/**
+ * Runs the visits of binding graph plugins for {@code -Adagger.concurrentPluginVisits}.
+ *
+ * <p>Each visit reports to its own {@link BufferingDiagnosticReporter}, whose diagnostics the
+ * caller replays on the processing thread in the order of its plugins. Visits of plugins that can
+ * visit concurrently run on a pool of threads; the others run on the processing thread, while the
+ * pool works on the concurrent ones.
+ */
+final class ConcurrentPluginVisits {
+  private final TimingReport timingReport;
+  private ExecutorService executor;
+
+  @Inject
+  ConcurrentPluginVisits(TimingReport timingReport) {
+    this.timingReport = timingReport;
+  }
+
+  /** Starts the visit of a plugin that can visit the graph on a pool thread. */
+  Future<BufferingDiagnosticReporter> submit(
+      String pluginName, String phase, Consumer<DiagnosticReporter> visit) {
+    return executor().submit(() -> run(pluginName, phase, visit));
+  }
+
+  /** Runs the visit of a plugin on this thread. */
+  Future<BufferingDiagnosticReporter> runNow(
+      String pluginName, String phase, Consumer<DiagnosticReporter> visit) {
+    return Futures.immediateFuture(run(pluginName, phase, visit));
+  }
+
+  private BufferingDiagnosticReporter run(
+      String pluginName, String phase, Consumer<DiagnosticReporter> visit) {
+    BufferingDiagnosticReporter buffer = new BufferingDiagnosticReporter();
+    try (TimingReport.Timer timer = timingReport.start(PLUGIN, pluginName, phase)) {
+      visit.accept(buffer);
+    }
+    return buffer;
+  }
+
+  /** Waits for a plugin's visit, and rethrows anything the plugin threw. */
+  static BufferingDiagnosticReporter getDone(Future<BufferingDiagnosticReporter> visit) {
+    try {
+      return Uninterruptibles.getUninterruptibly(visit);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private ExecutorService executor() {
+    if (executor == null) {
+      int threads = Runtime.getRuntime().availableProcessors();
+      ThreadPoolExecutor threadPool =
+          new ThreadPoolExecutor(
+              threads,
+              threads,
+              1,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-plugin-visitor-%d")
+                  .build());
+      // Let the threads die between components, rather than keeping them for the whole build.
+      threadPool.allowCoreThreadTimeOut(true);
+      executor = threadPool;
+    }
+    return executor;
+  }
+
+  /** Shuts down the pool, if any visits were submitted. */
+  void shutdown() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+}
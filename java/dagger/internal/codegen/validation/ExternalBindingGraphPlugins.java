@@ -17,6 +17,7 @@
 package dagger.internal.codegen.validation;
 
 import static androidx.room.compiler.processing.compat.XConverters.toJavac;
+import static dagger.internal.codegen.base.TimingReport.Kind.PLUGIN;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
@@ -25,6 +26,7 @@ import androidx.room.compiler.processing.XProcessingEnv;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import dagger.internal.codegen.base.TimingReport;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
 import dagger.internal.codegen.validation.DiagnosticReporterFactory.DiagnosticReporterImpl;
 import dagger.spi.DiagnosticReporter;
@@ -43,6 +45,7 @@ public final class ExternalBindingGraphPlugins {
   private final XFiler filer;
   private final XProcessingEnv processingEnv;
   private final Map<String, String> processingOptions;
+  private final TimingReport timingReport;
 
   @Inject
   ExternalBindingGraphPlugins(
@@ -51,13 +54,15 @@ public final class ExternalBindingGraphPlugins {
       DiagnosticReporterFactory diagnosticReporterFactory,
       XFiler filer,
       XProcessingEnv processingEnv,
-      @ProcessingOptions Map<String, String> processingOptions) {
+      @ProcessingOptions Map<String, String> processingOptions,
+      TimingReport timingReport) {
     this.legacyPlugins = legacyPlugins;
     this.plugins = plugins;
     this.diagnosticReporterFactory = diagnosticReporterFactory;
     this.filer = filer;
     this.processingEnv = processingEnv;
     this.processingOptions = processingOptions;
+    this.timingReport = timingReport;
   }
 
   /** Returns {@link BindingGraphPlugin#supportedOptions()} from all the plugins. */
@@ -110,7 +115,10 @@ public final class ExternalBindingGraphPlugins {
       DiagnosticReporterImpl reporter =
           diagnosticReporterFactory.reporter(graph, legacyPlugin.pluginName());
       DiagnosticReporter legacyReporter = ModelBindingGraphConverter.toModel(reporter);
-      legacyPlugin.visitGraph(legacyGraph, legacyReporter);
+      try (TimingReport.Timer timer =
+          timingReport.start(PLUGIN, legacyPlugin.pluginName(), "visitGraph")) {
+        legacyPlugin.visitGraph(legacyGraph, legacyReporter);
+      }
       if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
         isClean = false;
       }
@@ -124,7 +132,10 @@ public final class ExternalBindingGraphPlugins {
     for (BindingGraphPlugin plugin : plugins) {
       DiagnosticReporterImpl reporter =
           diagnosticReporterFactory.reporter(graph, plugin.pluginName());
-      plugin.visitGraph(spiGraph, SpiModelBindingGraphConverter.toSpiModel(reporter));
+      try (TimingReport.Timer timer =
+          timingReport.start(PLUGIN, plugin.pluginName(), "visitGraph")) {
+        plugin.visitGraph(spiGraph, SpiModelBindingGraphConverter.toSpiModel(reporter));
+      }
       if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
         isClean = false;
       }
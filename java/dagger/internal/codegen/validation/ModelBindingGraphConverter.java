@@ -19,10 +19,12 @@ package dagger.internal.codegen.validation;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableMap;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSetMultimap;
 
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.ImmutableNetwork;
@@ -52,7 +54,10 @@ import dagger.model.Key.MultibindingContributionIdentifier;
 import dagger.model.RequestKind;
 import dagger.model.Scope;
 import dagger.spi.DiagnosticReporter;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.tools.Diagnostic;
 
 /** A Utility class for converting to the {@link BindingGraph} used by external plugins. */
@@ -70,32 +75,6 @@ public final class ModelBindingGraphConverter {
     return BindingGraphImpl.create(graph);
   }
 
-  private static ImmutableNetwork<Node, Edge> toModel(
-      Network<
-              dagger.internal.codegen.model.BindingGraph.Node,
-              dagger.internal.codegen.model.BindingGraph.Edge>
-          internalNetwork) {
-    MutableNetwork<Node, Edge> network =
-        NetworkBuilder.directed().allowsParallelEdges(true).allowsSelfLoops(true).build();
-
-    ImmutableMap<dagger.internal.codegen.model.BindingGraph.Node, Node> fromInternalNodes =
-        internalNetwork.nodes().stream()
-            .collect(toImmutableMap(node -> node, ModelBindingGraphConverter::toModel));
-
-    for (Node node : fromInternalNodes.values()) {
-      network.addNode(node);
-    }
-    for (dagger.internal.codegen.model.BindingGraph.Edge edge : internalNetwork.edges()) {
-      EndpointPair<dagger.internal.codegen.model.BindingGraph.Node> edgePair =
-          internalNetwork.incidentNodes(edge);
-      network.addEdge(
-          fromInternalNodes.get(edgePair.source()),
-          fromInternalNodes.get(edgePair.target()),
-          toModel(edge));
-    }
-    return ImmutableNetwork.copyOf(network);
-  }
-
   private static Node toModel(dagger.internal.codegen.model.BindingGraph.Node node) {
     if (node instanceof dagger.internal.codegen.model.Binding) {
       return BindingNodeImpl.create((dagger.internal.codegen.model.Binding) node);
@@ -323,35 +302,147 @@ public final class ModelBindingGraphConverter {
     }
   }
 
+  /**
+   * A view of an internal {@link dagger.internal.codegen.model.BindingGraph}. Nodes and edges are
+   * converted when they are first returned, and then cached, so the complete {@link #network()} is
+   * only built if a plugin asks for it or for a query that needs it.
+   */
   @AutoValue
   abstract static class BindingGraphImpl extends BindingGraph {
     static BindingGraph create(dagger.internal.codegen.model.BindingGraph bindingGraph) {
-      BindingGraphImpl bindingGraphImpl =
-          new AutoValue_ModelBindingGraphConverter_BindingGraphImpl(
-              toModel(bindingGraph.network()), bindingGraph.isFullBindingGraph());
+      return new AutoValue_ModelBindingGraphConverter_BindingGraphImpl(
+          bindingGraph.isFullBindingGraph(), bindingGraph);
+    }
+
+    private final Map<dagger.internal.codegen.model.BindingGraph.Node, Node> nodes =
+        new ConcurrentHashMap<>();
+    private final Map<dagger.internal.codegen.model.BindingGraph.Edge, Edge> edges =
+        new ConcurrentHashMap<>();
 
-      bindingGraphImpl.componentNodesByPath =
-          bindingGraphImpl.componentNodes().stream()
-              .collect(toImmutableMap(ComponentNode::componentPath, node -> node));
+    abstract dagger.internal.codegen.model.BindingGraph delegate();
 
-      return bindingGraphImpl;
+    private Node node(dagger.internal.codegen.model.BindingGraph.Node node) {
+      return nodes.computeIfAbsent(node, ModelBindingGraphConverter::toModel);
     }
 
-    private ImmutableMap<ComponentPath, ComponentNode> componentNodesByPath;
+    private Edge edge(dagger.internal.codegen.model.BindingGraph.Edge edge) {
+      return edges.computeIfAbsent(edge, ModelBindingGraphConverter::toModel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <N extends Node> ImmutableSet<N> nodes(
+        Collection<? extends dagger.internal.codegen.model.BindingGraph.Node> internalNodes) {
+      return internalNodes.stream().map(node -> (N) node(node)).collect(toImmutableSet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Edge> ImmutableSet<E> edges(
+        Collection<? extends dagger.internal.codegen.model.BindingGraph.Edge> internalEdges) {
+      return internalEdges.stream().map(edge -> (E) edge(edge)).collect(toImmutableSet());
+    }
 
-    // This overrides dagger.model.BindingGraph with a more efficient implementation.
     @Override
-    public Optional<ComponentNode> componentNode(ComponentPath componentPath) {
-      return componentNodesByPath.containsKey(componentPath)
-          ? Optional.of(componentNodesByPath.get(componentPath))
-          : Optional.empty();
+    @Memoized
+    public ImmutableNetwork<Node, Edge> network() {
+      Network<
+              dagger.internal.codegen.model.BindingGraph.Node,
+              dagger.internal.codegen.model.BindingGraph.Edge>
+          internalNetwork = delegate().network();
+      MutableNetwork<Node, Edge> network =
+          NetworkBuilder.directed()
+              .allowsParallelEdges(true)
+              .allowsSelfLoops(true)
+              .expectedNodeCount(internalNetwork.nodes().size())
+              .expectedEdgeCount(internalNetwork.edges().size())
+              .build();
+      internalNetwork.nodes().forEach(node -> network.addNode(node(node)));
+      for (dagger.internal.codegen.model.BindingGraph.Edge edge : internalNetwork.edges()) {
+        EndpointPair<dagger.internal.codegen.model.BindingGraph.Node> edgePair =
+            internalNetwork.incidentNodes(edge);
+        network.addEdge(node(edgePair.source()), node(edgePair.target()), edge(edge));
+      }
+      return ImmutableNetwork.copyOf(network);
     }
 
+    // The overrides below answer from the internal graph, so they don't need the network.
+
     // This overrides dagger.model.BindingGraph to memoize the output.
     @Override
     @Memoized
     public ImmutableSetMultimap<Class<? extends Node>, ? extends Node> nodesByClass() {
-      return super.nodesByClass();
+      return ImmutableSetMultimap.<Class<? extends Node>, Node>builder()
+          .putAll(Binding.class, nodes(delegate().bindings()))
+          .putAll(MissingBinding.class, nodes(delegate().missingBindings()))
+          .putAll(ComponentNode.class, nodes(delegate().componentNodes()))
+          .build();
+    }
+
+    @Override
+    public ComponentNode rootComponentNode() {
+      return (ComponentNode) node(delegate().rootComponentNode());
+    }
+
+    @Memoized
+    ImmutableMap<ComponentPath, ComponentNode> componentNodesByPath() {
+      return componentNodes().stream()
+          .collect(toImmutableMap(ComponentNode::componentPath, node -> node));
+    }
+
+    @Override
+    public Optional<ComponentNode> componentNode(ComponentPath componentPath) {
+      return Optional.ofNullable(componentNodesByPath().get(componentPath));
+    }
+
+    @Override
+    public ImmutableSet<DependencyEdge> dependencyEdges() {
+      return edges(delegate().dependencyEdges());
+    }
+
+    @Override
+    public ImmutableSetMultimap<DependencyRequest, DependencyEdge> dependencyEdges(
+        Binding binding) {
+      if (!(binding instanceof BindingNodeImpl)) {
+        return super.dependencyEdges(binding);
+      }
+      ImmutableSet<DependencyEdge> dependencyEdges =
+          edges(delegate().dependencyEdges(((BindingNodeImpl) binding).delegate()).values());
+      return dependencyEdges.stream()
+          .collect(toImmutableSetMultimap(DependencyEdge::dependencyRequest, edge -> edge));
+    }
+
+    @Override
+    public ImmutableSet<DependencyEdge> entryPointEdges() {
+      return edges(delegate().entryPointEdges());
+    }
+
+    @Override
+    public ImmutableSet<MaybeBinding> entryPointBindings() {
+      return nodes(delegate().entryPointBindings());
+    }
+
+    @Override
+    public ImmutableSet<Binding> requestingBindings(MaybeBinding binding) {
+      return isInternal(binding)
+          ? nodes(delegate().requestingBindings(toInternal(binding)))
+          : super.requestingBindings(binding);
+    }
+
+    @Override
+    public ImmutableSet<Binding> requestedBindings(Binding binding) {
+      return binding instanceof BindingNodeImpl
+          ? nodes(delegate().requestedBindings(((BindingNodeImpl) binding).delegate()))
+          : super.requestedBindings(binding);
+    }
+
+    @Override
+    public ImmutableSet<MaybeBinding> requestedMaybeMissingBindings(Binding binding) {
+      return binding instanceof BindingNodeImpl
+          ? nodes(delegate().requestedMaybeMissingBindings(((BindingNodeImpl) binding).delegate()))
+          : super.requestedMaybeMissingBindings(binding);
+    }
+
+    private static boolean isInternal(MaybeBinding binding) {
+      return binding instanceof BindingNodeImpl || binding instanceof MissingBindingImpl;
     }
   }
 
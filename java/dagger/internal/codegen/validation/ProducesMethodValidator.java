@@ -17,16 +17,19 @@
 package dagger.internal.codegen.validation;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static dagger.internal.codegen.javapoet.TypeNames.isFutureType;
 import static dagger.internal.codegen.validation.BindingElementValidator.AllowsMultibindings.ALLOWS_MULTIBINDINGS;
 import static dagger.internal.codegen.validation.BindingElementValidator.AllowsScoping.NO_SCOPING;
 import static dagger.internal.codegen.validation.BindingMethodValidator.Abstractness.MUST_BE_CONCRETE;
 import static dagger.internal.codegen.validation.BindingMethodValidator.ExceptionSuperclass.EXCEPTION;
 import static dagger.internal.codegen.xprocessing.XTypes.isTypeOf;
 
+import androidx.room.compiler.processing.XAnnotation;
 import androidx.room.compiler.processing.XMethodElement;
 import androidx.room.compiler.processing.XProcessingEnv;
 import androidx.room.compiler.processing.XType;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.internal.codegen.binding.BulkheadDeclaration;
 import dagger.internal.codegen.binding.InjectionAnnotations;
 import dagger.internal.codegen.binding.Nullability;
 import dagger.internal.codegen.javapoet.TypeNames;
@@ -37,12 +40,14 @@ import javax.inject.Inject;
 
 /** A validator for {@link dagger.producers.Produces} methods. */
 final class ProducesMethodValidator extends BindingMethodValidator {
+  private final BulkheadGroupDeclarations bulkheadGroupDeclarations;
 
   @Inject
   ProducesMethodValidator(
       XProcessingEnv processingEnv,
       DependencyRequestValidator dependencyRequestValidator,
-      InjectionAnnotations injectionAnnotations) {
+      InjectionAnnotations injectionAnnotations,
+      BulkheadGroupDeclarations bulkheadGroupDeclarations) {
     super(
         TypeNames.PRODUCES,
         TypeNames.PRODUCER_MODULE,
@@ -53,6 +58,7 @@ final class ProducesMethodValidator extends BindingMethodValidator {
         processingEnv,
         dependencyRequestValidator,
         injectionAnnotations);
+    this.bulkheadGroupDeclarations = bulkheadGroupDeclarations;
   }
 
   @Override
@@ -82,6 +88,8 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     @Override
     protected void checkAdditionalMethodProperties() {
       checkNullable();
+      checkBulkhead();
+      checkHedged();
     }
 
     /**
@@ -95,6 +103,58 @@ final class ProducesMethodValidator extends BindingMethodValidator {
       }
     }
 
+    /**
+     * Adds an error if the method's {@link dagger.producers.Bulkhead @Bulkhead} is invalid, or if
+     * its group was declared with a different {@code maxInFlight} by another method.
+     */
+    private void checkBulkhead() {
+      BulkheadDeclaration.bulkheadAnnotation(method)
+          .ifPresent(
+              bulkhead -> {
+                String name = bulkhead.getAsString("value");
+                int maxInFlight = bulkhead.getAsInt("maxInFlight");
+                if (name.isEmpty()) {
+                  report.addError("@Bulkhead names must not be empty");
+                }
+                if (maxInFlight < 1) {
+                  report.addError("@Bulkhead maxInFlight must be positive");
+                }
+                if (!name.isEmpty() && maxInFlight >= 1) {
+                  bulkheadGroupDeclarations
+                      .conflictingDeclaration(name, maxInFlight, method)
+                      .ifPresent(
+                          other ->
+                              report.addError(
+                                  String.format(
+                                      "@Bulkhead(\"%s\") has maxInFlight %s, but is also "
+                                          + "declared by %s",
+                                      name, maxInFlight, other)));
+                }
+              });
+    }
+
+    /** Adds an error if the method's {@link dagger.producers.Hedged @Hedged} is invalid. */
+    private void checkHedged() {
+      if (!method.hasAnnotation(TypeNames.HEDGED)) {
+        return;
+      }
+      XAnnotation hedged = method.getAnnotation(TypeNames.HEDGED);
+      if (!isFutureType(method.getReturnType())) {
+        report.addError("@Hedged methods must return a ListenableFuture or FluentFuture");
+      }
+      if (hedged.getAsLong("delayMillis") < 0) {
+        report.addError("@Hedged delayMillis must not be negative");
+      }
+      double percentile = hedged.getAsDouble("percentile");
+      if (percentile < 0 || percentile >= 100) {
+        report.addError("@Hedged percentile must be at least 0 and less than 100");
+      }
+      if (BulkheadDeclaration.bulkheadAnnotation(method).isPresent()) {
+        // The second call can't be queued behind the bulkhead while the first is still running.
+        report.addError("@Hedged methods cannot also be annotated with @Bulkhead");
+      }
+    }
+
     /**
      * {@inheritDoc}
      *
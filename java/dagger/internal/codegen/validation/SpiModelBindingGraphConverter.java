@@ -24,6 +24,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableMap;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSetMultimap;
 
 import androidx.room.compiler.processing.XAnnotation;
 import androidx.room.compiler.processing.XElement;
@@ -35,6 +36,7 @@ import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.base.Equivalence;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.ImmutableNetwork;
@@ -75,7 +77,10 @@ import dagger.spi.model.DiagnosticReporter;
 import dagger.spi.model.Key;
 import dagger.spi.model.RequestKind;
 import dagger.spi.model.Scope;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
@@ -98,35 +103,6 @@ public final class SpiModelBindingGraphConverter {
     return BindingGraphImpl.create(graph, env);
   }
 
-  private static ImmutableNetwork<Node, Edge> toSpiModel(
-      Network<
-              dagger.internal.codegen.model.BindingGraph.Node,
-              dagger.internal.codegen.model.BindingGraph.Edge>
-          internalNetwork,
-      XProcessingEnv env) {
-    MutableNetwork<Node, Edge> network =
-        NetworkBuilder.directed().allowsParallelEdges(true).allowsSelfLoops(true).build();
-
-    ImmutableMap<dagger.internal.codegen.model.BindingGraph.Node, Node> fromInternalNodes =
-        internalNetwork.nodes().stream()
-            .collect(
-                toImmutableMap(
-                    node -> node, node -> SpiModelBindingGraphConverter.toSpiModel(node, env)));
-
-    for (Node node : fromInternalNodes.values()) {
-      network.addNode(node);
-    }
-    for (dagger.internal.codegen.model.BindingGraph.Edge edge : internalNetwork.edges()) {
-      EndpointPair<dagger.internal.codegen.model.BindingGraph.Node> edgePair =
-          internalNetwork.incidentNodes(edge);
-      network.addEdge(
-          fromInternalNodes.get(edgePair.source()),
-          fromInternalNodes.get(edgePair.target()),
-          toSpiModel(edge, env));
-    }
-    return ImmutableNetwork.copyOf(network);
-  }
-
   private static Node toSpiModel(
       dagger.internal.codegen.model.BindingGraph.Node node, XProcessingEnv env) {
     if (node instanceof dagger.internal.codegen.model.Binding) {
@@ -393,38 +369,160 @@ public final class SpiModelBindingGraphConverter {
     }
   }
 
+  /**
+   * A view of an internal {@link dagger.internal.codegen.model.BindingGraph}. Nodes and edges are
+   * converted when they are first returned, and then cached, so the complete {@link #network()} is
+   * only built if a plugin asks for it or for a query that needs it.
+   */
   @AutoValue
   abstract static class BindingGraphImpl extends BindingGraph {
     static BindingGraph create(
         dagger.internal.codegen.model.BindingGraph bindingGraph, XProcessingEnv env) {
-      BindingGraphImpl bindingGraphImpl =
-          new AutoValue_SpiModelBindingGraphConverter_BindingGraphImpl(
-              toSpiModel(bindingGraph.network(), env),
-              bindingGraph.isFullBindingGraph(),
-              Backend.valueOf(env.getBackend().name()));
+      return new AutoValue_SpiModelBindingGraphConverter_BindingGraphImpl(
+          bindingGraph.isFullBindingGraph(),
+          Backend.valueOf(env.getBackend().name()),
+          bindingGraph,
+          env);
+    }
+
+    private final Map<dagger.internal.codegen.model.BindingGraph.Node, Node> nodes =
+        new ConcurrentHashMap<>();
+    private final Map<dagger.internal.codegen.model.BindingGraph.Edge, Edge> edges =
+        new ConcurrentHashMap<>();
 
-      bindingGraphImpl.componentNodesByPath =
-          bindingGraphImpl.componentNodes().stream()
-              .collect(toImmutableMap(ComponentNode::componentPath, node -> node));
+    abstract dagger.internal.codegen.model.BindingGraph internalDelegate();
 
-      return bindingGraphImpl;
+    abstract XProcessingEnv env();
+
+    private Node node(dagger.internal.codegen.model.BindingGraph.Node node) {
+      return nodes.computeIfAbsent(node, n -> toSpiModel(n, env()));
     }
 
-    private ImmutableMap<ComponentPath, ComponentNode> componentNodesByPath;
+    private Edge edge(dagger.internal.codegen.model.BindingGraph.Edge edge) {
+      return edges.computeIfAbsent(edge, e -> toSpiModel(e, env()));
+    }
 
-    // This overrides dagger.model.BindingGraph with a more efficient implementation.
-    @Override
-    public Optional<ComponentNode> componentNode(ComponentPath componentPath) {
-      return componentNodesByPath.containsKey(componentPath)
-          ? Optional.of(componentNodesByPath.get(componentPath))
-          : Optional.empty();
+    @SuppressWarnings("unchecked")
+    private <N extends Node> ImmutableSet<N> nodes(
+        Collection<? extends dagger.internal.codegen.model.BindingGraph.Node> internalNodes) {
+      return internalNodes.stream().map(node -> (N) node(node)).collect(toImmutableSet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Edge> ImmutableSet<E> edges(
+        Collection<? extends dagger.internal.codegen.model.BindingGraph.Edge> internalEdges) {
+      return internalEdges.stream().map(edge -> (E) edge(edge)).collect(toImmutableSet());
     }
 
-    // This overrides dagger.model.BindingGraph to memoize the output.
+    @Override
+    @Memoized
+    public ImmutableNetwork<Node, Edge> network() {
+      Network<
+              dagger.internal.codegen.model.BindingGraph.Node,
+              dagger.internal.codegen.model.BindingGraph.Edge>
+          internalNetwork = internalDelegate().network();
+      MutableNetwork<Node, Edge> network =
+          NetworkBuilder.directed()
+              .allowsParallelEdges(true)
+              .allowsSelfLoops(true)
+              .expectedNodeCount(internalNetwork.nodes().size())
+              .expectedEdgeCount(internalNetwork.edges().size())
+              .build();
+      internalNetwork.nodes().forEach(node -> network.addNode(node(node)));
+      for (dagger.internal.codegen.model.BindingGraph.Edge edge : internalNetwork.edges()) {
+        EndpointPair<dagger.internal.codegen.model.BindingGraph.Node> edgePair =
+            internalNetwork.incidentNodes(edge);
+        network.addEdge(node(edgePair.source()), node(edgePair.target()), edge(edge));
+      }
+      return ImmutableNetwork.copyOf(network);
+    }
+
+    // The overrides below answer from the internal graph, so they don't need the network.
+
+    // This overrides dagger.spi.model.BindingGraph to memoize the output.
     @Override
     @Memoized
     public ImmutableSetMultimap<Class<? extends Node>, ? extends Node> nodesByClass() {
-      return super.nodesByClass();
+      return ImmutableSetMultimap.<Class<? extends Node>, Node>builder()
+          .putAll(Binding.class, nodes(internalDelegate().bindings()))
+          .putAll(MissingBinding.class, nodes(internalDelegate().missingBindings()))
+          .putAll(ComponentNode.class, nodes(internalDelegate().componentNodes()))
+          .build();
+    }
+
+    @Override
+    public ComponentNode rootComponentNode() {
+      return (ComponentNode) node(internalDelegate().rootComponentNode());
+    }
+
+    @Memoized
+    ImmutableMap<ComponentPath, ComponentNode> componentNodesByPath() {
+      return componentNodes().stream()
+          .collect(toImmutableMap(ComponentNode::componentPath, node -> node));
+    }
+
+    @Override
+    public Optional<ComponentNode> componentNode(ComponentPath componentPath) {
+      return Optional.ofNullable(componentNodesByPath().get(componentPath));
+    }
+
+    @Override
+    public ImmutableSet<DependencyEdge> dependencyEdges() {
+      return edges(internalDelegate().dependencyEdges());
+    }
+
+    @Override
+    public ImmutableSetMultimap<DependencyRequest, DependencyEdge> dependencyEdges(
+        Binding binding) {
+      if (!(binding instanceof BindingNodeImpl)) {
+        return super.dependencyEdges(binding);
+      }
+      ImmutableSet<DependencyEdge> dependencyEdges =
+          edges(
+              internalDelegate()
+                  .dependencyEdges(((BindingNodeImpl) binding).internalDelegate())
+                  .values());
+      return dependencyEdges.stream()
+          .collect(toImmutableSetMultimap(DependencyEdge::dependencyRequest, edge -> edge));
+    }
+
+    @Override
+    public ImmutableSet<DependencyEdge> entryPointEdges() {
+      return edges(internalDelegate().entryPointEdges());
+    }
+
+    @Override
+    public ImmutableSet<MaybeBinding> entryPointBindings() {
+      return nodes(internalDelegate().entryPointBindings());
+    }
+
+    @Override
+    public ImmutableSet<Binding> requestingBindings(MaybeBinding binding) {
+      return isInternal(binding)
+          ? nodes(internalDelegate().requestingBindings(toInternal(binding)))
+          : super.requestingBindings(binding);
+    }
+
+    @Override
+    public ImmutableSet<Binding> requestedBindings(Binding binding) {
+      return binding instanceof BindingNodeImpl
+          ? nodes(
+              internalDelegate()
+                  .requestedBindings(((BindingNodeImpl) binding).internalDelegate()))
+          : super.requestedBindings(binding);
+    }
+
+    @Override
+    public ImmutableSet<MaybeBinding> requestedMaybeMissingBindings(Binding binding) {
+      return binding instanceof BindingNodeImpl
+          ? nodes(
+              internalDelegate()
+                  .requestedMaybeMissingBindings(((BindingNodeImpl) binding).internalDelegate()))
+          : super.requestedMaybeMissingBindings(binding);
+    }
+
+    private static boolean isInternal(MaybeBinding binding) {
+      return binding instanceof BindingNodeImpl || binding instanceof MissingBindingImpl;
     }
   }
 
@@ -43,6 +43,18 @@ public abstract class ValidationBindingGraphPlugin implements BindingGraphPlugin
     visitFullGraphRequested.add(graph.rootComponentNode());
   }
 
+  /**
+   * Returns {@code true} if this plugin may visit graphs on another thread, concurrently with other
+   * plugins, when {@code -Adagger.concurrentPluginVisits} is enabled.
+   *
+   * <p>Plugins that return {@code true} must only read the graph in {@link #visitGraph}: they must
+   * not use the processing environment, a formatter or any cache that they share with other
+   * plugins, and must not {@linkplain #requestVisitFullGraph request a visit of the full graph}.
+   */
+  public boolean visitsGraphConcurrently() {
+    return false;
+  }
+
   public void revisitFullGraph(
       BindingGraph prunedGraph, BindingGraph fullGraph, DiagnosticReporter diagReporter) {}
 }
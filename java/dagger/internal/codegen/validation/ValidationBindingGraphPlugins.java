@@ -16,6 +16,7 @@
 
 package dagger.internal.codegen.validation;
 
+import static dagger.internal.codegen.base.TimingReport.Kind.PLUGIN;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
@@ -25,6 +26,7 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import dagger.internal.codegen.base.TimingReport;
 import dagger.internal.codegen.compileroption.CompilerOptions;
 import dagger.internal.codegen.compileroption.ProcessingOptions;
 import dagger.internal.codegen.compileroption.ValidationType;
@@ -33,9 +35,11 @@ import dagger.internal.codegen.model.BindingGraphPlugin;
 import dagger.internal.codegen.model.DaggerProcessingEnv;
 import dagger.internal.codegen.validation.DiagnosticReporterFactory.DiagnosticReporterImpl;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 import javax.inject.Inject;
 
 /** Initializes {@link BindingGraphPlugin}s. */
@@ -45,6 +49,8 @@ public final class ValidationBindingGraphPlugins {
   private final XProcessingEnv processingEnv;
   private final CompilerOptions compilerOptions;
   private final Map<String, String> processingOptions;
+  private final TimingReport timingReport;
+  private final ConcurrentPluginVisits concurrentPluginVisits;
 
   @Inject
   ValidationBindingGraphPlugins(
@@ -52,12 +58,16 @@ public final class ValidationBindingGraphPlugins {
       DiagnosticReporterFactory diagnosticReporterFactory,
       XProcessingEnv processingEnv,
       CompilerOptions compilerOptions,
-      @ProcessingOptions Map<String, String> processingOptions) {
+      @ProcessingOptions Map<String, String> processingOptions,
+      TimingReport timingReport,
+      ConcurrentPluginVisits concurrentPluginVisits) {
     this.plugins = plugins;
     this.diagnosticReporterFactory = diagnosticReporterFactory;
     this.processingEnv = processingEnv;
     this.compilerOptions = compilerOptions;
     this.processingOptions = processingOptions;
+    this.timingReport = timingReport;
+    this.concurrentPluginVisits = concurrentPluginVisits;
   }
 
   /** Returns {@link BindingGraphPlugin#supportedOptions()} from all the plugins. */
@@ -88,9 +98,18 @@ public final class ValidationBindingGraphPlugins {
 
     boolean isClean = true;
     List<ValidationBindingGraphPlugin> rerunPlugins = new ArrayList<>();
+    Map<ValidationBindingGraphPlugin, Future<BufferingDiagnosticReporter>> visits =
+        startConcurrentVisits(graph);
     for (ValidationBindingGraphPlugin plugin : plugins) {
       DiagnosticReporterImpl reporter = createReporter(plugin.pluginName(), graph);
-      plugin.visitGraph(graph, reporter);
+      if (visits.containsKey(plugin)) {
+        ConcurrentPluginVisits.getDone(visits.get(plugin)).replayTo(reporter);
+      } else {
+        try (TimingReport.Timer timer =
+            timingReport.start(PLUGIN, plugin.pluginName(), "visitGraph")) {
+          plugin.visitGraph(graph, reporter);
+        }
+      }
       if (plugin.visitFullGraphRequested(graph)) {
         rerunPlugins.add(plugin);
       }
@@ -102,7 +121,10 @@ public final class ValidationBindingGraphPlugins {
       BindingGraph fullGraph = fullGraphSupplier.get();
       for (ValidationBindingGraphPlugin plugin : rerunPlugins) {
         DiagnosticReporterImpl reporter = createReporter(plugin.pluginName(), fullGraph);
-        plugin.revisitFullGraph(prunedGraph.get(), fullGraph, reporter);
+        try (TimingReport.Timer timer =
+            timingReport.start(PLUGIN, plugin.pluginName(), "revisitFullGraph")) {
+          plugin.revisitFullGraph(prunedGraph.get(), fullGraph, reporter);
+        }
         if (reporter.reportedDiagnosticKinds().contains(ERROR)) {
           isClean = false;
         }
@@ -111,6 +133,31 @@ public final class ValidationBindingGraphPlugins {
     return isClean;
   }
 
+  /**
+   * Starts the visits of the plugins that {@linkplain
+   * ValidationBindingGraphPlugin#visitsGraphConcurrently() can visit concurrently}, if {@link
+   * CompilerOptions#concurrentPluginVisits()} is enabled. The other plugins visit the graph on this
+   * thread while these run, and the diagnostics of all of them are reported in the plugins' order.
+   */
+  private Map<ValidationBindingGraphPlugin, Future<BufferingDiagnosticReporter>>
+      startConcurrentVisits(BindingGraph graph) {
+    Map<ValidationBindingGraphPlugin, Future<BufferingDiagnosticReporter>> visits =
+        new HashMap<>();
+    if (compilerOptions.concurrentPluginVisits()) {
+      for (ValidationBindingGraphPlugin plugin : plugins) {
+        if (plugin.visitsGraphConcurrently()) {
+          visits.put(
+              plugin,
+              concurrentPluginVisits.submit(
+                  plugin.pluginName(),
+                  "visitGraph",
+                  reporter -> plugin.visitGraph(graph, reporter)));
+        }
+      }
+    }
+    return visits;
+  }
+
   private DiagnosticReporterImpl createReporter(String pluginName, BindingGraph graph) {
     boolean errorsAsWarnings =
         graph.isFullBindingGraph()
@@ -122,5 +169,6 @@ public final class ValidationBindingGraphPlugins {
 
   public void endPlugins() {
     plugins.forEach(BindingGraphPlugin::onPluginEnd);
+    concurrentPluginVisits.shutdown();
   }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.Preconditions.checkState;
+import static dagger.internal.codegen.binding.BindingRequest.bindingRequest;
+import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
+
+import androidx.room.compiler.processing.XAnnotation;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.KeyFactory;
+import dagger.internal.codegen.javapoet.TypeNames;
+import dagger.internal.codegen.model.Key;
+import dagger.internal.codegen.model.RequestKind;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Generates the {@code dagger.producers.internal.AdmissionController} of a production component
+ * that is annotated with {@code dagger.producers.AdmissionControl}.
+ *
+ * <p>The controller is held in a static field of the component, so that its limit is shared by all
+ * instances of the component. Each instance holds one {@code AdmissionController.Execution}, and
+ * each of its {@code ListenableFuture} or {@code Producer} entry points is wrapped in a view that is
+ * admitted by that execution.
+ */
+@PerComponentImplementation
+final class AdmissionControlImplementation {
+  private final BindingGraph graph;
+  private final KeyFactory keyFactory;
+  private final Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider;
+
+  @Inject
+  AdmissionControlImplementation(
+      BindingGraph graph,
+      KeyFactory keyFactory,
+      // Inject as Provider<> to prevent a cycle.
+      Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider) {
+    this.graph = graph;
+    this.keyFactory = keyFactory;
+    this.componentRequestRepresentationsProvider = componentRequestRepresentationsProvider;
+  }
+
+  /** Returns {@code true} if the component's entry points are admission controlled. */
+  boolean isEnabled() {
+    return graph.componentDescriptor().isProduction()
+        && graph.componentTypeElement().hasAnnotation(TypeNames.ADMISSION_CONTROL);
+  }
+
+  /** Returns an expression that creates the {@code AdmissionController} for this component. */
+  CodeBlock creationExpression() {
+    checkState(isEnabled(), "%s has no admission control", graph.componentTypeElement());
+    XAnnotation annotation =
+        graph.componentTypeElement().getAnnotation(TypeNames.ADMISSION_CONTROL);
+    return CodeBlock.of(
+        "$T.create($S, $L, $T.$N)",
+        TypeNames.ADMISSION_CONTROLLER,
+        graph.componentTypeElement().getQualifiedName(),
+        annotation.getAsInt("maxConcurrentExecutions"),
+        TypeNames.BULKHEAD_SATURATION,
+        getSimpleName(annotation.getAsEnum("onSaturation")));
+  }
+
+  /**
+   * Returns an expression for a {@code Provider<ProductionComponentMonitor>} that is notified of
+   * executions that are queued or rejected.
+   *
+   * <p>The monitor binding is only resolved if one of the component's producers requests it, so a
+   * component without any monitored producers uses a no-op monitor.
+   */
+  CodeBlock monitorProviderExpression(ClassName requestingClass) {
+    Key monitorKey = keyFactory.forProductionComponentMonitor();
+    if (!isResolved(monitorKey)) {
+      return CodeBlock.of("$T.noOpProductionComponentMonitorProvider()", TypeNames.MONITORS);
+    }
+    return componentRequestRepresentationsProvider
+        .get()
+        .getDependencyExpression(bindingRequest(monitorKey, RequestKind.PROVIDER), requestingClass)
+        .codeBlock();
+  }
+
+  /** Returns {@code true} if the key is bound in this component or one of its ancestors. */
+  private boolean isResolved(Key key) {
+    return graph.bindingNodes().stream().anyMatch(bindingNode -> bindingNode.key().equals(key));
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen.writing;
+
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.CodeBlock;
+import dagger.internal.codegen.binding.Binding;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estimates the size of the bytecode that javac will emit for generated code.
+ *
+ * <p>The estimate is computed from the rendered source, since the real bytecode doesn't exist yet
+ * when the component is generated. It counts the instructions that each token is likely to compile
+ * to (invocations, field accesses, constants, allocations, branches, local loads) and tends to
+ * overestimate rather than underestimate, so it can be used to keep generated methods below
+ * HotSpot's {@code HugeMethodLimit} of 8000 bytes.
+ */
+final class BytecodeSizeEstimator {
+  /**
+   * The estimated bytecode size that a partitioned {@code initialize()} or {@code
+   * onProducerFutureCancelled()} method may reach. This leaves headroom below the 8000-byte
+   * HugeMethodLimit for the inaccuracy of the estimate.
+   */
+  static final int METHOD_BYTECODE_BUDGET = 4000;
+
+  /**
+   * The estimated bytecode size of an average binding, used to convert {@link
+   * dagger.internal.codegen.compileroption.CompilerOptions#keysPerComponentShard} into a size
+   * budget for each shard.
+   */
+  static final int AVERAGE_BINDING_BYTECODE_SIZE = 20;
+
+  private static final int INVOCATION_BYTES = 3;
+  private static final int MEMBER_ACCESS_BYTES = 3;
+  private static final int NEW_BYTES = 4;
+  private static final int CONSTANT_BYTES = 2;
+  private static final int BRANCH_BYTES = 3;
+  private static final int LOCAL_BYTES = 1;
+  private static final int STATEMENT_BYTES = 1;
+
+  private static final int BINDING_BASE_BYTES = 12;
+  private static final int DEPENDENCY_BYTES = 4;
+
+  private static final ImmutableSet<String> LOCAL_KEYWORDS =
+      ImmutableSet.of("this", "super", "null", "true", "false", "return", "throw");
+
+  private static final ImmutableSet<String> BRANCH_KEYWORDS =
+      ImmutableSet.of("if", "else", "instanceof", "switch", "case", "for", "while", "do");
+
+  /**
+   * Returns the estimated bytecode size of the fields and initialization statements that are
+   * generated for {@code binding}: one framework instance created from each of its dependencies.
+   */
+  static int estimate(Binding binding) {
+    return BINDING_BASE_BYTES + DEPENDENCY_BYTES * binding.dependencies().size();
+  }
+
+  /**
+   * Returns the estimated bytecode size of all of {@code statements}, in a method whose parameters
+   * are named {@code parameterNames}.
+   */
+  static int estimate(List<CodeBlock> statements, Set<String> parameterNames) {
+    int size = 0;
+    for (CodeBlock statement : statements) {
+      size += estimate(statement, parameterNames);
+    }
+    return size;
+  }
+
+  /**
+   * Returns the estimated bytecode size of {@code code}, in a method whose parameters are named
+   * {@code parameterNames}.
+   */
+  static int estimate(CodeBlock code, Set<String> parameterNames) {
+    String source = code.toString();
+    Set<String> locals = new HashSet<>(parameterNames);
+    int size = 0;
+    // Whether the last token was the "new" keyword, whose type's constructor is invoked next.
+    boolean afterNew = false;
+    // Whether the last tokens were a type, so that a name that follows declares a local variable.
+    boolean afterType = false;
+    int i = 0;
+    while (i < source.length()) {
+      char c = source.charAt(i);
+      if (c == '"' || c == '\'') {
+        i = skipLiteral(source, i);
+        size += CONSTANT_BYTES;
+        afterType = false;
+      } else if (Character.isDigit(c)) {
+        i = skipIdentifier(source, i);
+        size += CONSTANT_BYTES;
+        afterType = false;
+      } else if (Character.isJavaIdentifierStart(c)) {
+        // Reads a dotted chain such as "this.fooProvider" or "a.b.Foo_Factory.create(".
+        List<String> chain = new ArrayList<>();
+        int start = i;
+        i = skipIdentifier(source, i);
+        chain.add(source.substring(start, i));
+        int next = skipWhitespace(source, i);
+        while (next < source.length() && source.charAt(next) == '.') {
+          int segmentStart = skipWhitespace(source, next + 1);
+          if (segmentStart < source.length() && source.charAt(segmentStart) == '<') {
+            // Explicit type arguments, as in "SetBuilder.<Foo>newSetBuilder(".
+            segmentStart = skipWhitespace(source, skipTypeArguments(source, segmentStart));
+          }
+          if (segmentStart >= source.length()
+              || !Character.isJavaIdentifierStart(source.charAt(segmentStart))) {
+            break;
+          }
+          i = skipIdentifier(source, segmentStart);
+          chain.add(source.substring(segmentStart, i));
+          next = skipWhitespace(source, i);
+        }
+        boolean invocation = next < source.length() && source.charAt(next) == '(';
+        String first = chain.get(0);
+        boolean type = false;
+        if (afterNew) {
+          // The constructor's invokespecial. The type itself compiles to nothing.
+          size += INVOCATION_BYTES;
+          afterNew = false;
+        } else if (first.equals("new")) {
+          size += NEW_BYTES;
+          afterNew = true;
+        } else if (BRANCH_KEYWORDS.contains(first)) {
+          size += BRANCH_BYTES;
+        } else if (!invocation
+            && !LOCAL_KEYWORDS.contains(first)
+            && isFollowedByType(source, next)) {
+          // A type, such as that of a local variable declaration, compiles to nothing.
+          type = true;
+        } else if (chain.size() == 1 && !invocation && source.startsWith("->", next)) {
+          locals.add(first);
+        } else if (chain.size() == 1 && !invocation && afterType) {
+          // A local variable declaration: the name is stored to when it's initialized.
+          locals.add(first);
+          size += LOCAL_BYTES;
+        } else if (isMemberOfExpression(source, start)) {
+          // A chained call or field access, such as ".build()", on the value before it.
+          size += chainBytes(chain, invocation, 0);
+        } else if (LOCAL_KEYWORDS.contains(first) || locals.contains(first)) {
+          size += LOCAL_BYTES + chainBytes(chain, invocation, 1);
+        } else {
+          int typeIndex = indexOfType(chain);
+          size +=
+              typeIndex >= 0 && typeIndex < chain.size() - 1
+                  // Package and type qualifiers compile to nothing.
+                  ? chainBytes(chain, invocation, typeIndex + 1)
+                  // Any other name is a field or method of the component: aload_0 and a getfield
+                  // or invocation.
+                  : LOCAL_BYTES + chainBytes(chain, invocation, 0);
+        }
+        afterType = type;
+      } else {
+        if (c == ';') {
+          size += STATEMENT_BYTES;
+        } else if (c == '?' || source.startsWith("==", i) || source.startsWith("!=", i)) {
+          size += BRANCH_BYTES;
+        }
+        if (c != '<' && c != '>' && c != '[' && c != ']' && c != ',' && c != '?'
+            && !Character.isWhitespace(c)) {
+          afterType = false;
+        }
+        i++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns whether the token at {@code next} shows that the name before it is a type: a name, a
+   * type argument list or an array type.
+   */
+  private static boolean isFollowedByType(String source, int next) {
+    if (next >= source.length()) {
+      return false;
+    }
+    char c = source.charAt(next);
+    return Character.isJavaIdentifierStart(c)
+        || c == '<'
+        || c == '>'
+        || (c == '[' && skipWhitespace(source, next + 1) < source.length()
+            && source.charAt(skipWhitespace(source, next + 1)) == ']');
+  }
+
+  /**
+   * Returns the estimated bytecode size of the members of a dotted chain of names, starting at
+   * {@code firstMember}: a field access for each, or an invocation if it's the last and {@code
+   * invocation} is true.
+   */
+  private static int chainBytes(List<String> chain, boolean invocation, int firstMember) {
+    int size = 0;
+    for (int i = firstMember; i < chain.size(); i++) {
+      size += i == chain.size() - 1 && invocation ? INVOCATION_BYTES : MEMBER_ACCESS_BYTES;
+    }
+    return size;
+  }
+
+  /** Returns whether the name at {@code start} follows a dot, as in {@code foo().bar()}. */
+  private static boolean isMemberOfExpression(String source, int start) {
+    int i = start - 1;
+    while (i >= 0 && Character.isWhitespace(source.charAt(i))) {
+      i--;
+    }
+    return i >= 0 && source.charAt(i) == '.';
+  }
+
+  /** Returns the index of the first name in {@code chain} that is a type, or -1 if there's none. */
+  private static int indexOfType(List<String> chain) {
+    for (int i = 0; i < chain.size(); i++) {
+      if (Character.isUpperCase(chain.get(i).charAt(0))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int skipLiteral(String source, int start) {
+    char quote = source.charAt(start);
+    int i = start + 1;
+    while (i < source.length() && source.charAt(i) != quote) {
+      i += source.charAt(i) == '\\' ? 2 : 1;
+    }
+    return i + 1;
+  }
+
+  private static int skipTypeArguments(String source, int start) {
+    int depth = 0;
+    int i = start;
+    do {
+      char c = source.charAt(i);
+      if (c == '<') {
+        depth++;
+      } else if (c == '>') {
+        depth--;
+      }
+      i++;
+    } while (depth > 0 && i < source.length());
+    return i;
+  }
+
+  private static int skipIdentifier(String source, int start) {
+    int i = start;
+    while (i < source.length() && Character.isJavaIdentifierPart(source.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipWhitespace(String source, int start) {
+    int i = start;
+    while (i < source.length() && Character.isWhitespace(source.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private BytecodeSizeEstimator() {}
+}
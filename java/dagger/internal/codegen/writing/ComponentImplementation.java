@@ -30,12 +30,14 @@ import static dagger.internal.codegen.binding.SourceFiles.simpleVariableName;
 import static dagger.internal.codegen.extension.DaggerStreams.instancesOf;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.extension.DaggerStreams.toImmutableMap;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableSet;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.suppressWarnings;
 import static dagger.internal.codegen.javapoet.CodeBlocks.parameterNames;
 import static dagger.internal.codegen.writing.ComponentImplementation.MethodSpecKind.COMPONENT_METHOD;
 import static dagger.internal.codegen.xprocessing.MethodSpecs.overriding;
 import static dagger.internal.codegen.xprocessing.XElements.getSimpleName;
+import static java.util.Comparator.comparing;
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
@@ -89,8 +91,11 @@ import dagger.internal.codegen.model.BindingGraph.Node;
 import dagger.internal.codegen.model.Key;
 import dagger.internal.codegen.model.RequestKind;
 import dagger.internal.codegen.xprocessing.XTypeElements;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -131,7 +136,19 @@ public final class ComponentImplementation {
     FRAMEWORK_FIELD,
 
     /** A static field that always returns an absent {@code Optional} value for the binding. */
-    ABSENT_OPTIONAL_FIELD
+    ABSENT_OPTIONAL_FIELD,
+
+    /** The static field holding the {@code ProducerGraph} of a production component. */
+    PRODUCER_GRAPH_FIELD,
+
+    /** The static field holding the {@code AdmissionController} of a production component. */
+    ADMISSION_CONTROLLER_FIELD,
+
+    /** The field holding the {@code AdmissionController.Execution} of a production component. */
+    ADMISSION_EXECUTION_FIELD,
+
+    /** The field holding the {@code ComponentTaskScope} of a production component. */
+    TASK_SCOPE_FIELD
   }
 
   /** A type of method that this component can contain. */
@@ -163,7 +180,20 @@ public final class ComponentImplementation {
      * The {@link dagger.producers.internal.CancellationListener#onProducerFutureCancelled(boolean)}
      * method for a production component.
      */
-    CANCELLATION_LISTENER_METHOD
+    CANCELLATION_LISTENER_METHOD,
+
+    /**
+     * The {@code ProducerGraphComponent#producerGraphForMonitoring()} method for a production
+     * component.
+     */
+    PRODUCER_GRAPH_METHOD,
+
+    /**
+     * The {@code ProductionTaskScopeComponent#productionTaskScopeForStructuredConcurrency()} and
+     * {@code ProductionTaskScopeComponent#cancelProducersForStructuredConcurrency(boolean)} methods
+     * for a production component.
+     */
+    TASK_SCOPE_METHOD
   }
 
   /** A type of nested class that this component can contain. */
@@ -188,15 +218,28 @@ public final class ComponentImplementation {
    * Returns the {@link ShardImplementation} for each binding in this graph.
    *
    * <p>Each shard contains approximately {@link CompilerOptions#keysPerComponentShard()} bindings.
+   * If {@link CompilerOptions#bytecodeSizeSharding()} is enabled, shards are instead packed up to
+   * the estimated bytecode size of that many average bindings, so that shards of bindings with
+   * many dependencies hold fewer of them.
    *
    * <p>If more than 1 shard is needed, we iterate the strongly connected nodes to make sure of two
    * things: 1) bindings are put in shards in reverse topological order (i.e., bindings in Shard{i}
    * do not depend on bindings in Shard{i+j}) and 2) bindings belonging to the same cycle are put in
    * the same shard. These two guarantees allow us to initialize each shard in a well defined order.
+   *
+   * <p>If a {@link StartupProfile} is given, the bindings it lists and their local dependencies are
+   * moved into the component shard, so that they don't need any other shard class. The other shards
+   * are still created when the component is.
    */
   private static ImmutableMap<Binding, ShardImplementation> createShardsByBinding(
-      ShardImplementation componentShard, BindingGraph graph, CompilerOptions compilerOptions) {
+      ShardImplementation componentShard,
+      BindingGraph graph,
+      CompilerOptions compilerOptions,
+      StartupProfile startupProfile) {
     ImmutableList<ImmutableList<Binding>> partitions = bindingPartitions(graph, compilerOptions);
+    if (partitions.size() > 1 && !startupProfile.isEmpty()) {
+      partitions = withStartupBindingsFirst(graph, partitions, startupProfile);
+    }
     ImmutableMap.Builder<Binding, ShardImplementation> builder = ImmutableMap.builder();
     for (int i = 0; i < partitions.size(); i++) {
       ShardImplementation shard = i == 0 ? componentShard : componentShard.createShard();
@@ -208,6 +251,10 @@ public final class ComponentImplementation {
   private static ImmutableList<ImmutableList<Binding>> bindingPartitions(
       BindingGraph graph, CompilerOptions compilerOptions) {
     int bindingsPerShard = compilerOptions.keysPerComponentShard(graph.componentTypeElement());
+    if (compilerOptions.bytecodeSizeSharding()) {
+      return bindingPartitionsBySize(
+          graph, bindingsPerShard * BytecodeSizeEstimator.AVERAGE_BINDING_BYTECODE_SIZE);
+    }
     int maxPartitions = (graph.localBindingNodes().size() / bindingsPerShard) + 1;
     if (maxPartitions <= 1) {
       return ImmutableList.of(
@@ -235,12 +282,109 @@ public final class ComponentImplementation {
     return partitions.build();
   }
 
+  /**
+   * Returns {@code partitions} with the bindings in {@code startupProfile}, and the local bindings
+   * that they transitively depend on, moved into the first partition.
+   *
+   * <p>The moved bindings are closed under local dependencies, so the bindings in each partition
+   * still only depend on bindings in the same or earlier partitions.
+   */
+  private static ImmutableList<ImmutableList<Binding>> withStartupBindingsFirst(
+      BindingGraph graph,
+      ImmutableList<ImmutableList<Binding>> partitions,
+      StartupProfile startupProfile) {
+    Set<Node> startupNodes = new HashSet<>();
+    Deque<Node> queue = new ArrayDeque<>();
+    graph.localBindingNodes().stream()
+        .filter(bindingNode -> startupProfile.contains(bindingNode.key()))
+        .forEach(queue::add);
+    while (!queue.isEmpty()) {
+      Node node = queue.remove();
+      if (startupNodes.add(node)) {
+        graph.topLevelBindingGraph().network().successors(node).stream()
+            .flatMap(instancesOf(BindingNode.class))
+            .filter(bindingNode -> bindingNode.componentPath().equals(graph.componentPath()))
+            .forEach(queue::add);
+      }
+    }
+    ImmutableSet<Binding> startupBindings =
+        startupNodes.stream()
+            .map(node -> ((BindingNode) node).delegate())
+            .collect(toImmutableSet());
+
+    ImmutableSet<Binding> firstPartition = ImmutableSet.copyOf(partitions.get(0));
+    ImmutableList.Builder<ImmutableList<Binding>> reordered = ImmutableList.builder();
+    reordered.add(
+        partitions.stream()
+            .flatMap(List::stream)
+            .filter(
+                binding -> firstPartition.contains(binding) || startupBindings.contains(binding))
+            .collect(toImmutableList()));
+    partitions.stream()
+        .skip(1)
+        .map(
+            partition ->
+                partition.stream()
+                    .filter(binding -> !startupBindings.contains(binding))
+                    .collect(toImmutableList()))
+        .filter(partition -> !partition.isEmpty())
+        .forEach(reordered::add);
+    return reordered.build();
+  }
+
+  private static ImmutableList<ImmutableList<Binding>> bindingPartitionsBySize(
+      BindingGraph graph, int bytesPerShard) {
+    int totalBytes =
+        graph.localBindingNodes().stream()
+            .map(BindingNode::delegate)
+            .mapToInt(BytecodeSizeEstimator::estimate)
+            .sum();
+    if (totalBytes <= bytesPerShard) {
+      return ImmutableList.of(
+          graph.localBindingNodes().stream().map(BindingNode::delegate).collect(toImmutableList()));
+    }
+
+    // Iterate through all SCCs in order, starting a new shard whenever the next SCC would push the
+    // current one over budget. An SCC is never split, so a single large cycle may exceed it.
+    List<Binding> currPartition = new ArrayList<>();
+    int currBytes = 0;
+    ImmutableList.Builder<ImmutableList<Binding>> partitions = ImmutableList.builder();
+    for (ImmutableSet<Node> nodes : graph.topLevelBindingGraph().stronglyConnectedNodes()) {
+      ImmutableList<Binding> bindings =
+          nodes.stream()
+              .flatMap(instancesOf(BindingNode.class))
+              .filter(bindingNode -> bindingNode.componentPath().equals(graph.componentPath()))
+              .map(BindingNode::delegate)
+              .collect(toImmutableList());
+      int bytes = bindings.stream().mapToInt(BytecodeSizeEstimator::estimate).sum();
+      if (!currPartition.isEmpty() && currBytes + bytes > bytesPerShard) {
+        partitions.add(ImmutableList.copyOf(currPartition));
+        currPartition = new ArrayList<>();
+        currBytes = 0;
+      }
+      currPartition.addAll(bindings);
+      currBytes += bytes;
+    }
+    if (!currPartition.isEmpty()) {
+      partitions.add(ImmutableList.copyOf(currPartition));
+    }
+    return partitions.build();
+  }
+
   /** The boolean parameter of the onProducerFutureCancelled method. */
   public static final ParameterSpec MAY_INTERRUPT_IF_RUNNING_PARAM =
       ParameterSpec.builder(boolean.class, "mayInterruptIfRunning").build();
 
   private static final String CANCELLATION_LISTENER_METHOD_NAME = "onProducerFutureCancelled";
 
+  private static final String PRODUCER_GRAPH_METHOD_NAME = "producerGraphForMonitoring";
+
+  private static final String TASK_SCOPE_METHOD_NAME =
+      "productionTaskScopeForStructuredConcurrency";
+
+  private static final String TASK_SCOPE_CANCEL_METHOD_NAME =
+      "cancelProducersForStructuredConcurrency";
+
   /**
    * How many statements per {@code initialize()} or {@code onProducerFutureCancelled()} method
    * before they get partitioned.
@@ -258,9 +402,16 @@ public final class ComponentImplementation {
   private final Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider;
   private final Provider<ComponentCreatorImplementationFactory>
       componentCreatorImplementationFactoryProvider;
+  private final ProducerGraphImplementation producerGraphImplementation;
+  private final Optional<String> producerGraphFieldName;
+  private final AdmissionControlImplementation admissionControlImplementation;
+  private final Optional<String> admissionControllerFieldName;
+  private final Optional<String> admissionExecutionFieldName;
+  private final Optional<String> taskScopeFieldName;
   private final BindingGraph graph;
   private final ComponentNames componentNames;
   private final CompilerOptions compilerOptions;
+  private final StartupProfile startupProfile;
   private final ImmutableMap<ComponentImplementation, FieldSpec> componentFieldsByImplementation;
   private final XMessager messager;
   private final CompilerMode compilerMode;
@@ -274,9 +425,12 @@ public final class ComponentImplementation {
       @TopLevel Provider<GeneratedImplementation> topLevelImplementationProvider,
       Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider,
       Provider<ComponentCreatorImplementationFactory> componentCreatorImplementationFactoryProvider,
+      ProducerGraphImplementation producerGraphImplementation,
+      AdmissionControlImplementation admissionControlImplementation,
       BindingGraph graph,
       ComponentNames componentNames,
       CompilerOptions compilerOptions,
+      StartupProfile startupProfile,
       XMessager messager,
       XProcessingEnv processingEnv) {
     this.parent = parent;
@@ -285,9 +439,12 @@ public final class ComponentImplementation {
     this.componentRequestRepresentationsProvider = componentRequestRepresentationsProvider;
     this.componentCreatorImplementationFactoryProvider =
         componentCreatorImplementationFactoryProvider;
+    this.producerGraphImplementation = producerGraphImplementation;
+    this.admissionControlImplementation = admissionControlImplementation;
     this.graph = graph;
     this.componentNames = componentNames;
     this.compilerOptions = compilerOptions;
+    this.startupProfile = startupProfile;
     this.processingEnv = processingEnv;
 
     // The first group of keys belong to the component itself. We call this the componentShard.
@@ -297,9 +454,28 @@ public final class ComponentImplementation {
     XTypeElements.getAllNonPrivateInstanceMethods(graph.componentTypeElement()).stream()
         .forEach(method -> componentShard.componentMethodNames.claim(getSimpleName(method)));
 
+    // Claim the name of the producer graph field up front, since producers refer to it.
+    this.producerGraphFieldName =
+        producerGraphImplementation.isEnabled()
+            ? Optional.of(componentShard.getUniqueFieldName("PRODUCER_GRAPH"))
+            : Optional.empty();
+    this.admissionControllerFieldName =
+        admissionControlImplementation.isEnabled()
+            ? Optional.of(componentShard.getUniqueFieldName("ADMISSION_CONTROLLER"))
+            : Optional.empty();
+    this.admissionExecutionFieldName =
+        admissionControlImplementation.isEnabled()
+            ? Optional.of(componentShard.getUniqueFieldName("admissionExecution"))
+            : Optional.empty();
+    this.taskScopeFieldName =
+        hasStructuredConcurrency()
+            ? Optional.of(componentShard.getUniqueFieldName("taskScope"))
+            : Optional.empty();
+
     // Create the shards for this component, indexed by binding.
     this.shardsByBinding =
-        memoize(() -> createShardsByBinding(componentShard, graph, compilerOptions));
+        memoize(
+            () -> createShardsByBinding(componentShard, graph, compilerOptions, startupProfile));
 
     // Create and claim the fields for this and all ancestor components stored as fields.
     this.componentFieldsByImplementation =
@@ -391,6 +567,48 @@ public final class ComponentImplementation {
                   return field.build();
                 }));
   }
+  /** Returns a reference to the static field that holds this component's producer graph. */
+  CodeBlock producerGraphFieldReference() {
+    checkState(producerGraphFieldName.isPresent(), "%s has no producer graph", name());
+    return CodeBlock.of("$T.$N", componentShard.name(), producerGraphFieldName.get());
+  }
+
+  /**
+   * Returns a reference to the field that holds the {@code AdmissionController.Execution} shared by
+   * this component instance's entry points, or {@link Optional#empty()} if its entry points aren't
+   * admission controlled.
+   */
+  Optional<CodeBlock> admissionExecutionFieldReference() {
+    return admissionExecutionFieldName.map(
+        fieldName -> CodeBlock.of("$L.$N", componentShard.shardFieldReference(), fieldName));
+  }
+
+  /**
+   * Returns a reference to the field that holds this component's {@code ComponentTaskScope}, or
+   * {@link Optional#empty()} if the component isn't annotated with {@code StructuredConcurrency}.
+   */
+  Optional<CodeBlock> taskScopeFieldReference() {
+    return taskScopeFieldName.map(
+        fieldName -> CodeBlock.of("$L.$N", componentShard.shardFieldReference(), fieldName));
+  }
+
+  /**
+   * Returns {@code true} if this is a production component whose producers are owned by a {@code
+   * ProductionTaskScope}.
+   */
+  private boolean hasStructuredConcurrency() {
+    return graph.componentDescriptor().isProduction()
+        && graph.componentTypeElement().hasAnnotation(TypeNames.STRUCTURED_CONCURRENCY);
+  }
+
+  /**
+   * Returns an expression for the {@code Provider<ProductionComponentMonitor>} that is notified by
+   * this component's {@code AdmissionController}.
+   */
+  CodeBlock admissionControlMonitorProvider(ClassName requestingClass) {
+    return admissionControlImplementation.monitorProviderExpression(requestingClass);
+  }
+
   /** Returns the shard representing the {@link ComponentImplementation} itself. */
   public ShardImplementation getComponentShard() {
     return componentShard;
@@ -477,6 +695,15 @@ public final class ComponentImplementation {
         claimMethodName(CANCELLATION_LISTENER_METHOD_NAME);
       }
 
+      if (producerGraphImplementation.isEnabled()) {
+        claimMethodName(PRODUCER_GRAPH_METHOD_NAME);
+      }
+
+      if (hasStructuredConcurrency()) {
+        claimMethodName(TASK_SCOPE_METHOD_NAME);
+        claimMethodName(TASK_SCOPE_CANCEL_METHOD_NAME);
+      }
+
       // Build the map of constructor parameters for this shard and claim the field names to prevent
       // collisions between the constructor parameters and fields.
       constructorParameters =
@@ -506,6 +733,23 @@ public final class ComponentImplementation {
       return switchingProviders;
     }
 
+    /**
+     * Returns the keys of this shard's bindings that are requested during startup, in the order
+     * that they are first requested.
+     */
+    ImmutableList<Key> startupKeys() {
+      if (startupProfile.isEmpty()) {
+        return ImmutableList.of();
+      }
+      return shardsByBinding.get().entrySet().stream()
+          .filter(entry -> entry.getValue() == this)
+          .map(entry -> entry.getKey().key())
+          .filter(startupProfile::contains)
+          .distinct()
+          .sorted(comparing(startupProfile::rank))
+          .collect(toImmutableList());
+    }
+
     /** Returns the {@link ComponentImplementation} that owns this shard. */
     public ComponentImplementation getComponentImplementation() {
       return ComponentImplementation.this;
@@ -720,6 +964,40 @@ public final class ComponentImplementation {
         }
       }
 
+      if (isComponentShard() && producerGraphImplementation.isEnabled()) {
+        TypeSpecs.addSupertype(
+            builder, processingEnv.requireTypeElement(TypeNames.PRODUCER_GRAPH_COMPONENT));
+        addProducerGraphImplementation();
+      }
+
+      if (isComponentShard() && admissionControllerFieldName.isPresent()) {
+        addField(
+            FieldSpecKind.ADMISSION_CONTROLLER_FIELD,
+            FieldSpec.builder(
+                    TypeNames.ADMISSION_CONTROLLER,
+                    admissionControllerFieldName.get(),
+                    PRIVATE,
+                    STATIC,
+                    FINAL)
+                .initializer(admissionControlImplementation.creationExpression())
+                .build());
+        addField(
+            FieldSpecKind.ADMISSION_EXECUTION_FIELD,
+            FieldSpec.builder(
+                    TypeNames.ADMISSION_CONTROLLER_EXECUTION,
+                    admissionExecutionFieldName.get(),
+                    PRIVATE,
+                    FINAL)
+                .initializer("$N.newExecution()", admissionControllerFieldName.get())
+                .build());
+      }
+
+      if (isComponentShard() && taskScopeFieldName.isPresent()) {
+        TypeSpecs.addSupertype(
+            builder, processingEnv.requireTypeElement(TypeNames.PRODUCTION_TASK_SCOPE_COMPONENT));
+        addTaskScopeImplementation();
+      }
+
       modifiers().forEach(builder::addModifiers);
       fieldSpecsMap.asMap().values().forEach(builder::addFields);
       methodSpecsMap.asMap().values().forEach(builder::addMethods);
@@ -998,8 +1276,18 @@ public final class ComponentImplementation {
       // cancelled, so there's no need to propagate. Otherwise, when we cancel a leaf node, it might
       // propagate through most of the graph, making most of the cancel calls that follow in the
       // onProducerFutureCancelled method do nothing.
+      //
+      // A component with StructuredConcurrency cancels its own producers in a separate method,
+      // which its scope calls when it's closed, since closing the scope must not cancel the parent.
+      MethodSpec.Builder cancelProducersBuilder =
+          isComponentShard() && taskScopeFieldName.isPresent()
+              ? methodBuilder(TASK_SCOPE_CANCEL_METHOD_NAME)
+                  .addModifiers(PUBLIC)
+                  .addAnnotation(Override.class)
+                  .addParameter(MAY_INTERRUPT_IF_RUNNING_PARAM)
+              : methodBuilder;
       if (isComponentShard()) {
-        methodBuilder.addCode(
+        cancelProducersBuilder.addCode(
             CodeBlocks.concat(ImmutableList.copyOf(shardCancellations).reverse()));
       } else if (!cancellations.isEmpty()) {
         shardCancellations.add(
@@ -1012,8 +1300,9 @@ public final class ComponentImplementation {
 
       ImmutableList<CodeBlock> cancellationStatements =
           ImmutableList.copyOf(cancellations.values()).reverse();
-      if (cancellationStatements.size() < STATEMENTS_PER_METHOD) {
-        methodBuilder.addCode(CodeBlocks.concat(cancellationStatements)).build();
+      if (fitsInSingleMethod(
+          cancellationStatements, ImmutableList.of(MAY_INTERRUPT_IF_RUNNING_PARAM))) {
+        cancelProducersBuilder.addCode(CodeBlocks.concat(cancellationStatements));
       } else {
         ImmutableList<MethodSpec> cancelProducersMethods =
             createPartitionedMethods(
@@ -1022,12 +1311,17 @@ public final class ComponentImplementation {
                 cancellationStatements,
                 methodName -> methodBuilder(methodName).addModifiers(PRIVATE));
         for (MethodSpec cancelProducersMethod : cancelProducersMethods) {
-          methodBuilder.addStatement(
+          cancelProducersBuilder.addStatement(
               "$N($N)", cancelProducersMethod, MAY_INTERRUPT_IF_RUNNING_PARAM);
           addMethod(MethodSpecKind.CANCELLATION_LISTENER_METHOD, cancelProducersMethod);
         }
       }
 
+      if (cancelProducersBuilder != methodBuilder) {
+        methodBuilder.addStatement(
+            "$N($N)", TASK_SCOPE_CANCEL_METHOD_NAME, MAY_INTERRUPT_IF_RUNNING_PARAM);
+        addMethod(MethodSpecKind.TASK_SCOPE_METHOD, cancelProducersBuilder.build());
+      }
       if (isComponentShard()) {
         cancelParentStatement().ifPresent(methodBuilder::addCode);
       }
@@ -1035,6 +1329,50 @@ public final class ComponentImplementation {
       addMethod(MethodSpecKind.CANCELLATION_LISTENER_METHOD, methodBuilder.build());
     }
 
+    private void addProducerGraphImplementation() {
+      FieldSpec producerGraphField =
+          FieldSpec.builder(
+                  TypeNames.PRODUCER_GRAPH,
+                  producerGraphFieldName.get(),
+                  PRIVATE,
+                  STATIC,
+                  FINAL)
+              .initializer(producerGraphImplementation.creationExpression())
+              .build();
+      addField(FieldSpecKind.PRODUCER_GRAPH_FIELD, producerGraphField);
+      addMethod(
+          MethodSpecKind.PRODUCER_GRAPH_METHOD,
+          methodBuilder(PRODUCER_GRAPH_METHOD_NAME)
+              .addModifiers(PUBLIC)
+              .addAnnotation(Override.class)
+              .returns(TypeNames.PRODUCER_GRAPH)
+              .addStatement("return $N", producerGraphField)
+              .build());
+    }
+
+    private void addTaskScopeImplementation() {
+      FieldSpec taskScopeField =
+          FieldSpec.builder(
+                  TypeNames.COMPONENT_TASK_SCOPE, taskScopeFieldName.get(), PRIVATE, FINAL)
+              .initializer(
+                  "$T.create(this, $L)",
+                  TypeNames.COMPONENT_TASK_SCOPE,
+                  graph
+                      .componentTypeElement()
+                      .getAnnotation(TypeNames.STRUCTURED_CONCURRENCY)
+                      .getAsBoolean("mayInterruptIfRunning"))
+              .build();
+      addField(FieldSpecKind.TASK_SCOPE_FIELD, taskScopeField);
+      addMethod(
+          MethodSpecKind.TASK_SCOPE_METHOD,
+          methodBuilder(TASK_SCOPE_METHOD_NAME)
+              .addModifiers(PUBLIC)
+              .addAnnotation(Override.class)
+              .returns(TypeNames.PRODUCTION_TASK_SCOPE)
+              .addStatement("return $N", taskScopeField)
+              .build());
+    }
+
     private Optional<CodeBlock> cancelParentStatement() {
       if (!shouldPropagateCancellationToParent()) {
         return Optional.empty();
@@ -1059,18 +1397,28 @@ public final class ComponentImplementation {
               .orElse(false);
     }
 
+    private boolean fitsInSingleMethod(
+        List<CodeBlock> statements, Iterable<ParameterSpec> parameters) {
+      return compilerOptions.bytecodeSizeSharding()
+          ? BytecodeSizeEstimator.estimate(statements, parameterNameSet(parameters))
+              <= BytecodeSizeEstimator.METHOD_BYTECODE_BUDGET
+          : statements.size() < STATEMENTS_PER_METHOD;
+    }
+
     /**
      * Creates one or more methods, all taking the given {@code parameters}, which partition the
      * given list of {@code statements} among themselves such that no method has more than {@code
-     * STATEMENTS_PER_METHOD} statements in it and such that the returned methods, if called in
-     * order, will execute the {@code statements} in the given order.
+     * STATEMENTS_PER_METHOD} statements in it (or, if {@link
+     * CompilerOptions#bytecodeSizeSharding()} is enabled, more than {@link
+     * BytecodeSizeEstimator#METHOD_BYTECODE_BUDGET} estimated bytes of bytecode) and such that the
+     * returned methods, if called in order, will execute the {@code statements} in the given order.
      */
     private ImmutableList<MethodSpec> createPartitionedMethods(
         String methodName,
         Iterable<ParameterSpec> parameters,
         List<CodeBlock> statements,
         Function<String, MethodSpec.Builder> methodBuilderCreator) {
-      return Lists.partition(statements, STATEMENTS_PER_METHOD).stream()
+      return partitionStatements(statements, parameters).stream()
           .map(
               partition ->
                   methodBuilderCreator
@@ -1081,6 +1429,40 @@ public final class ComponentImplementation {
                       .build())
           .collect(toImmutableList());
     }
+
+    private List<List<CodeBlock>> partitionStatements(
+        List<CodeBlock> statements, Iterable<ParameterSpec> parameters) {
+      if (!compilerOptions.bytecodeSizeSharding()) {
+        return Lists.partition(statements, STATEMENTS_PER_METHOD);
+      }
+      ImmutableSet<String> parameterNames = parameterNameSet(parameters);
+      List<List<CodeBlock>> partitions = new ArrayList<>();
+      List<CodeBlock> currPartition = new ArrayList<>();
+      int currBytes = 0;
+      for (CodeBlock statement : statements) {
+        int bytes = BytecodeSizeEstimator.estimate(statement, parameterNames);
+        if (!currPartition.isEmpty()
+            && currBytes + bytes > BytecodeSizeEstimator.METHOD_BYTECODE_BUDGET) {
+          partitions.add(currPartition);
+          currPartition = new ArrayList<>();
+          currBytes = 0;
+        }
+        currPartition.add(statement);
+        currBytes += bytes;
+      }
+      if (!currPartition.isEmpty()) {
+        partitions.add(currPartition);
+      }
+      return partitions;
+    }
+  }
+
+  private static ImmutableSet<String> parameterNameSet(Iterable<ParameterSpec> parameters) {
+    ImmutableSet.Builder<String> names = ImmutableSet.builder();
+    for (ParameterSpec parameter : parameters) {
+      names.add(parameter.name);
+    }
+    return names.build();
   }
 
   private static ImmutableList<ComponentRequirement> constructorRequirements(BindingGraph graph) {
@@ -123,7 +123,12 @@ public final class ComponentRequestRepresentations {
     return makeParametersCodeBlock(getCreateMethodArgumentsCodeBlocks(binding, requestingClass));
   }
 
-  private ImmutableList<CodeBlock> getCreateMethodArgumentsCodeBlocks(
+  /**
+   * Returns the arguments of the {@code create()} method of the binding's generated factory: the
+   * module instance, if the binding requires one, followed by the framework instance of each of
+   * the binding's {@linkplain ContributionBinding#dependencies() dependencies}.
+   */
+  ImmutableList<CodeBlock> getCreateMethodArgumentsCodeBlocks(
       ContributionBinding binding, ClassName requestingClass) {
     ImmutableList.Builder<CodeBlock> arguments = ImmutableList.builder();
 
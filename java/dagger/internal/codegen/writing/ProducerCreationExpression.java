@@ -18,14 +18,17 @@ package dagger.internal.codegen.writing;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static dagger.internal.codegen.binding.SourceFiles.generatedClassNameForBinding;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCERS;
 
 import com.squareup.javapoet.CodeBlock;
 import dagger.assisted.Assisted;
 import dagger.assisted.AssistedFactory;
 import dagger.assisted.AssistedInject;
 import dagger.internal.codegen.binding.ContributionBinding;
+import dagger.internal.codegen.binding.ProductionBinding;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
+import java.util.Optional;
 
 /**
  * A {@link dagger.producers.Producer} creation expression for a {@link
@@ -34,27 +37,54 @@ import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstan
 // TODO(dpb): Resolve with InjectionOrProvisionProviderCreationExpression.
 final class ProducerCreationExpression implements FrameworkInstanceCreationExpression {
 
+  private final ComponentImplementation componentImplementation;
   private final ShardImplementation shardImplementation;
   private final ComponentRequestRepresentations componentRequestRepresentations;
+  private final ProducerGraphImplementation producerGraphImplementation;
+  private final SwitchingProducers switchingProducers;
   private final ContributionBinding binding;
 
   @AssistedInject
   ProducerCreationExpression(
       @Assisted ContributionBinding binding,
       ComponentImplementation componentImplementation,
-      ComponentRequestRepresentations componentRequestRepresentations) {
+      ComponentRequestRepresentations componentRequestRepresentations,
+      ProducerGraphImplementation producerGraphImplementation,
+      SwitchingProducers switchingProducers) {
     this.binding = checkNotNull(binding);
+    this.componentImplementation = componentImplementation;
     this.shardImplementation = componentImplementation.shardImplementation(binding);
     this.componentRequestRepresentations = checkNotNull(componentRequestRepresentations);
+    this.producerGraphImplementation = producerGraphImplementation;
+    this.switchingProducers = switchingProducers;
   }
 
   @Override
   public CodeBlock creationExpression() {
-    return CodeBlock.of(
-        "$T.create($L)",
-        generatedClassNameForBinding(binding),
-        componentRequestRepresentations.getCreateMethodArgumentsCodeBlock(
-            binding, shardImplementation.name()));
+    CodeBlock factoryCreation =
+        switchingProducers.useSwitchingProducer((ProductionBinding) binding)
+            ? switchingProducers.newInstanceCodeBlock(
+                (ProductionBinding) binding, shardImplementation.name())
+            : CodeBlock.of(
+                "$T.create($L)",
+                generatedClassNameForBinding(binding),
+                componentRequestRepresentations.getCreateMethodArgumentsCodeBlock(
+                    binding, shardImplementation.name()));
+    if (producerGraphImplementation.isEnabled()) {
+      factoryCreation =
+          CodeBlock.of(
+              "$T.withProducerGraph($L, $L, $L)",
+              PRODUCERS,
+              factoryCreation,
+              componentImplementation.producerGraphFieldReference(),
+              producerGraphImplementation.indexOf((ProductionBinding) binding));
+    }
+    Optional<CodeBlock> taskScope = componentImplementation.taskScopeFieldReference();
+    if (taskScope.isPresent()) {
+      factoryCreation =
+          CodeBlock.of("$T.withTaskScope($L, $L)", PRODUCERS, factoryCreation, taskScope.get());
+    }
+    return factoryCreation;
   }
 
   @AssistedFactory
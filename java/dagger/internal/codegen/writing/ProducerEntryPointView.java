@@ -89,20 +89,39 @@ final class ProducerEntryPointView {
             .build();
     shardImplementation.addField(FRAMEWORK_FIELD, field);
 
-    CodeBlock fieldInitialization =
-        CodeBlock.of(
-            "this.$N = $T.entryPointViewOf($L, $L);",
-            field,
-            TypeNames.PRODUCERS,
-            producerExpression.getDependencyExpression(shardImplementation.name()).codeBlock(),
-            // Always pass in the componentShard reference here rather than the owning shard for
-            // this key because this needs to be the root CancellationListener.
-            shardImplementation.isComponentShard()
-                ? "this"
-                : shardImplementation
-                    .getComponentImplementation()
-                    .getComponentShard()
-                    .shardFieldReference());
+    ComponentImplementation componentImplementation =
+        shardImplementation.getComponentImplementation();
+    CodeBlock producer =
+        producerExpression.getDependencyExpression(shardImplementation.name()).codeBlock();
+    // Always pass in the componentShard reference here rather than the owning shard for this key
+    // because this needs to be the root CancellationListener.
+    CodeBlock cancellationListener =
+        shardImplementation.isComponentShard()
+            ? CodeBlock.of("this")
+            : componentImplementation.getComponentShard().shardFieldReference();
+    Optional<CodeBlock> admissionExecution =
+        componentImplementation.admissionExecutionFieldReference();
+    CodeBlock entryPointView =
+        admissionExecution.isPresent()
+            ? CodeBlock.of(
+                "$T.entryPointViewOf($L, $L, $L, $L)",
+                TypeNames.PRODUCERS,
+                producer,
+                cancellationListener,
+                admissionExecution.get(),
+                componentImplementation.admissionControlMonitorProvider(shardImplementation.name()))
+            : CodeBlock.of(
+                "$T.entryPointViewOf($L, $L)", TypeNames.PRODUCERS, producer, cancellationListener);
+    Optional<CodeBlock> taskScope = componentImplementation.taskScopeFieldReference();
+    if (taskScope.isPresent()) {
+      entryPointView =
+          CodeBlock.of(
+              "$T.scopedEntryPointViewOf($L, $L)",
+              TypeNames.PRODUCERS,
+              entryPointView,
+              taskScope.get());
+    }
+    CodeBlock fieldInitialization = CodeBlock.of("this.$N = $L;", field, entryPointView);
     shardImplementation.addInitialization(fieldInitialization);
 
     return MemberSelect.localField(shardImplementation, field.name);
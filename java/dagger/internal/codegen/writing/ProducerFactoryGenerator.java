@@ -31,7 +31,10 @@ import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.FUTUR
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
 import static dagger.internal.codegen.javapoet.CodeBlocks.makeParametersCodeBlock;
 import static dagger.internal.codegen.javapoet.CodeBlocks.toParametersCodeBlock;
+import static dagger.internal.codegen.javapoet.TypeNames.BULKHEAD_GROUP;
+import static dagger.internal.codegen.javapoet.TypeNames.BULKHEAD_SATURATION;
 import static dagger.internal.codegen.javapoet.TypeNames.FUTURES;
+import static dagger.internal.codegen.javapoet.TypeNames.HEDGE_POLICY;
 import static dagger.internal.codegen.javapoet.TypeNames.PRODUCERS;
 import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_TOKEN;
 import static dagger.internal.codegen.javapoet.TypeNames.VOID_CLASS;
@@ -48,6 +51,7 @@ import static javax.lang.model.element.Modifier.PROTECTED;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
+import androidx.room.compiler.processing.XAnnotation;
 import androidx.room.compiler.processing.XElement;
 import androidx.room.compiler.processing.XFiler;
 import androidx.room.compiler.processing.XProcessingEnv;
@@ -66,6 +70,7 @@ import com.squareup.javapoet.TypeSpec;
 import dagger.internal.codegen.base.SourceFileGenerator;
 import dagger.internal.codegen.base.UniqueNameSet;
 import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.binding.BulkheadDeclaration;
 import dagger.internal.codegen.binding.FrameworkField;
 import dagger.internal.codegen.binding.KeyFactory;
 import dagger.internal.codegen.binding.ProductionBinding;
@@ -160,16 +165,55 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
             addFieldAndConstructorParameter(
                 factoryBuilder, constructorBuilder, fieldName, bindingField.type());
         fieldsBuilder.put(dependency, field);
-        frameworkFieldAssignments.add(fieldAssignment(field, bindingField.type()));
+        frameworkFieldAssignments.add(
+            compilerOptions.speculativePrefetch() && dependency.kind().equals(RequestKind.PRODUCER)
+                ? conditionalDependencyAssignment(field, dependency)
+                : fieldAssignment(field, bindingField.type()));
       }
     }
     ImmutableMap<DependencyRequest, FieldSpec> fields = fieldsBuilder.build();
 
-    constructorBuilder.addStatement(
-        "super($N, $L, $N)",
-        verifyNotNull(monitorParameterName),
-        producerTokenConstruction(generatedTypeName, binding),
-        verifyNotNull(executorParameterName));
+    Optional<BulkheadDeclaration> bulkhead =
+        BulkheadDeclaration.forProducesMethod(binding.bindingElement().get());
+    if (bulkhead.isPresent()) {
+      constructorBuilder.addStatement(
+          "super($N, $L, $N, $T.named($S, $L), $T.$N)",
+          verifyNotNull(monitorParameterName),
+          producerTokenConstruction(binding, compilerOptions),
+          verifyNotNull(executorParameterName),
+          BULKHEAD_GROUP,
+          bulkhead.get().name(),
+          bulkhead.get().maxInFlight(),
+          BULKHEAD_SATURATION,
+          bulkhead.get().onSaturation());
+    } else {
+      constructorBuilder.addStatement(
+          "super($N, $L, $N)",
+          verifyNotNull(monitorParameterName),
+          producerTokenConstruction(binding, compilerOptions),
+          verifyNotNull(executorParameterName));
+    }
+
+    XElement producesMethod = binding.bindingElement().get();
+    if (producesMethod.hasAnnotation(TypeNames.HEDGED)) {
+      // The policy is static so that the method's latencies are observed across all components.
+      XAnnotation hedged = producesMethod.getAnnotation(TypeNames.HEDGED);
+      FieldSpec hedgePolicyField =
+          FieldSpec.builder(
+                  HEDGE_POLICY,
+                  uniqueFieldNames.getUniqueName("HEDGE_POLICY"),
+                  PRIVATE,
+                  STATIC,
+                  FINAL)
+              .initializer(
+                  "$T.create($LL, $L)",
+                  HEDGE_POLICY,
+                  hedged.getAsLong("delayMillis"),
+                  hedged.getAsDouble("percentile"))
+              .build();
+      factoryBuilder.addField(hedgePolicyField);
+      constructorBuilder.addStatement("hedgeWith($N)", hedgePolicyField);
+    }
 
     if (binding.requiresModuleInstance()) {
       assignField(constructorBuilder, moduleField.get(), null);
@@ -181,17 +225,7 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
         methodBuilder("collectDependencies").addAnnotation(Override.class).addModifiers(PROTECTED);
 
     ImmutableList<DependencyRequest> asyncDependencies = asyncDependencies(binding);
-    for (DependencyRequest dependency : asyncDependencies) {
-      TypeName futureType = listenableFutureOf(asyncDependencyType(dependency));
-      CodeBlock futureAccess = CodeBlock.of("$N.get()", fields.get(dependency));
-      collectDependenciesBuilder.addStatement(
-          "$T $L = $L",
-          futureType,
-          dependencyFutureName(dependency),
-          dependency.kind().equals(RequestKind.PRODUCED)
-              ? CodeBlock.of("$T.createFutureProduced($L)", PRODUCERS, futureAccess)
-              : futureAccess);
-    }
+    collectDependenciesBuilder.addCode(dependencyFutureStatements(fields, asyncDependencies));
     FutureTransform futureTransform = createFutureTransform(fields, binding, asyncDependencies);
 
     collectDependenciesBuilder
@@ -268,6 +302,21 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
     return statement.build();
   }
 
+  /**
+   * Returns the assignment of a field for a {@code Producer<T>} parameter of the method, which lets
+   * the component's monitors observe and prefetch the parameter.
+   */
+  private static CodeBlock conditionalDependencyAssignment(
+      FieldSpec field, DependencyRequest dependency) {
+    return CodeBlock.builder()
+        .addStatement(
+            "this.$1N = conditionalDependency($2S, $3T.nonCancellationPropagatingViewOf($1N))",
+            field,
+            getSimpleName(dependency.requestElement().get().xprocessing()),
+            TypeNames.PRODUCERS)
+        .build();
+  }
+
   private static void assignField(
       MethodSpec.Builder constructorBuilder, FieldSpec field, ParameterizedTypeName type) {
     if (type != null && type.rawType.equals(TypeNames.PRODUCER)) {
@@ -278,25 +327,58 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
     }
   }
 
+  /**
+   * Returns the statements that declare a local variable for the future of each asynchronous
+   * dependency, which {@link FutureTransform#futureCodeBlock()} refers to.
+   */
+  static CodeBlock dependencyFutureStatements(
+      ImmutableMap<DependencyRequest, FieldSpec> fields,
+      ImmutableList<DependencyRequest> asyncDependencies) {
+    CodeBlock.Builder statements = CodeBlock.builder();
+    for (DependencyRequest dependency : asyncDependencies) {
+      TypeName futureType = listenableFutureOf(asyncDependencyType(dependency));
+      CodeBlock futureAccess = CodeBlock.of("$N.get()", fields.get(dependency));
+      statements.addStatement(
+          "$T $L = $L",
+          futureType,
+          dependencyFutureName(dependency),
+          dependency.kind().equals(RequestKind.PRODUCED)
+              ? CodeBlock.of("$T.createFutureProduced($L)", PRODUCERS, futureAccess)
+              : futureAccess);
+    }
+    return statements.build();
+  }
+
   /** Returns a list of dependencies that are generated asynchronously. */
-  private static ImmutableList<DependencyRequest> asyncDependencies(Binding binding) {
+  static ImmutableList<DependencyRequest> asyncDependencies(Binding binding) {
     return binding.dependencies().stream()
         .filter(ProducerFactoryGenerator::isAsyncDependency)
         .collect(toImmutableList());
   }
 
-  private CodeBlock producerTokenConstruction(
-      ClassName generatedTypeName, ProductionBinding binding) {
-    CodeBlock producerTokenArgs =
-        compilerOptions.writeProducerNameInToken()
-            ? CodeBlock.of(
-                "$S",
-                String.format(
-                    "%s#%s",
-                    binding.bindingTypeElement().get().getClassName(),
-                    getSimpleName(binding.bindingElement().get())))
-            : CodeBlock.of("$T.class", generatedTypeName);
-    return CodeBlock.of("$T.create($L)", PRODUCER_TOKEN, producerTokenArgs);
+  /**
+   * Returns an expression that creates the {@code ProducerToken} of the given binding's generated
+   * factory.
+   */
+  static CodeBlock producerTokenConstruction(
+      ProductionBinding binding, CompilerOptions compilerOptions) {
+    return compilerOptions.writeProducerNameInToken()
+        ? producerNameTokenConstruction(binding)
+        : CodeBlock.of("$T.create($T.class)", PRODUCER_TOKEN, generatedClassNameForBinding(binding));
+  }
+
+  /**
+   * Returns an expression that creates a {@code ProducerToken} with the name of the given binding's
+   * method, which doesn't load the binding's factory class.
+   */
+  static CodeBlock producerNameTokenConstruction(ProductionBinding binding) {
+    return CodeBlock.of(
+        "$T.create($S)",
+        PRODUCER_TOKEN,
+        String.format(
+            "%s#%s",
+            binding.bindingTypeElement().get().getClassName(),
+            getSimpleName(binding.bindingElement().get())));
   }
 
   /** Returns a name of the variable representing this dependency's future. */
@@ -304,7 +386,7 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
     return getSimpleName(dependency.requestElement().get().xprocessing()) + "Future";
   }
 
-  private FutureTransform createFutureTransform(
+  FutureTransform createFutureTransform(
         ImmutableMap<DependencyRequest, FieldSpec> fields,
         ProductionBinding binding,
         ImmutableList<DependencyRequest> asyncDependencies) {
@@ -482,7 +564,7 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
     }
   }
 
-  private static boolean isAsyncDependency(DependencyRequest dependency) {
+  static boolean isAsyncDependency(DependencyRequest dependency) {
     switch (dependency.kind()) {
       case INSTANCE:
       case PRODUCED:
@@ -516,6 +598,19 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
       ProductionBinding binding,
       TypeName providedTypeName,
       ImmutableList<CodeBlock> parameterCodeBlocks) {
+    return CodeBlock.of(
+        "return $L;", producesMethodInvocation(binding, providedTypeName, parameterCodeBlocks));
+  }
+
+  /**
+   * Returns an expression that invokes the producer method and evaluates to a {@code
+   * ListenableFuture} of its result. If the method requires a module instance, it is read from a
+   * variable named {@code module}.
+   */
+  static CodeBlock producesMethodInvocation(
+      ProductionBinding binding,
+      TypeName providedTypeName,
+      ImmutableList<CodeBlock> parameterCodeBlocks) {
     CodeBlock moduleCodeBlock =
         CodeBlock.of(
             "$L.$L($L)",
@@ -540,7 +635,7 @@ public final class ProducerFactoryGenerator extends SourceFileGenerator<Producti
       default:
         throw new AssertionError();
     }
-    return CodeBlock.of("return $L;", returnCodeBlock);
+    return returnCodeBlock;
   }
 
   @Override
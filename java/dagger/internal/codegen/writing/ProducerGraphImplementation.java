@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Suppliers.memoize;
+import static dagger.internal.codegen.base.Util.reentrantComputeIfAbsent;
+import static dagger.internal.codegen.javapoet.CodeBlocks.makeParametersCodeBlock;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_GRAPH;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_TOKEN;
+import static dagger.internal.codegen.writing.ProducerFactoryGenerator.producerNameTokenConstruction;
+import static dagger.internal.codegen.writing.ProducerFactoryGenerator.producerTokenConstruction;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.squareup.javapoet.CodeBlock;
+import dagger.internal.codegen.binding.Binding;
+import dagger.internal.codegen.binding.BindingGraph;
+import dagger.internal.codegen.binding.BindingNode;
+import dagger.internal.codegen.binding.BindingType;
+import dagger.internal.codegen.binding.ComponentDescriptor.ComponentMethodDescriptor;
+import dagger.internal.codegen.binding.ProductionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.model.BindingKind;
+import dagger.internal.codegen.model.DependencyRequest;
+import dagger.internal.codegen.model.Key;
+import dagger.internal.codegen.model.RequestKind;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Computes the {@code dagger.producers.monitoring.ProducerGraph} of a production component, if the
+ * component is generated with {@link CompilerOptions#producerGraphMetadata()}.
+ *
+ * <p>The nodes of the graph are the {@link BindingKind#PRODUCTION @Produces} bindings owned by this
+ * component. Other production bindings, such as multibindings and {@code @Binds} methods, don't
+ * have their own tokens, so a producer that depends on one of them depends on the producers that
+ * contribute to it instead. Bindings owned by ancestor components are monitored by the ancestor, so
+ * they are not part of this component's graph.
+ */
+@PerComponentImplementation
+final class ProducerGraphImplementation {
+  private final Map<Key, ImmutableSet<ProductionBinding>> producersByKey = new LinkedHashMap<>();
+  private final BindingGraph graph;
+  private final CompilerOptions compilerOptions;
+  private final Provider<SwitchingProducers> switchingProducersProvider;
+  private final Supplier<ImmutableSet<ProductionBinding>> entryPoints =
+      memoize(this::computeEntryPoints);
+  private final Supplier<ImmutableMap<ProductionBinding, Integer>> nodeIndices =
+      memoize(this::computeNodeIndices);
+
+  @Inject
+  ProducerGraphImplementation(
+      BindingGraph graph,
+      CompilerOptions compilerOptions,
+      // Inject as Provider<> to prevent a cycle.
+      Provider<SwitchingProducers> switchingProducersProvider) {
+    this.graph = graph;
+    this.compilerOptions = compilerOptions;
+    this.switchingProducersProvider = switchingProducersProvider;
+  }
+
+  /** Returns {@code true} if the component should record its producer graph. */
+  boolean isEnabled() {
+    return graph.componentDescriptor().isProduction() && compilerOptions.producerGraphMetadata();
+  }
+
+  /** Returns an expression that creates the {@code ProducerGraph} for this component. */
+  CodeBlock creationExpression() {
+    List<CodeBlock> tokens = new ArrayList<>();
+    List<CodeBlock> dependencies = new ArrayList<>();
+    for (ProductionBinding node : nodeIndices.get().keySet()) {
+      // Use the same token as the node's producer, which is a switching producer or a factory.
+      tokens.add(
+          switchingProducersProvider.get().useSwitchingProducer(node)
+              ? producerNameTokenConstruction(node)
+              : producerTokenConstruction(node, compilerOptions));
+      dependencies.add(CodeBlock.of("{$L}", indicesOf(producerDependencies(node))));
+    }
+    return CodeBlock.of(
+        "$T.create(new $T[] {$L}, new int[][] {$L}, new int[] {$L})",
+        PRODUCER_GRAPH,
+        PRODUCER_TOKEN,
+        makeParametersCodeBlock(tokens),
+        makeParametersCodeBlock(dependencies),
+        indicesOf(entryPoints.get()));
+  }
+
+  /** Returns the index of the given binding's node in the graph. */
+  int indexOf(ProductionBinding binding) {
+    Integer index = nodeIndices.get().get(binding);
+    checkArgument(index != null, "%s is not a node of the producer graph", binding);
+    return index;
+  }
+
+  private ImmutableSet<ProductionBinding> computeEntryPoints() {
+    ImmutableSet.Builder<ProductionBinding> entryPoints = ImmutableSet.builder();
+    for (ComponentMethodDescriptor method : graph.componentDescriptor().entryPointMethods()) {
+      DependencyRequest request = method.dependencyRequest().get();
+      if (startsProduction(request.kind())) {
+        entryPoints.addAll(producersFor(request.key()));
+      }
+    }
+    return entryPoints.build();
+  }
+
+  /**
+   * Returns the index of each node of the graph, in order: the entry points first, then all other
+   * local producers.
+   */
+  private ImmutableMap<ProductionBinding, Integer> computeNodeIndices() {
+    Set<ProductionBinding> nodes = new LinkedHashSet<>(entryPoints.get());
+    for (BindingNode bindingNode : graph.localBindingNodes()) {
+      if (bindingNode.delegate().kind().equals(BindingKind.PRODUCTION)) {
+        nodes.add((ProductionBinding) bindingNode.delegate());
+      }
+    }
+    ImmutableMap.Builder<ProductionBinding, Integer> indices = ImmutableMap.builder();
+    int index = 0;
+    for (ProductionBinding node : nodes) {
+      indices.put(node, index++);
+    }
+    return indices.build();
+  }
+
+  private CodeBlock indicesOf(Iterable<ProductionBinding> bindings) {
+    ImmutableList.Builder<CodeBlock> indices = ImmutableList.builder();
+    for (ProductionBinding binding : bindings) {
+      indices.add(CodeBlock.of("$L", nodeIndices.get().get(binding)));
+    }
+    return makeParametersCodeBlock(indices.build());
+  }
+
+  /** Returns the producers that must complete before the given producer can start. */
+  private ImmutableSet<ProductionBinding> producerDependencies(Binding binding) {
+    ImmutableSet.Builder<ProductionBinding> producers = ImmutableSet.builder();
+    for (DependencyRequest dependency : binding.dependencies()) {
+      if (isAsync(dependency.kind())) {
+        producers.addAll(producersFor(dependency.key()));
+      }
+    }
+    return producers.build();
+  }
+
+  /** Returns the local producers whose completion is required to produce a value for the key. */
+  private ImmutableSet<ProductionBinding> producersFor(Key key) {
+    return reentrantComputeIfAbsent(producersByKey, key, this::computeProducersFor);
+  }
+
+  private ImmutableSet<ProductionBinding> computeProducersFor(Key key) {
+    Optional<Binding> binding = graph.localContributionBinding(key);
+    if (!binding.isPresent() || !binding.get().bindingType().equals(BindingType.PRODUCTION)) {
+      return ImmutableSet.of();
+    }
+    return binding.get().kind().equals(BindingKind.PRODUCTION)
+        ? ImmutableSet.of((ProductionBinding) binding.get())
+        : producerDependencies(binding.get());
+  }
+
+  /** Returns {@code true} if an entry point of the given kind starts the production of its key. */
+  private static boolean startsProduction(RequestKind kind) {
+    switch (kind) {
+      case INSTANCE:
+      case PRODUCED:
+      case FUTURE:
+      case PRODUCER:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** Returns {@code true} if a request of the given kind waits for the requested value. */
+  private static boolean isAsync(RequestKind kind) {
+    return kind.equals(RequestKind.INSTANCE) || kind.equals(RequestKind.PRODUCED);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Suppliers.memoize;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.XMessager;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.model.Key;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.tools.Diagnostic;
+
+/**
+ * The keys that an application requests during startup, read from the file given by {@code
+ * -Adagger.startupProfile=<path>}.
+ *
+ * <p>The file lists one key per line in the order that the keys were first requested, written the
+ * way Dagger writes keys in its diagnostics, e.g. {@code @javax.inject.Named("foo")
+ * java.lang.String}. Blank lines and lines starting with {@code #} are ignored, as are keys that
+ * aren't bound in the component being generated.
+ *
+ * <p>Generated components put the bindings for these keys, and everything they depend on, in the
+ * component class itself rather than in a shard, and give them the first {@code SwitchingProvider}
+ * ids so that startup only interprets the first of the partitioned {@code get} methods. The profile
+ * only changes this layout; shards are still created eagerly with the component, and no list of
+ * bindings to initialize eagerly is generated.
+ */
+@Singleton
+final class StartupProfile {
+  private final Supplier<ImmutableMap<String, Integer>> ranks;
+
+  @Inject
+  StartupProfile(CompilerOptions compilerOptions, XMessager messager) {
+    Optional<String> path = compilerOptions.startupProfile();
+    this.ranks = memoize(() -> path.isPresent() ? read(path.get(), messager) : ImmutableMap.of());
+  }
+
+  private static ImmutableMap<String, Integer> read(String path, XMessager messager) {
+    Map<String, Integer> ranks = new LinkedHashMap<>();
+    try {
+      for (String line : Files.readAllLines(Paths.get(path), UTF_8)) {
+        String key = line.trim();
+        if (!key.isEmpty() && !key.startsWith("#")) {
+          ranks.putIfAbsent(key, ranks.size());
+        }
+      }
+    } catch (IOException e) {
+      messager.printMessage(
+          Diagnostic.Kind.WARNING,
+          String.format("Could not read the Dagger startup profile %s: %s", path, e));
+      return ImmutableMap.of();
+    }
+    return ImmutableMap.copyOf(ranks);
+  }
+
+  /** Returns {@code true} if no startup profile was given, or if it lists no keys. */
+  boolean isEmpty() {
+    return ranks.get().isEmpty();
+  }
+
+  /** Returns {@code true} if {@code key} is requested during startup. */
+  boolean contains(Key key) {
+    return ranks.get().containsKey(key.toString());
+  }
+
+  /**
+   * Returns the position of {@code key} in the order that keys are first requested during startup.
+   *
+   * @throws IllegalArgumentException if {@code key} isn't requested during startup
+   */
+  int rank(Key key) {
+    Integer rank = ranks.get().get(key.toString());
+    checkArgument(rank != null, "Not in the startup profile: %s", key);
+    return rank;
+  }
+}
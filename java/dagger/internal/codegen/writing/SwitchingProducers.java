@@ -0,0 +1,457 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.collect.Iterables.getLast;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.squareup.javapoet.MethodSpec.methodBuilder;
+import static com.squareup.javapoet.TypeSpec.classBuilder;
+import static dagger.internal.codegen.binding.SourceFiles.bindingTypeElementTypeVariableNames;
+import static dagger.internal.codegen.binding.SourceFiles.generateBindingFieldsForDependencies;
+import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
+import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.RAWTYPES;
+import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
+import static dagger.internal.codegen.javapoet.AnnotationSpecs.suppressWarnings;
+import static dagger.internal.codegen.javapoet.CodeBlocks.makeParametersCodeBlock;
+import static dagger.internal.codegen.javapoet.TypeNames.ABSTRACT_PRODUCES_METHOD_PRODUCER;
+import static dagger.internal.codegen.javapoet.TypeNames.EXECUTOR;
+import static dagger.internal.codegen.javapoet.TypeNames.LISTENABLE_FUTURE;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCERS;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCER_TOKEN;
+import static dagger.internal.codegen.javapoet.TypeNames.PRODUCTION_COMPONENT_MONITOR;
+import static dagger.internal.codegen.javapoet.TypeNames.providerOf;
+import static dagger.internal.codegen.langmodel.Accessibility.isElementAccessibleFrom;
+import static dagger.internal.codegen.langmodel.Accessibility.isTypeAccessibleFrom;
+import static dagger.internal.codegen.writing.ProducerFactoryGenerator.asyncDependencies;
+import static dagger.internal.codegen.writing.ProducerFactoryGenerator.dependencyFutureStatements;
+import static dagger.internal.codegen.writing.ProducerFactoryGenerator.isAsyncDependency;
+import static dagger.internal.codegen.writing.ProducerFactoryGenerator.producerNameTokenConstruction;
+import static dagger.internal.codegen.writing.ProducerFactoryGenerator.producesMethodInvocation;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PROTECTED;
+import static javax.lang.model.element.Modifier.STATIC;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+import dagger.internal.codegen.base.UniqueNameSet;
+import dagger.internal.codegen.binding.BulkheadDeclaration;
+import dagger.internal.codegen.binding.FrameworkField;
+import dagger.internal.codegen.binding.ProductionBinding;
+import dagger.internal.codegen.compileroption.CompilerOptions;
+import dagger.internal.codegen.javapoet.CodeBlocks;
+import dagger.internal.codegen.javapoet.TypeNames;
+import dagger.internal.codegen.model.BindingKind;
+import dagger.internal.codegen.model.DependencyRequest;
+import dagger.internal.codegen.model.Key;
+import dagger.internal.codegen.model.RequestKind;
+import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
+import dagger.internal.codegen.writing.ProducerFactoryGenerator.FutureTransform;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Creates the producers of {@code @Produces} methods with switching producers instead of their
+ * generated factories, if the component is generated with {@link
+ * CompilerOptions#switchingProducers()}.
+ *
+ * <p>A switching producer is a class nested in the component that can run any of the component's
+ * producer methods, selected by an id. The framework instances of the method's dependencies are
+ * passed to its constructor in the same order as to the factory's {@code create()} method, so
+ * initializing a component is unchanged, but the component loads a single class instead of one
+ * factory class per producer method. Like {@link SwitchingProviders}, each switch is limited to
+ * {@link #MAX_CASES_PER_SWITCH} cases, and each class to {@link #MAX_CASES_PER_CLASS}.
+ */
+@PerComponentImplementation
+final class SwitchingProducers {
+  private static final int MAX_CASES_PER_SWITCH = 100;
+  private static final long MAX_CASES_PER_CLASS = MAX_CASES_PER_SWITCH * MAX_CASES_PER_SWITCH;
+  private static final TypeVariableName T = TypeVariableName.get("T");
+
+  /** The name of the parameter of {@code callProducesMethod()}. */
+  private static final String ASYNC_DEPENDENCIES = "asyncDependencies";
+
+  private final Map<Key, SwitchingProducerBuilder> switchingProducerBuilders =
+      new LinkedHashMap<>();
+  private final Map<ProductionBinding, Optional<ProducesMethodCases>> producesMethodCases =
+      new HashMap<>();
+
+  private final ComponentImplementation componentImplementation;
+  private final Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider;
+  private final ProducerFactoryGenerator producerFactoryGenerator;
+  private final CompilerOptions compilerOptions;
+
+  @Inject
+  SwitchingProducers(
+      ComponentImplementation componentImplementation,
+      // Inject as Provider<> to prevent a cycle.
+      Provider<ComponentRequestRepresentations> componentRequestRepresentationsProvider,
+      ProducerFactoryGenerator producerFactoryGenerator,
+      CompilerOptions compilerOptions) {
+    this.componentImplementation = componentImplementation;
+    this.componentRequestRepresentationsProvider = componentRequestRepresentationsProvider;
+    this.producerFactoryGenerator = producerFactoryGenerator;
+    this.compilerOptions = compilerOptions;
+  }
+
+  /**
+   * Returns {@code true} if the binding's producer should be created by a switching producer.
+   *
+   * <p>Bindings with {@code @Bulkhead} or {@code @Hedged}, which configure their factories, generic
+   * bindings, and bindings that use types that aren't accessible from the component still use
+   * their factories.
+   */
+  boolean useSwitchingProducer(ProductionBinding binding) {
+    if (!compilerOptions.switchingProducers()
+        || !binding.kind().equals(BindingKind.PRODUCTION)
+        || binding.unresolved().isPresent()
+        || !bindingTypeElementTypeVariableNames(binding).isEmpty()) {
+      return false;
+    }
+    return producesMethodCases
+        .computeIfAbsent(binding, this::createProducesMethodCases)
+        .isPresent();
+  }
+
+  /** Returns an expression that creates the producer for the binding. */
+  CodeBlock newInstanceCodeBlock(ProductionBinding binding, ClassName requestingClass) {
+    return switchingProducerBuilders
+        .computeIfAbsent(binding.key(), key -> getSwitchingProducerBuilder())
+        .getNewInstanceCodeBlock(binding, requestingClass);
+  }
+
+  private SwitchingProducerBuilder getSwitchingProducerBuilder() {
+    if (switchingProducerBuilders.size() % MAX_CASES_PER_CLASS == 0) {
+      ShardImplementation componentShard = componentImplementation.getComponentShard();
+      String name = componentShard.getUniqueClassName("SwitchingProducer");
+      SwitchingProducerBuilder switchingProducerBuilder =
+          new SwitchingProducerBuilder(componentShard.name().nestedClass(name));
+      componentShard.addTypeSupplier(switchingProducerBuilder::build);
+      return switchingProducerBuilder;
+    }
+    return getLast(switchingProducerBuilders.values());
+  }
+
+  private Optional<ProducesMethodCases> createProducesMethodCases(ProductionBinding binding) {
+    if (binding.bindingElement().get().hasAnnotation(TypeNames.HEDGED)
+        || BulkheadDeclaration.forProducesMethod(binding.bindingElement().get()).isPresent()) {
+      return Optional.empty();
+    }
+    // The factory wraps Producer<T> parameters so that they can be prefetched.
+    if (compilerOptions.speculativePrefetch()
+        && binding.explicitDependencies().stream()
+            .anyMatch(dependency -> dependency.kind().equals(RequestKind.PRODUCER))) {
+      return Optional.empty();
+    }
+    String packageName = componentImplementation.name().packageName();
+    if (!isElementAccessibleFrom(binding.bindingElement().get(), packageName)
+        || !isTypeAccessibleFrom(binding.bindingTypeElement().get().getType(), packageName)
+        || !isTypeAccessibleFrom(binding.contributedType(), packageName)
+        || !binding.explicitDependencies().stream()
+            .allMatch(
+                dependency ->
+                    isTypeAccessibleFrom(dependency.key().type().xprocessing(), packageName))) {
+      return Optional.empty();
+    }
+
+    // Use the names that the factory uses for its fields, so that the factory's code can be reused.
+    UniqueNameSet variableNames = new UniqueNameSet();
+    variableNames.claim(ASYNC_DEPENDENCIES);
+    variableNames.claim("module");
+    ImmutableMap<DependencyRequest, FrameworkField> frameworkFields =
+        generateBindingFieldsForDependencies(binding);
+    ImmutableMap.Builder<DependencyRequest, FieldSpec> variables = ImmutableMap.builder();
+    for (DependencyRequest dependency : binding.explicitDependencies()) {
+      FrameworkField frameworkField = frameworkFields.get(dependency);
+      variables.put(
+          dependency,
+          FieldSpec.builder(
+                  frameworkField.type(), variableNames.getUniqueName(frameworkField.name()))
+              .build());
+    }
+    ImmutableList<DependencyRequest> asyncDependencies = asyncDependencies(binding);
+    FutureTransform futureTransform =
+        producerFactoryGenerator.createFutureTransform(
+            variables.build(), binding, asyncDependencies);
+    if (!asyncDependencies.isEmpty() && !variableNames.claim(futureTransform.applyArgName())) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        new ProducesMethodCases(binding, variables.build(), asyncDependencies, futureTransform));
+  }
+
+  /**
+   * The statements of a binding's {@code collectDependencies()} and {@code callProducesMethod()}
+   * methods. Each declares a local variable for each of the framework instances that it uses.
+   */
+  private static final class ProducesMethodCases {
+    private final ProductionBinding binding;
+    private final ImmutableMap<DependencyRequest, FieldSpec> variables;
+    private final ImmutableList<DependencyRequest> asyncDependencies;
+    private final FutureTransform futureTransform;
+
+    ProducesMethodCases(
+        ProductionBinding binding,
+        ImmutableMap<DependencyRequest, FieldSpec> variables,
+        ImmutableList<DependencyRequest> asyncDependencies,
+        FutureTransform futureTransform) {
+      this.binding = binding;
+      this.variables = variables;
+      this.asyncDependencies = asyncDependencies;
+      this.futureTransform = futureTransform;
+    }
+
+    /**
+     * Returns the index of each dependency's framework instance in the switching producer's {@code
+     * dependencies}, which holds the module first, if the method requires one.
+     */
+    int indexOf(DependencyRequest dependency) {
+      return (binding.requiresModuleInstance() ? 1 : 0)
+          + binding.explicitDependencies().asList().indexOf(dependency);
+    }
+
+    CodeBlock collectDependencies() {
+      CodeBlock.Builder statements = CodeBlock.builder();
+      for (DependencyRequest dependency : asyncDependencies) {
+        declareVariable(statements, dependency);
+      }
+      return statements
+          .add(dependencyFutureStatements(variables, asyncDependencies))
+          .addStatement("return ($T) $L", LISTENABLE_FUTURE, futureTransform.futureCodeBlock())
+          .build();
+    }
+
+    CodeBlock callProducesMethod() {
+      CodeBlock.Builder statements = CodeBlock.builder();
+      if (binding.requiresModuleInstance()) {
+        statements.addStatement(
+            "$1T module = ($1T) dependencies[0]",
+            binding.bindingTypeElement().get().getType().getTypeName());
+      }
+      for (DependencyRequest dependency : binding.explicitDependencies()) {
+        if (!isAsyncDependency(dependency)) {
+          declareVariable(statements, dependency);
+        }
+      }
+      if (!asyncDependencies.isEmpty()) {
+        statements.addStatement(
+            "$1T $2L = ($1T) $3L",
+            futureTransform.applyArgType(),
+            futureTransform.applyArgName(),
+            ASYNC_DEPENDENCIES);
+      }
+      return statements
+          .addStatement(
+              "return ($T) $L",
+              LISTENABLE_FUTURE,
+              producesMethodInvocation(
+                  binding,
+                  binding.contributedType().getTypeName(),
+                  futureTransform.parameterCodeBlocks()))
+          .build();
+    }
+
+    private void declareVariable(CodeBlock.Builder statements, DependencyRequest dependency) {
+      FieldSpec variable = variables.get(dependency);
+      statements.addStatement(
+          "$1T $2N = ($1T) dependencies[$3L]", variable.type, variable, indexOf(dependency));
+    }
+  }
+
+  private final class SwitchingProducerBuilder {
+    // Keep the switch cases ordered by switch id, as in SwitchingProviders.
+    private final Map<Integer, CodeBlock> collectDependenciesCases = new TreeMap<>();
+    private final Map<Integer, CodeBlock> callProducesMethodCases = new TreeMap<>();
+    private final Map<Key, Integer> switchIds = new HashMap<>();
+    private final ClassName switchingProducerType;
+
+    SwitchingProducerBuilder(ClassName switchingProducerType) {
+      this.switchingProducerType = switchingProducerType;
+    }
+
+    private CodeBlock getNewInstanceCodeBlock(
+        ProductionBinding binding, ClassName requestingClass) {
+      Key key = binding.key();
+      if (!switchIds.containsKey(key)) {
+        int switchId = switchIds.size();
+        switchIds.put(key, switchId);
+        ProducesMethodCases cases = producesMethodCases.get(binding).get();
+        collectDependenciesCases.put(
+            switchId, switchCase(switchId, key, cases.collectDependencies()));
+        callProducesMethodCases.put(
+            switchId, switchCase(switchId, key, cases.callProducesMethod()));
+      }
+
+      // The arguments of the factory's create() method: the module, if the method requires one,
+      // and then the framework instance of each dependency, including the executor and monitor.
+      ImmutableList<CodeBlock> factoryArguments =
+          componentRequestRepresentationsProvider
+              .get()
+              .getCreateMethodArgumentsCodeBlocks(binding, requestingClass);
+      int offset = binding.requiresModuleInstance() ? 1 : 0;
+      Function<DependencyRequest, CodeBlock> argument =
+          dependency ->
+              factoryArguments.get(offset + binding.dependencies().asList().indexOf(dependency));
+
+      List<CodeBlock> arguments = new ArrayList<>();
+      arguments.add(CodeBlock.of("$L", switchIds.get(key)));
+      // Use the name, since a class literal would load the factory class.
+      arguments.add(producerNameTokenConstruction(binding));
+      arguments.add(argument.apply(binding.monitorRequest().get()));
+      arguments.add(argument.apply(binding.executorRequest().get()));
+      if (binding.requiresModuleInstance()) {
+        arguments.add(factoryArguments.get(0));
+      }
+      ImmutableMap<DependencyRequest, FrameworkField> frameworkFields =
+          generateBindingFieldsForDependencies(binding);
+      for (DependencyRequest dependency : binding.explicitDependencies()) {
+        // Like the factory, don't let a dependency's cancellation propagate to this producer.
+        arguments.add(
+            frameworkFields.get(dependency).type().rawType.equals(PRODUCER)
+                ? CodeBlock.of(
+                    "$T.nonCancellationPropagatingViewOf($L)",
+                    PRODUCERS,
+                    argument.apply(dependency))
+                : argument.apply(dependency));
+      }
+      return CodeBlock.of(
+          "new $T<$T>($L)",
+          switchingProducerType,
+          binding.contributedType().getTypeName(),
+          makeParametersCodeBlock(arguments));
+    }
+
+    private CodeBlock switchCase(int switchId, Key key, CodeBlock statements) {
+      return CodeBlock.builder()
+          .add("case $L: { // $L\n", switchId, key)
+          .indent()
+          .add(statements)
+          .unindent()
+          .add("}\n")
+          .build();
+    }
+
+    private TypeSpec build() {
+      return classBuilder(switchingProducerType)
+          .addModifiers(PRIVATE, FINAL, STATIC)
+          .addTypeVariable(T)
+          .superclass(
+              ParameterizedTypeName.get(ABSTRACT_PRODUCES_METHOD_PRODUCER, TypeName.OBJECT, T))
+          .addField(TypeName.INT, "id", PRIVATE, FINAL)
+          .addField(ArrayTypeName.of(TypeName.OBJECT), "dependencies", PRIVATE, FINAL)
+          .addMethod(
+              MethodSpec.constructorBuilder()
+                  .addParameter(TypeName.INT, "id")
+                  .addParameter(PRODUCER_TOKEN, "token")
+                  .addParameter(providerOf(PRODUCTION_COMPONENT_MONITOR), "monitorProvider")
+                  .addParameter(providerOf(EXECUTOR), "executorProvider")
+                  .addParameter(ArrayTypeName.of(TypeName.OBJECT), "dependencies")
+                  .varargs()
+                  .addStatement("super(monitorProvider, token, executorProvider)")
+                  .addStatement("this.id = id")
+                  .addStatement("this.dependencies = dependencies")
+                  .build())
+          .addMethods(
+              switchMethods(
+                  methodBuilder("collectDependencies")
+                      .addModifiers(PROTECTED)
+                      .returns(ParameterizedTypeName.get(LISTENABLE_FUTURE, TypeName.OBJECT)),
+                  collectDependenciesCases))
+          .addMethods(
+              switchMethods(
+                  methodBuilder("callProducesMethod")
+                      .addModifiers(PROTECTED)
+                      .addParameter(TypeName.OBJECT, ASYNC_DEPENDENCIES)
+                      .addException(Exception.class)
+                      .returns(ParameterizedTypeName.get(LISTENABLE_FUTURE, T)),
+                  callProducesMethodCases))
+          .build();
+    }
+
+    /**
+     * Returns the given method, which overrides a method of {@code AbstractProducesMethodProducer}
+     * with a switch over {@code id}. If there are more than {@link #MAX_CASES_PER_SWITCH} cases,
+     * the method routes to private methods that each switch over a partition of the cases.
+     */
+    private ImmutableList<MethodSpec> switchMethods(
+        MethodSpec.Builder method, Map<Integer, CodeBlock> cases) {
+      ImmutableList<CodeBlock> switchCodeBlockPartitions =
+          Lists.partition(ImmutableList.copyOf(cases.values()), MAX_CASES_PER_SWITCH).stream()
+              .map(
+                  partitionCases ->
+                      CodeBlock.builder()
+                          .beginControlFlow("switch (id)")
+                          .add(CodeBlocks.concat(partitionCases))
+                          .addStatement("default: throw new $T(id)", AssertionError.class)
+                          .endControlFlow()
+                          .build())
+              .collect(toImmutableList());
+      MethodSpec template = method.build();
+      if (switchCodeBlockPartitions.size() == 1) {
+        return ImmutableList.of(
+            method
+                .addAnnotation(Override.class)
+                .addAnnotation(suppressWarnings(UNCHECKED, RAWTYPES))
+                .addCode(getOnlyElement(switchCodeBlockPartitions))
+                .build());
+      }
+
+      CodeBlock arguments =
+          template.parameters.stream()
+              .map(parameter -> CodeBlock.of("$N", parameter))
+              .collect(CodeBlocks.toParametersCodeBlock());
+      method
+          .addAnnotation(Override.class)
+          .beginControlFlow("switch (id / $L)", MAX_CASES_PER_SWITCH);
+      ImmutableList.Builder<MethodSpec> methods = ImmutableList.builder();
+      for (int i = 0; i < switchCodeBlockPartitions.size(); i++) {
+        MethodSpec partitionMethod =
+            methodBuilder(template.name + i)
+                .addModifiers(PRIVATE)
+                .addParameters(template.parameters)
+                .addExceptions(template.exceptions)
+                .returns(template.returnType)
+                .addAnnotation(suppressWarnings(UNCHECKED, RAWTYPES))
+                .addCode(switchCodeBlockPartitions.get(i))
+                .build();
+        methods.add(partitionMethod);
+        method.addStatement("case $L: return $N($L)", i, partitionMethod, arguments);
+      }
+      method.addStatement("default: throw new $T(id)", AssertionError.class).endControlFlow();
+      return methods.add(method.build()).build();
+    }
+  }
+}
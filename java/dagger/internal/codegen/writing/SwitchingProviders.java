@@ -21,7 +21,6 @@ import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static com.squareup.javapoet.TypeSpec.classBuilder;
-import static dagger.internal.codegen.extension.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.Suppression.UNCHECKED;
 import static dagger.internal.codegen.javapoet.AnnotationSpecs.suppressWarnings;
 import static dagger.internal.codegen.javapoet.TypeNames.providerOf;
@@ -32,7 +31,8 @@ import static javax.lang.model.element.Modifier.STATIC;
 
 import androidx.room.compiler.processing.XProcessingEnv;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
@@ -46,8 +46,10 @@ import dagger.internal.codegen.model.Key;
 import dagger.internal.codegen.writing.ComponentImplementation.ShardImplementation;
 import dagger.internal.codegen.writing.FrameworkFieldInitializer.FrameworkInstanceCreationExpression;
 import dagger.internal.codegen.xprocessing.XProcessingEnvs;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -73,7 +75,8 @@ final class SwitchingProviders {
 
   /**
    * Maps a {@link Key} to an instance of a {@link SwitchingProviderBuilder}. Each group of {@code
-   * MAX_CASES_PER_CLASS} keys will share the same instance.
+   * MAX_CASES_PER_CLASS} keys will share the same instance, except that startup keys always share
+   * the first instance.
    */
   private final Map<Key, SwitchingProviderBuilder> switchingProviderBuilders =
       new LinkedHashMap<>();
@@ -93,21 +96,36 @@ final class SwitchingProviders {
       @Override
       public CodeBlock creationExpression() {
         return switchingProviderBuilders
-            .computeIfAbsent(binding.key(), key -> getSwitchingProviderBuilder())
+            .computeIfAbsent(binding.key(), key -> getSwitchingProviderBuilder(key))
             .getNewInstanceCodeBlock(binding, unscopedInstanceRequestRepresentation);
       }
     };
   }
 
-  private SwitchingProviderBuilder getSwitchingProviderBuilder() {
-    if (switchingProviderBuilders.size() % MAX_CASES_PER_CLASS == 0) {
-      String name = shardImplementation.getUniqueClassName("SwitchingProvider");
-      SwitchingProviderBuilder switchingProviderBuilder =
-          new SwitchingProviderBuilder(shardImplementation.name().nestedClass(name));
-      shardImplementation.addTypeSupplier(switchingProviderBuilder::build);
-      return switchingProviderBuilder;
+  private SwitchingProviderBuilder getSwitchingProviderBuilder(Key key) {
+    if (switchingProviderBuilders.isEmpty()) {
+      // The keys requested during startup get the first ids of the first switching provider, so
+      // that startup only goes through its first get() method.
+      ImmutableList<Key> startupKeys = shardImplementation.startupKeys();
+      return newSwitchingProviderBuilder(
+          startupKeys.subList(0, (int) Math.min(startupKeys.size(), MAX_CASES_PER_CLASS)));
     }
-    return getLast(switchingProviderBuilders.values());
+    // A startup key goes to the first switching provider whenever it's requested, so that its
+    // reserved id is used even if later keys have already filled that switching provider.
+    SwitchingProviderBuilder firstBuilder = switchingProviderBuilders.values().iterator().next();
+    if (firstBuilder.hasReservedSwitchId(key)) {
+      return firstBuilder;
+    }
+    SwitchingProviderBuilder lastBuilder = getLast(switchingProviderBuilders.values());
+    return lastBuilder.isFull() ? newSwitchingProviderBuilder(ImmutableList.of()) : lastBuilder;
+  }
+
+  private SwitchingProviderBuilder newSwitchingProviderBuilder(ImmutableList<Key> reservedKeys) {
+    String name = shardImplementation.getUniqueClassName("SwitchingProvider");
+    SwitchingProviderBuilder switchingProviderBuilder =
+        new SwitchingProviderBuilder(shardImplementation.name().nestedClass(name), reservedKeys);
+    shardImplementation.addTypeSupplier(switchingProviderBuilder::build);
+    return switchingProviderBuilder;
   }
 
   // TODO(bcorso): Consider just merging this class with SwitchingProviders.
@@ -116,17 +134,35 @@ final class SwitchingProviders {
     // traversal, but the switch cases are assigned in post-order traversal of the binding graph.
     private final Map<Integer, CodeBlock> switchCases = new TreeMap<>();
     private final Map<Key, Integer> switchIds = new HashMap<>();
+    private final ImmutableMap<Key, Integer> reservedSwitchIds;
     private final ClassName switchingProviderType;
+    private int nextSwitchId;
 
-    SwitchingProviderBuilder(ClassName switchingProviderType) {
+    SwitchingProviderBuilder(ClassName switchingProviderType, ImmutableList<Key> reservedKeys) {
       this.switchingProviderType = checkNotNull(switchingProviderType);
+      ImmutableMap.Builder<Key, Integer> reservedSwitchIds = ImmutableMap.builder();
+      for (int i = 0; i < reservedKeys.size(); i++) {
+        reservedSwitchIds.put(reservedKeys.get(i), i);
+      }
+      this.reservedSwitchIds = reservedSwitchIds.buildOrThrow();
+      this.nextSwitchId = reservedKeys.size();
+    }
+
+    private boolean hasReservedSwitchId(Key key) {
+      return reservedSwitchIds.containsKey(key);
+    }
+
+    /** Returns {@code true} if all of this switching provider's ids have been assigned. */
+    private boolean isFull() {
+      return nextSwitchId >= MAX_CASES_PER_CLASS;
     }
 
     private CodeBlock getNewInstanceCodeBlock(
         ContributionBinding binding, RequestRepresentation unscopedInstanceRequestRepresentation) {
       Key key = binding.key();
       if (!switchIds.containsKey(key)) {
-        int switchId = switchIds.size();
+        int switchId =
+            reservedSwitchIds.containsKey(key) ? reservedSwitchIds.get(key) : nextSwitchId++;
         switchIds.put(key, switchId);
         switchCases.put(
             switchId, createSwitchCaseCodeBlock(key, unscopedInstanceRequestRepresentation));
@@ -193,7 +229,7 @@ final class SwitchingProviders {
     }
 
     private ImmutableList<MethodSpec> getMethods() {
-      ImmutableList<CodeBlock> switchCodeBlockPartitions = switchCodeBlockPartitions();
+      ImmutableMap<Integer, CodeBlock> switchCodeBlockPartitions = switchCodeBlockPartitions();
       if (switchCodeBlockPartitions.size() == 1) {
         // There are less than MAX_CASES_PER_SWITCH cases, so no need for extra get methods.
         return ImmutableList.of(
@@ -202,7 +238,7 @@ final class SwitchingProviders {
                 .addAnnotation(suppressWarnings(UNCHECKED))
                 .addAnnotation(Override.class)
                 .returns(T)
-                .addCode(getOnlyElement(switchCodeBlockPartitions))
+                .addCode(getOnlyElement(switchCodeBlockPartitions.values()))
                 .build());
       }
 
@@ -215,7 +251,7 @@ final class SwitchingProviders {
               .beginControlFlow("switch (id / $L)", MAX_CASES_PER_SWITCH);
 
       ImmutableList.Builder<MethodSpec> getMethods = ImmutableList.builder();
-      for (int i = 0; i < switchCodeBlockPartitions.size(); i++) {
+      for (int i : switchCodeBlockPartitions.keySet()) {
         MethodSpec method =
             methodBuilder("get" + i)
                 .addModifiers(PRIVATE)
@@ -232,18 +268,28 @@ final class SwitchingProviders {
       return getMethods.add(routerMethod.build()).build();
     }
 
-    private ImmutableList<CodeBlock> switchCodeBlockPartitions() {
-      return Lists.partition(ImmutableList.copyOf(switchCases.values()), MAX_CASES_PER_SWITCH)
-          .stream()
-          .map(
+    /**
+     * Returns the switch statement of each partition of {@code MAX_CASES_PER_SWITCH} ids, keyed by
+     * {@code id / MAX_CASES_PER_SWITCH}. Partitions are by id rather than by count, since reserved
+     * ids may be left unused.
+     */
+    private ImmutableMap<Integer, CodeBlock> switchCodeBlockPartitions() {
+      Map<Integer, List<CodeBlock>> partitions = new TreeMap<>();
+      switchCases.forEach(
+          (switchId, switchCase) ->
+              partitions
+                  .computeIfAbsent(switchId / MAX_CASES_PER_SWITCH, unused -> new ArrayList<>())
+                  .add(switchCase));
+      return ImmutableMap.copyOf(
+          Maps.transformValues(
+              partitions,
               partitionCases ->
                   CodeBlock.builder()
                       .beginControlFlow("switch (id)")
                       .add(CodeBlocks.concat(partitionCases))
                       .addStatement("default: throw new $T(id)", AssertionError.class)
                       .endControlFlow()
-                      .build())
-          .collect(toImmutableList());
+                      .build()));
     }
   }
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the number of executions of a {@linkplain ProductionComponent production component} that
+ * may be in flight at once. Each instance of the component is one execution, however many of its
+ * entry points that return a {@code ListenableFuture} or a {@link Producer} are called. The
+ * execution is in flight from when the first of them is called until all of the futures they have
+ * returned have completed.
+ *
+ * <p>Executions are admitted before any of the component's producers are started, so a component
+ * that is saturated sheds or queues new work at its boundary instead of starting producers that
+ * would then compete for the {@link Production @Production} executor. For example, to allow at
+ * most 100 concurrent executions of a component across all of its instances:
+ *
+ * <pre><code>
+ *   {@literal @ProductionComponent(modules = ResponseModule.class)}
+ *   {@literal @AdmissionControl(maxConcurrentExecutions = 100, onSaturation = Saturation.FAIL)}
+ *   interface ResponseComponent {
+ *     ListenableFuture&lt;Response&gt; response();
+ *   }
+ * </code></pre>
+ *
+ * <p>The limit is shared by all instances of the component. When it is reached, the {@linkplain
+ * dagger.producers.monitoring.ProductionComponentMonitor component's monitor} is notified, and the
+ * execution is handled according to {@link #onSaturation()}.
+ */
+@Documented
+@Target(TYPE)
+@Retention(CLASS)
+@Beta
+public @interface AdmissionControl {
+  /** The maximum number of executions of the component that may be in flight at once. */
+  int maxConcurrentExecutions();
+
+  /**
+   * What happens to an execution that is started while the component is saturated. With {@link
+   * Bulkhead.Saturation#FAIL}, the future returned by the entry point fails with a {@link
+   * java.util.concurrent.RejectedExecutionException}.
+   */
+  Bulkhead.Saturation onSaturation() default Bulkhead.Saturation.QUEUE;
+}
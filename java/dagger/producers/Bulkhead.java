@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Limits the number of {@link Produces @Produces} methods in a named group that may be in flight at
+ * once. A method is in flight from when it is submitted to the {@link Production @Production}
+ * executor until the future that it returns has completed.
+ *
+ * <p>This annotation may be placed on a {@code @Produces} method, or on a {@link ProducerModule} to
+ * apply it to all of the module's {@code @Produces} methods that aren't annotated themselves. For
+ * example, to allow at most 10 concurrent requests to a backend across all components:
+ *
+ * <pre><code>
+ *   {@literal @Produces @Bulkhead(value = "backend", maxInFlight = 10)}
+ *   static ListenableFuture&lt;Response&gt; response(BackendStub stub, Request request) {
+ *     return stub.call(request);
+ *   }
+ * </code></pre>
+ *
+ * <p>Groups are shared by all components in the same class loader, so all methods that name the
+ * same group must declare the same {@link #maxInFlight()}. When a group is saturated, the {@link
+ * dagger.producers.monitoring.ProducerMonitor#bulkheadSaturated(String) monitors} of its producers
+ * are notified and the producer is handled according to {@link #onSaturation()}.
+ */
+@Documented
+@Target({METHOD, TYPE})
+@Retention(CLASS)
+@Beta
+public @interface Bulkhead {
+  /** The name of the group. */
+  String value();
+
+  /** The maximum number of methods in the group that may be in flight at once. */
+  int maxInFlight();
+
+  /** What happens to a producer whose group is saturated when it is ready to run. */
+  Saturation onSaturation() default Saturation.QUEUE;
+
+  /** Enumeration of the options for what happens to a producer whose group is saturated. */
+  enum Saturation {
+    /**
+     * Wait until another method in the group has finished. Waiting producers are run in the order
+     * in which they became ready.
+     */
+    QUEUE,
+
+    /**
+     * Fail the producer immediately with a {@link java.util.concurrent.RejectedExecutionException},
+     * so that producers that depend on it receive a failed {@link Produced}.
+     */
+    FAIL
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Annotates a {@link Produces @Produces} method whose future may be slow to complete, so that the
+ * method is called a second time if the first call hasn't completed after a delay. The producer
+ * completes with the first of the two calls to succeed, and the other call's future is cancelled.
+ * This reduces the tail latency of methods such as reads from a replicated backend, at the cost of
+ * a few extra calls.
+ *
+ * <p>Only annotate methods that are idempotent and return a {@link
+ * com.google.common.util.concurrent.ListenableFuture}, since the method may be called twice with
+ * the same arguments. For example, to call the method again if it's slower than 95% of its previous
+ * calls, or slower than 50ms until enough calls have been observed:
+ *
+ * <pre><code>
+ *   {@literal @Produces @Hedged(delayMillis = 50, percentile = 95)}
+ *   static ListenableFuture&lt;Profile&gt; profile(ProfileStub stub, UserId userId) {
+ *     return stub.getProfile(userId);
+ *   }
+ * </code></pre>
+ *
+ * <p>The second call is submitted to the {@link Production @Production} executor with the same
+ * priority as the first. It's skipped if the executor runs tasks on the submitting thread, such as
+ * {@code MoreExecutors.directExecutor()}, since that thread is shared by the hedges of all methods.
+ * A {@code @Hedged} method can't also be annotated with {@link Bulkhead @Bulkhead}. {@link
+ * dagger.producers.monitoring.ProducerMonitor#hedgeStarted() Monitors} are notified when the second
+ * call starts, but {@code methodStarting()} and {@code methodFinished()} are only called for the
+ * first call.
+ */
+@Documented
+@Target(METHOD)
+@Retention(CLASS)
+@Beta
+public @interface Hedged {
+  /**
+   * The delay, in milliseconds, after which the method is called again. If a {@link #percentile()}
+   * is given, this is only used until enough of the method's latencies have been observed.
+   */
+  long delayMillis();
+
+  /**
+   * If positive, the method is called again when the first call has taken longer than this
+   * percentile, between 0 and 100, of the latencies of the method's successful calls.
+   */
+  double percentile() default 0;
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import dagger.internal.Beta;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An executor that runs the producers of {@linkplain ProductionComponent production components}
+ * in order of their priority, rather than in the order in which they became ready to run.
+ *
+ * <p>Producer priorities are computed from the component's {@code
+ * dagger.producers.monitoring.ProducerGraph}, so they are only available for components compiled
+ * with {@code -Adagger.producerGraphMetadata=ENABLED}. A producer's priority is the length of the
+ * longest chain of producers from it to an entry point of the component, so producers that begin
+ * long chains of work, which are likely to be on the critical path, run first. All other tasks run
+ * with {@link #DEFAULT_PRIORITY}. Tasks with equal priorities run in the order in which they were
+ * submitted.
+ *
+ * <p>Each task is queued in this executor, and a task that runs the highest-priority queued tasks
+ * until none are left is submitted to the delegate executor. Priorities therefore only have an
+ * effect when the delegate is saturated, and tasks are never delayed while the delegate has free
+ * threads. If the delegate rejects a submission, the rejection is thrown to the caller and its task
+ * is not run, unless a thread of the delegate has already started running it.
+ *
+ * <p>To use it, wrap the executor that is bound as the {@link Production @Production} executor:
+ * <pre><code>
+ *   {@literal @Provides @Production} static Executor executor(ExecutorService pool) {
+ *     return PrioritizingExecutor.wrap(pool);
+ *   }
+ * </code></pre>
+ *
+ * <p>A single instance can be shared by all components that use the same delegate, so that
+ * producers from different components are also run in order of priority.
+ */
+@Beta
+public final class PrioritizingExecutor implements Executor {
+  /** The priority of tasks that are submitted without one. */
+  public static final int DEFAULT_PRIORITY = 0;
+
+  private final Executor delegate;
+  private final PriorityBlockingQueue<PrioritizedTask> queue = new PriorityBlockingQueue<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private final Runnable runNextTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          // Each task is queued before this runnable is submitted for it, and the runnable only
+          // returns once the queue is empty, so no queued task is left without a thread to run it.
+          for (PrioritizedTask task = queue.poll(); task != null; task = queue.poll()) {
+            task.runnable.run();
+          }
+        }
+      };
+
+  private PrioritizingExecutor(Executor delegate) {
+    this.delegate = checkNotNull(delegate);
+  }
+
+  /** Returns an executor that runs tasks on the given executor in order of their priority. */
+  public static PrioritizingExecutor wrap(Executor delegate) {
+    return delegate instanceof PrioritizingExecutor
+        ? (PrioritizingExecutor) delegate
+        : new PrioritizingExecutor(delegate);
+  }
+
+  /** Runs the given task with {@link #DEFAULT_PRIORITY}. */
+  @Override
+  public void execute(Runnable runnable) {
+    execute(runnable, DEFAULT_PRIORITY);
+  }
+
+  /**
+   * Runs the given task. When the delegate executor is saturated, tasks with higher priorities are
+   * run before tasks with lower priorities.
+   *
+   * @throws RuntimeException if the delegate rejects the task, in which case it won't be run
+   */
+  public void execute(Runnable runnable, int priority) {
+    PrioritizedTask task =
+        new PrioritizedTask(checkNotNull(runnable), priority, sequence.getAndIncrement());
+    queue.add(task);
+    try {
+      delegate.execute(runNextTask);
+    } catch (RuntimeException e) {
+      if (queue.remove(task)) {
+        throw e;
+      }
+      // A thread of the delegate that is draining the queue has already taken the task and is
+      // running it. Every other queued task still has a pending submission, so none is stranded.
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PrioritizingExecutor{" + delegate + "}";
+  }
+
+  private static final class PrioritizedTask implements Comparable<PrioritizedTask> {
+    final Runnable runnable;
+    final int priority;
+    final long sequence;
+
+    PrioritizedTask(Runnable runnable, int priority, long sequence) {
+      this.runnable = runnable;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(PrioritizedTask that) {
+      if (this.priority != that.priority) {
+        return this.priority > that.priority ? -1 : 1;
+      }
+      return this.sequence < that.sequence ? -1 : this.sequence == that.sequence ? 0 : 1;
+    }
+  }
+}
@@ -16,11 +16,13 @@
 
 package dagger.producers;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.internal.Beta;
 import dagger.producers.internal.CancellableProducer;
 import dagger.producers.internal.CancellationListener;
+import java.util.Set;
 
 /** Utility methods to create {@link Producer}s. */
 @Beta
@@ -35,6 +37,37 @@ public final class Producers {
     return new ImmediateProducer<>(Futures.<T>immediateFailedFuture(throwable));
   }
 
+  /**
+   * Returns the contributions to the set produced by the given producer, in the order in which
+   * they complete, and starts the production of the set.
+   *
+   * <p>When the producer is a set multibinding, there is a future for each {@link
+   * dagger.multibindings.IntoSet @IntoSet} contribution, which completes with a singleton set, and
+   * one for each {@link dagger.multibindings.ElementsIntoSet @ElementsIntoSet} contribution. The
+   * first future completes with whichever contribution completes first, so callers can process
+   * each contribution as soon as it's available, rather than waiting for the slowest one:
+   *
+   * <pre><code>
+   *   {@literal @Produces} static ListenableFuture&lt;Summary&gt; summary(
+   *       Producer&lt;Set&lt;Result&gt;&gt; results, Summarizer summarizer) {
+   *     for (ListenableFuture&lt;Set&lt;Result&gt;&gt; result :
+   *         Producers.setContributionsInCompletionOrder(results)) {
+   *       summarizer.addWhenDone(result);
+   *     }
+   *     return summarizer.summary();
+   *   }
+   * </code></pre>
+   *
+   * <p>A failed contribution only fails its own future. For a {@code Set<Produced<T>>} producer,
+   * each contribution succeeds with a set of {@link Produced} values instead. If the producer is
+   * not a set multibinding, the only contribution is the producer's own future.
+   */
+  public static <T> ImmutableList<ListenableFuture<Set<T>>> setContributionsInCompletionOrder(
+      Producer<Set<T>> setProducer) {
+    return Futures.inCompletionOrder(
+        dagger.producers.internal.Producers.setContributions(setProducer));
+  }
+
   /** A {@link CancellableProducer} with an immediate result. */
   private static final class ImmediateProducer<T> implements CancellableProducer<T> {
     private final ListenableFuture<T> future;
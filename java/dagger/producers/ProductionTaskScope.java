@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import dagger.internal.Beta;
+import dagger.producers.internal.ProductionTaskScopeComponent;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The scope that owns the producers of a {@linkplain ProductionComponent production component}
+ * that is annotated with {@link StructuredConcurrency}. Each instance of the component has its own
+ * scope, which is open until it is closed, or until one of the component's entry points fails or
+ * is cancelled.
+ *
+ * <p>For example, to stop all of a component's work when the client that requested it goes away,
+ * and to wait for the work that was already running:
+ *
+ * <pre><code>
+ *   ProductionTaskScope scope = ProductionTaskScope.forComponent(component);
+ *   ListenableFuture&lt;Response&gt; response = component.response();
+ *   ...
+ *   scope.close();
+ *   scope.join();
+ * </code></pre>
+ *
+ * <p>This class is implemented by Dagger; it is not intended to be extended by users.
+ */
+@Beta
+public abstract class ProductionTaskScope {
+  protected ProductionTaskScope() {}
+
+  /**
+   * Returns the scope of the given component, or {@code null} if the component isn't annotated with
+   * {@link StructuredConcurrency}.
+   */
+  @NullableDecl
+  public static ProductionTaskScope forComponent(Object component) {
+    return component instanceof ProductionTaskScopeComponent
+        ? ((ProductionTaskScopeComponent) component).productionTaskScopeForStructuredConcurrency()
+        : null;
+  }
+
+  /**
+   * Closes this scope, if it isn't closed already, and cancels all of the component's producers.
+   * Producer methods that haven't started yet will not be called.
+   */
+  public abstract void close();
+
+  /** Returns {@code true} if this scope has been closed. */
+  public abstract boolean isClosed();
+
+  /**
+   * Waits until this scope has been closed and none of the component's producer methods are
+   * running, and the futures returned by those that were have completed.
+   */
+  public abstract void join() throws InterruptedException;
+
+  /**
+   * Waits until this scope has been closed and none of the component's producer methods are
+   * running, and the futures returned by those that were have completed, or until the timeout
+   * elapses.
+   *
+   * @return {@code true} if the scope was closed and its producer methods returned, and their
+   *     futures completed, before the timeout elapsed
+   */
+  public abstract boolean awaitTermination(long timeout, TimeUnit unit)
+      throws InterruptedException;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+import dagger.internal.Beta;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Binds the producers of a {@linkplain ProductionComponent production component} or {@linkplain
+ * ProductionSubcomponent subcomponent} to a {@link ProductionTaskScope}, so that none of them
+ * outlive the component's execution.
+ *
+ * <p>Without this annotation, the component's producers are only cancelled when a future returned
+ * from an entry point is cancelled. A producer that is still running when its entry point fails,
+ * for example because another of its dependencies failed, or whose result is never used, keeps
+ * running, and so do the producers that it depends on. With this annotation, the component's scope
+ * is closed as soon as a future returned from one of its entry points fails or is cancelled, or
+ * when {@link ProductionTaskScope#close()} is called. Closing the scope cancels all of the
+ * component's producers, but not those of its parent, and producer methods that haven't started yet
+ * are never called. {@link ProductionTaskScope#join()} waits for the producer methods that were
+ * already running to return, and for the futures that they returned to complete.
+ *
+ * <pre><code>
+ *   {@literal @ProductionComponent(modules = ResponseModule.class)}
+ *   {@literal @StructuredConcurrency}
+ *   interface ResponseComponent {
+ *     ListenableFuture&lt;Response&gt; response();
+ *   }
+ * </code></pre>
+ *
+ * <p>Entry points whose futures succeed leave the scope open, so they may be called one after
+ * another. Close the scope once the execution no longer needs the component, to cancel producers
+ * whose results were never used. The component can't be used once its scope is closed: its entry
+ * points return cancelled futures.
+ */
+@Documented
+@Target(TYPE)
+@Retention(CLASS)
+@Beta
+public @interface StructuredConcurrency {
+  /**
+   * Whether the threads that are running the component's producer methods are interrupted when its
+   * scope is closed.
+   */
+  boolean mayInterruptIfRunning() default false;
+}
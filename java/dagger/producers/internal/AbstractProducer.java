@@ -27,6 +27,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public abstract class AbstractProducer<T> implements CancellableProducer<T> {
   private final AtomicBoolean requested = new AtomicBoolean();
   private final NonExternallyCancellableFuture<T> future = new NonExternallyCancellableFuture<T>();
+  // Lazily initialized with the racy single-check idiom: DependencyView has no mutable state, so
+  // threads that race to create it may each create one, and use whichever they see.
+  private DependencyView dependencyView;
 
   protected AbstractProducer() {}
 
@@ -47,9 +50,38 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
     future.doCancel(mayInterruptIfRunning);
   }
 
+  /**
+   * Returns the producer that the given producer is a view of, unwrapping every internal {@link
+   * WrappingProducer} such as dependency and entry point views, conditional dependencies and
+   * delegate producers, or the given producer if it doesn't wrap another producer.
+   */
+  static <T> Producer<T> underlyingProducer(Producer<T> producer) {
+    while (producer instanceof WrappingProducer) {
+      Producer<T> wrapped = ((WrappingProducer<T>) producer).wrappedProducer();
+      if (wrapped == null) {
+        break;
+      }
+      producer = wrapped;
+    }
+    return producer;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>All dependents share a single view. Each call to its {@link Producer#get()} returns a new
+   * future that the caller can cancel without cancelling this producer, or this producer's own
+   * future once it has completed, since a completed future can't be cancelled anyway. So no future
+   * is allocated for dependents that never request this producer, or request it once it's done.
+   */
   @Override
   public Producer<T> newDependencyView() {
-    return new NonCancellationPropagatingView();
+    DependencyView view = dependencyView;
+    if (view == null) {
+      view = new DependencyView();
+      dependencyView = view;
+    }
+    return view;
   }
 
   @Override
@@ -60,10 +92,29 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
   }
 
   /**
-   * A view of this producer that returns a future that can be cancelled without cancelling the
-   * producer itself.
+   * A view of this producer for its dependents, which gives each caller a future that it can cancel
+   * without cancelling the producer itself.
+   */
+  private final class DependencyView implements WrappingProducer<T> {
+    @SuppressWarnings("FutureReturnValueIgnored")
+    @Override
+    public ListenableFuture<T> get() {
+      AbstractProducer.this.get(); // force compute()
+      return nonCancellationPropagating(future);
+    }
+
+    @Override
+    public AbstractProducer<T> wrappedProducer() {
+      return AbstractProducer.this;
+    }
+  }
+
+  /**
+   * A view of this producer for an entry point, which returns a future that can be cancelled
+   * without cancelling the producer itself, so that the entry point can listen for its
+   * cancellation.
    */
-  private final class NonCancellationPropagatingView implements Producer<T> {
+  private final class NonCancellationPropagatingView implements WrappingProducer<T> {
     /**
      * An independently cancellable view of this node. Needs to be cancellable by normal future
      * cancellation so that the view at an entry point can listen for its cancellation.
@@ -77,6 +128,11 @@ public abstract class AbstractProducer<T> implements CancellableProducer<T> {
       return viewFuture;
     }
 
+    @Override
+    public AbstractProducer<T> wrappedProducer() {
+      return AbstractProducer.this;
+    }
+
     void addCancellationListener(final CancellationListener cancellationListener) {
       viewFuture.addListener(
           new Runnable() {
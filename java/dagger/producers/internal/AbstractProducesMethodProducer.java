@@ -16,15 +16,24 @@
 
 package dagger.producers.internal;
 
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static dagger.internal.Preconditions.checkNotNull;
 
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Bulkhead;
+import dagger.producers.PrioritizingExecutor;
+import dagger.producers.Producer;
+import dagger.producers.monitoring.ProducerGraph;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import javax.inject.Provider;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
@@ -40,10 +49,26 @@ import org.checkerframework.checker.nullness.compatqual.NullableDecl;
  */
 public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProducer<T>
     implements AsyncFunction<D, T>, Executor {
+  private static final int NO_PERMIT = 0;
+  private static final int PERMIT_HELD = 1;
+  private static final int DONE = 2;
+
+  @SuppressWarnings("rawtypes")
+  private static final AtomicIntegerFieldUpdater<AbstractProducesMethodProducer> PERMIT_STATE =
+      AtomicIntegerFieldUpdater.newUpdater(AbstractProducesMethodProducer.class, "permitState");
+
   private final Provider<ProductionComponentMonitor> monitorProvider;
-  @NullableDecl private final ProducerToken token;
+  @NullableDecl private ProducerToken token;
+  private int priority = PrioritizingExecutor.DEFAULT_PRIORITY;
   private final Provider<Executor> executorProvider;
+  @NullableDecl private final BulkheadGroup bulkhead;
+  private final boolean failWhenSaturated;
+  @NullableDecl private HedgePolicy hedgePolicy;
+  @NullableDecl private ComponentTaskScope taskScope;
+  @NullableDecl private List<ConditionalDependency<?>> conditionalDependencies;
   private volatile ProducerMonitor monitor = null;
+  private volatile int permitState = NO_PERMIT;
+  @NullableDecl private volatile RejectedExecutionException queuedTaskRejection = null;
 
   protected AbstractProducesMethodProducer(
       Provider<ProductionComponentMonitor> monitorProvider,
@@ -52,17 +77,105 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
     this.monitorProvider = checkNotNull(monitorProvider);
     this.token = token;
     this.executorProvider = checkNotNull(executorProvider);
+    this.bulkhead = null;
+    this.failWhenSaturated = false;
+  }
+
+  /** Creates a producer whose method is in the given {@link Bulkhead} group. */
+  protected AbstractProducesMethodProducer(
+      Provider<ProductionComponentMonitor> monitorProvider,
+      @NullableDecl ProducerToken token,
+      Provider<Executor> executorProvider,
+      BulkheadGroup bulkhead,
+      Bulkhead.Saturation onSaturation) {
+    this.monitorProvider = checkNotNull(monitorProvider);
+    this.token = token;
+    this.executorProvider = checkNotNull(executorProvider);
+    this.bulkhead = checkNotNull(bulkhead);
+    this.failWhenSaturated = checkNotNull(onSaturation).equals(Bulkhead.Saturation.FAIL);
+  }
+
+  /** Sets this producer's node in its component's graph. */
+  final void setGraphNode(ProducerGraph graph, int index) {
+    if (token != null) {
+      token = graph.producerToken(token, index);
+    }
+    priority = graph.priorityOf(graph.tokens().get(index));
+  }
+
+  /** Calls the method only while the given scope is open, and lets the scope wait for it. */
+  final void setTaskScope(ComponentTaskScope taskScope) {
+    this.taskScope = checkNotNull(taskScope);
+  }
+
+  /** Calls the method again, according to the given policy, if it's slow to complete. */
+  protected final void hedgeWith(HedgePolicy hedgePolicy) {
+    this.hedgePolicy = checkNotNull(hedgePolicy);
+  }
+
+  /**
+   * Returns a view of the given {@code Producer<T>} parameter of the method, which records whether
+   * the method requests it, so that the component's monitors can have it started before the method
+   * runs. See {@link ProducerMonitor#shouldPrefetch(String)}.
+   */
+  protected final <P> Producer<P> conditionalDependency(
+      String parameterName, Producer<P> producer) {
+    ConditionalDependency<P> dependency = new ConditionalDependency<>(parameterName, producer);
+    if (conditionalDependencies == null) {
+      conditionalDependencies = new ArrayList<>(2);
+    }
+    conditionalDependencies.add(dependency);
+    return dependency;
   }
 
   @Override
   protected final ListenableFuture<T> compute() {
     monitor = monitorProvider.get().producerMonitorFor(token);
     monitor.requested();
-    ListenableFuture<T> result = Futures.transformAsync(collectDependencies(), this, this);
+    ListenableFuture<D> dependencies = collectDependencies();
+    if (conditionalDependencies != null) {
+      // Start the method's own dependencies first, since they are certainly needed.
+      prefetchConditionalDependencies();
+    }
+    ListenableFuture<T> result = Futures.transformAsync(dependencies, this, this);
+    if (conditionalDependencies != null) {
+      result.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              observeConditionalDependencies();
+            }
+          },
+          directExecutor());
+    }
+    if (bulkhead != null) {
+      result.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              releasePermit();
+            }
+          },
+          directExecutor());
+    }
     monitor.addCallbackTo(result);
     return result;
   }
 
+  private void prefetchConditionalDependencies() {
+    for (ConditionalDependency<?> dependency : conditionalDependencies) {
+      if (monitor.shouldPrefetch(dependency.parameterName)) {
+        dependency.prefetch();
+      }
+    }
+  }
+
+  private void observeConditionalDependencies() {
+    for (ConditionalDependency<?> dependency : conditionalDependencies) {
+      monitor.conditionalDependencyObserved(dependency.parameterName, dependency.requested);
+    }
+  }
+
   /**
    * Collects the asynchronous dependencies to be passed to {@link
    * Futures#transformAsync(ListenableFuture, AsyncFunction, Executor)}.
@@ -76,14 +189,75 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
     // NOTE(beder): We don't worry about catching exceptions from the monitor methods themselves
     // because we'll wrap all monitoring in non-throwing monitors before we pass them to the
     // factories.
+    if (bulkhead != null && queuedTaskRejection != null) {
+      throw queuedTaskRejection;
+    }
+    if (taskScope != null && !taskScope.taskStarting()) {
+      // The component's scope was closed while this task was waiting for the executor.
+      return Futures.immediateCancelledFuture();
+    }
     monitor.methodStarting();
+    ListenableFuture<T> result = null;
     try {
-      return callProducesMethod(asyncDependencies);
+      if (hedgePolicy == null) {
+        result = callProducesMethod(asyncDependencies);
+      } else {
+        long startNanos = System.nanoTime();
+        result =
+            HedgedFuture.hedge(
+                this,
+                asyncDependencies,
+                hedgePolicy,
+                monitor,
+                startNanos,
+                callProducesMethod(asyncDependencies));
+      }
+      return result;
     } finally {
       monitor.methodFinished();
+      if (taskScope != null) {
+        taskScope.taskReturned(result);
+      }
     }
   }
 
+  /** Calls the method again for a {@link HedgedFuture}, in this producer's task scope, if any. */
+  final ListenableFuture<T> callProducesMethodAgain(D asyncDependencies) throws Exception {
+    if (taskScope != null && !taskScope.taskStarting()) {
+      return Futures.immediateCancelledFuture();
+    }
+    ListenableFuture<T> result = null;
+    try {
+      result = callProducesMethod(asyncDependencies);
+      return result;
+    } finally {
+      if (taskScope != null) {
+        taskScope.taskReturned(result);
+      }
+    }
+  }
+
+  /**
+   * Takes a permit of this producer's bulkhead, if any, for the second call of a {@link
+   * HedgedFuture}. Returns {@code false} if none is available, in which case the call is skipped
+   * rather than queued, since the first call is still running.
+   */
+  final boolean tryAcquireHedgePermit() {
+    return bulkhead == null || bulkhead.tryAcquire();
+  }
+
+  /** Releases a permit taken by {@link #tryAcquireHedgePermit()}. */
+  final void releaseHedgePermit() {
+    if (bulkhead != null) {
+      bulkhead.release();
+    }
+  }
+
+  /** Submits the second call of a {@link HedgedFuture}, with the same priority as the first. */
+  final void submitHedge(Runnable runnable) {
+    submit(runnable);
+  }
+
   /**
    * Calls the {@link dagger.producers.Produces} method. This will always be called on the {@link
    * Executor} provided to this producer.
@@ -93,8 +267,97 @@ public abstract class AbstractProducesMethodProducer<D, T> extends AbstractProdu
   /** @deprecated this may only be called from the internal {@link #compute()} */
   @Deprecated
   @Override
-  public final void execute(Runnable runnable) {
+  public final void execute(final Runnable runnable) {
     monitor.ready();
-    executorProvider.get().execute(runnable);
+    if (bulkhead == null) {
+      submit(runnable);
+    } else if (bulkhead.tryAcquire()) {
+      submitWithPermit(runnable);
+    } else {
+      monitor.bulkheadSaturated(bulkhead.name());
+      if (failWhenSaturated) {
+        throw new RejectedExecutionException(
+            String.format(
+                "Bulkhead %s is saturated with %s producers in flight",
+                bulkhead.name(), bulkhead.maxInFlight()));
+      }
+      bulkhead.enqueue(
+          new Runnable() {
+            @Override
+            public void run() {
+              submitQueuedTask(runnable);
+            }
+          });
+    }
+  }
+
+  private void submitWithPermit(Runnable runnable) {
+    if (!PERMIT_STATE.compareAndSet(this, NO_PERMIT, PERMIT_HELD)) {
+      // The producer was cancelled, so the listener that would release the permit has already run.
+      bulkhead.release();
+      return;
+    }
+    // If the executor rejects the task, the producer fails, and the listener releases the permit.
+    submit(runnable);
+  }
+
+  /** Submits a task that was queued while the bulkhead was saturated, on the releasing thread. */
+  private void submitQueuedTask(Runnable runnable) {
+    if (!PERMIT_STATE.compareAndSet(this, NO_PERMIT, PERMIT_HELD)) {
+      bulkhead.release();
+      return;
+    }
+    try {
+      submit(runnable);
+    } catch (RejectedExecutionException e) {
+      // There's no caller to propagate the rejection to, so run the task here and have apply()
+      // fail the producer with it instead of calling the method.
+      queuedTaskRejection = e;
+      runnable.run();
+    }
+  }
+
+  /** Releases the permit that this producer holds, if any, once the producer has completed. */
+  private void releasePermit() {
+    if (PERMIT_STATE.getAndSet(this, DONE) == PERMIT_HELD) {
+      bulkhead.release();
+    }
+  }
+
+  private void submit(Runnable runnable) {
+    Executor executor = executorProvider.get();
+    if (executor instanceof PrioritizingExecutor) {
+      ((PrioritizingExecutor) executor).execute(runnable, priority);
+    } else {
+      executor.execute(runnable);
+    }
+  }
+
+  /** A {@code Producer<T>} parameter of the method, which records whether it was requested. */
+  private static final class ConditionalDependency<T> implements WrappingProducer<T> {
+    final String parameterName;
+    private final Producer<T> delegate;
+    volatile boolean requested;
+
+    ConditionalDependency(String parameterName, Producer<T> delegate) {
+      this.parameterName = checkNotNull(parameterName);
+      this.delegate = checkNotNull(delegate);
+    }
+
+    @Override
+    public ListenableFuture<T> get() {
+      requested = true;
+      return delegate.get();
+    }
+
+    @Override
+    public Producer<T> wrappedProducer() {
+      return delegate;
+    }
+
+    /** Starts the producer without recording a request from the method. */
+    void prefetch() {
+      delegate.get();
+    }
   }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static dagger.internal.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Bulkhead;
+import dagger.producers.Producer;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.concurrent.RejectedExecutionException;
+import javax.inject.Provider;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * Admits executions of a production component that is annotated with {@link
+ * dagger.producers.AdmissionControl}. The generated component holds a single controller in a static
+ * field, so the limit is shared by all instances of the component.
+ *
+ * <p>Each instance of the component is one {@linkplain Execution execution}, which shares a single
+ * permit across all of its entry points. Admission reuses the lock-free permits of a {@link
+ * BulkheadGroup}: an execution that starts while permits are free costs one compare-and-set, and
+ * its permit is released by listeners on the futures that its entry points return.
+ */
+public final class AdmissionController {
+  private final BulkheadGroup permits;
+  private final Bulkhead.Saturation onSaturation;
+
+  private AdmissionController(BulkheadGroup permits, Bulkhead.Saturation onSaturation) {
+    this.permits = permits;
+    this.onSaturation = checkNotNull(onSaturation);
+  }
+
+  /**
+   * Returns a new controller for the given component.
+   *
+   * @param componentName the name of the component, which is used in error messages
+   */
+  public static AdmissionController create(
+      String componentName, int maxConcurrentExecutions, Bulkhead.Saturation onSaturation) {
+    return new AdmissionController(
+        BulkheadGroup.unshared(componentName, maxConcurrentExecutions), onSaturation);
+  }
+
+  /** Returns the number of executions that are currently in flight. */
+  int inFlight() {
+    return permits.inFlight();
+  }
+
+  /** Returns the number of executions that are waiting to be admitted. */
+  int queued() {
+    return permits.queued();
+  }
+
+  /**
+   * Returns a new execution of the component, which is shared by all of the entry points of one
+   * instance of the component.
+   */
+  public Execution newExecution() {
+    return new Execution();
+  }
+
+  /**
+   * An execution of one instance of the component. However many of its entry points are called,
+   * and however many times, the execution holds a single permit while any of their futures is in
+   * flight, and releases it once they have all completed.
+   */
+  public final class Execution {
+    /** The number of entry point futures that hold the permit. Guarded by this. */
+    private int inFlight;
+    /** Whether the execution holds a permit. Guarded by this. */
+    private boolean admitted;
+    /** Completes when a queued execution is admitted, or {@code null}. Guarded by this. */
+    @NullableDecl private SettableFuture<Void> admission;
+
+    private final Runnable entryPointCompleted =
+        new Runnable() {
+          @Override
+          public void run() {
+            entryPointCompleted();
+          }
+        };
+
+    private Execution() {}
+
+    /**
+     * Returns a view of the given entry point whose {@link Producer#get()} only starts the producer
+     * once this execution has been admitted.
+     */
+    <T> Producer<T> admissionControlledView(
+        final Producer<T> entryPoint,
+        final Provider<ProductionComponentMonitor> monitorProvider) {
+      checkNotNull(entryPoint);
+      checkNotNull(monitorProvider);
+      return new Producer<T>() {
+        @Override
+        public ListenableFuture<T> get() {
+          return admit(entryPoint, monitorProvider);
+        }
+      };
+    }
+
+    private <T> ListenableFuture<T> admit(
+        final Producer<T> entryPoint, Provider<ProductionComponentMonitor> monitorProvider) {
+      ListenableFuture<Void> queuedAdmission;
+      boolean newlyQueued = false;
+      boolean rejected = false;
+      synchronized (this) {
+        if (admitted || permits.tryAcquire()) {
+          admitted = true;
+          inFlight++;
+          queuedAdmission = null;
+        } else if (admission != null) {
+          // Another entry point of this execution is already queued; wait for the same permit.
+          queuedAdmission = admission;
+        } else if (onSaturation.equals(Bulkhead.Saturation.QUEUE)) {
+          admission = SettableFuture.create();
+          queuedAdmission = admission;
+          newlyQueued = true;
+        } else {
+          queuedAdmission = null;
+          rejected = true;
+        }
+      }
+      if (newlyQueued) {
+        monitorProvider.get().executionQueued();
+        permits.enqueue(
+            new Runnable() {
+              @Override
+              public void run() {
+                admitQueued();
+              }
+            });
+      } else if (rejected) {
+        monitorProvider.get().executionRejected();
+        return Futures.immediateFailedFuture(
+            new RejectedExecutionException(
+                String.format(
+                    "%s has %s executions in flight", permits.name(), permits.maxInFlight())));
+      }
+      if (queuedAdmission == null) {
+        return getAdmitted(entryPoint);
+      }
+      // Cancelling one entry point's future must not cancel the admission of the others.
+      return Futures.transformAsync(
+          Futures.nonCancellationPropagating(queuedAdmission),
+          new AsyncFunction<Void, T>() {
+            @Override
+            public ListenableFuture<T> apply(Void ignored) {
+              synchronized (Execution.this) {
+                inFlight++;
+              }
+              return getAdmitted(entryPoint);
+            }
+          },
+          directExecutor());
+    }
+
+    /** Called with the permit of a queued execution. */
+    private void admitQueued() {
+      SettableFuture<Void> queuedAdmission;
+      synchronized (this) {
+        admitted = true;
+        queuedAdmission = admission;
+        admission = null;
+        // Hold the permit while the queued entry points start, and release it below if all of
+        // their callers gave up while the execution was queued.
+        inFlight++;
+      }
+      queuedAdmission.set(null);
+      entryPointCompleted();
+    }
+
+    /** Starts the entry point, once the execution holds a permit and has counted this future. */
+    private <T> ListenableFuture<T> getAdmitted(Producer<T> entryPoint) {
+      ListenableFuture<T> future;
+      try {
+        future = entryPoint.get();
+      } catch (RuntimeException e) {
+        entryPointCompleted();
+        return Futures.immediateFailedFuture(e);
+      }
+      future.addListener(entryPointCompleted, directExecutor());
+      return future;
+    }
+
+    private void entryPointCompleted() {
+      synchronized (this) {
+        if (--inFlight > 0) {
+          return;
+        }
+        admitted = false;
+      }
+      permits.release();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AdmissionController{"
+        + permits.name()
+        + ", maxConcurrentExecutions="
+        + permits.maxInFlight()
+        + "}";
+  }
+}
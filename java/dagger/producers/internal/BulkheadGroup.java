@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static dagger.internal.Preconditions.checkNotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The permits of a {@link dagger.producers.Bulkhead} group, which are shared by all producers in
+ * the group.
+ *
+ * <p>Permits are acquired and released with atomic operations, so a producer that runs while the
+ * group has free permits never blocks or takes a lock. Tasks that are queued while the group is
+ * saturated are run by the thread that releases a permit.
+ *
+ * <p>An {@link AdmissionController} uses an {@linkplain #unshared unshared} group to limit the
+ * executions of a component in the same way.
+ */
+public final class BulkheadGroup {
+  private static final Logger logger = Logger.getLogger(BulkheadGroup.class.getName());
+  private static final ConcurrentMap<String, BulkheadGroup> groups = new ConcurrentHashMap<>();
+
+  private final String name;
+  private final int maxInFlight;
+  private final AtomicInteger availablePermits;
+  private final Queue<Runnable> queuedTasks = new ConcurrentLinkedQueue<>();
+
+  private BulkheadGroup(String name, int maxInFlight) {
+    this.name = name;
+    this.maxInFlight = maxInFlight;
+    this.availablePermits = new AtomicInteger(maxInFlight);
+  }
+
+  /**
+   * Returns the group with the given name, creating it if necessary.
+   *
+   * <p>Dagger reports an error if methods in the same compilation declare a group with different
+   * {@code maxInFlight}s, but methods compiled separately may still disagree. Since this is called
+   * while components are being created, it doesn't throw in that case: the group keeps the limit it
+   * was created with, and a warning is logged.
+   */
+  public static BulkheadGroup named(String name, int maxInFlight) {
+    checkNotNull(name);
+    checkArgument(maxInFlight > 0, "maxInFlight must be positive: %s", maxInFlight);
+    BulkheadGroup group = groups.get(name);
+    if (group == null) {
+      BulkheadGroup newGroup = new BulkheadGroup(name, maxInFlight);
+      group = groups.putIfAbsent(name, newGroup);
+      if (group == null) {
+        group = newGroup;
+      }
+    }
+    if (group.maxInFlight != maxInFlight) {
+      logger.log(
+          Level.WARNING,
+          "Bulkhead {0} has maxInFlight {1}, but was also declared with {2}. Using {1}.",
+          new Object[] {name, group.maxInFlight, maxInFlight});
+    }
+    return group;
+  }
+
+  /** Returns a new group that isn't shared with any {@linkplain #named named} group. */
+  static BulkheadGroup unshared(String name, int maxInFlight) {
+    checkNotNull(name);
+    checkArgument(maxInFlight > 0, "maxInFlight must be positive: %s", maxInFlight);
+    return new BulkheadGroup(name, maxInFlight);
+  }
+
+  /** Returns the name of the group. */
+  public String name() {
+    return name;
+  }
+
+  /** Returns the maximum number of permits that may be held at once. */
+  int maxInFlight() {
+    return maxInFlight;
+  }
+
+  /** Returns the number of permits that are currently held. */
+  int inFlight() {
+    return maxInFlight - availablePermits.get();
+  }
+
+  /** Returns the number of tasks that are waiting for a permit. */
+  int queued() {
+    return queuedTasks.size();
+  }
+
+  /**
+   * Acquires a permit if one is available.
+   *
+   * @return {@code true} if a permit was acquired, in which case it must later be {@linkplain
+   *     #release() released}
+   */
+  boolean tryAcquire() {
+    int available = availablePermits.get();
+    while (available > 0) {
+      if (availablePermits.compareAndSet(available, available - 1)) {
+        return true;
+      }
+      available = availablePermits.get();
+    }
+    return false;
+  }
+
+  /** Releases a permit, and runs a queued task with it if there is one. */
+  void release() {
+    availablePermits.incrementAndGet();
+    runQueuedTasks();
+  }
+
+  /**
+   * Queues a task to run when a permit is available. The task is run while holding a permit, which
+   * it must later release.
+   */
+  void enqueue(Runnable task) {
+    queuedTasks.add(checkNotNull(task));
+    // A permit may have been released between the caller's failed tryAcquire() and the add().
+    runQueuedTasks();
+  }
+
+  private void runQueuedTasks() {
+    while (!queuedTasks.isEmpty() && tryAcquire()) {
+      Runnable task = queuedTasks.poll();
+      if (task == null) {
+        // Another thread took the last task, so the permit is not needed.
+        availablePermits.incrementAndGet();
+      } else {
+        task.run();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "BulkheadGroup{" + name + ", maxInFlight=" + maxInFlight + "}";
+  }
+}
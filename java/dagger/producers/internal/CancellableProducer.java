@@ -31,7 +31,11 @@ public interface CancellableProducer<T> extends Producer<T> {
    */
   void cancel(boolean mayInterruptIfRunning);
 
-  /** Returns a new view of this producer for use as a dependency of another node. */
+  /**
+   * Returns a view of this producer for use as a dependency of another node. Cancelling the futures
+   * returned by the view must not cancel this producer, but the view may be shared by all of the
+   * producer's dependents.
+   */
   Producer<T> newDependencyView();
 
   /**
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static dagger.internal.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Producer;
+import dagger.producers.ProductionTaskScope;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The {@link ProductionTaskScope} of a production component that is annotated with {@link
+ * dagger.producers.StructuredConcurrency}. The generated component holds its scope in a field, and
+ * passes it to each of its entry points and {@link dagger.producers.Produces} method producers.
+ *
+ * <p>The scope is closed by {@link #close()}, or when a future returned from one of the
+ * component's entry points fails or is cancelled. A future that succeeds leaves the scope open, so
+ * the component can still be used. The scope also counts the producer methods that are running,
+ * including asynchronous methods whose returned futures haven't completed, so that {@link #join()}
+ * can wait for them. Closing the scope cancels all of the component's producers, through {@link
+ * ProductionTaskScopeComponent#cancelProducersForStructuredConcurrency(boolean)}, but never the
+ * component's parent.
+ */
+public final class ComponentTaskScope extends ProductionTaskScope {
+  private final ProductionTaskScopeComponent component;
+  private final boolean mayInterruptIfRunning;
+
+  // All of the following are guarded by this.
+  private boolean closed;
+  private int runningTasks;
+
+  private ComponentTaskScope(
+      ProductionTaskScopeComponent component, boolean mayInterruptIfRunning) {
+    this.component = checkNotNull(component);
+    this.mayInterruptIfRunning = mayInterruptIfRunning;
+  }
+
+  /** Returns a new scope for the given component. */
+  public static ComponentTaskScope create(
+      ProductionTaskScopeComponent component, boolean mayInterruptIfRunning) {
+    return new ComponentTaskScope(component, mayInterruptIfRunning);
+  }
+
+  /**
+   * Returns a view of the given entry point that closes this scope if one of its futures fails or
+   * is cancelled. Once the scope is closed, the view returns cancelled futures.
+   */
+  <T> Producer<T> scopedEntryPointView(final Producer<T> entryPoint) {
+    checkNotNull(entryPoint);
+    return new Producer<T>() {
+      @Override
+      public ListenableFuture<T> get() {
+        if (isClosed()) {
+          return Futures.immediateCancelledFuture();
+        }
+        final ListenableFuture<T> future;
+        try {
+          future = entryPoint.get();
+        } catch (RuntimeException e) {
+          close();
+          throw e;
+        }
+        future.addListener(
+            new Runnable() {
+              @Override
+              public void run() {
+                entryPointCompleted(future);
+              }
+            },
+            directExecutor());
+        return future;
+      }
+    };
+  }
+
+  /** Closes this scope if the given entry point future failed or was cancelled. */
+  private void entryPointCompleted(ListenableFuture<?> future) {
+    try {
+      Futures.getDone(future);
+    } catch (ExecutionException | CancellationException e) {
+      close();
+    }
+  }
+
+  /**
+   * Returns {@code true} if a producer method may start, in which case {@link
+   * #taskReturned(ListenableFuture)} must be called once it returns, or {@code false} if this scope
+   * is closed.
+   */
+  synchronized boolean taskStarting() {
+    if (closed) {
+      return false;
+    }
+    runningTasks++;
+    return true;
+  }
+
+  /**
+   * Called when a producer method that was allowed to start by {@link #taskStarting()} returns,
+   * with the future it returned, or {@code null} if it threw. The method's task keeps running until
+   * that future completes.
+   */
+  void taskReturned(@NullableDecl ListenableFuture<?> future) {
+    if (future == null) {
+      taskFinished();
+      return;
+    }
+    future.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            taskFinished();
+          }
+        },
+        directExecutor());
+  }
+
+  private synchronized void taskFinished() {
+    if (--runningTasks == 0 && closed) {
+      notifyAll();
+    }
+  }
+
+  /** Returns the number of producer methods that are running or whose futures haven't completed. */
+  synchronized int runningTasks() {
+    return runningTasks;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      notifyAll();
+    }
+    component.cancelProducersForStructuredConcurrency(mayInterruptIfRunning);
+  }
+
+  @Override
+  public synchronized boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public synchronized void join() throws InterruptedException {
+    while (!closed || runningTasks > 0) {
+      wait();
+    }
+  }
+
+  @Override
+  public synchronized boolean awaitTermination(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (!closed || runningTasks > 0) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "ComponentTaskScope{" + component + "}";
+  }
+}
@@ -27,8 +27,11 @@ import javax.inject.Provider;
  * A DelegateProducer that is used to stitch Producer indirection during initialization across
  * partial subcomponent implementations.
  */
-public final class DelegateProducer<T> implements CancellableProducer<T> {
+public final class DelegateProducer<T> implements CancellableProducer<T>, WrappingProducer<T> {
   private CancellableProducer<T> delegate;
+  // Shared by all dependents, since the delegate's dependency view may be shared too. Lazily
+  // initialized with the racy single-check idiom, since any instance is equivalent.
+  private Producer<T> dependencyView;
 
   @Override
   public ListenableFuture<T> get() {
@@ -66,6 +69,11 @@ public final class DelegateProducer<T> implements CancellableProducer<T> {
     return checkNotNull(delegate);
   }
 
+  @Override
+  public Producer<T> wrappedProducer() {
+    return delegate;
+  }
+
   @Override
   public void cancel(boolean mayInterruptIfRunning) {
     delegate.cancel(mayInterruptIfRunning);
@@ -73,12 +81,18 @@ public final class DelegateProducer<T> implements CancellableProducer<T> {
 
   @Override
   public Producer<T> newDependencyView() {
-    return new ProducerView<T>() {
-      @Override
-      Producer<T> createDelegate() {
-        return delegate.newDependencyView();
-      }
-    };
+    Producer<T> view = dependencyView;
+    if (view == null) {
+      view =
+          new ProducerView<T>() {
+            @Override
+            Producer<T> createDelegate() {
+              return delegate.newDependencyView();
+            }
+          };
+      dependencyView = view;
+    }
+    return view;
   }
 
   @Override
@@ -91,7 +105,7 @@ public final class DelegateProducer<T> implements CancellableProducer<T> {
     };
   }
 
-  private abstract static class ProducerView<T> implements Producer<T> {
+  private abstract static class ProducerView<T> implements WrappingProducer<T> {
     private final Provider<Producer<T>> delegate =
         DoubleCheck.provider(
             new Provider<Producer<T>>() {
@@ -107,5 +121,10 @@ public final class DelegateProducer<T> implements CancellableProducer<T> {
     public ListenableFuture<T> get() {
       return delegate.get().get();
     }
+
+    @Override
+    public Producer<T> wrappedProducer() {
+      return delegate.get();
+    }
   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The policy of a {@link dagger.producers.Hedged @Hedged} method, which is shared by all of the
+ * method's producers so that the latencies of the method are observed across components.
+ *
+ * <p>Latencies are counted in buckets of powers of two, so an observed percentile is only accurate
+ * to within a factor of two. Recording a latency is a single atomic increment.
+ */
+@SuppressWarnings("GoodTime") // should use java.time.Duration
+public final class HedgePolicy {
+  /** The number of successful calls that must be observed before the percentile is used. */
+  static final int MIN_OBSERVED_LATENCIES = 100;
+
+  /** Set while the current thread runs a task of the {@link Timer}. */
+  private static final ThreadLocal<Boolean> RUNNING_ON_TIMER = new ThreadLocal<>();
+
+  private final long delayNanos;
+  private final double percentile;
+  private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+  private final AtomicLong observedLatencies = new AtomicLong();
+
+  private HedgePolicy(long delayNanos, double percentile) {
+    this.delayNanos = delayNanos;
+    this.percentile = percentile;
+  }
+
+  /**
+   * Creates a policy that calls the method again after the given delay, or after the given
+   * percentile of the method's latencies, if it's positive.
+   */
+  public static HedgePolicy create(long delayMillis, double percentile) {
+    checkArgument(delayMillis >= 0, "delayMillis must not be negative: %s", delayMillis);
+    checkArgument(
+        percentile >= 0 && percentile < 100, "percentile must be in [0, 100): %s", percentile);
+    return new HedgePolicy(TimeUnit.MILLISECONDS.toNanos(delayMillis), percentile);
+  }
+
+  /** Records the latency of a successful call. */
+  void recordLatency(long latencyNanos) {
+    if (percentile > 0) {
+      buckets.incrementAndGet(bucketIndex(Math.max(0, latencyNanos)));
+      observedLatencies.incrementAndGet();
+    }
+  }
+
+  /** Returns the delay after which the method should be called again. */
+  long delayNanos() {
+    long count = observedLatencies.get();
+    if (percentile == 0 || count < MIN_OBSERVED_LATENCIES) {
+      return delayNanos;
+    }
+    long rank = (long) Math.ceil(percentile / 100 * count);
+    long seen = 0;
+    for (int i = 0; i < Long.SIZE; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return bucketUpperBound(i);
+      }
+    }
+    return delayNanos;
+  }
+
+  /** Returns the index of the bucket of the given non-negative value. */
+  private static int bucketIndex(long value) {
+    return Math.min(Long.SIZE - 1, Long.SIZE - Long.numberOfLeadingZeros(value));
+  }
+
+  /** Returns the largest value in the bucket with the given index. */
+  private static long bucketUpperBound(int index) {
+    return index == Long.SIZE - 1 ? Long.MAX_VALUE : (1L << index) - 1;
+  }
+
+  /** Runs the given task on the timer's thread after the given delay. */
+  static Future<?> schedule(final Runnable task, long delayNanos) {
+    return Timer.INSTANCE.schedule(
+        new Runnable() {
+          @Override
+          public void run() {
+            RUNNING_ON_TIMER.set(true);
+            try {
+              task.run();
+            } finally {
+              RUNNING_ON_TIMER.remove();
+            }
+          }
+        },
+        delayNanos,
+        TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns {@code true} if the current thread is running a task scheduled with {@link #schedule}.
+   * A method must never be called there, since a slow call would delay every other hedge.
+   */
+  static boolean isRunningOnTimer() {
+    return RUNNING_ON_TIMER.get() != null;
+  }
+
+  @Override
+  public String toString() {
+    return "HedgePolicy{delayNanos=" + delayNanos + ", percentile=" + percentile + "}";
+  }
+
+  /**
+   * The timer that starts the second calls of all hedged methods. It only submits the calls to the
+   * producers' executors, so a single thread is enough. It's only created once a hedged method is
+   * called.
+   */
+  private static final class Timer {
+    static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+    private static ScheduledThreadPoolExecutor create() {
+      ScheduledThreadPoolExecutor timer =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-producers-hedge-timer")
+                  .build());
+      timer.setRemoveOnCancelPolicy(true);
+      return timer;
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.monitoring.ProducerMonitor;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The future of a {@link dagger.producers.Hedged @Hedged} producer, which completes with the
+ * first of its calls to succeed.
+ *
+ * <p>The future only fails once every call that has started has failed, with the last call's
+ * exception. The second call is never started after that.
+ *
+ * <p>The second call is submitted like the first, through the producer, so it has the same priority
+ * and takes its own permit of the producer's bulkhead, if any. It's skipped if no permit is
+ * available, or if the executor runs it on the timer's thread, as a direct executor does.
+ */
+final class HedgedFuture<D, T> extends AbstractFuture<T> {
+  private final AbstractProducesMethodProducer<D, T> producer;
+  private final D asyncDependencies;
+  private final HedgePolicy policy;
+  private final ProducerMonitor monitor;
+  private final long startNanos;
+  private final ListenableFuture<T> firstCall;
+  /** The number of calls that have started and not failed, or 0 once the producer has failed. */
+  private final AtomicInteger pendingCalls = new AtomicInteger(1);
+
+  @NullableDecl private volatile ListenableFuture<T> secondCall;
+  private volatile long secondCallStartNanos;
+  @NullableDecl private volatile Future<?> timer;
+
+  private HedgedFuture(
+      AbstractProducesMethodProducer<D, T> producer,
+      D asyncDependencies,
+      HedgePolicy policy,
+      ProducerMonitor monitor,
+      long startNanos,
+      ListenableFuture<T> firstCall) {
+    this.producer = producer;
+    this.asyncDependencies = asyncDependencies;
+    this.policy = policy;
+    this.monitor = monitor;
+    this.startNanos = startNanos;
+    this.firstCall = firstCall;
+  }
+
+  /**
+   * Returns a future that completes with the first call, or with a second call that is started if
+   * the first hasn't completed after the policy's delay.
+   *
+   * @param startNanos the time at which the first call started
+   */
+  static <D, T> ListenableFuture<T> hedge(
+      AbstractProducesMethodProducer<D, T> producer,
+      D asyncDependencies,
+      HedgePolicy policy,
+      ProducerMonitor monitor,
+      long startNanos,
+      ListenableFuture<T> firstCall) {
+    final HedgedFuture<D, T> future =
+        new HedgedFuture<>(producer, asyncDependencies, policy, monitor, startNanos, firstCall);
+    future.addCallback(firstCall);
+    if (!future.isDone()) {
+      future.timer =
+          HedgePolicy.schedule(
+              new Runnable() {
+                @Override
+                public void run() {
+                  future.startSecondCall();
+                }
+              },
+              policy.delayNanos());
+      if (future.isDone()) {
+        future.timer.cancel(false);
+      }
+    }
+    return future;
+  }
+
+  private void startSecondCall() {
+    if (isDone() || !producer.tryAcquireHedgePermit()) {
+      return;
+    }
+    if (!incrementPendingCalls()) {
+      producer.releaseHedgePermit();
+      return;
+    }
+    try {
+      producer.submitHedge(
+          new Runnable() {
+            @Override
+            public void run() {
+              callAgain();
+            }
+          });
+    } catch (RuntimeException e) {
+      producer.releaseHedgePermit();
+      callFailed(e);
+    }
+  }
+
+  private void callAgain() {
+    if (isDone() || HedgePolicy.isRunningOnTimer()) {
+      producer.releaseHedgePermit();
+      callSkipped();
+      return;
+    }
+    monitor.hedgeStarted();
+    secondCallStartNanos = System.nanoTime();
+    ListenableFuture<T> call;
+    try {
+      call = producer.callProducesMethodAgain(asyncDependencies);
+    } catch (Exception e) {
+      call = Futures.immediateFailedFuture(e);
+    }
+    secondCall = call;
+    call.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            producer.releaseHedgePermit();
+          }
+        },
+        directExecutor());
+    addCallback(call);
+    if (isDone()) {
+      call.cancel(false);
+    }
+  }
+
+  /** Increments the number of pending calls, unless the producer has already failed. */
+  private boolean incrementPendingCalls() {
+    int pending = pendingCalls.get();
+    while (pending > 0) {
+      if (pendingCalls.compareAndSet(pending, pending + 1)) {
+        return true;
+      }
+      pending = pendingCalls.get();
+    }
+    return false;
+  }
+
+  private void addCallback(final ListenableFuture<T> call) {
+    call.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            callCompleted(call);
+          }
+        },
+        directExecutor());
+  }
+
+  private void callCompleted(ListenableFuture<T> call) {
+    T value;
+    try {
+      value = Futures.getDone(call);
+    } catch (ExecutionException e) {
+      callFailed(e.getCause());
+      return;
+    } catch (CancellationException e) {
+      callFailed(e);
+      return;
+    }
+    if (set(value)) {
+      // Record the winning call's own latency. Measuring a second call from the first call's start
+      // would include the hedge delay, and so push the percentile, and future delays, upward.
+      policy.recordLatency(
+          System.nanoTime() - (call == firstCall ? startNanos : secondCallStartNanos));
+    }
+  }
+
+  private void callFailed(Throwable t) {
+    if (pendingCalls.decrementAndGet() == 0) {
+      setException(t);
+    }
+  }
+
+  /** Records that the second call won't be made after all. */
+  private void callSkipped() {
+    if (pendingCalls.decrementAndGet() == 0) {
+      // The first call failed while the second was being submitted, so fail with its exception.
+      try {
+        Futures.getDone(firstCall);
+      } catch (ExecutionException e) {
+        setException(e.getCause());
+      } catch (CancellationException e) {
+        setException(e);
+      }
+    }
+  }
+
+  @Override
+  protected void afterDone() {
+    // Cancel the calls that lost, or all calls if this future was cancelled.
+    boolean mayInterruptIfRunning = wasInterrupted();
+    Future<?> timer = this.timer;
+    if (timer != null) {
+      timer.cancel(false);
+    }
+    firstCall.cancel(mayInterruptIfRunning);
+    ListenableFuture<T> secondCall = this.secondCall;
+    if (secondCall != null) {
+      secondCall.cancel(mayInterruptIfRunning);
+    }
+  }
+}
@@ -17,22 +17,28 @@
 package dagger.producers.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.util.concurrent.Futures.catchingAsync;
 import static com.google.common.util.concurrent.Futures.transform;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
+import dagger.producers.monitoring.ProducerGraph;
+import dagger.producers.monitoring.ProducerToken;
+import dagger.producers.monitoring.ProductionComponentMonitor;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import javax.inject.Provider;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
 /**
  * Utility methods for use in generated producer code.
@@ -47,42 +53,62 @@ public final class Producers {
    * <p>Cancelling the resulting future will propagate the cancellation to the input future; but
    * cancelling the input future will trigger the resulting future to succeed with a failing
    * {@code Produced}.
+   *
+   * <p>If the input future is already done, the result is computed immediately and no listener is
+   * added to it. Otherwise the resulting future is completed by a single listener on the input.
    */
   // TODO(beder): Document what happens with an InterruptedException after you figure out how to
   // trigger one in a test.
   public static <T> ListenableFuture<Produced<T>> createFutureProduced(ListenableFuture<T> future) {
-    return catchingAsync(
-        transform(future, Producers.<T>resultToProduced(), directExecutor()),
-        Throwable.class,
-        Producers.<T>futureFallbackForProduced(),
-        directExecutor());
+    checkNotNull(future);
+    if (future.isDone()) {
+      return Futures.immediateFuture(producedFromDone(future));
+    }
+    ProducedFuture<T> producedFuture = new ProducedFuture<>(future);
+    future.addListener(producedFuture, directExecutor());
+    return producedFuture;
   }
 
-  private static final Function<Object, Produced<Object>> RESULT_TO_PRODUCED =
-      new Function<Object, Produced<Object>>() {
-        @Override
-        public Produced<Object> apply(Object result) {
-          return Produced.successful(result);
-        }
-      };
-
-  @SuppressWarnings({"unchecked", "rawtypes"}) // bivariant implementation
-  private static <T> Function<T, Produced<T>> resultToProduced() {
-    return (Function) RESULT_TO_PRODUCED;
+  /** Returns a {@link Produced} that represents the result of a future that is done. */
+  private static <T> Produced<T> producedFromDone(ListenableFuture<T> future) {
+    try {
+      return Produced.successful(Futures.getDone(future));
+    } catch (ExecutionException e) {
+      return Produced.failed(e.getCause());
+    } catch (CancellationException e) {
+      return Produced.failed(e);
+    }
   }
 
-  private static final AsyncFunction<Throwable, Produced<Object>> FUTURE_FALLBACK_FOR_PRODUCED =
-      new AsyncFunction<Throwable, Produced<Object>>() {
-        @Override
-        public ListenableFuture<Produced<Object>> apply(Throwable t) throws Exception {
-          Produced<Object> produced = Produced.failed(t);
-          return Futures.immediateFuture(produced);
-        }
-      };
+  /**
+   * The future returned by {@link #createFutureProduced} for an input that isn't done yet. It is
+   * its own listener on the input, so that it replaces the transformed and caught futures that
+   * would otherwise be chained onto the input.
+   */
+  private static final class ProducedFuture<T> extends AbstractFuture<Produced<T>>
+      implements Runnable {
+    @NullableDecl private ListenableFuture<T> input;
+
+    ProducedFuture(ListenableFuture<T> input) {
+      this.input = input;
+    }
 
-  @SuppressWarnings({"unchecked", "rawtypes"}) // bivariant implementation
-  private static <T> AsyncFunction<Throwable, Produced<T>> futureFallbackForProduced() {
-    return (AsyncFunction) FUTURE_FALLBACK_FOR_PRODUCED;
+    @Override
+    public void run() {
+      ListenableFuture<T> localInput = input;
+      if (localInput != null) {
+        set(producedFromDone(localInput));
+      }
+    }
+
+    @Override
+    protected void afterDone() {
+      ListenableFuture<T> localInput = input;
+      input = null;
+      if (localInput != null && isCancelled()) {
+        localInput.cancel(wasInterrupted());
+      }
+    }
   }
 
   /**
@@ -120,6 +146,23 @@ public final class Producers {
         directExecutor());
   }
 
+  /**
+   * Returns a future for each contribution to the set produced by the given producer, and starts
+   * the production of the set. If the producer is not a set multibinding, the producer's own future
+   * is the only contribution.
+   */
+  public static <T> List<ListenableFuture<Set<T>>> setContributions(Producer<Set<T>> producer) {
+    ListenableFuture<Set<T>> set = producer.get();
+    Producer<Set<T>> underlyingProducer = AbstractProducer.underlyingProducer(producer);
+    if (underlyingProducer instanceof SetContributionsProducer) {
+      @SuppressWarnings("unchecked") // a producer of Set<T> contributes sets of T
+      SetContributionsProducer<T> setContributionsProducer =
+          (SetContributionsProducer<T>) underlyingProducer;
+      return setContributionsProducer.contributions();
+    }
+    return ImmutableList.of(set);
+  }
+
   /**
    * Returns a producer that immediately executes the binding logic for the given provider every
    * time it is called.
@@ -157,9 +200,10 @@ public final class Producers {
   }
 
   /**
-   * Returns a new view of the given {@code producer} if and only if it is a {@link
-   * CancellableProducer}. Cancelling the returned producer's future will not cancel the underlying
-   * task for the given producer.
+   * Returns a view of the given {@code producer} for use as a dependency, if and only if it is a
+   * {@link CancellableProducer}. The view may be shared with the producer's other dependents.
+   * Cancelling the returned producer's future will not cancel the underlying task for the given
+   * producer.
    *
    * @throws IllegalArgumentException if {@code producer} is not a {@code CancellableProducer}
    */
@@ -191,6 +235,33 @@ public final class Producers {
         "entryPointViewOf called with non-CancellableProducer: " + producer);
   }
 
+  /**
+   * Returns a new view of the given {@code producer} for use as an entry point in a production
+   * component with {@link dagger.producers.AdmissionControl}. The view only starts the producer once
+   * the given execution, which is shared by all of the component instance's entry points, has been
+   * admitted.
+   *
+   * @throws IllegalArgumentException if {@code producer} is not a {@code CancellableProducer}
+   */
+  public static <T> Producer<T> entryPointViewOf(
+      Producer<T> producer,
+      CancellationListener cancellationListener,
+      AdmissionController.Execution admissionExecution,
+      Provider<ProductionComponentMonitor> monitorProvider) {
+    return admissionExecution.admissionControlledView(
+        entryPointViewOf(producer, cancellationListener), monitorProvider);
+  }
+
+  /**
+   * Returns a view of the given entry point view for use in a production component with {@link
+   * dagger.producers.StructuredConcurrency}, which closes the component's scope if one of its
+   * futures fails or is cancelled.
+   */
+  public static <T> Producer<T> scopedEntryPointViewOf(
+      Producer<T> entryPointView, ComponentTaskScope taskScope) {
+    return taskScope.scopedEntryPointView(entryPointView);
+  }
+
   /**
    * Calls {@code cancel} on the given {@code producer} if it is a {@link CancellableProducer}.
    *
@@ -206,6 +277,31 @@ public final class Producers {
     }
   }
 
+  /**
+   * Associates the given producer with its node in the component's {@link ProducerGraph}: its token
+   * is given the node's {@linkplain ProducerToken#index() index}, and its tasks are run with the
+   * node's {@linkplain ProducerGraph#priorityOf priority} by a {@link
+   * dagger.producers.PrioritizingExecutor}. The producer keeps its own token, since it may have been
+   * compiled with different options than the graph. This must be called before the producer is
+   * first requested.
+   */
+  public static <P extends AbstractProducesMethodProducer<?, ?>> P withProducerGraph(
+      P producer, ProducerGraph graph, int index) {
+    producer.setGraphNode(graph, index);
+    return producer;
+  }
+
+  /**
+   * Associates the given producer with its component's {@link ComponentTaskScope}: its method is
+   * only called while the scope is open, and the scope's {@link ComponentTaskScope#join()} waits
+   * for it to return. This must be called before the producer is first requested.
+   */
+  public static <P extends AbstractProducesMethodProducer<?, ?>> P withTaskScope(
+      P producer, ComponentTaskScope taskScope) {
+    producer.setTaskScope(taskScope);
+    return producer;
+  }
+
   private static final Producer<Map<Object, Object>> EMPTY_MAP_PRODUCER =
       dagger.producers.Producers.<Map<Object, Object>>immediateProducer(ImmutableMap.of());
 
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A producer of a set multibinding whose contributions can also be produced separately, so that
+ * callers can consume each contribution as soon as it completes.
+ *
+ * @param <T> the type of the elements of the produced set
+ */
+interface SetContributionsProducer<T> {
+  /**
+   * Returns a future for each contribution to the set: a singleton set for each individual
+   * contribution, and the contributed set for each collection contribution. The futures are the
+   * same ones that the producer combines into its own future, so requesting them starts no
+   * additional work.
+   */
+  List<ListenableFuture<Set<T>>> contributions();
+}
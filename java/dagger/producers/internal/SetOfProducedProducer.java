@@ -38,7 +38,8 @@ import java.util.concurrent.ExecutionException;
  * future {@code Set<Produced<T>>} whose elements are populated by subsequent calls to the delegate
  * {@link Producer#get} methods.
  */
-public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produced<T>>> {
+public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produced<T>>>
+    implements SetContributionsProducer<Produced<T>> {
   public static <T> Producer<Set<T>> empty() {
     return SetProducer.empty();
   }
@@ -93,6 +94,9 @@ public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produce
 
   private final List<Producer<T>> individualProducers;
   private final List<Producer<Collection<T>>> collectionProducers;
+  // guarded by this
+  private List<ListenableFuture<? extends Produced<? extends Collection<T>>>>
+      futureProducedCollections;
 
   private SetOfProducedProducer(
       List<Producer<T>> individualProducers, List<Producer<Collection<T>>> collectionProducers) {
@@ -114,59 +118,103 @@ public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produce
    */
   @Override
   public ListenableFuture<Set<Produced<T>>> compute() {
-    List<ListenableFuture<? extends Produced<? extends Collection<T>>>> futureProducedCollections =
-        new ArrayList<ListenableFuture<? extends Produced<? extends Collection<T>>>>(
-            individualProducers.size() + collectionProducers.size());
-    for (Producer<T> producer : individualProducers) {
-      // TODO(ronshapiro): Don't require individual productions to be added to a collection just to
-      // be materialized into futureProducedCollections.
-      futureProducedCollections.add(
-          Producers.createFutureProduced(
-              Producers.createFutureSingletonSet(checkNotNull(producer.get()))));
-    }
-    for (Producer<Collection<T>> producer : collectionProducers) {
-      futureProducedCollections.add(Producers.createFutureProduced(checkNotNull(producer.get())));
-    }
-
     return Futures.transform(
-        Futures.allAsList(futureProducedCollections),
+        Futures.allAsList(requestDelegates()),
         new Function<List<Produced<? extends Collection<T>>>, Set<Produced<T>>>() {
           @Override
           public Set<Produced<T>> apply(
               List<Produced<? extends Collection<T>>> producedCollections) {
             ImmutableSet.Builder<Produced<T>> builder = ImmutableSet.builder();
             for (Produced<? extends Collection<T>> producedCollection : producedCollections) {
-              try {
-                Collection<T> collection = producedCollection.get();
-                if (collection == null) {
-                  // TODO(beder): This is a vague exception. Can we somehow point to the failing
-                  // producer? See the similar comment in the component writer about null
-                  // provisions.
-                  builder.add(
-                      Produced.<T>failed(
-                          new NullPointerException(
-                              "Cannot contribute a null collection into a producer set binding when"
-                                  + " it's injected as Set<Produced<T>>.")));
-                } else {
-                  for (T value : collection) {
-                    if (value == null) {
-                      builder.add(
-                          Produced.<T>failed(
-                              new NullPointerException(
-                                  "Cannot contribute a null element into a producer set binding"
-                                      + " when it's injected as Set<Produced<T>>.")));
-                    } else {
-                      builder.add(Produced.successful(value));
-                    }
-                  }
-                }
-              } catch (ExecutionException e) {
-                builder.add(Produced.<T>failed(e.getCause()));
-              }
+              addElements(builder, producedCollection);
             }
             return builder.build();
           }
         },
         directExecutor());
   }
+
+  @Override
+  public List<ListenableFuture<Set<Produced<T>>>> contributions() {
+    List<ListenableFuture<? extends Produced<? extends Collection<T>>>> futures =
+        requestDelegates();
+    List<ListenableFuture<Set<Produced<T>>>> contributions =
+        new ArrayList<ListenableFuture<Set<Produced<T>>>>(futures.size());
+    // The delegate futures are shared with compute(), so cancelling a contribution that's no longer
+    // needed must not cancel them.
+    for (ListenableFuture<? extends Produced<? extends Collection<T>>> future : futures) {
+      contributions.add(
+          Futures.transform(
+              Futures.nonCancellationPropagating(future),
+              new Function<Produced<? extends Collection<T>>, Set<Produced<T>>>() {
+                @Override
+                public Set<Produced<T>> apply(
+                    Produced<? extends Collection<T>> producedCollection) {
+                  ImmutableSet.Builder<Produced<T>> builder = ImmutableSet.builder();
+                  addElements(builder, producedCollection);
+                  return builder.build();
+                }
+              },
+              directExecutor()));
+    }
+    return contributions;
+  }
+
+  /**
+   * Requests the futures of the delegate producers. Each delegate is only requested once, so that
+   * the futures returned by {@link #contributions()} are the ones combined by {@link #compute()}.
+   */
+  private synchronized List<ListenableFuture<? extends Produced<? extends Collection<T>>>>
+      requestDelegates() {
+    if (futureProducedCollections == null) {
+      List<ListenableFuture<? extends Produced<? extends Collection<T>>>> futures =
+          new ArrayList<ListenableFuture<? extends Produced<? extends Collection<T>>>>(
+              individualProducers.size() + collectionProducers.size());
+      for (Producer<T> producer : individualProducers) {
+        // TODO(ronshapiro): Don't require individual productions to be added to a collection just
+        // to be materialized into futureProducedCollections.
+        futures.add(
+            Producers.createFutureProduced(
+                Producers.createFutureSingletonSet(checkNotNull(producer.get()))));
+      }
+      for (Producer<Collection<T>> producer : collectionProducers) {
+        futures.add(Producers.createFutureProduced(checkNotNull(producer.get())));
+      }
+      futureProducedCollections = futures;
+    }
+    return futureProducedCollections;
+  }
+
+  /** Adds a {@link Produced} element for each element of the produced collection. */
+  private static <T> void addElements(
+      ImmutableSet.Builder<Produced<T>> builder,
+      Produced<? extends Collection<T>> producedCollection) {
+    try {
+      Collection<T> collection = producedCollection.get();
+      if (collection == null) {
+        // TODO(beder): This is a vague exception. Can we somehow point to the failing
+        // producer? See the similar comment in the component writer about null
+        // provisions.
+        builder.add(
+            Produced.<T>failed(
+                new NullPointerException(
+                    "Cannot contribute a null collection into a producer set binding when"
+                        + " it's injected as Set<Produced<T>>.")));
+      } else {
+        for (T value : collection) {
+          if (value == null) {
+            builder.add(
+                Produced.<T>failed(
+                    new NullPointerException(
+                        "Cannot contribute a null element into a producer set binding"
+                            + " when it's injected as Set<Produced<T>>.")));
+          } else {
+            builder.add(Produced.successful(value));
+          }
+        }
+      }
+    } catch (ExecutionException e) {
+      builder.add(Produced.<T>failed(e.getCause()));
+    }
+  }
 }
@@ -37,7 +37,8 @@ import java.util.Set;
  * a future {@link Set} whose elements are populated by subsequent calls to the delegate
  * {@link Producer#get} methods.
  */
-public final class SetProducer<T> extends AbstractProducer<Set<T>> {
+public final class SetProducer<T> extends AbstractProducer<Set<T>>
+    implements SetContributionsProducer<T> {
   private static final Producer<Set<Object>> EMPTY_PRODUCER =
       dagger.producers.Producers.<Set<Object>>immediateProducer(ImmutableSet.<Object>of());
 
@@ -96,6 +97,7 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
 
   private final List<Producer<T>> individualProducers;
   private final List<Producer<Collection<T>>> collectionProducers;
+  private RequestedDelegates<T> requestedDelegates; // guarded by this
 
   private SetProducer(
       List<Producer<T>> individualProducers, List<Producer<Collection<T>>> collectionProducers) {
@@ -116,20 +118,15 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
    */
   @Override
   public ListenableFuture<Set<T>> compute() {
-    List<ListenableFuture<T>> individualFutures =
-        new ArrayList<ListenableFuture<T>>(individualProducers.size());
-    for (Producer<T> producer : individualProducers) {
-      individualFutures.add(checkNotNull(producer.get()));
-    }
+    RequestedDelegates<T> delegates = requestDelegates();
 
     // Presize the list of collections produced by the amount of collectionProducers, with one more
     // for the consolidate individualFutures from Futures.allAsList.
     List<ListenableFuture<? extends Collection<T>>> futureCollections =
-        new ArrayList<ListenableFuture<? extends Collection<T>>>(collectionProducers.size() + 1);
-    futureCollections.add(Futures.allAsList(individualFutures));
-    for (Producer<Collection<T>> producer : collectionProducers) {
-      futureCollections.add(checkNotNull(producer.get()));
-    }
+        new ArrayList<ListenableFuture<? extends Collection<T>>>(
+            delegates.collectionFutures.size() + 1);
+    futureCollections.add(Futures.allAsList(delegates.individualFutures));
+    futureCollections.addAll(delegates.collectionFutures);
     return transform(
         Futures.allAsList(futureCollections),
         new Function<List<Collection<T>>, Set<T>>() {
@@ -144,4 +141,64 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
         },
         directExecutor());
   }
+
+  @Override
+  public List<ListenableFuture<Set<T>>> contributions() {
+    RequestedDelegates<T> delegates = requestDelegates();
+    List<ListenableFuture<Set<T>>> contributions =
+        new ArrayList<ListenableFuture<Set<T>>>(
+            delegates.individualFutures.size() + delegates.collectionFutures.size());
+    // The delegate futures are shared with compute(), so cancelling a contribution that's no longer
+    // needed must not cancel them.
+    for (ListenableFuture<T> future : delegates.individualFutures) {
+      contributions.add(
+          Producers.createFutureSingletonSet(Futures.nonCancellationPropagating(future)));
+    }
+    for (ListenableFuture<Collection<T>> future : delegates.collectionFutures) {
+      contributions.add(
+          transform(
+              Futures.nonCancellationPropagating(future),
+              new Function<Collection<T>, Set<T>>() {
+                @Override
+                public Set<T> apply(Collection<T> collection) {
+                  return ImmutableSet.copyOf(collection);
+                }
+              },
+              directExecutor()));
+    }
+    return contributions;
+  }
+
+  /**
+   * Requests the futures of the delegate producers. Each delegate is only requested once, so that
+   * the futures returned by {@link #contributions()} are the ones combined by {@link #compute()}.
+   */
+  private synchronized RequestedDelegates<T> requestDelegates() {
+    if (requestedDelegates == null) {
+      List<ListenableFuture<T>> individualFutures =
+          new ArrayList<ListenableFuture<T>>(individualProducers.size());
+      for (Producer<T> producer : individualProducers) {
+        individualFutures.add(checkNotNull(producer.get()));
+      }
+      List<ListenableFuture<Collection<T>>> collectionFutures =
+          new ArrayList<ListenableFuture<Collection<T>>>(collectionProducers.size());
+      for (Producer<Collection<T>> producer : collectionProducers) {
+        collectionFutures.add(checkNotNull(producer.get()));
+      }
+      requestedDelegates = new RequestedDelegates<T>(individualFutures, collectionFutures);
+    }
+    return requestedDelegates;
+  }
+
+  private static final class RequestedDelegates<T> {
+    final List<ListenableFuture<T>> individualFutures;
+    final List<ListenableFuture<Collection<T>>> collectionFutures;
+
+    RequestedDelegates(
+        List<ListenableFuture<T>> individualFutures,
+        List<ListenableFuture<Collection<T>>> collectionFutures) {
+      this.individualFutures = individualFutures;
+      this.collectionFutures = collectionFutures;
+    }
+  }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import dagger.producers.Producer;
+
+/**
+ * An internal {@link Producer} that only forwards to another producer, such as a view of a producer
+ * or a producer that records its requests. {@link AbstractProducer#underlyingProducer} unwraps these
+ * to find the producer that actually computes the value.
+ */
+interface WrappingProducer<T> extends Producer<T> {
+
+  /**
+   * Returns the producer that this producer forwards to, or {@code null} if it isn't known yet.
+   */
+  Producer<T> wrappedProducer();
+}
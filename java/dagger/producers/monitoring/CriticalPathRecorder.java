@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+import dagger.internal.Beta;
+import dagger.producers.ProductionComponent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A timing recorder that computes the critical path of each execution of a {@linkplain
+ * ProductionComponent production component}: the chain of producers that determined when the
+ * component's entry point completed. Statistics are aggregated across all components created with
+ * this factory, so that the producers that most often bound the component's latency can be found.
+ *
+ * <p>The critical path is computed from the component's {@link ProducerGraph}, so components must
+ * be compiled with {@code -Adagger.producerGraphMetadata=ENABLED}; other components are not
+ * recorded. Starting from an entry point producer, the path repeatedly steps to the dependency
+ * that finished last, since that is the dependency that the producer was waiting on.
+ *
+ * <p>Install this recorder with a {@link TimingProductionComponentMonitor.Factory}: <pre><code>
+ *   {@literal @Provides @IntoSet} ProductionComponentMonitor.Factory criticalPathMonitor(
+ *       CriticalPathRecorder recorder) {
+ *     return new TimingProductionComponentMonitor.Factory(recorder);
+ *   }
+ * </code></pre>
+ */
+@Beta
+@SuppressWarnings("GoodTime") // should use java.time.Duration
+public final class CriticalPathRecorder implements ProductionComponentTimingRecorder.Factory {
+  private final ConcurrentMap<ProducerToken, Accumulator> accumulators =
+      new ConcurrentHashMap<>();
+  private final AtomicLong executionCount = new AtomicLong();
+  private final AtomicLong totalCriticalPathNanos = new AtomicLong();
+
+  @Override
+  public ProductionComponentTimingRecorder create(Object component) {
+    ProducerGraph graph = ProducerGraph.forComponent(component);
+    return graph == null
+        ? TimingRecorders.noOpProductionComponentTimingRecorder()
+        : new ComponentRecorder(graph);
+  }
+
+  /** Returns the number of critical paths that have been recorded. */
+  public long executionCount() {
+    return executionCount.get();
+  }
+
+  /**
+   * Returns the sum of the lengths of all recorded critical paths, measured from when each
+   * component was created to when its entry point producer finished.
+   */
+  public long totalCriticalPathNanos() {
+    return totalCriticalPathNanos.get();
+  }
+
+  /**
+   * Returns the statistics of every producer that has appeared on a critical path, ordered so that
+   * the producers that contributed the most time to critical paths come first.
+   */
+  public ImmutableList<NodeStatistics> statistics() {
+    List<NodeStatistics> statistics = new ArrayList<>(accumulators.size());
+    for (Accumulator accumulator : accumulators.values()) {
+      statistics.add(accumulator.snapshot());
+    }
+    Collections.sort(
+        statistics,
+        new Comparator<NodeStatistics>() {
+          @Override
+          public int compare(NodeStatistics left, NodeStatistics right) {
+            return Longs.compare(right.totalNanos(), left.totalNanos());
+          }
+        });
+    return ImmutableList.copyOf(statistics);
+  }
+
+  /** Discards all recorded statistics. */
+  public void reset() {
+    accumulators.clear();
+    executionCount.set(0);
+    totalCriticalPathNanos.set(0);
+  }
+
+  private Accumulator accumulatorFor(ProducerToken token) {
+    Accumulator accumulator = accumulators.get(token);
+    if (accumulator == null) {
+      Accumulator newAccumulator = new Accumulator(token);
+      accumulator = accumulators.putIfAbsent(token, newAccumulator);
+      if (accumulator == null) {
+        accumulator = newAccumulator;
+      }
+    }
+    return accumulator;
+  }
+
+  /** Aggregated statistics of a single producer's appearances on critical paths. */
+  public static final class NodeStatistics {
+    private final ProducerToken token;
+    private final long criticalPathCount;
+    private final long totalLatencyNanos;
+    private final long totalQueueNanos;
+
+    NodeStatistics(
+        ProducerToken token, long criticalPathCount, long totalLatencyNanos, long totalQueueNanos) {
+      this.token = token;
+      this.criticalPathCount = criticalPathCount;
+      this.totalLatencyNanos = totalLatencyNanos;
+      this.totalQueueNanos = totalQueueNanos;
+    }
+
+    /** Returns the token of the producer. */
+    public ProducerToken token() {
+      return token;
+    }
+
+    /** Returns the number of critical paths that this producer appeared on. */
+    public long criticalPathCount() {
+      return criticalPathCount;
+    }
+
+    /**
+     * Returns the total latency of this producer, from when its method started to when its future
+     * completed, summed over the critical paths that it appeared on.
+     */
+    public long totalLatencyNanos() {
+      return totalLatencyNanos;
+    }
+
+    /**
+     * Returns the total time between the completion of this producer's critical dependency (or the
+     * creation of the component, if it has none) and the start of its method, summed over the
+     * critical paths that it appeared on. This is mostly time spent waiting for the executor.
+     */
+    public long totalQueueNanos() {
+      return totalQueueNanos;
+    }
+
+    /** Returns the total time that this producer contributed to critical paths. */
+    public long totalNanos() {
+      return totalLatencyNanos + totalQueueNanos;
+    }
+
+    @Override
+    public String toString() {
+      return token
+          + "{count="
+          + criticalPathCount
+          + ", latencyNanos="
+          + totalLatencyNanos
+          + ", queueNanos="
+          + totalQueueNanos
+          + "}";
+    }
+  }
+
+  private static final class Accumulator {
+    private final ProducerToken token;
+    private final AtomicLong criticalPathCount = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong totalQueueNanos = new AtomicLong();
+
+    Accumulator(ProducerToken token) {
+      this.token = checkNotNull(token);
+    }
+
+    void add(long latencyNanos, long queueNanos) {
+      criticalPathCount.incrementAndGet();
+      totalLatencyNanos.addAndGet(latencyNanos);
+      totalQueueNanos.addAndGet(queueNanos);
+    }
+
+    NodeStatistics snapshot() {
+      return new NodeStatistics(
+          token, criticalPathCount.get(), totalLatencyNanos.get(), totalQueueNanos.get());
+    }
+  }
+
+  /**
+   * Records the start and end times of each producer of a component, and computes the critical
+   * path whenever an entry point producer completes.
+   */
+  private final class ComponentRecorder implements ProductionComponentTimingRecorder {
+    private static final long NOT_RECORDED = -1;
+
+    private final ProducerGraph graph;
+    private final AtomicLongArray startNanos;
+    private final AtomicLongArray endNanos;
+
+    ComponentRecorder(ProducerGraph graph) {
+      this.graph = graph;
+      this.startNanos = new AtomicLongArray(graph.size());
+      this.endNanos = new AtomicLongArray(graph.size());
+      for (int i = 0; i < graph.size(); i++) {
+        startNanos.set(i, NOT_RECORDED);
+        endNanos.set(i, NOT_RECORDED);
+      }
+    }
+
+    @Override
+    public ProducerTimingRecorder producerTimingRecorderFor(ProducerToken token) {
+      int index = graph.indexOf(token);
+      return index < 0 ? ProducerTimingRecorder.noOp() : new NodeRecorder(index);
+    }
+
+    private void completed(int index, long latencyNanos) {
+      long start = startNanos.get(index);
+      if (start == NOT_RECORDED) {
+        return;
+      }
+      endNanos.set(index, start + latencyNanos);
+      if (graph.isEntryPoint(index)) {
+        recordCriticalPathEndingAt(index);
+      }
+    }
+
+    private void recordCriticalPathEndingAt(int index) {
+      executionCount.incrementAndGet();
+      totalCriticalPathNanos.addAndGet(endNanos.get(index));
+      for (int node = index; node >= 0; ) {
+        int criticalDependency = latestDependency(node);
+        long readyNanos = criticalDependency < 0 ? 0 : endNanos.get(criticalDependency);
+        long start = startNanos.get(node);
+        accumulatorFor(graph.tokens().get(node))
+            .add(endNanos.get(node) - start, Math.max(0, start - readyNanos));
+        node = criticalDependency;
+      }
+    }
+
+    /** Returns the dependency of the given node that finished last, or -1 if there is none. */
+    private int latestDependency(int index) {
+      int latest = -1;
+      long latestEnd = NOT_RECORDED;
+      for (int dependency : graph.dependencyIndices(index)) {
+        long end = endNanos.get(dependency);
+        if (end > latestEnd) {
+          latest = dependency;
+          latestEnd = end;
+        }
+      }
+      return latest;
+    }
+
+    private final class NodeRecorder extends ProducerTimingRecorder {
+      private final int index;
+
+      NodeRecorder(int index) {
+        this.index = index;
+      }
+
+      @Override
+      public void recordMethod(long startedNanos, long durationNanos) {
+        startNanos.set(index, startedNanos);
+      }
+
+      @Override
+      public void recordSuccess(long latencyNanos) {
+        completed(index, latencyNanos);
+      }
+
+      @Override
+      public void recordFailure(Throwable exception, long latencyNanos) {
+        completed(index, latencyNanos);
+      }
+    }
+  }
+}
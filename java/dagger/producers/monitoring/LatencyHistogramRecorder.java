@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import dagger.internal.Beta;
+import dagger.producers.Produces;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A timing recorder that keeps a histogram of the latencies of each {@linkplain Produces producer
+ * method}, aggregated across all components created with this factory.
+ *
+ * <p>Latencies are recorded into logarithmic buckets, each of which covers a range of values whose
+ * width is at most 1/8 of its lower bound. Percentiles are therefore reported with a relative
+ * error of at most 12.5%, while each histogram has a fixed size and recording a latency is a
+ * single atomic increment. Recording never blocks, so this recorder can be installed in servers
+ * that create many components concurrently.
+ *
+ * <p>Install this recorder with a {@link TimingProductionComponentMonitor.Factory}: <pre><code>
+ *   {@literal @Provides @IntoSet} ProductionComponentMonitor.Factory latencyMonitor(
+ *       LatencyHistogramRecorder recorder) {
+ *     return new TimingProductionComponentMonitor.Factory(recorder);
+ *   }
+ * </code></pre>
+ */
+@Beta
+@SuppressWarnings("GoodTime") // should use java.time.Duration
+public final class LatencyHistogramRecorder implements ProductionComponentTimingRecorder.Factory {
+  private final ConcurrentMap<ProducerToken, ProducerRecorder> recorders =
+      new ConcurrentHashMap<>();
+
+  // Recorders don't hold any per-component state, so the same instance is used for all components.
+  private final ProductionComponentTimingRecorder componentRecorder =
+      new ProductionComponentTimingRecorder() {
+        @Override
+        public ProducerTimingRecorder producerTimingRecorderFor(ProducerToken token) {
+          return recorderFor(token);
+        }
+      };
+
+  @Override
+  public ProductionComponentTimingRecorder create(Object component) {
+    return componentRecorder;
+  }
+
+  private ProducerRecorder recorderFor(ProducerToken token) {
+    ProducerRecorder recorder = recorders.get(token);
+    if (recorder == null) {
+      ProducerRecorder newRecorder = new ProducerRecorder();
+      recorder = recorders.putIfAbsent(token, newRecorder);
+      if (recorder == null) {
+        recorder = newRecorder;
+      }
+    }
+    return recorder;
+  }
+
+  /** Returns a snapshot of the histogram of each producer that has recorded a latency. */
+  public ImmutableMap<ProducerToken, Snapshot> snapshot() {
+    return snapshot(false);
+  }
+
+  /**
+   * Returns a snapshot of the histogram of each producer that has recorded a latency, and resets
+   * the histograms. Latencies that are recorded concurrently with this call will be included in
+   * either the returned snapshot or the next one, but not both.
+   */
+  public ImmutableMap<ProducerToken, Snapshot> snapshotAndReset() {
+    return snapshot(true);
+  }
+
+  /** Discards all recorded latencies. */
+  public void reset() {
+    snapshot(true);
+  }
+
+  private ImmutableMap<ProducerToken, Snapshot> snapshot(boolean reset) {
+    ImmutableMap.Builder<ProducerToken, Snapshot> snapshots = ImmutableMap.builder();
+    for (Map.Entry<ProducerToken, ProducerRecorder> entry : recorders.entrySet()) {
+      Snapshot snapshot = entry.getValue().snapshot(reset);
+      if (snapshot.count() > 0 || snapshot.failureCount() > 0) {
+        snapshots.put(entry.getKey(), snapshot);
+      }
+    }
+    return snapshots.build();
+  }
+
+  /** The number of bits of each value that are used to choose a bucket within a power of two. */
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  /** The number of buckets needed to hold {@link Long#MAX_VALUE}. */
+  private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  /** Returns the index of the bucket that contains the given non-negative value. */
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+  }
+
+  /** Returns the smallest value that is contained in the bucket with the given index. */
+  static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long subBucket = index % SUB_BUCKET_COUNT;
+    return (SUB_BUCKET_COUNT + subBucket) << shift;
+  }
+
+  /** Returns the largest value that is contained in the bucket with the given index. */
+  static long bucketUpperBound(int index) {
+    return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : bucketLowerBound(index + 1) - 1;
+  }
+
+  private static final class ProducerRecorder extends ProducerTimingRecorder {
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+
+    @Override
+    public void recordSuccess(long latencyNanos) {
+      record(latencyNanos);
+    }
+
+    @Override
+    public void recordFailure(Throwable exception, long latencyNanos) {
+      failureCount.incrementAndGet();
+      record(latencyNanos);
+    }
+
+    private void record(long latencyNanos) {
+      long value = Math.max(0, latencyNanos);
+      buckets.incrementAndGet(bucketIndex(value));
+      totalNanos.addAndGet(value);
+      long max = maxNanos.get();
+      while (value > max && !maxNanos.compareAndSet(max, value)) {
+        max = maxNanos.get();
+      }
+    }
+
+    Snapshot snapshot(boolean reset) {
+      long[] counts = new long[BUCKET_COUNT];
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        counts[i] = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+      }
+      return reset
+          ? new Snapshot(
+              counts, totalNanos.getAndSet(0), maxNanos.getAndSet(0), failureCount.getAndSet(0))
+          : new Snapshot(counts, totalNanos.get(), maxNanos.get(), failureCount.get());
+    }
+  }
+
+  /** An immutable view of the latencies recorded for a single producer. */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long failureCount;
+
+    Snapshot(long[] counts, long totalNanos, long maxNanos, long failureCount) {
+      this.counts = checkNotNull(counts);
+      long count = 0;
+      for (long bucketCount : counts) {
+        count += bucketCount;
+      }
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+      this.failureCount = failureCount;
+    }
+
+    /** Returns the number of latencies that were recorded, including those of failures. */
+    public long count() {
+      return count;
+    }
+
+    /** Returns the number of recorded latencies whose future failed. */
+    public long failureCount() {
+      return failureCount;
+    }
+
+    /** Returns the mean of the recorded latencies, or 0 if none were recorded. */
+    public double meanNanos() {
+      return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /** Returns the maximum of the recorded latencies, or 0 if none were recorded. */
+    public long maxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * Returns an estimate of the given percentile of the recorded latencies, or 0 if none were
+     * recorded. The estimate is the upper bound of the bucket that contains the percentile, so it
+     * may overestimate the actual value by up to 12.5%, but never by more than {@link #maxNanos()}.
+     *
+     * @param percentile the percentile, between 0 and 100, for example 99.9 for the p999
+     */
+    public long percentileNanos(double percentile) {
+      checkArgument(
+          percentile >= 0 && percentile <= 100, "percentile must be in [0, 100]: %s", percentile);
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(bucketUpperBound(i), maxNanos);
+        }
+      }
+      return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "Snapshot{count="
+          + count
+          + ", failures="
+          + failureCount
+          + ", p50="
+          + percentileNanos(50)
+          + ", p99="
+          + percentileNanos(99)
+          + ", p999="
+          + percentileNanos(99.9)
+          + ", max="
+          + maxNanos
+          + "}";
+    }
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import dagger.internal.Beta;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import dagger.producers.monitoring.internal.ProducerGraphComponent;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The static dependency structure between the {@linkplain Produces producer methods} of a
+ * {@linkplain ProductionComponent production component}.
+ *
+ * <p>Each node of the graph is identified by the same {@link ProducerToken} that is passed to
+ * {@link ProductionComponentMonitor#producerMonitorFor(ProducerToken)}. A producer depends on
+ * another producer if it cannot start until the other one has completed, either because it
+ * requests its value directly or because it requests a binding, such as a multibinding, that is
+ * built from the other producer's value. Requests for {@code Producer<T>} are not dependencies in
+ * this sense, since they may never be started.
+ *
+ * <p>Graphs are only recorded for components compiled with the {@code
+ * -Adagger.producerGraphMetadata=ENABLED} option. Monitors can retrieve the graph for a component
+ * with {@link #forComponent(Object)} when they are created.
+ */
+@Beta
+public final class ProducerGraph {
+  private final ImmutableList<ProducerToken> tokens;
+  private final ImmutableMap<ProducerToken, Integer> indices;
+  private final int[][] dependencyIndices;
+  private final boolean[] isEntryPoint;
+  private final int[] priorities;
+  private final ImmutableList<ImmutableList<ProducerToken>> dependencies;
+  private final ImmutableList<ProducerToken> entryPoints;
+  private final AtomicReferenceArray<ProducerToken> producerTokens;
+
+  private ProducerGraph(ProducerToken[] tokens, int[][] dependencies, int[] entryPoints) {
+    ImmutableList.Builder<ProducerToken> indexedTokens = ImmutableList.builder();
+    ImmutableMap.Builder<ProducerToken, Integer> indices = ImmutableMap.builder();
+    for (int i = 0; i < tokens.length; i++) {
+      indexedTokens.add(tokens[i].withIndex(i));
+      indices.put(tokens[i], i);
+    }
+    this.tokens = indexedTokens.build();
+    this.indices = indices.build();
+    this.dependencyIndices = new int[dependencies.length][];
+    ImmutableList.Builder<ImmutableList<ProducerToken>> dependencyLists = ImmutableList.builder();
+    for (int i = 0; i < dependencies.length; i++) {
+      dependencyIndices[i] = dependencies[i].clone();
+      dependencyLists.add(tokensAt(dependencies[i]));
+    }
+    this.dependencies = dependencyLists.build();
+    this.isEntryPoint = new boolean[tokens.length];
+    for (int entryPoint : entryPoints) {
+      isEntryPoint[entryPoint] = true;
+    }
+    this.entryPoints = tokensAt(entryPoints);
+    this.priorities = computePriorities(dependencyIndices);
+    this.producerTokens = new AtomicReferenceArray<>(tokens.length);
+  }
+
+  /**
+   * Returns the length of the longest chain of producers from each producer to a producer that
+   * nothing depends on, such as an entry point. The graph is acyclic, so this visits producers in
+   * reverse topological order, starting with the ones that nothing depends on.
+   */
+  private static int[] computePriorities(int[][] dependencies) {
+    int size = dependencies.length;
+    int[] dependentCounts = new int[size];
+    for (int[] nodeDependencies : dependencies) {
+      for (int dependency : nodeDependencies) {
+        dependentCounts[dependency]++;
+      }
+    }
+    int[] ready = new int[size];
+    int readyCount = 0;
+    int[] priorities = new int[size];
+    for (int i = 0; i < size; i++) {
+      if (dependentCounts[i] == 0) {
+        priorities[i] = 1;
+        ready[readyCount++] = i;
+      }
+    }
+    for (int next = 0; next < readyCount; next++) {
+      int node = ready[next];
+      for (int dependency : dependencies[node]) {
+        priorities[dependency] = Math.max(priorities[dependency], priorities[node] + 1);
+        if (--dependentCounts[dependency] == 0) {
+          ready[readyCount++] = dependency;
+        }
+      }
+    }
+    return priorities;
+  }
+
+  /**
+   * Creates a graph from the given tokens, where {@code dependencies[i]} holds the indices of the
+   * tokens that {@code tokens[i]} depends on, and {@code entryPoints} holds the indices of the
+   * tokens that are requested directly by the component's entry points.
+   *
+   * <p><b>Do not use this!</b> This is intended to be called by generated code only, and its
+   * signature may change at any time.
+   */
+  public static ProducerGraph create(
+      ProducerToken[] tokens, int[][] dependencies, int[] entryPoints) {
+    checkArgument(
+        tokens.length == dependencies.length,
+        "Expected %s dependency lists, but found %s",
+        tokens.length,
+        dependencies.length);
+    return new ProducerGraph(tokens, dependencies, entryPoints);
+  }
+
+  /**
+   * Returns the given producer's own token with the index of the node at {@code index}, and records
+   * it as the token of that node.
+   *
+   * <p>The producer's token was written when its module was compiled, which may have been with
+   * different options than the component, so it may not be equal to the graph's token for the same
+   * node. Monitors may be given either, and both are resolved to the same node.
+   *
+   * <p><b>Do not use this!</b> This is intended to be called by generated code only, and its
+   * signature may change at any time.
+   */
+  public ProducerToken producerToken(ProducerToken token, int index) {
+    checkNotNull(token);
+    producerTokens.set(index, token);
+    return token.withIndex(index);
+  }
+
+  private ImmutableList<ProducerToken> tokensAt(int[] indices) {
+    ImmutableList.Builder<ProducerToken> builder = ImmutableList.builder();
+    for (int index : indices) {
+      builder.add(tokens.get(index));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the graph recorded for the given component, or {@code null} if the component was not
+   * generated with producer graph metadata. The component is the object that is passed to {@link
+   * ProductionComponentMonitor.Factory#create(Object)}.
+   */
+  @NullableDecl
+  public static ProducerGraph forComponent(Object component) {
+    return component instanceof ProducerGraphComponent
+        ? ((ProducerGraphComponent) component).producerGraphForMonitoring()
+        : null;
+  }
+
+  /**
+   * Returns the tokens of all the producers in the graph. Each token's {@linkplain
+   * ProducerToken#index() index} is its position in this list, and these are the tokens that are
+   * passed to monitors of the component's producers.
+   */
+  public ImmutableList<ProducerToken> tokens() {
+    return tokens;
+  }
+
+  /** Returns {@code true} if the given token is a node of this graph. */
+  public boolean contains(ProducerToken token) {
+    return indices.containsKey(checkNotNull(token));
+  }
+
+  /**
+   * Returns the tokens of the producers that must complete before the given producer can start.
+   *
+   * @throws IllegalArgumentException if the token is not a node of this graph
+   */
+  public ImmutableList<ProducerToken> dependenciesOf(ProducerToken token) {
+    int index = indexOf(token);
+    checkArgument(index >= 0, "%s is not a producer in this graph", token);
+    return dependencies.get(index);
+  }
+
+  /**
+   * Returns the tokens of the producers that are requested directly by the component's entry
+   * points.
+   */
+  public ImmutableList<ProducerToken> entryPoints() {
+    return entryPoints;
+  }
+
+  /**
+   * Returns the static priority of the given producer: the length of the longest chain of
+   * producers, including this one, from it to an entry point. Producers that begin longer chains
+   * are more likely to be on the critical path, so a {@link dagger.producers.PrioritizingExecutor}
+   * runs them first.
+   *
+   * @throws IllegalArgumentException if the token is not a node of this graph
+   */
+  public int priorityOf(ProducerToken token) {
+    int index = indexOf(token);
+    checkArgument(index >= 0, "%s is not a producer in this graph", token);
+    return priorities[index];
+  }
+
+  /** Returns the number of producers in the graph. */
+  int size() {
+    return tokens.size();
+  }
+
+  /** Returns the index of the given token in {@link #tokens()}, or -1 if it isn't in the graph. */
+  int indexOf(ProducerToken token) {
+    int index = token.index();
+    if (index >= 0
+        && index < tokens.size()
+        && (tokens.get(index) == token || token.equals(producerTokens.get(index)))) {
+      return index;
+    }
+    return lookUpIndex(token);
+  }
+
+  private int lookUpIndex(ProducerToken token) {
+    Integer index = indices.get(checkNotNull(token));
+    return index == null ? -1 : index;
+  }
+
+  /** Returns the indices of the dependencies of the producer at the given index. */
+  int[] dependencyIndices(int index) {
+    return dependencyIndices[index];
+  }
+
+  /** Returns {@code true} if the producer at the given index is requested by an entry point. */
+  boolean isEntryPoint(int index) {
+    return isEntryPoint[index];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("ProducerGraph{");
+    for (int i = 0; i < tokens.size(); i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(tokens.get(i)).append(" -> ").append(dependencies.get(i));
+    }
+    return builder.append('}').toString();
+  }
+}
@@ -137,6 +137,70 @@ public abstract class ProducerMonitor {
    */
   public void methodFinished() {}
 
+  /**
+   * Called when the producer is ready to run, but the {@link dagger.producers.Bulkhead} group of
+   * its method is saturated. This is called after {@link #ready()}, and before the producer is
+   * queued or failed.
+   *
+   * <p>When multiple monitors are installed, the order that each monitor will call this method is
+   * unspecified, but will remain consistent throughout the course of the execution of a component.
+   *
+   * <p>This implementation is a no-op.
+   *
+   * @param bulkhead the name of the saturated group
+   */
+  public void bulkheadSaturated(@SuppressWarnings("unused") String bulkhead) {}
+
+  /**
+   * Called when the producer's {@link dagger.producers.Hedged @Hedged} method is called a second
+   * time, because the first call hasn't completed. This will be called from the same thread as the
+   * second call of the method.
+   *
+   * <p>When multiple monitors are installed, the order that each monitor will call this method is
+   * unspecified, but will remain consistent throughout the course of the execution of a component.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void hedgeStarted() {}
+
+  /**
+   * Returns {@code true} if the {@code Producer<T>} that is passed to the producer method as the
+   * given parameter should be started before the method requests it. This is called after {@link
+   * #requested()}, for each {@code Producer<T>} parameter of the method, if the method's module was
+   * compiled with {@code -Adagger.speculativePrefetch=ENABLED}.
+   *
+   * <p>A prefetched producer runs even if the method never requests it, so this trades extra work
+   * for lower latency when the method usually does.
+   *
+   * <p>When multiple monitors are installed, the producer is prefetched if any of them returns
+   * {@code true}.
+   *
+   * <p>This implementation returns {@code false}.
+   *
+   * @param parameterName the name of the method's parameter
+   */
+  public boolean shouldPrefetch(@SuppressWarnings("unused") String parameterName) {
+    return false;
+  }
+
+  /**
+   * Called when the producer's future has completed, for each {@code Producer<T>} parameter of its
+   * method, with whether the method requested the parameter's value. This is only called if the
+   * method's module was compiled with {@code -Adagger.speculativePrefetch=ENABLED}, and is called
+   * before {@link #succeeded(Object)} or {@link #failed(Throwable)}.
+   *
+   * <p>When multiple monitors are installed, the order that each monitor will call this method is
+   * unspecified, but will remain consistent throughout the course of the execution of a component.
+   *
+   * <p>This implementation is a no-op.
+   *
+   * @param parameterName the name of the method's parameter
+   * @param requested whether {@link dagger.producers.Producer#get()} was called on the parameter
+   */
+  public void conditionalDependencyObserved(
+      @SuppressWarnings("unused") String parameterName,
+      @SuppressWarnings("unused") boolean requested) {}
+
   /**
    * Called when the producer’s future has completed successfully with a value.
    *
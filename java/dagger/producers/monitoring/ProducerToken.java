@@ -18,6 +18,7 @@ package dagger.producers.monitoring;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import dagger.internal.Beta;
 import dagger.producers.Produces;
 import java.util.Objects;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
@@ -26,10 +27,13 @@ import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 public final class ProducerToken {
   @NullableDecl private final Class<?> classToken;
   @NullableDecl private final String methodName;
+  private final int index;
 
-  private ProducerToken(@NullableDecl Class<?> classToken, @NullableDecl String methodName) {
+  private ProducerToken(
+      @NullableDecl Class<?> classToken, @NullableDecl String methodName, int index) {
     this.classToken = classToken;
     this.methodName = methodName;
+    this.index = index;
   }
 
   /**
@@ -39,7 +43,7 @@ public final class ProducerToken {
    * signature may change at any time.
    */
   public static ProducerToken create(Class<?> classToken) {
-    return new ProducerToken(checkNotNull(classToken), null);
+    return new ProducerToken(checkNotNull(classToken), null, NO_INDEX);
   }
 
   /**
@@ -49,10 +53,32 @@ public final class ProducerToken {
    * signature may change at any time.
    */
   public static ProducerToken create(String methodName) {
-    return new ProducerToken(null, checkNotNull(methodName));
+    return new ProducerToken(null, checkNotNull(methodName), NO_INDEX);
   }
 
-  /** Two tokens are equal if they represent the same method. */
+  static final int NO_INDEX = -1;
+
+  /** Returns a token for the same method, with the given index. */
+  ProducerToken withIndex(int index) {
+    return new ProducerToken(classToken, methodName, index);
+  }
+
+  /**
+   * Returns the index of this token in the {@linkplain ProducerGraph#tokens() tokens} of its
+   * component's {@link ProducerGraph}, or -1 if the component doesn't record a graph.
+   *
+   * <p>Indices are dense, so monitors can use them to store per-producer state in arrays sized by
+   * the graph instead of in maps. Indices are only unique within a single component's graph.
+   */
+  @Beta
+  public int index() {
+    return index;
+  }
+
+  /**
+   * Two tokens are equal if they represent the same method. The {@linkplain #index() index} is not
+   * considered.
+   */
   @Override
   public boolean equals(Object o) {
     if (o == this) {
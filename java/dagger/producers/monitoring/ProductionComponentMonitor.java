@@ -50,6 +50,18 @@ public abstract class ProductionComponentMonitor {
   /** Returns a monitor for an individual {@linkplain Produces producer method}. */
   public abstract ProducerMonitor producerMonitorFor(ProducerToken token);
 
+  /**
+   * Called when an execution of a component with {@link dagger.producers.AdmissionControl} is
+   * queued, because the maximum number of executions of the component are already in flight.
+   */
+  public void executionQueued() {}
+
+  /**
+   * Called when an execution of a component with {@link dagger.producers.AdmissionControl} is
+   * rejected, because the maximum number of executions of the component are already in flight.
+   */
+  public void executionRejected() {}
+
   private static final ProductionComponentMonitor NO_OP =
       new ProductionComponentMonitor() {
         @Override
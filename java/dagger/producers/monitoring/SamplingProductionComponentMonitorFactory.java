@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Ticker;
+import dagger.internal.Beta;
+import dagger.producers.ProductionComponent;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monitor factory that only monitors a sample of {@linkplain ProductionComponent production
+ * components}. The decision is made once, when the component is created: sampled components are
+ * monitored by the delegate factory's monitor, and all other components are given {@link
+ * ProductionComponentMonitor#noOp()}, so that their producers do no monitoring work at all.
+ *
+ * <p>For example, to record the timing of 1% of all components: <pre><code>
+ *   {@literal @Provides @IntoSet} ProductionComponentMonitor.Factory sampledTimingMonitor(
+ *       ProductionComponentTimingRecorder.Factory recorderFactory) {
+ *     return SamplingProductionComponentMonitorFactory.withProbability(
+ *         new TimingProductionComponentMonitor.Factory(recorderFactory), 0.01);
+ *   }
+ * </code></pre>
+ */
+@Beta
+public final class SamplingProductionComponentMonitorFactory
+    extends ProductionComponentMonitor.Factory {
+  private final ProductionComponentMonitor.Factory delegate;
+  private final Sampler sampler;
+
+  private SamplingProductionComponentMonitorFactory(
+      ProductionComponentMonitor.Factory delegate, Sampler sampler) {
+    this.delegate = checkNotNull(delegate);
+    this.sampler = sampler;
+  }
+
+  /**
+   * Returns a factory that monitors each component with the given probability, using the delegate
+   * factory.
+   *
+   * @param probability the probability, between 0 and 1, that a component is monitored
+   */
+  public static ProductionComponentMonitor.Factory withProbability(
+      ProductionComponentMonitor.Factory delegate, double probability) {
+    checkArgument(
+        probability >= 0 && probability <= 1, "probability must be in [0, 1]: %s", probability);
+    if (probability == 0) {
+      return ProductionComponentMonitor.Factory.noOp();
+    } else if (probability == 1) {
+      return checkNotNull(delegate);
+    }
+    return new SamplingProductionComponentMonitorFactory(delegate, new RandomSampler(probability));
+  }
+
+  /**
+   * Returns a factory that monitors at most {@code componentsPerSecond} components per second,
+   * using the delegate factory. Components are sampled as soon as they are allowed, so under a
+   * steady load the sampled components will be spaced evenly in time.
+   */
+  public static ProductionComponentMonitor.Factory withRateLimit(
+      ProductionComponentMonitor.Factory delegate, double componentsPerSecond) {
+    return withRateLimit(delegate, componentsPerSecond, Ticker.systemTicker());
+  }
+
+  static ProductionComponentMonitor.Factory withRateLimit(
+      ProductionComponentMonitor.Factory delegate, double componentsPerSecond, Ticker ticker) {
+    checkArgument(
+        componentsPerSecond > 0, "componentsPerSecond must be positive: %s", componentsPerSecond);
+    return new SamplingProductionComponentMonitorFactory(
+        delegate, new RateLimitingSampler(componentsPerSecond, ticker));
+  }
+
+  @Override
+  public ProductionComponentMonitor create(Object component) {
+    return sampler.sample() ? delegate.create(component) : ProductionComponentMonitor.noOp();
+  }
+
+  @Override
+  public String toString() {
+    return "SamplingProductionComponentMonitorFactory{" + sampler + ", " + delegate + "}";
+  }
+
+  private abstract static class Sampler {
+    /** Returns {@code true} if the next component should be monitored. */
+    abstract boolean sample();
+  }
+
+  private static final class RandomSampler extends Sampler {
+    private final double probability;
+
+    RandomSampler(double probability) {
+      this.probability = probability;
+    }
+
+    @Override
+    boolean sample() {
+      return ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    @Override
+    public String toString() {
+      return "probability=" + probability;
+    }
+  }
+
+  private static final class RateLimitingSampler extends Sampler {
+    private final double componentsPerSecond;
+    private final long intervalNanos;
+    private final Ticker ticker;
+    private final AtomicLong nextSampleNanos;
+
+    RateLimitingSampler(double componentsPerSecond, Ticker ticker) {
+      this.componentsPerSecond = componentsPerSecond;
+      this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / componentsPerSecond));
+      this.ticker = ticker;
+      this.nextSampleNanos = new AtomicLong(ticker.read());
+    }
+
+    @Override
+    boolean sample() {
+      long now = ticker.read();
+      long next = nextSampleNanos.get();
+      // Only one of the threads that race for an interval wins it; the others are not sampled.
+      return now - next >= 0 && nextSampleNanos.compareAndSet(next, now + intervalNanos);
+    }
+
+    @Override
+    public String toString() {
+      return "componentsPerSecond=" + componentsPerSecond;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import dagger.internal.Beta;
+import dagger.producers.Producer;
+import dagger.producers.Produces;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * A monitor factory that records how often each {@linkplain Produces producer method} requests the
+ * {@link Producer Producer&lt;T&gt;} parameters that it is given, and has the parameters that are
+ * usually requested started speculatively, before the method runs.
+ *
+ * <p>Producers that are only requested conditionally, through a {@code Producer<T>} parameter,
+ * can't start until the method that requests them has run, so they are never run in parallel with
+ * the method's other dependencies. Once a parameter has been observed at least {@code
+ * minObservations} times, and the fraction of executions in which the method requested it is at
+ * least {@code threshold}, the parameter's producer is started as soon as the method's producer is
+ * requested. The statistics are aggregated across all components created with this factory, and
+ * they continue to be updated while parameters are prefetched.
+ *
+ * <p>Parameters are only observed for methods in modules that are compiled with {@code
+ * -Adagger.speculativePrefetch=ENABLED}. Install this recorder like any other monitor factory:
+ * <pre><code>
+ *   {@literal @Provides @IntoSet} ProductionComponentMonitor.Factory prefetchMonitor(
+ *       SpeculativePrefetchRecorder recorder) {
+ *     return recorder;
+ *   }
+ * </code></pre>
+ */
+@Beta
+public final class SpeculativePrefetchRecorder extends ProductionComponentMonitor.Factory {
+  /** The default number of observations of a parameter before it may be prefetched. */
+  public static final long DEFAULT_MIN_OBSERVATIONS = 100;
+
+  private final double threshold;
+  private final long minObservations;
+  private final ConcurrentMap<ProducerToken, ProducerRecorder> recorders =
+      new ConcurrentHashMap<>();
+
+  // Recorders don't hold any per-component state, so the same instance is used for all components.
+  private final ProductionComponentMonitor componentMonitor =
+      new ProductionComponentMonitor() {
+        @Override
+        public ProducerMonitor producerMonitorFor(ProducerToken token) {
+          return recorderFor(token);
+        }
+      };
+
+  private SpeculativePrefetchRecorder(double threshold, long minObservations) {
+    this.threshold = threshold;
+    this.minObservations = minObservations;
+  }
+
+  /**
+   * Returns a recorder that prefetches a parameter once the method has requested it in at least
+   * the given fraction of {@link #DEFAULT_MIN_OBSERVATIONS} or more executions.
+   *
+   * @param threshold the fraction, greater than 0 and at most 1, of executions in which the method
+   *     must have requested a parameter for it to be prefetched
+   */
+  public static SpeculativePrefetchRecorder withThreshold(double threshold) {
+    return withThreshold(threshold, DEFAULT_MIN_OBSERVATIONS);
+  }
+
+  /**
+   * Returns a recorder that prefetches a parameter once the method has requested it in at least
+   * the given fraction of {@code minObservations} or more executions.
+   */
+  public static SpeculativePrefetchRecorder withThreshold(double threshold, long minObservations) {
+    checkArgument(threshold > 0 && threshold <= 1, "threshold must be in (0, 1]: %s", threshold);
+    checkArgument(minObservations > 0, "minObservations must be positive: %s", minObservations);
+    return new SpeculativePrefetchRecorder(threshold, minObservations);
+  }
+
+  @Override
+  public ProductionComponentMonitor create(Object component) {
+    return componentMonitor;
+  }
+
+  /**
+   * Returns the number of executions of the producer method in which the given parameter was
+   * observed.
+   */
+  public long observationCount(ProducerToken token, String parameterName) {
+    ParameterStatistics statistics = statisticsFor(token, parameterName);
+    return statistics == null ? 0 : statistics.observations.get();
+  }
+
+  /**
+   * Returns the fraction of the observed executions of the producer method in which it requested
+   * the given parameter, or 0 if the parameter hasn't been observed.
+   */
+  public double requestProbability(ProducerToken token, String parameterName) {
+    ParameterStatistics statistics = statisticsFor(token, parameterName);
+    return statistics == null ? 0 : statistics.requestProbability();
+  }
+
+  /** Discards all observations, so that no parameters are prefetched until observed again. */
+  public void reset() {
+    recorders.clear();
+  }
+
+  @NullableDecl
+  private ParameterStatistics statisticsFor(ProducerToken token, String parameterName) {
+    ProducerRecorder recorder = recorders.get(token);
+    return recorder == null ? null : recorder.parameters.get(parameterName);
+  }
+
+  private ProducerRecorder recorderFor(ProducerToken token) {
+    ProducerRecorder recorder = recorders.get(token);
+    if (recorder == null) {
+      ProducerRecorder newRecorder = new ProducerRecorder();
+      recorder = recorders.putIfAbsent(token, newRecorder);
+      if (recorder == null) {
+        recorder = newRecorder;
+      }
+    }
+    return recorder;
+  }
+
+  @Override
+  public String toString() {
+    return "SpeculativePrefetchRecorder{threshold="
+        + threshold
+        + ", minObservations="
+        + minObservations
+        + "}";
+  }
+
+  private final class ProducerRecorder extends ProducerMonitor {
+    final ConcurrentMap<String, ParameterStatistics> parameters = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean shouldPrefetch(String parameterName) {
+      ParameterStatistics statistics = parameters.get(parameterName);
+      return statistics != null
+          && statistics.observations.get() >= minObservations
+          && statistics.requestProbability() >= threshold;
+    }
+
+    @Override
+    public void conditionalDependencyObserved(String parameterName, boolean requested) {
+      ParameterStatistics statistics = parameters.get(parameterName);
+      if (statistics == null) {
+        ParameterStatistics newStatistics = new ParameterStatistics();
+        statistics = parameters.putIfAbsent(parameterName, newStatistics);
+        if (statistics == null) {
+          statistics = newStatistics;
+        }
+      }
+      statistics.record(requested);
+    }
+  }
+
+  private static final class ParameterStatistics {
+    final AtomicLong observations = new AtomicLong();
+    final AtomicLong requests = new AtomicLong();
+
+    void record(boolean requested) {
+      if (requested) {
+        requests.incrementAndGet();
+      }
+      observations.incrementAndGet();
+    }
+
+    double requestProbability() {
+      // A concurrent reader may see a request before its observation, so the result is capped.
+      long count = observations.get();
+      return count == 0 ? 0 : Math.min(1, (double) requests.get() / count);
+    }
+  }
+}
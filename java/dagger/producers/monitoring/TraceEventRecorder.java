@@ -0,0 +1,499 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Futures;
+import dagger.internal.Beta;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * A monitor factory that records a trace of each execution of a {@linkplain ProductionComponent
+ * production component}, and writes it in the <a
+ * href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">Chrome
+ * trace event format</a>, which can be loaded into {@code chrome://tracing} or Perfetto.
+ *
+ * <p>Each component is shown as its own process, so each execution has its own waterfall. For each
+ * {@linkplain Produces producer method}, the trace has:
+ *
+ * <ul>
+ *   <li>an async span from the time that the producer was requested until its future completed,
+ *       whose arguments include the time it spent waiting for its inputs ({@code wait_us}), queued
+ *       on the executor ({@code queue_us}) and running the method ({@code run_us}), and
+ *   <li>a span for the call of the method, on the thread that ran it.
+ * </ul>
+ *
+ * <p>If the component is compiled with {@code -Adagger.producerGraphMetadata=ENABLED}, each async
+ * span also lists the producers that it depends on, which are its parents in the waterfall.
+ *
+ * <p>Events are serialized and written by a background thread, so that producers only pay for
+ * adding an event to a bounded buffer. If the buffer is full, events are dropped, and counted by
+ * {@link #droppedEventCount()}. The output is a JSON array whose closing bracket is only written by
+ * {@link #close()}, which the trace viewers don't require, so a trace can be loaded while it's
+ * still being written.
+ *
+ * <p>Install this recorder like any other monitor factory: <pre><code>
+ *   {@literal @Provides @IntoSet} ProductionComponentMonitor.Factory traceMonitor(
+ *       TraceEventRecorder recorder) {
+ *     return recorder;
+ *   }
+ * </code></pre>
+ */
+@Beta
+@SuppressWarnings("GoodTime") // should use java.time.Duration
+public final class TraceEventRecorder extends ProductionComponentMonitor.Factory
+    implements Closeable {
+  private static final Logger logger = Logger.getLogger(TraceEventRecorder.class.getName());
+
+  /** The default number of events that may be buffered before they are written. */
+  public static final int DEFAULT_BUFFER_SIZE = 65536;
+
+  private final Writer writer;
+  private final Ticker ticker;
+  private final long startNanos;
+  private final BlockingQueue<TraceEvent> buffer;
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private final AtomicInteger componentCount = new AtomicInteger();
+  private final AtomicLong spanCount = new AtomicLong();
+  private final ExecutorService flusher =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("dagger-producers-trace-flusher-%d")
+              .build());
+  private final Runnable flush =
+      new Runnable() {
+        @Override
+        public void run() {
+          writeBufferedEvents();
+        }
+      };
+  private volatile boolean closed;
+  private boolean writeFailed;
+
+  private TraceEventRecorder(Writer writer, int bufferSize, Ticker ticker) {
+    this.writer = writer;
+    this.ticker = ticker;
+    this.startNanos = ticker.read();
+    this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    write("[\n");
+  }
+
+  /**
+   * Returns a recorder that writes to the given file, which is replaced if it exists, and buffers
+   * up to {@link #DEFAULT_BUFFER_SIZE} events.
+   */
+  public static TraceEventRecorder toFile(File file) throws IOException {
+    return toFile(file, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Returns a recorder that writes to the given file, which is replaced if it exists, and buffers
+   * up to the given number of events.
+   */
+  public static TraceEventRecorder toFile(File file, int bufferSize) throws IOException {
+    return toWriter(
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8)), bufferSize);
+  }
+
+  /**
+   * Returns a recorder that writes to the given writer, and buffers up to the given number of
+   * events. The writer is only used by the recorder's background thread, and is closed by {@link
+   * #close()}.
+   */
+  public static TraceEventRecorder toWriter(Writer writer, int bufferSize) {
+    return toWriter(writer, bufferSize, Ticker.systemTicker());
+  }
+
+  static TraceEventRecorder toWriter(Writer writer, int bufferSize, Ticker ticker) {
+    checkArgument(bufferSize > 0, "bufferSize must be positive: %s", bufferSize);
+    return new TraceEventRecorder(checkNotNull(writer), bufferSize, checkNotNull(ticker));
+  }
+
+  @Override
+  public ProductionComponentMonitor create(Object component) {
+    if (closed) {
+      return ProductionComponentMonitor.noOp();
+    }
+    int pid = componentCount.incrementAndGet();
+    add(new ProcessName(pid, component.getClass().getSimpleName() + " #" + pid));
+    return new ComponentTracer(pid, ProducerGraph.forComponent(component));
+  }
+
+  /** Returns the number of events that were dropped because the buffer was full. */
+  public long droppedEventCount() {
+    return droppedEvents.get();
+  }
+
+  /** Writes all buffered events, and waits until they have been written. */
+  public void flush() {
+    Futures.getUnchecked(flusher.submit(flush));
+  }
+
+  /**
+   * Writes all buffered events, ends the trace, and closes the writer. Events of components that
+   * are still executing are dropped.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      Futures.getUnchecked(
+          flusher.submit(
+              new Runnable() {
+                @Override
+                public void run() {
+                  writeBufferedEvents();
+                  write("{}]\n");
+                }
+              }));
+    } finally {
+      flusher.shutdown();
+      writer.close();
+    }
+  }
+
+  private void add(TraceEvent event) {
+    if (closed || !buffer.offer(event)) {
+      droppedEvents.incrementAndGet();
+      return;
+    }
+    if (flushScheduled.compareAndSet(false, true)) {
+      try {
+        flusher.execute(flush);
+      } catch (RejectedExecutionException e) {
+        // The recorder was closed concurrently, and the event won't be written.
+        droppedEvents.incrementAndGet();
+      }
+    }
+  }
+
+  /** Writes the events in the buffer. This is only called on the flusher thread. */
+  private void writeBufferedEvents() {
+    // Events that are added after this are written by the next scheduled flush.
+    flushScheduled.set(false);
+    StringBuilder json = new StringBuilder();
+    List<TraceEvent> events = new ArrayList<>();
+    buffer.drainTo(events);
+    for (TraceEvent event : events) {
+      event.appendTo(json);
+    }
+    write(json.toString());
+  }
+
+  private void write(String json) {
+    if (writeFailed) {
+      return;
+    }
+    try {
+      writer.write(json);
+      writer.flush();
+    } catch (IOException e) {
+      writeFailed = true;
+      logger.log(Level.SEVERE, "Failed to write trace events; no more events will be written", e);
+    }
+  }
+
+  /** Returns the timestamp of the given time, in microseconds since the recorder was created. */
+  private long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos - startNanos);
+  }
+
+  private static long durationMicros(long fromNanos, long toNanos) {
+    return TimeUnit.NANOSECONDS.toMicros(toNanos - fromNanos);
+  }
+
+  @Override
+  public String toString() {
+    return "TraceEventRecorder{components=" + componentCount.get() + "}";
+  }
+
+  private final class ComponentTracer extends ProductionComponentMonitor {
+    private final int pid;
+    @NullableDecl private final ProducerGraph graph;
+
+    ComponentTracer(int pid, @NullableDecl ProducerGraph graph) {
+      this.pid = pid;
+      this.graph = graph;
+    }
+
+    @Override
+    public ProducerMonitor producerMonitorFor(ProducerToken token) {
+      ImmutableList<ProducerToken> dependencies =
+          graph != null && graph.contains(token)
+              ? graph.dependenciesOf(token)
+              : ImmutableList.<ProducerToken>of();
+      return new ProducerTracer(pid, token, dependencies);
+    }
+  }
+
+  /**
+   * Records the times of a single producer. The callbacks of a producer are ordered by its futures
+   * and executor, so the fields don't need to be synchronized.
+   */
+  private final class ProducerTracer extends ProducerMonitor {
+    private final int pid;
+    private final ProducerToken token;
+    private final ImmutableList<ProducerToken> dependencies;
+    private long requestedNanos = -1;
+    private long requestedThreadId;
+    private long readyNanos = -1;
+    private long methodStartingNanos = -1;
+    private long methodFinishedNanos = -1;
+    @NullableDecl private Thread methodThread;
+
+    ProducerTracer(int pid, ProducerToken token, ImmutableList<ProducerToken> dependencies) {
+      this.pid = pid;
+      this.token = token;
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public void requested() {
+      requestedNanos = ticker.read();
+      requestedThreadId = Thread.currentThread().getId();
+    }
+
+    @Override
+    public void ready() {
+      readyNanos = ticker.read();
+    }
+
+    @Override
+    public void methodStarting() {
+      methodStartingNanos = ticker.read();
+      methodThread = Thread.currentThread();
+    }
+
+    @Override
+    public void methodFinished() {
+      methodFinishedNanos = ticker.read();
+    }
+
+    @Override
+    public void succeeded(Object value) {
+      completed("succeeded");
+    }
+
+    @Override
+    public void failed(Throwable t) {
+      completed(methodStartingNanos < 0 ? "skipped" : "failed");
+    }
+
+    private void completed(String outcome) {
+      long completedNanos = ticker.read();
+      if (requestedNanos < 0) {
+        return;
+      }
+      add(
+          new ProducerSpan(
+              pid,
+              spanCount.incrementAndGet(),
+              token.toString(),
+              outcome,
+              dependencies,
+              requestedThreadId,
+              requestedNanos,
+              readyNanos,
+              methodStartingNanos,
+              methodFinishedNanos,
+              completedNanos,
+              methodThread));
+    }
+  }
+
+  private abstract static class TraceEvent {
+    /** Appends this event's JSON objects to the given builder, each followed by a comma. */
+    abstract void appendTo(StringBuilder json);
+  }
+
+  private static final class ProcessName extends TraceEvent {
+    private final int pid;
+    private final String name;
+
+    ProcessName(int pid, String name) {
+      this.pid = pid;
+      this.name = name;
+    }
+
+    @Override
+    void appendTo(StringBuilder json) {
+      json.append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":").append(pid);
+      json.append(",\"args\":{\"name\":");
+      appendString(json, name);
+      json.append("}},\n");
+    }
+  }
+
+  private final class ProducerSpan extends TraceEvent {
+    private final int pid;
+    private final long id;
+    private final String name;
+    private final String outcome;
+    private final ImmutableList<ProducerToken> dependencies;
+    private final long requestedThreadId;
+    private final long requestedNanos;
+    private final long readyNanos;
+    private final long methodStartingNanos;
+    private final long methodFinishedNanos;
+    private final long completedNanos;
+    @NullableDecl private final Thread methodThread;
+
+    ProducerSpan(
+        int pid,
+        long id,
+        String name,
+        String outcome,
+        ImmutableList<ProducerToken> dependencies,
+        long requestedThreadId,
+        long requestedNanos,
+        long readyNanos,
+        long methodStartingNanos,
+        long methodFinishedNanos,
+        long completedNanos,
+        @NullableDecl Thread methodThread) {
+      this.pid = pid;
+      this.id = id;
+      this.name = name;
+      this.outcome = outcome;
+      this.dependencies = dependencies;
+      this.requestedThreadId = requestedThreadId;
+      this.requestedNanos = requestedNanos;
+      this.readyNanos = readyNanos;
+      this.methodStartingNanos = methodStartingNanos;
+      this.methodFinishedNanos = methodFinishedNanos;
+      this.completedNanos = completedNanos;
+      this.methodThread = methodThread;
+    }
+
+    @Override
+    void appendTo(StringBuilder json) {
+      appendAsyncEvent(json, "b", requestedNanos);
+      json.append("},\n");
+      appendAsyncEvent(json, "e", completedNanos);
+      json.append(",\"args\":{\"outcome\":\"").append(outcome).append('"');
+      if (readyNanos >= 0) {
+        json.append(",\"wait_us\":").append(durationMicros(requestedNanos, readyNanos));
+        if (methodStartingNanos >= 0) {
+          json.append(",\"queue_us\":").append(durationMicros(readyNanos, methodStartingNanos));
+        }
+      }
+      if (methodStartingNanos >= 0 && methodFinishedNanos >= 0) {
+        json.append(",\"run_us\":")
+            .append(durationMicros(methodStartingNanos, methodFinishedNanos));
+      }
+      if (!dependencies.isEmpty()) {
+        json.append(",\"dependencies\":[");
+        for (int i = 0; i < dependencies.size(); i++) {
+          if (i > 0) {
+            json.append(',');
+          }
+          appendString(json, dependencies.get(i).toString());
+        }
+        json.append(']');
+      }
+      json.append("}},\n");
+
+      if (methodThread != null && methodFinishedNanos >= 0) {
+        json.append("{\"name\":");
+        appendString(json, name);
+        json.append(",\"cat\":\"method\",\"ph\":\"X\",\"pid\":").append(pid);
+        json.append(",\"tid\":").append(methodThread.getId());
+        json.append(",\"ts\":").append(micros(methodStartingNanos));
+        json.append(",\"dur\":")
+            .append(durationMicros(methodStartingNanos, methodFinishedNanos));
+        json.append(",\"args\":{\"thread\":");
+        appendString(json, methodThread.getName());
+        json.append("}},\n");
+      }
+    }
+
+    private void appendAsyncEvent(StringBuilder json, String phase, long nanos) {
+      json.append("{\"name\":");
+      appendString(json, name);
+      json.append(",\"cat\":\"producer\",\"ph\":\"").append(phase);
+      json.append("\",\"id\":").append(id);
+      json.append(",\"pid\":").append(pid);
+      json.append(",\"tid\":").append(requestedThreadId);
+      json.append(",\"ts\":").append(micros(nanos));
+    }
+  }
+
+  /** Appends the given string as a JSON string literal. */
+  static void appendString(StringBuilder json, String string) {
+    json.append('"');
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    json.append('"');
+  }
+}
@@ -44,6 +44,9 @@ public final class Monitors {
    */
   public static ProductionComponentMonitor.Factory delegatingProductionComponentMonitorFactory(
       Collection<? extends ProductionComponentMonitor.Factory> factories) {
+    if (factories.contains(ProductionComponentMonitor.Factory.noOp())) {
+      factories = withoutNoOpFactories(factories);
+    }
     if (factories.isEmpty()) {
       return ProductionComponentMonitor.Factory.noOp();
     } else if (factories.size() == 1) {
@@ -53,6 +56,17 @@ public final class Monitors {
     }
   }
 
+  private static ImmutableList<ProductionComponentMonitor.Factory> withoutNoOpFactories(
+      Collection<? extends ProductionComponentMonitor.Factory> factories) {
+    ImmutableList.Builder<ProductionComponentMonitor.Factory> builder = ImmutableList.builder();
+    for (ProductionComponentMonitor.Factory factory : factories) {
+      if (factory != ProductionComponentMonitor.Factory.noOp()) {
+        builder.add(factory);
+      }
+    }
+    return builder.build();
+  }
+
   /**
    * Creates a new monitor for the given component, from a set of monitor factories. This will not
    * throw a {@link RuntimeException} or return null.
@@ -86,13 +100,31 @@ public final class Monitors {
     public ProducerMonitor producerMonitorFor(ProducerToken token) {
       try {
         ProducerMonitor monitor = delegate.producerMonitorFor(token);
-        return monitor == null ? ProducerMonitor.noOp() : new NonThrowingProducerMonitor(monitor);
+        return isNoOp(monitor) ? ProducerMonitor.noOp() : new NonThrowingProducerMonitor(monitor);
       } catch (RuntimeException e) {
         logProducerMonitorForException(e, delegate, token);
         return ProducerMonitor.noOp();
       }
     }
 
+    @Override
+    public void executionQueued() {
+      try {
+        delegate.executionQueued();
+      } catch (RuntimeException e) {
+        logProductionComponentMonitorMethodException(e, delegate, "executionQueued");
+      }
+    }
+
+    @Override
+    public void executionRejected() {
+      try {
+        delegate.executionRejected();
+      } catch (RuntimeException e) {
+        logProductionComponentMonitorMethodException(e, delegate, "executionRejected");
+      }
+    }
+
     static final class Factory extends ProductionComponentMonitor.Factory {
       private final ProductionComponentMonitor.Factory delegate;
 
@@ -104,7 +136,7 @@ public final class Monitors {
       public ProductionComponentMonitor create(Object component) {
         try {
           ProductionComponentMonitor monitor = delegate.create(component);
-          return monitor == null
+          return isNoOp(monitor)
               ? ProductionComponentMonitor.noOp()
               : new NonThrowingProductionComponentMonitor(monitor);
         } catch (RuntimeException e) {
@@ -162,6 +194,44 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void hedgeStarted() {
+      try {
+        delegate.hedgeStarted();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "hedgeStarted");
+      }
+    }
+
+    @Override
+    public void bulkheadSaturated(String bulkhead) {
+      try {
+        delegate.bulkheadSaturated(bulkhead);
+      } catch (RuntimeException e) {
+        logProducerMonitorArgMethodException(e, delegate, "bulkheadSaturated", bulkhead);
+      }
+    }
+
+    @Override
+    public boolean shouldPrefetch(String parameterName) {
+      try {
+        return delegate.shouldPrefetch(parameterName);
+      } catch (RuntimeException e) {
+        logProducerMonitorArgMethodException(e, delegate, "shouldPrefetch", parameterName);
+        return false;
+      }
+    }
+
+    @Override
+    public void conditionalDependencyObserved(String parameterName, boolean requested) {
+      try {
+        delegate.conditionalDependencyObserved(parameterName, requested);
+      } catch (RuntimeException e) {
+        logProducerMonitorArgMethodException(
+            e, delegate, "conditionalDependencyObserved", parameterName);
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       try {
@@ -199,7 +269,7 @@ public final class Monitors {
       for (ProductionComponentMonitor delegate : delegates) {
         try {
           ProducerMonitor monitor = delegate.producerMonitorFor(token);
-          if (monitor != null) {
+          if (!isNoOp(monitor)) {
             monitorsBuilder.add(monitor);
           }
         } catch (RuntimeException e) {
@@ -216,6 +286,28 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void executionQueued() {
+      for (ProductionComponentMonitor delegate : delegates) {
+        try {
+          delegate.executionQueued();
+        } catch (RuntimeException e) {
+          logProductionComponentMonitorMethodException(e, delegate, "executionQueued");
+        }
+      }
+    }
+
+    @Override
+    public void executionRejected() {
+      for (ProductionComponentMonitor delegate : delegates) {
+        try {
+          delegate.executionRejected();
+        } catch (RuntimeException e) {
+          logProductionComponentMonitorMethodException(e, delegate, "executionRejected");
+        }
+      }
+    }
+
     static final class Factory extends ProductionComponentMonitor.Factory {
       private final ImmutableList<? extends ProductionComponentMonitor.Factory> delegates;
 
@@ -229,7 +321,7 @@ public final class Monitors {
         for (ProductionComponentMonitor.Factory delegate : delegates) {
           try {
             ProductionComponentMonitor monitor = delegate.create(component);
-            if (monitor != null) {
+            if (!isNoOp(monitor)) {
               monitorsBuilder.add(monitor);
             }
           } catch (RuntimeException e) {
@@ -303,6 +395,54 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void hedgeStarted() {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.hedgeStarted();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "hedgeStarted");
+        }
+      }
+    }
+
+    @Override
+    public void bulkheadSaturated(String bulkhead) {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.bulkheadSaturated(bulkhead);
+        } catch (RuntimeException e) {
+          logProducerMonitorArgMethodException(e, delegate, "bulkheadSaturated", bulkhead);
+        }
+      }
+    }
+
+    @Override
+    public boolean shouldPrefetch(String parameterName) {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          if (delegate.shouldPrefetch(parameterName)) {
+            return true;
+          }
+        } catch (RuntimeException e) {
+          logProducerMonitorArgMethodException(e, delegate, "shouldPrefetch", parameterName);
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public void conditionalDependencyObserved(String parameterName, boolean requested) {
+      for (ProducerMonitor delegate : delegates) {
+        try {
+          delegate.conditionalDependencyObserved(parameterName, requested);
+        } catch (RuntimeException e) {
+          logProducerMonitorArgMethodException(
+              e, delegate, "conditionalDependencyObserved", parameterName);
+        }
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       for (ProducerMonitor delegate : delegates.reverse()) {
@@ -326,6 +466,16 @@ public final class Monitors {
     }
   }
 
+  // The no-op monitors can't throw, and skipping them avoids wrapping every producer of a component
+  // whose monitor factories decided not to monitor it, e.g. because it wasn't sampled.
+  private static boolean isNoOp(ProductionComponentMonitor monitor) {
+    return monitor == null || monitor == ProductionComponentMonitor.noOp();
+  }
+
+  private static boolean isNoOp(ProducerMonitor monitor) {
+    return monitor == null || monitor == ProducerMonitor.noOp();
+  }
+
   /** Returns a provider of a no-op component monitor. */
   public static Provider<ProductionComponentMonitor> noOpProductionComponentMonitorProvider() {
     return NO_OP_PRODUCTION_COMPONENT_MONITOR_PROVIDER;
@@ -362,6 +512,17 @@ public final class Monitors {
         e);
   }
 
+  private static void logProductionComponentMonitorMethodException(
+      RuntimeException e, ProductionComponentMonitor monitor, String method) {
+    logger.log(
+        Level.SEVERE,
+        "RuntimeException while calling ProductionComponentMonitor."
+            + method
+            + " on monitor "
+            + monitor,
+        e);
+  }
+
   private static void logProducerMonitorMethodException(
       RuntimeException e, ProducerMonitor monitor, String method) {
     logger.log(
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring.internal;
+
+import dagger.producers.monitoring.ProducerGraph;
+
+/**
+ * Implemented by generated production components that record their {@link ProducerGraph}.
+ *
+ * <p>This is only intended to be implemented by generated code.
+ */
+public interface ProducerGraphComponent {
+  /** Returns the graph of the producers installed in this component. */
+  // Note that this name is intentionally a bit verbose to make it unlikely that it will conflict
+  // with any user-defined methods on a component.
+  ProducerGraph producerGraphForMonitoring();
+}
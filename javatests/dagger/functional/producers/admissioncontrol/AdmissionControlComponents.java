@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.admissioncontrol;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.Module;
+import dagger.Provides;
+import dagger.producers.AdmissionControl;
+import dagger.producers.Bulkhead;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import java.util.concurrent.Executor;
+
+/** Components that admit one execution at a time. */
+final class AdmissionControlComponents {
+  @ProductionComponent(modules = {ResponseModule.class, ExecutorModule.class})
+  @AdmissionControl(maxConcurrentExecutions = 1, onSaturation = Bulkhead.Saturation.FAIL)
+  interface FailingComponent {
+    ListenableFuture<String> a();
+
+    ListenableFuture<Integer> b();
+  }
+
+  @ProductionComponent(modules = {ResponseModule.class, ExecutorModule.class})
+  @AdmissionControl(maxConcurrentExecutions = 1)
+  interface QueueingComponent {
+    ListenableFuture<String> a();
+
+    ListenableFuture<Integer> b();
+  }
+
+  @ProducerModule
+  static final class ResponseModule {
+    final SettableFuture<String> a = SettableFuture.create();
+    final SettableFuture<Integer> b = SettableFuture.create();
+    int aCalls;
+    int bCalls;
+
+    @Produces
+    ListenableFuture<String> a() {
+      aCalls++;
+      return a;
+    }
+
+    @Produces
+    ListenableFuture<Integer> b() {
+      bCalls++;
+      return b;
+    }
+  }
+
+  @Module
+  static final class ExecutorModule {
+    @Provides
+    @Production
+    static Executor executor() {
+      return MoreExecutors.directExecutor();
+    }
+  }
+
+  private AdmissionControlComponents() {}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.admissioncontrol;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.functional.producers.admissioncontrol.AdmissionControlComponents.FailingComponent;
+import dagger.functional.producers.admissioncontrol.AdmissionControlComponents.QueueingComponent;
+import dagger.functional.producers.admissioncontrol.AdmissionControlComponents.ResponseModule;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AdmissionControlTest {
+  @Test
+  public void entryPointsOfOneComponent_shareItsExecution() throws Exception {
+    ResponseModule module = new ResponseModule();
+    FailingComponent component =
+        DaggerAdmissionControlComponents_FailingComponent.builder().responseModule(module).build();
+
+    ListenableFuture<String> a = component.a();
+    ListenableFuture<Integer> b = component.b();
+    ListenableFuture<String> aAgain = component.a();
+    // All three calls are part of the one admitted execution, so none of them is rejected.
+    assertThat(module.aCalls).isEqualTo(1);
+    assertThat(module.bCalls).isEqualTo(1);
+
+    module.a.set("a");
+    module.b.set(2);
+    assertThat(a.get()).isEqualTo("a");
+    assertThat(aAgain.get()).isEqualTo("a");
+    assertThat(b.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void otherComponent_isRejectedWhileSaturated() throws Exception {
+    ResponseModule module = new ResponseModule();
+    FailingComponent component =
+        DaggerAdmissionControlComponents_FailingComponent.builder().responseModule(module).build();
+    ListenableFuture<String> a = component.a();
+
+    ResponseModule otherModule = new ResponseModule();
+    FailingComponent otherComponent =
+        DaggerAdmissionControlComponents_FailingComponent.builder()
+            .responseModule(otherModule)
+            .build();
+    try {
+      otherComponent.b().get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected).hasCauseThat().isInstanceOf(RejectedExecutionException.class);
+    }
+    assertThat(otherModule.bCalls).isEqualTo(0);
+
+    module.a.set("a");
+    assertThat(a.get()).isEqualTo("a");
+    // The execution released its permit once its futures completed.
+    ResponseModule thirdModule = new ResponseModule();
+    ListenableFuture<Integer> b =
+        DaggerAdmissionControlComponents_FailingComponent.builder()
+            .responseModule(thirdModule)
+            .build()
+            .b();
+    thirdModule.b.set(3);
+    assertThat(b.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void otherComponent_isQueuedWhileSaturated() throws Exception {
+    ResponseModule module = new ResponseModule();
+    QueueingComponent component =
+        DaggerAdmissionControlComponents_QueueingComponent.builder()
+            .responseModule(module)
+            .build();
+    ListenableFuture<String> a = component.a();
+
+    ResponseModule otherModule = new ResponseModule();
+    QueueingComponent otherComponent =
+        DaggerAdmissionControlComponents_QueueingComponent.builder()
+            .responseModule(otherModule)
+            .build();
+    ListenableFuture<String> otherA = otherComponent.a();
+    ListenableFuture<Integer> otherB = otherComponent.b();
+    assertThat(otherModule.aCalls).isEqualTo(0);
+    assertThat(otherModule.bCalls).isEqualTo(0);
+
+    module.a.set("a");
+    assertThat(a.get()).isEqualTo("a");
+    // Both entry points of the queued execution start once it's admitted.
+    assertThat(otherModule.aCalls).isEqualTo(1);
+    assertThat(otherModule.bCalls).isEqualTo(1);
+    otherModule.a.set("otherA");
+    otherModule.b.set(2);
+    assertThat(otherA.get()).isEqualTo("otherA");
+    assertThat(otherB.get()).isEqualTo(2);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.functional.producers.bulkhead;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.Module;
+import dagger.Provides;
+import dagger.producers.Bulkhead;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import java.util.concurrent.Executor;
+
+/** A component whose producers share bulkhead groups of one permit each. */
+@ProductionComponent(
+    modules = {
+      BulkheadComponent.QueueingModule.class,
+      BulkheadComponent.FailingModule.class,
+      BulkheadComponent.ExecutorModule.class
+    })
+interface BulkheadComponent {
+  ListenableFuture<String> first();
+
+  ListenableFuture<Integer> second();
+
+  ListenableFuture<Long> failFirst();
+
+  ListenableFuture<Double> failSecond();
+
+  /** Methods in a group that queues producers while it's saturated. */
+  @ProducerModule
+  @Bulkhead(value = "functional-queue", maxInFlight = 1)
+  static final class QueueingModule {
+    final SettableFuture<String> first = SettableFuture.create();
+    final SettableFuture<Integer> second = SettableFuture.create();
+    int firstCalls;
+    int secondCalls;
+
+    @Produces
+    ListenableFuture<String> first() {
+      firstCalls++;
+      return first;
+    }
+
+    @Produces
+    ListenableFuture<Integer> second() {
+      secondCalls++;
+      return second;
+    }
+  }
+
+  /** Methods in a group that fails producers while it's saturated. */
+  @ProducerModule
+  static final class FailingModule {
+    final SettableFuture<Long> failFirst = SettableFuture.create();
+    int failSecondCalls;
+
+    @Produces
+    @Bulkhead(
+        value = "functional-fail",
+        maxInFlight = 1,
+        onSaturation = Bulkhead.Saturation.FAIL)
+    ListenableFuture<Long> failFirst() {
+      return failFirst;
+    }
+
+    @Produces
+    @Bulkhead(
+        value = "functional-fail",
+        maxInFlight = 1,
+        onSaturation = Bulkhead.Saturation.FAIL)
+    Double failSecond() {
+      failSecondCalls++;
+      return 2.0;
+    }
+  }
+
+  @Module
+  static final class ExecutorModule {
+    @Provides
+    @Production
+    static Executor executor() {
+      return MoreExecutors.directExecutor();
+    }
+  }
+}
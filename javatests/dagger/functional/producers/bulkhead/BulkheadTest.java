@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.functional.producers.bulkhead;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BulkheadTest {
+  @Test
+  public void saturatedGroupQueuesProducers() throws Exception {
+    BulkheadComponent.QueueingModule module = new BulkheadComponent.QueueingModule();
+    BulkheadComponent component =
+        DaggerBulkheadComponent.builder()
+            .queueingModule(module)
+            .failingModule(new BulkheadComponent.FailingModule())
+            .build();
+
+    ListenableFuture<String> first = component.first();
+    ListenableFuture<Integer> second = component.second();
+    assertThat(module.firstCalls).isEqualTo(1);
+    // The first method holds the group's only permit until its future completes.
+    assertThat(module.secondCalls).isEqualTo(0);
+
+    module.first.set("first");
+    assertThat(first.get()).isEqualTo("first");
+    assertThat(module.secondCalls).isEqualTo(1);
+    module.second.set(2);
+    assertThat(second.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void saturatedGroupFailsProducers() throws Exception {
+    BulkheadComponent.FailingModule module = new BulkheadComponent.FailingModule();
+    BulkheadComponent component =
+        DaggerBulkheadComponent.builder()
+            .queueingModule(new BulkheadComponent.QueueingModule())
+            .failingModule(module)
+            .build();
+
+    ListenableFuture<Long> failFirst = component.failFirst();
+    try {
+      component.failSecond().get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected).hasCauseThat().isInstanceOf(RejectedExecutionException.class);
+    }
+    assertThat(module.failSecondCalls).isEqualTo(0);
+
+    module.failFirst.set(1L);
+    assertThat(failFirst.get()).isEqualTo(1L);
+    // The permit was released, so the group isn't saturated anymore.
+    BulkheadComponent.FailingModule otherModule = new BulkheadComponent.FailingModule();
+    BulkheadComponent otherComponent =
+        DaggerBulkheadComponent.builder()
+            .queueingModule(new BulkheadComponent.QueueingModule())
+            .failingModule(otherModule)
+            .build();
+    assertThat(otherComponent.failSecond().get()).isEqualTo(2.0);
+    assertThat(otherModule.failSecondCalls).isEqualTo(1);
+  }
+}
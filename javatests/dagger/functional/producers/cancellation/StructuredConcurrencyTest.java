@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.cancellation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import dagger.BindsInstance;
+import dagger.producers.CancellationPolicy;
+import dagger.producers.CancellationPolicy.Propagation;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import dagger.producers.ProductionSubcomponent;
+import dagger.producers.ProductionTaskScope;
+import dagger.producers.StructuredConcurrency;
+import java.util.concurrent.Executor;
+import javax.inject.Named;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for production components annotated with {@code StructuredConcurrency}. */
+@RunWith(JUnit4.class)
+public final class StructuredConcurrencyTest {
+
+  @ProducerModule
+  static class ScopedModule {
+    private final ProducerTester tester;
+
+    ScopedModule(ProducerTester tester) {
+      this.tester = tester;
+    }
+
+    @Produces
+    @Named("a")
+    ListenableFuture<String> produceA() {
+      return tester.start("a");
+    }
+
+    @Produces
+    @Named("b")
+    ListenableFuture<String> produceB() {
+      return tester.start("b");
+    }
+
+    @Produces
+    @Named("failing")
+    static String failing() {
+      throw new IllegalStateException("failing");
+    }
+
+    @Produces
+    @Named("output")
+    static String output(@Named("a") String a, @Named("failing") String failing) {
+      return a + failing;
+    }
+  }
+
+  @StructuredConcurrency
+  @ProductionComponent(modules = ScopedModule.class)
+  interface ScopedComponent {
+    @Named("a")
+    ListenableFuture<String> a();
+
+    @Named("b")
+    ListenableFuture<String> b();
+
+    @Named("output")
+    ListenableFuture<String> output();
+
+    @ProductionComponent.Builder
+    interface Builder {
+      Builder module(ScopedModule module);
+
+      @BindsInstance
+      Builder executor(@Production Executor executor);
+
+      ScopedComponent build();
+    }
+  }
+
+  @ProducerModule(subcomponents = ScopedChild.class)
+  static class ParentModule {
+    private final ProducerTester tester;
+
+    ParentModule(ProducerTester tester) {
+      this.tester = tester;
+    }
+
+    @Produces
+    @Named("parent")
+    ListenableFuture<String> produceParent() {
+      return tester.start("parent");
+    }
+  }
+
+  @CancellationPolicy(fromSubcomponents = Propagation.PROPAGATE)
+  @ProductionComponent(modules = ParentModule.class)
+  interface PropagatingParent {
+    @Named("parent")
+    ListenableFuture<String> parent();
+
+    ScopedChild.Builder childBuilder();
+
+    @ProductionComponent.Builder
+    interface Builder {
+      Builder module(ParentModule module);
+
+      @BindsInstance
+      Builder executor(@Production Executor executor);
+
+      PropagatingParent build();
+    }
+  }
+
+  @ProducerModule
+  static class ChildModule {
+    private final ProducerTester tester;
+
+    ChildModule(ProducerTester tester) {
+      this.tester = tester;
+    }
+
+    @Produces
+    @Named("child")
+    ListenableFuture<String> produceChild() {
+      return tester.start("child");
+    }
+  }
+
+  @StructuredConcurrency
+  @ProductionSubcomponent(modules = ChildModule.class)
+  interface ScopedChild {
+    @Named("child")
+    ListenableFuture<String> child();
+
+    @ProductionSubcomponent.Builder
+    interface Builder {
+      Builder module(ChildModule module);
+
+      ScopedChild build();
+    }
+  }
+
+  private final ProducerTester tester = new ProducerTester();
+  private final ScopedComponent component =
+      DaggerStructuredConcurrencyTest_ScopedComponent.builder()
+          .module(new ScopedModule(tester))
+          .executor(MoreExecutors.directExecutor())
+          .build();
+  private final ProductionTaskScope scope = ProductionTaskScope.forComponent(component);
+
+  @Test
+  public void failedEntryPoint_cancelsRunningProducers() throws Exception {
+    ListenableFuture<String> output = component.output();
+
+    assertThat(output.isDone()).isTrue();
+    assertThat(scope.isClosed()).isTrue();
+    tester.assertCancelled("a").only();
+    scope.join();
+  }
+
+  @Test
+  public void succeededEntryPoints_leaveScopeOpen() throws Exception {
+    ListenableFuture<String> a = component.a();
+    tester.complete("a");
+    assertThat(a.isDone()).isTrue();
+    assertThat(scope.isClosed()).isFalse();
+
+    // Entry points may be called one after another, and again once they've completed.
+    ListenableFuture<String> b = component.b();
+    assertThat(b.isCancelled()).isFalse();
+    tester.assertStarted("b");
+    assertThat(component.a().get()).isEqualTo("completed");
+
+    tester.complete("b");
+    assertThat(b.get()).isEqualTo("completed");
+    assertThat(scope.isClosed()).isFalse();
+    tester.assertNotCancelled("a", "b");
+  }
+
+  @Test
+  public void close_cancelsComponent() {
+    ListenableFuture<String> a = component.a();
+
+    scope.close();
+
+    assertThat(a.isCancelled()).isTrue();
+    tester.assertCancelled("a");
+    assertThat(component.b().isCancelled()).isTrue();
+    tester.assertNotStarted("b");
+  }
+
+  @Test
+  public void subcomponentScope_doesNotCancelPropagatingParent() throws Exception {
+    PropagatingParent parent =
+        DaggerStructuredConcurrencyTest_PropagatingParent.builder()
+            .module(new ParentModule(tester))
+            .executor(MoreExecutors.directExecutor())
+            .build();
+    ListenableFuture<String> parentFuture = parent.parent();
+    ScopedChild child = parent.childBuilder().module(new ChildModule(tester)).build();
+    ProductionTaskScope childScope = ProductionTaskScope.forComponent(child);
+
+    ListenableFuture<String> childFuture = child.child();
+    tester.complete("child");
+    assertThat(childFuture.get()).isEqualTo("completed");
+    assertThat(childScope.isClosed()).isFalse();
+
+    // Closing the child's scope cancels its own producers, but never its parent's.
+    childScope.close();
+    tester.assertNotCancelled("parent");
+    assertThat(parentFuture.isDone()).isFalse();
+
+    tester.complete("parent");
+    assertThat(parentFuture.get()).isEqualTo("completed");
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.criticalpath;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.IntoSet;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import dagger.producers.monitoring.CriticalPathRecorder;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import dagger.producers.monitoring.TimingProductionComponentMonitor;
+import java.util.concurrent.Executor;
+
+/** A component whose entry point depends on two independent producers. */
+@ProductionComponent(
+    modules = {
+      CriticalPathComponent.DiamondModule.class,
+      CriticalPathComponent.MonitoringModule.class
+    })
+interface CriticalPathComponent {
+  ListenableFuture<Long> output();
+
+  @ProducerModule
+  static final class DiamondModule {
+    @Produces
+    static String left() {
+      return "left";
+    }
+
+    @Produces
+    static Integer right() {
+      return 2;
+    }
+
+    @Produces
+    static Long output(String left, Integer right) {
+      return (long) (left.length() * right);
+    }
+  }
+
+  @Module
+  static final class MonitoringModule {
+    private final CriticalPathRecorder recorder;
+
+    MonitoringModule(CriticalPathRecorder recorder) {
+      this.recorder = recorder;
+    }
+
+    @Provides
+    @Production
+    static Executor executor() {
+      return MoreExecutors.directExecutor();
+    }
+
+    @Provides
+    @IntoSet
+    ProductionComponentMonitor.Factory monitorFactory() {
+      return new TimingProductionComponentMonitor.Factory(recorder);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.criticalpath;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dagger.producers.monitoring.CriticalPathRecorder;
+import dagger.producers.monitoring.CriticalPathRecorder.NodeStatistics;
+import dagger.producers.monitoring.ProducerGraph;
+import dagger.producers.monitoring.ProducerToken;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CriticalPathTest {
+  private static final ProducerToken LEFT =
+      ProducerToken.create(CriticalPathComponent_DiamondModule_LeftFactory.class);
+  private static final ProducerToken RIGHT =
+      ProducerToken.create(CriticalPathComponent_DiamondModule_RightFactory.class);
+  private static final ProducerToken OUTPUT =
+      ProducerToken.create(CriticalPathComponent_DiamondModule_OutputFactory.class);
+
+  @Test
+  public void producerGraph() {
+    CriticalPathComponent component =
+        DaggerCriticalPathComponent.builder()
+            .monitoringModule(
+                new CriticalPathComponent.MonitoringModule(new CriticalPathRecorder()))
+            .build();
+    ProducerGraph graph = ProducerGraph.forComponent(component);
+    assertThat(graph).isNotNull();
+    assertThat(graph.tokens()).containsExactly(LEFT, RIGHT, OUTPUT);
+    assertThat(graph.entryPoints()).containsExactly(OUTPUT);
+    assertThat(graph.dependenciesOf(OUTPUT)).containsExactly(LEFT, RIGHT);
+    assertThat(graph.dependenciesOf(LEFT)).isEmpty();
+    for (int i = 0; i < graph.tokens().size(); i++) {
+      assertThat(graph.tokens().get(i).index()).isEqualTo(i);
+    }
+  }
+
+  @Test
+  public void criticalPath() throws Exception {
+    CriticalPathRecorder recorder = new CriticalPathRecorder();
+    for (int i = 0; i < 2; i++) {
+      CriticalPathComponent component =
+          DaggerCriticalPathComponent.builder()
+              .monitoringModule(new CriticalPathComponent.MonitoringModule(recorder))
+              .build();
+      assertThat(component.output().get()).isEqualTo(8L);
+    }
+    assertThat(recorder.executionCount()).isEqualTo(2);
+    // The entry point is on every critical path, along with whichever of its dependencies finished
+    // last.
+    long outputCount = 0;
+    long totalCount = 0;
+    for (NodeStatistics statistics : recorder.statistics()) {
+      if (statistics.token().equals(OUTPUT)) {
+        outputCount = statistics.criticalPathCount();
+      }
+      totalCount += statistics.criticalPathCount();
+    }
+    assertThat(outputCount).isEqualTo(2);
+    assertThat(totalCount).isEqualTo(4);
+  }
+}
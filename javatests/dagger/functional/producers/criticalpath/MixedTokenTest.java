@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.functional.producers.criticalpath;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import dagger.producers.monitoring.CriticalPathRecorder;
+import dagger.producers.monitoring.CriticalPathRecorder.NodeStatistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests a component whose producer graph was compiled with different options than its producer
+ * factories, so that the graph's tokens and the factories' tokens aren't equal.
+ */
+@RunWith(JUnit4.class)
+public final class MixedTokenTest {
+  @Test
+  public void criticalPath() throws Exception {
+    CriticalPathRecorder recorder = new CriticalPathRecorder();
+    for (int i = 0; i < 2; i++) {
+      MixedTokenComponent component =
+          DaggerMixedTokenComponent.builder()
+              .monitoringModule(new CriticalPathComponent.MonitoringModule(recorder))
+              .build();
+      assertThat(component.output().get()).isEqualTo(8L);
+    }
+    assertThat(recorder.executionCount()).isEqualTo(2);
+    long totalCount = 0;
+    for (NodeStatistics statistics : recorder.statistics()) {
+      totalCount += statistics.criticalPathCount();
+    }
+    // The entry point and whichever of its dependencies finished last, in each execution.
+    assertThat(totalCount).isEqualTo(4);
+  }
+}
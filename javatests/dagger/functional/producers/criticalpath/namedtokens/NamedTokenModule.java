@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.functional.producers.criticalpath.namedtokens;
+
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+
+/**
+ * A module whose factories are compiled with {@code -Adagger.writeProducerNameInToken=enabled}, so
+ * their tokens are named by method rather than by factory class.
+ */
+@ProducerModule
+public final class NamedTokenModule {
+  @Produces
+  static String left() {
+    return "left";
+  }
+
+  @Produces
+  static Integer right() {
+    return 2;
+  }
+
+  @Produces
+  static Long output(String left, Integer right) {
+    return (long) (left.length() * right);
+  }
+
+  private NamedTokenModule() {}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.hedged;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import dagger.Module;
+import dagger.Provides;
+import dagger.producers.Hedged;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/** A component with hedged producers, whose calls return the futures queued by the test. */
+@ProductionComponent(
+    modules = {HedgedComponent.HedgedModule.class, HedgedComponent.ExecutorModule.class})
+interface HedgedComponent {
+  ListenableFuture<String> slow();
+
+  ListenableFuture<Integer> fast();
+
+  @ProducerModule
+  static final class HedgedModule {
+    final Queue<ListenableFuture<String>> slowCalls = new ArrayDeque<>();
+    final List<Integer> slowArguments = new ArrayList<>();
+    int fastCalls;
+
+    @Produces
+    static int argument() {
+      return 42;
+    }
+
+    @Produces
+    @Hedged(delayMillis = 0)
+    ListenableFuture<String> slow(int argument) {
+      synchronized (this) {
+        slowArguments.add(argument);
+        return slowCalls.remove();
+      }
+    }
+
+    @Produces
+    @Hedged(delayMillis = 60_000)
+    ListenableFuture<Integer> fast(int argument) {
+      fastCalls++;
+      return Futures.immediateFuture(argument + 1);
+    }
+  }
+
+  @Module
+  static final class ExecutorModule {
+    @Provides
+    @Production
+    static Executor executor() {
+      return MoreExecutors.directExecutor();
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.hedged;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HedgedTest {
+  @Test
+  public void slowMethod_isCalledAgainWithTheSameArguments() throws Exception {
+    HedgedComponent.HedgedModule module = new HedgedComponent.HedgedModule();
+    SettableFuture<String> firstCall = SettableFuture.create();
+    module.slowCalls.add(firstCall);
+    module.slowCalls.add(Futures.immediateFuture("second"));
+    HedgedComponent component = DaggerHedgedComponent.builder().hedgedModule(module).build();
+
+    assertThat(component.slow().get(10, SECONDS)).isEqualTo("second");
+    synchronized (module) {
+      assertThat(module.slowArguments).containsExactly(42, 42);
+    }
+    // The call that lost is cancelled.
+    assertThat(firstCall.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void fastMethod_isNotCalledAgain() throws Exception {
+    HedgedComponent.HedgedModule module = new HedgedComponent.HedgedModule();
+    HedgedComponent component = DaggerHedgedComponent.builder().hedgedModule(module).build();
+
+    assertThat(component.fast().get()).isEqualTo(43);
+    assertThat(module.fastCalls).isEqualTo(1);
+  }
+}
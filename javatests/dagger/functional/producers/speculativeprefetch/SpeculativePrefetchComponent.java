@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.speculativeprefetch;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.IntoSet;
+import dagger.producers.Producer;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import dagger.producers.monitoring.SpeculativePrefetchRecorder;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** A component whose entry point conditionally requests one of its producers. */
+@ProductionComponent(
+    modules = {
+      SpeculativePrefetchComponent.SummaryModule.class,
+      SpeculativePrefetchComponent.MonitoringModule.class
+    })
+interface SpeculativePrefetchComponent {
+  ListenableFuture<String> summary();
+
+  @ProductionComponent.Builder
+  interface Builder {
+    Builder summaryModule(SummaryModule module);
+
+    Builder monitoringModule(MonitoringModule module);
+
+    SpeculativePrefetchComponent build();
+  }
+
+  @ProducerModule
+  static final class SummaryModule {
+    final SettableFuture<Boolean> includeDetail = SettableFuture.create();
+    final AtomicInteger detailCalls = new AtomicInteger();
+
+    @Produces
+    ListenableFuture<Boolean> includeDetail() {
+      return includeDetail;
+    }
+
+    @Produces
+    String detail() {
+      detailCalls.incrementAndGet();
+      return "detail";
+    }
+
+    @Produces
+    ListenableFuture<String> summary(Boolean includeDetail, Producer<String> detail) {
+      return includeDetail ? detail.get() : Futures.immediateFuture("summary");
+    }
+  }
+
+  @Module
+  static final class MonitoringModule {
+    private final SpeculativePrefetchRecorder recorder;
+
+    MonitoringModule(SpeculativePrefetchRecorder recorder) {
+      this.recorder = recorder;
+    }
+
+    @Provides
+    @Production
+    static Executor executor() {
+      return MoreExecutors.directExecutor();
+    }
+
+    @Provides
+    @IntoSet
+    ProductionComponentMonitor.Factory monitorFactory() {
+      return recorder;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.speculativeprefetch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.functional.producers.speculativeprefetch.SpeculativePrefetchComponent.MonitoringModule;
+import dagger.functional.producers.speculativeprefetch.SpeculativePrefetchComponent.SummaryModule;
+import dagger.producers.monitoring.SpeculativePrefetchRecorder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SpeculativePrefetchTest {
+  private final SpeculativePrefetchRecorder recorder =
+      SpeculativePrefetchRecorder.withThreshold(0.5, 2);
+
+  @Test
+  public void usuallyRequestedParameter_isPrefetched() throws Exception {
+    assertThat(execute(true, /* expectPrefetch= */ false)).isEqualTo("detail");
+    assertThat(execute(true, /* expectPrefetch= */ false)).isEqualTo("detail");
+    assertThat(execute(false, /* expectPrefetch= */ true)).isEqualTo("summary");
+    assertThat(execute(true, /* expectPrefetch= */ true)).isEqualTo("detail");
+  }
+
+  @Test
+  public void rarelyRequestedParameter_isNotPrefetched() throws Exception {
+    assertThat(execute(false, /* expectPrefetch= */ false)).isEqualTo("summary");
+    assertThat(execute(false, /* expectPrefetch= */ false)).isEqualTo("summary");
+    assertThat(execute(true, /* expectPrefetch= */ false)).isEqualTo("detail");
+    assertThat(execute(true, /* expectPrefetch= */ false)).isEqualTo("detail");
+  }
+
+  @Test
+  public void reset_stopsPrefetching() throws Exception {
+    execute(true, /* expectPrefetch= */ false);
+    execute(true, /* expectPrefetch= */ false);
+    recorder.reset();
+    assertThat(execute(true, /* expectPrefetch= */ false)).isEqualTo("detail");
+  }
+
+  /**
+   * Executes a new component, and checks whether the detail was started before the summary method
+   * decided whether to request it.
+   */
+  private String execute(boolean includeDetail, boolean expectPrefetch) throws Exception {
+    SummaryModule summaryModule = new SummaryModule();
+    ListenableFuture<String> summary =
+        DaggerSpeculativePrefetchComponent.builder()
+            .summaryModule(summaryModule)
+            .monitoringModule(new MonitoringModule(recorder))
+            .build()
+            .summary();
+    assertThat(summaryModule.detailCalls.get()).isEqualTo(expectPrefetch ? 1 : 0);
+    summaryModule.includeDetail.set(includeDetail);
+    assertThat(summaryModule.detailCalls.get()).isEqualTo(expectPrefetch || includeDetail ? 1 : 0);
+    return summary.get();
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.switchingproducers;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import dagger.Module;
+import dagger.Provides;
+import dagger.producers.Produced;
+import dagger.producers.Producer;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.Production;
+import dagger.producers.ProductionComponent;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import javax.inject.Provider;
+
+/**
+ * A component whose producers are created by switching producers, with dependencies of each kind
+ * that a producer method can request.
+ */
+@ProductionComponent(
+    modules = {
+      SwitchingProducersComponent.ProducersModule.class,
+      SwitchingProducersComponent.ExecutorModule.class
+    })
+interface SwitchingProducersComponent {
+  ListenableFuture<String> output();
+
+  ListenableFuture<Integer> length();
+
+  ListenableFuture<Double> failing();
+
+  ListenableFuture<Long> recovered();
+
+  @ProducerModule
+  static final class ProducersModule {
+    private final String prefix;
+
+    ProducersModule(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Produces
+    String name() {
+      return prefix + "name";
+    }
+
+    @Produces
+    static Integer length(String name) {
+      return name.length();
+    }
+
+    @Produces
+    static ListenableFuture<Character> first(String name) {
+      return Futures.immediateFuture(name.charAt(0));
+    }
+
+    @Produces
+    static String output(
+        String name,
+        Integer length,
+        Producer<Character> first,
+        Provider<StringBuilder> builder) throws Exception {
+      return builder.get().append(name).append(length).append(first.get().get()).toString();
+    }
+
+    @Produces
+    static Double failing() throws IOException {
+      throw new IOException("failing");
+    }
+
+    @Produces
+    static Long recovered(Produced<Double> failing) {
+      try {
+        return failing.get().longValue();
+      } catch (Exception e) {
+        return -1L;
+      }
+    }
+  }
+
+  @Module
+  static final class ExecutorModule {
+    @Provides
+    @Production
+    static Executor executor() {
+      return MoreExecutors.directExecutor();
+    }
+
+    @Provides
+    static StringBuilder builder() {
+      return new StringBuilder();
+    }
+  }
+}
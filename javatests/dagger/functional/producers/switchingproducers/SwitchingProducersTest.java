@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.switchingproducers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SwitchingProducersTest {
+  private final SwitchingProducersComponent component =
+      DaggerSwitchingProducersComponent.builder()
+          .producersModule(new SwitchingProducersComponent.ProducersModule("a-"))
+          .build();
+
+  @Test
+  public void dependenciesOfEachKind() throws Exception {
+    assertThat(component.length().get()).isEqualTo(6);
+    assertThat(component.output().get()).isEqualTo("a-name6a");
+  }
+
+  @Test
+  public void failure() throws Exception {
+    try {
+      component.failing().get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(IOException.class);
+    }
+    assertThat(component.recovered().get()).isEqualTo(-1L);
+  }
+}
@@ -227,6 +227,58 @@ public class ComponentShardTest {
             });
   }
 
+  @Test
+  public void testBytecodeSizeSharding() throws Exception {
+    // Shards are packed by estimated bytecode size rather than by binding count, so the packing
+    // depends on BytecodeSizeEstimator's costs. With the current costs (12 bytes per leaf and
+    // 12 + 4 * 4 = 28 bytes for Binding1) and a budget of 2 * 20 = 40 bytes, the bindings fit in
+    // two shards, [3 leaves] and [1 leaf + Binding1], rather than the three that 2 bindings per
+    // shard would need.
+    ImmutableList.Builder<Source> sources = ImmutableList.builder();
+    sources
+        .add(
+            createBinding(
+                "Binding1",
+                "Binding2 binding2",
+                "Binding3 binding3",
+                "Binding4 binding4",
+                "Binding5 binding5"))
+        .add(createBinding("Binding2"))
+        .add(createBinding("Binding3"))
+        .add(createBinding("Binding4"))
+        .add(createBinding("Binding5"));
+    sources.add(
+        CompilerTests.javaSource(
+            "dagger.internal.codegen.TestComponent",
+            "package dagger.internal.codegen;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Singleton;",
+            "",
+            "@Singleton",
+            "@Component",
+            "interface TestComponent {",
+            "  Binding1 binding1();",
+            "}"));
+
+    CompilerTests.daggerCompiler(sources.build())
+        .withProcessingOptions(
+            ImmutableMap.<String, String>builder()
+                .putAll(compilerOptions())
+                .put("dagger.bytecodeSizeSharding", "enabled")
+                .buildOrThrow())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject
+                  .generatedSourceFileWithPath("dagger/internal/codegen/DaggerTestComponent.java")
+                  .contains("TestComponentImplShard");
+              subject
+                  .generatedSourceFileWithPath("dagger/internal/codegen/DaggerTestComponent.java")
+                  .doesNotContain("TestComponentImplShard2");
+            });
+  }
+
   private static Source createBinding(String bindingName, String... deps) {
     return CompilerTests.javaSource(
         "dagger.internal.codegen." + bindingName,
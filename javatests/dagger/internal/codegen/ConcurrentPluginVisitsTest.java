@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableMap;
+import dagger.spi.model.BindingGraph;
+import dagger.spi.model.BindingGraphPlugin;
+import dagger.spi.model.DiagnosticReporter;
+import dagger.testing.compile.CompilerTests;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for -Adagger.concurrentPluginVisits. */
+@RunWith(JUnit4.class)
+public final class ConcurrentPluginVisitsTest {
+  private static final Source COMPONENT =
+      CompilerTests.javaSource(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component",
+          "interface TestComponent {}");
+
+  @Test
+  public void concurrentPluginVisits_reportsDiagnosticsOfEveryPlugin() {
+    CompilerTests.daggerCompiler(COMPONENT)
+        .withProcessingOptions(ImmutableMap.of("dagger.concurrentPluginVisits", "enabled"))
+        .withBindingGraphPlugins(ErrorPlugin::new, WarningPlugin::new)
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject
+                  .hasErrorContaining(
+                      "[dagger.internal.codegen.ConcurrentPluginVisitsTest.ErrorPlugin] Error!")
+                  .onSource(COMPONENT)
+                  .onLineContaining("interface TestComponent");
+              subject.hasWarningCount(1);
+              subject
+                  .hasWarningContaining(
+                      "[dagger.internal.codegen.ConcurrentPluginVisitsTest.WarningPlugin] Warning!")
+                  .onSource(COMPONENT)
+                  .onLineContaining("interface TestComponent");
+            });
+  }
+
+  @Test
+  public void concurrentPluginVisits_externalPluginsVisitOnProcessingThread() {
+    CompilerTests.daggerCompiler(COMPONENT)
+        .withProcessingOptions(ImmutableMap.of("dagger.concurrentPluginVisits", "enabled"))
+        .withBindingGraphPlugins(ErrorPlugin::new, WarningPlugin::new)
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject.hasWarningCount(1);
+              assertThat(ErrorPlugin.visitingThread).doesNotContain("dagger-plugin-visitor-");
+              assertThat(WarningPlugin.visitingThread).doesNotContain("dagger-plugin-visitor-");
+            });
+  }
+
+  @Test
+  public void concurrentPluginVisits_reportsConcurrentValidationErrors() {
+    Source foo =
+        CompilerTests.javaSource(
+            "test.Foo",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Foo {",
+            "  @Inject Foo() {}",
+            "}");
+    Source module =
+        CompilerTests.javaSource(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Binds;",
+            "import dagger.multibindings.IntoSet;",
+            "",
+            "@dagger.Module",
+            "interface TestModule {",
+            "  @Binds @IntoSet Object bindFoo(Foo foo);",
+            "",
+            "  @Binds @IntoSet Object bindFooAgain(Foo foo);",
+            "}");
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.Set;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  Set<Object> objects();",
+            "}");
+    CompilerTests.daggerCompiler(foo, module, component)
+        .withProcessingOptions(ImmutableMap.of("dagger.concurrentPluginVisits", "enabled"))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject.hasErrorContaining(
+                  "Multiple set contributions into Set<Object> for the same contribution key: "
+                      + "Foo");
+            });
+  }
+
+  /** Reports an error on the graph's root component. */
+  private static final class ErrorPlugin implements BindingGraphPlugin {
+    static volatile String visitingThread;
+
+    @Override
+    public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
+      visitingThread = Thread.currentThread().getName();
+      diagnosticReporter.reportComponent(ERROR, bindingGraph.rootComponentNode(), "Error!");
+    }
+  }
+
+  /** Reports a warning on the graph's root component. */
+  private static final class WarningPlugin implements BindingGraphPlugin {
+    static volatile String visitingThread;
+
+    @Override
+    public void visitGraph(BindingGraph bindingGraph, DiagnosticReporter diagnosticReporter) {
+      visitingThread = Thread.currentThread().getName();
+      diagnosticReporter.reportComponent(WARNING, bindingGraph.rootComponentNode(), "Warning!");
+    }
+  }
+}
@@ -809,4 +809,44 @@ public class DependencyCycleValidationTest {
                   .onLineContaining("interface C");
             });
   }
+
+  @Test
+  public void largeStronglyConnectedComponent_reportsOneCycle() {
+    // Each of the classes depends on the next two, so they form a single strongly connected
+    // component with two edges out of every node, and with many distinct cycles.
+    int classCount = 50;
+    ImmutableList.Builder<String> lines = ImmutableList.builder();
+    lines.add(
+        "package test;",
+        "",
+        "import dagger.Component;",
+        "import javax.inject.Inject;",
+        "",
+        "final class Cycles {");
+    for (int i = 0; i < classCount; i++) {
+      int next = (i + 1) % classCount;
+      int afterNext = (i + 2) % classCount;
+      lines.add(
+          "  static class A" + i + " {",
+          "    @Inject A" + i + "(A" + next + " next, A" + afterNext + " afterNext) {}",
+          "  }",
+          "");
+    }
+    lines.add(
+        "  @Component",
+        "  interface C {",
+        "    A0 a0();",
+        "  }",
+        "}");
+    Source cycles = CompilerTests.javaSource("test.Cycles", lines.build());
+    CompilerTests.daggerCompiler(cycles)
+        .withProcessingOptions(compilerMode.processorOptions())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject.hasErrorContaining("Found a dependency cycle:")
+                  .onSource(cycles)
+                  .onLineContaining("interface C");
+            });
+  }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.compilerWithOptions;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import dagger.testing.compile.CompilerTests;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ParallelComponentRenderingTest {
+  private static final String[] MODULE_LINES = {
+    "package test;",
+    "",
+    "import dagger.Module;",
+    "import dagger.Provides;",
+    "",
+    "@Module",
+    "interface TestModule {",
+    "  @Provides",
+    "  static String string() {",
+    "    return \"café\";",
+    "  }",
+    "}",
+  };
+
+  private static final Source MODULE = CompilerTests.javaSource("test.TestModule", MODULE_LINES);
+
+  private static final String[] A_COMPONENT_LINES = {
+    "package test;",
+    "",
+    "import dagger.Component;",
+    "",
+    "@Component(modules = TestModule.class)",
+    "interface AComponent {",
+    "  String string();",
+    "}",
+  };
+
+  private static final Source A_COMPONENT =
+      CompilerTests.javaSource("test.AComponent", A_COMPONENT_LINES);
+
+  private static final String[] B_COMPONENT_LINES = {
+    "package test;",
+    "",
+    "import dagger.Component;",
+    "",
+    "@Component(modules = TestModule.class)",
+    "interface BComponent {",
+    "  String string();",
+    "}",
+  };
+
+  private static final Source B_COMPONENT =
+      CompilerTests.javaSource("test.BComponent", B_COMPONENT_LINES);
+
+  @Test
+  public void parallelComponentRendering_generatesEveryRootComponent() {
+    CompilerTests.daggerCompiler(MODULE, A_COMPONENT, B_COMPONENT)
+        .withProcessingOptions(
+            ImmutableMap.of(
+                "dagger.parallelComponentRendering", "enabled",
+                "dagger.formatGeneratedSource", "enabled"))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject
+                  .generatedSourceFileWithPath("test/DaggerAComponent.java")
+                  .contains("final class DaggerAComponent");
+              subject
+                  .generatedSourceFileWithPath("test/DaggerBComponent.java")
+                  .contains("final class DaggerBComponent");
+            });
+  }
+
+  @Test
+  public void parallelComponentRendering_formatted_writesSameBytes() throws IOException {
+    assertWritesSameBytes("-Adagger.formatGeneratedSource=enabled");
+  }
+
+  @Test
+  public void parallelComponentRendering_unformatted_writesSameBytes() throws IOException {
+    assertWritesSameBytes("-Adagger.formatGeneratedSource=disabled");
+  }
+
+  @Test
+  public void parallelComponentRendering_headerCompilation_writesSameBytes() throws IOException {
+    assertWritesSameBytes("-Adagger.formatGeneratedSource=enabled", "-Aexperimental_turbine_hjar");
+  }
+
+  private static void assertWritesSameBytes(String... options) throws IOException {
+    ImmutableList<JavaFileObject> sources =
+        ImmutableList.of(
+            JavaFileObjects.forSourceLines("test.TestModule", MODULE_LINES),
+            JavaFileObjects.forSourceLines("test.AComponent", A_COMPONENT_LINES),
+            JavaFileObjects.forSourceLines("test.BComponent", B_COMPONENT_LINES));
+    Compilation serial = compilerWithOptions(options).compile(sources);
+    Compilation parallel =
+        compilerWithOptions(
+                ImmutableList.<String>builder()
+                    .add(options)
+                    .add("-Adagger.parallelComponentRendering=enabled")
+                    .build())
+            .compile(sources);
+    assertThat(serial).succeeded();
+    assertThat(parallel).succeeded();
+    for (String component : ImmutableList.of("test.DaggerAComponent", "test.DaggerBComponent")) {
+      assertWithMessage(component)
+          .that(generatedBytes(parallel, component))
+          .isEqualTo(generatedBytes(serial, component));
+    }
+  }
+
+  private static byte[] generatedBytes(Compilation compilation, String qualifiedName)
+      throws IOException {
+    JavaFileObject file = compilation.generatedSourceFile(qualifiedName).get();
+    try (InputStream input = file.openInputStream()) {
+      return ByteStreams.toByteArray(input);
+    }
+  }
+}
@@ -24,6 +24,8 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import androidx.room.compiler.processing.util.Source;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.Bulkhead;
+import dagger.producers.Hedged;
 import dagger.testing.compile.CompilerTests;
 import dagger.testing.golden.GoldenFileRule;
 import java.lang.annotation.Retention;
@@ -108,6 +110,85 @@ public class ProducerModuleFactoryGeneratorTest {
         .hasError("@Produces methods may not have type parameters");
   }
 
+  @Test
+  public void producesMethodBulkheadMaxInFlightNotPositive() {
+    assertThatProductionModuleMethod(
+            "@Produces @Bulkhead(value = \"group\", maxInFlight = 0) String produceString() {"
+                + " return null; }")
+        .importing(Bulkhead.class)
+        .hasError("@Bulkhead maxInFlight must be positive");
+  }
+
+  @Test
+  public void producesMethodBulkheadEmptyName() {
+    assertThatProductionModuleMethod(
+            "@Produces @Bulkhead(value = \"\", maxInFlight = 1) String produceString() {"
+                + " return null; }")
+        .importing(Bulkhead.class)
+        .hasError("@Bulkhead names must not be empty");
+  }
+
+  @Test
+  public void producesMethodBulkheadInconsistentMaxInFlight() {
+    Source moduleFile =
+        CompilerTests.javaSource(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.producers.Bulkhead;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces @Bulkhead(value = \"group\", maxInFlight = 2)",
+            "  static String string() { return \"\"; }",
+            "",
+            "  @Produces @Bulkhead(value = \"group\", maxInFlight = 2)",
+            "  static Integer integer() { return 0; }",
+            "",
+            "  @Produces @Bulkhead(value = \"group\", maxInFlight = 3)",
+            "  static Long longValue() { return 0L; }",
+            "}");
+    CompilerTests.daggerCompiler(moduleFile)
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject
+                  .hasErrorContaining(
+                      "@Bulkhead(\"group\") has maxInFlight 3, but is also declared by "
+                          + "test.TestModule.")
+                  .onSource(moduleFile)
+                  .onLineContaining("Long longValue()");
+            });
+  }
+
+  @Test
+  public void producesMethodHedgedNotFuture() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(delayMillis = 10) String produceString() { return null; }")
+        .importing(Hedged.class)
+        .hasError("@Hedged methods must return a ListenableFuture or FluentFuture");
+  }
+
+  @Test
+  public void producesMethodHedgedInvalidPercentile() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(delayMillis = 10, percentile = 100)"
+                + " ListenableFuture<String> produceString() { return null; }")
+        .importing(ListenableFuture.class, Hedged.class)
+        .hasError("@Hedged percentile must be at least 0 and less than 100");
+  }
+
+  @Test
+  public void producesMethodHedgedWithBulkhead() {
+    assertThatProductionModuleMethod(
+            "@Produces @Hedged(delayMillis = 10) @Bulkhead(value = \"backend\", maxInFlight = 4)"
+                + " ListenableFuture<String> produceString() { return null; }")
+        .importing(ListenableFuture.class, Hedged.class, Bulkhead.class)
+        .hasError("@Hedged methods cannot also be annotated with @Bulkhead");
+  }
+
   @Test public void producesMethodSetValuesWildcard() {
     assertThatProductionModuleMethod(
             "@Produces @ElementsIntoSet Set<?> produceWildcard() { return null; }")
@@ -420,6 +501,37 @@ public class ProducerModuleFactoryGeneratorTest {
             });
   }
 
+  @Test
+  public void singleProducesMethodWithSwitchingProducers_keepsClassToken() {
+    Source moduleFile =
+        CompilerTests.javaSource(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import com.google.common.util.concurrent.Futures;",
+            "import com.google.common.util.concurrent.ListenableFuture;",
+            "import dagger.producers.ProducerModule;",
+            "import dagger.producers.Produces;",
+            "",
+            "@ProducerModule",
+            "final class TestModule {",
+            "  @Produces ListenableFuture<String> produceString() {",
+            "    return Futures.immediateFuture(\"\");",
+            "  }",
+            "}");
+    // Only the component's switching producers use names; factories keep their class tokens, so
+    // that monitors keyed on them still match.
+    CompilerTests.daggerCompiler(moduleFile)
+        .withProcessingOptions(ImmutableMap.of("dagger.switchingProducers", "ENABLED"))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject
+                  .generatedSourceFileWithPath("test/TestModule_ProduceStringFactory.java")
+                  .contains("ProducerToken.create(TestModule_ProduceStringFactory.class)");
+            });
+  }
+
   @Test
   public void producesMethodMultipleQualifiersOnMethod() {
     assertThatProductionModuleMethod(
@@ -119,6 +119,74 @@ public class ProductionComponentProcessorTest {
             });
   }
 
+  @Test
+  public void admissionControlOnNonProductionComponent() {
+    Source componentFile =
+        CompilerTests.javaSource("test.TestComponent",
+        "package test;",
+        "",
+        "import dagger.Component;",
+        "import dagger.producers.AdmissionControl;",
+        "",
+        "@AdmissionControl(maxConcurrentExecutions = 10)",
+        "@Component",
+        "interface TestComponent {}");
+    CompilerTests.daggerCompiler(componentFile)
+        .withProcessingOptions(compilerMode.processorOptions())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject.hasErrorContaining(
+                  "@AdmissionControl may only be applied to production components and "
+                      + "subcomponents");
+            });
+  }
+
+  @Test
+  public void admissionControlWithNonPositiveLimit() {
+    Source componentFile =
+        CompilerTests.javaSource("test.TestComponent",
+        "package test;",
+        "",
+        "import dagger.producers.AdmissionControl;",
+        "import dagger.producers.ProductionComponent;",
+        "",
+        "@AdmissionControl(maxConcurrentExecutions = 0)",
+        "@ProductionComponent",
+        "interface TestComponent {}");
+    CompilerTests.daggerCompiler(componentFile)
+        .withProcessingOptions(compilerMode.processorOptions())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject.hasErrorContaining(
+                  "@AdmissionControl maxConcurrentExecutions must be positive");
+            });
+  }
+
+  @Test
+  public void structuredConcurrencyOnNonProductionComponent() {
+    Source componentFile =
+        CompilerTests.javaSource("test.TestComponent",
+        "package test;",
+        "",
+        "import dagger.Component;",
+        "import dagger.producers.StructuredConcurrency;",
+        "",
+        "@StructuredConcurrency",
+        "@Component",
+        "interface TestComponent {}");
+    CompilerTests.daggerCompiler(componentFile)
+        .withProcessingOptions(compilerMode.processorOptions())
+        .compile(
+            subject -> {
+              subject.hasErrorCount(1);
+              subject.hasErrorContaining(
+                  "@StructuredConcurrency may only be applied to production components and "
+                      + "subcomponents");
+            });
+  }
+
   @Test
   public void dependsOnProductionExecutor() throws Exception {
     Source moduleFile =
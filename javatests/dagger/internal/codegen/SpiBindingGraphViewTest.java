@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableSet;
+import dagger.spi.model.Binding;
+import dagger.spi.model.BindingGraph;
+import dagger.spi.model.BindingGraph.ComponentNode;
+import dagger.spi.model.BindingGraph.DependencyEdge;
+import dagger.spi.model.BindingGraph.Node;
+import dagger.spi.model.BindingGraphPlugin;
+import dagger.spi.model.DiagnosticReporter;
+import dagger.testing.compile.CompilerTests;
+import java.util.Objects;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests that the queries of the {@link BindingGraph} given to external plugins, which are answered
+ * without building its network, agree with the network.
+ */
+@RunWith(JUnit4.class)
+public final class SpiBindingGraphViewTest {
+  @Test
+  public void queriesAgreeWithNetwork() {
+    Source module =
+        CompilerTests.javaSource(
+            "test.TestModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Module",
+            "interface TestModule {",
+            "  @Provides",
+            "  static String string(Integer i) {",
+            "    return \"\" + i;",
+            "  }",
+            "",
+            "  @Provides",
+            "  static Integer integer() {",
+            "    return 1;",
+            "  }",
+            "}");
+    Source subcomponent =
+        CompilerTests.javaSource(
+            "test.TestSubcomponent",
+            "package test;",
+            "",
+            "import dagger.Subcomponent;",
+            "",
+            "@Subcomponent",
+            "interface TestSubcomponent {",
+            "  String string();",
+            "}");
+    Source component =
+        CompilerTests.javaSource(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component(modules = TestModule.class)",
+            "interface TestComponent {",
+            "  String string();",
+            "  TestSubcomponent subcomponent();",
+            "}");
+    CompilerTests.daggerCompiler(module, subcomponent, component)
+        .withBindingGraphPlugins(NetworkCheckingPlugin::new)
+        .compile(subject -> subject.hasErrorCount(0));
+  }
+
+  /** Reports an error for each query whose answer differs from the one given by the network. */
+  private static final class NetworkCheckingPlugin implements BindingGraphPlugin {
+    @Override
+    public void visitGraph(BindingGraph graph, DiagnosticReporter reporter) {
+      ComponentNode root = graph.rootComponentNode();
+      check(
+          graph,
+          reporter,
+          "componentNodes",
+          graph.componentNodes(),
+          nodesOfType(graph, ComponentNode.class));
+      check(graph, reporter, "bindings", graph.bindings(), nodesOfType(graph, Binding.class));
+      check(
+          graph,
+          reporter,
+          "rootComponentNode",
+          root,
+          nodesOfType(graph, ComponentNode.class).stream()
+              .filter(node -> node.componentPath().atRoot())
+              .findFirst()
+              .get());
+      check(
+          graph,
+          reporter,
+          "entryPointEdges",
+          graph.entryPointEdges(),
+          graph.network().edges().stream()
+              .filter(edge -> edge instanceof DependencyEdge)
+              .map(DependencyEdge.class::cast)
+              .filter(DependencyEdge::isEntryPoint)
+              .collect(toImmutableSet()));
+      for (Binding binding : graph.bindings()) {
+        check(
+            graph,
+            reporter,
+            "requestedBindings",
+            graph.requestedBindings(binding),
+            graph.network().successors(binding).stream()
+                .filter(node -> node instanceof Binding)
+                .collect(toImmutableSet()));
+        check(
+            graph,
+            reporter,
+            "requestingBindings",
+            graph.requestingBindings(binding),
+            graph.network().predecessors(binding).stream()
+                .filter(node -> node instanceof Binding)
+                .collect(toImmutableSet()));
+        check(
+            graph,
+            reporter,
+            "dependencyEdges",
+            graph.dependencyEdges(binding).values(),
+            graph.network().outEdges(binding).stream()
+                .filter(edge -> edge instanceof DependencyEdge)
+                .collect(toImmutableSet()));
+      }
+      check(
+          graph,
+          reporter,
+          "componentNode",
+          graph.componentNode(root.componentPath()).get(),
+          root);
+    }
+
+    private static <N extends Node> ImmutableSet<N> nodesOfType(BindingGraph graph, Class<N> type) {
+      return graph.network().nodes().stream()
+          .filter(type::isInstance)
+          .map(type::cast)
+          .collect(toImmutableSet());
+    }
+
+    private static void check(
+        BindingGraph graph,
+        DiagnosticReporter reporter,
+        String query,
+        Object actual,
+        Object expected) {
+      if (actual instanceof Iterable) {
+        actual = ImmutableSet.copyOf((Iterable<?>) actual);
+      }
+      if (!Objects.equals(actual, expected)) {
+        reporter.reportComponent(
+            ERROR,
+            graph.rootComponentNode(),
+            "%s() was %s, but the network has %s",
+            query,
+            actual,
+            expected);
+      }
+    }
+  }
+}
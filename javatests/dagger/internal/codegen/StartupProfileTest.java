@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import dagger.testing.compile.CompilerTests;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class StartupProfileTest {
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void startupProfile_movesStartupBindingsIntoComponentShard() throws Exception {
+    // Binding1 -> Binding2 -> Binding3 are requested during startup, Binding4 -> Binding5 ->
+    // Binding6 aren't.
+    ImmutableList<Source> sources =
+        ImmutableList.of(
+            createBinding("Binding1", "Binding2 binding2"),
+            createBinding("Binding2", "Binding3 binding3"),
+            createBinding("Binding3"),
+            createBinding("Binding4", "Binding5 binding5"),
+            createBinding("Binding5", "Binding6 binding6"),
+            createBinding("Binding6"),
+            component("Binding1 binding1();", "Binding4 binding4();"));
+    File profile = writeProfile("# startup keys", "dagger.internal.codegen.Binding1");
+
+    CompilerTests.daggerCompiler(sources)
+        .withProcessingOptions(
+            ImmutableMap.of(
+                "dagger.startupProfile", profile.getPath(),
+                "dagger.keysPerComponentShard", "2",
+                "dagger.generatedClassExtendsComponent", "DISABLED"))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject
+                  .generatedSourceFileWithPath("dagger/internal/codegen/DaggerTestComponent.java")
+                  .contains("return binding1Provider.get();");
+              subject
+                  .generatedSourceFileWithPath("dagger/internal/codegen/DaggerTestComponent.java")
+                  .contains("class TestComponentImplShard");
+            });
+  }
+
+  @Test
+  public void startupProfile_givesStartupKeysFirstSwitchingProviderIds() throws Exception {
+    ImmutableList<Source> sources =
+        ImmutableList.of(
+            createBinding("Binding1"),
+            createBinding("Binding2"),
+            createBinding("Binding3"),
+            component("Binding1 binding1();", "Binding2 binding2();", "Binding3 binding3();"));
+    File profile = writeProfile("dagger.internal.codegen.Binding3");
+
+    CompilerTests.daggerCompiler(sources)
+        .withProcessingOptions(
+            ImmutableMap.of(
+                "dagger.startupProfile", profile.getPath(),
+                "dagger.fastInit", "enabled"))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              subject
+                  .generatedSourceFileWithPath("dagger/internal/codegen/DaggerTestComponent.java")
+                  .contains("case 0: // dagger.internal.codegen.Binding3");
+              subject
+                  .generatedSourceFileWithPath("dagger/internal/codegen/DaggerTestComponent.java")
+                  .contains("case 1: // dagger.internal.codegen.Binding1");
+            });
+  }
+
+  private File writeProfile(String... lines) throws IOException {
+    File profile = tempFolder.newFile("startup.txt");
+    Files.write(profile.toPath(), Arrays.asList(lines), UTF_8);
+    return profile;
+  }
+
+  private static Source component(String... entryPoints) {
+    return CompilerTests.javaSource(
+        "dagger.internal.codegen.TestComponent",
+        "package dagger.internal.codegen;",
+        "",
+        "import dagger.Component;",
+        "import javax.inject.Singleton;",
+        "",
+        "@Singleton",
+        "@Component",
+        "interface TestComponent {",
+        Arrays.stream(entryPoints).map(entryPoint -> "  " + entryPoint).collect(joining("\n")),
+        "}");
+  }
+
+  private static Source createBinding(String bindingName, String... deps) {
+    return CompilerTests.javaSource(
+        "dagger.internal.codegen." + bindingName,
+        "package dagger.internal.codegen;",
+        "",
+        "import javax.inject.Inject;",
+        "import javax.inject.Singleton;",
+        "",
+        "@Singleton",
+        "final class " + bindingName + " {",
+        "  @Inject",
+        "  " + bindingName + "(" + Arrays.stream(deps).collect(joining(", ")) + ") {}",
+        "}");
+  }
+}
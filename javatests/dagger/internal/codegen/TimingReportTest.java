@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableMap;
+import dagger.testing.compile.CompilerTests;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class TimingReportTest {
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static final Source MODULE =
+      CompilerTests.javaSource(
+          "test.TestModule",
+          "package test;",
+          "",
+          "import dagger.Module;",
+          "import dagger.Provides;",
+          "",
+          "@Module",
+          "interface TestModule {",
+          "  @Provides",
+          "  static String string() {",
+          "    return \"\";",
+          "  }",
+          "}");
+
+  private static final Source COMPONENT =
+      CompilerTests.javaSource(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component(modules = TestModule.class)",
+          "interface TestComponent {",
+          "  String string();",
+          "}");
+
+  @Test
+  public void timingReport_recordsStepsComponentsAndPlugins() {
+    File report = new File(tempFolder.getRoot(), "reports/timing.json");
+    CompilerTests.daggerCompiler(MODULE, COMPONENT)
+        .withProcessingOptions(ImmutableMap.of("dagger.timingReport", report.getPath()))
+        .compile(
+            subject -> {
+              subject.hasErrorCount(0);
+              String json = read(report);
+              assertThat(json)
+                  .contains("\"backend\": \"" + CompilerTests.backend(subject).name() + "\"");
+              assertThat(json)
+                  .contains(
+                      "{\"kind\": \"step\", \"name\": \"ComponentProcessingStep\","
+                          + " \"phase\": \"process\",");
+              assertThat(json)
+                  .contains(
+                      "{\"kind\": \"component\", \"name\": \"test.TestComponent\","
+                          + " \"phase\": \"bindingGraph\", \"count\": 1,");
+              assertThat(json)
+                  .contains(
+                      "{\"kind\": \"component\", \"name\": \"test.TestComponent\","
+                          + " \"phase\": \"generation\", \"count\": 1,");
+              assertThat(json).contains("{\"kind\": \"plugin\", \"name\": \"Dagger/");
+            });
+  }
+
+  private static String read(File file) {
+    try {
+      return new String(Files.readAllBytes(file.toPath()), UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
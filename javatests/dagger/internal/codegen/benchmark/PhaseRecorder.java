@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the wall time, allocation and peak heap of the named phases of one compilation.
+ *
+ * <p>Phases may nest and repeat; a phase's wall time and allocation are summed over its outermost
+ * occurrences, so that a phase that reenters itself (like javac's annotation processing rounds) is
+ * not counted twice. Allocation is measured for the thread that starts and ends the phases. The
+ * peak heap of a phase is the highest heap usage that a background thread sampled while the phase
+ * was active, so it is approximate for short phases.
+ */
+@SuppressWarnings("GoodTime") // uses longs for nanos and bytes, like the MXBeans
+final class PhaseRecorder implements AutoCloseable {
+  private static final long SAMPLE_INTERVAL_MILLIS = 5;
+
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+  private final Thread owner = Thread.currentThread();
+  private final Map<String, Phase> phases = new LinkedHashMap<>();
+  private final Map<String, Integer> depths = new HashMap<>();
+  private final Thread sampler;
+
+  PhaseRecorder() {
+    sampler = new Thread(this::sampleHeap, "PhaseRecorder heap sampler");
+    sampler.setDaemon(true);
+    sampler.start();
+  }
+
+  /** Starts an occurrence of the given phase. */
+  void start(String name) {
+    checkOwner();
+    int depth = depths.merge(name, 1, Integer::sum);
+    if (depth == 1) {
+      Phase phase;
+      synchronized (phases) {
+        phase = phases.computeIfAbsent(name, unused -> new Phase());
+      }
+      synchronized (phase) {
+        phase.active = true;
+        phase.peakHeapBytes = Math.max(phase.peakHeapBytes, usedHeapBytes());
+      }
+      phase.startNanos = System.nanoTime();
+      phase.startAllocatedBytes = threads.getThreadAllocatedBytes(owner.getId());
+    }
+  }
+
+  /** Ends the latest occurrence of the given phase. */
+  void end(String name) {
+    checkOwner();
+    Integer depth = depths.get(name);
+    checkState(depth != null && depth > 0, "phase %s was not started", name);
+    if (depth == 1) {
+      Phase phase = phases.get(name);
+      phase.wallNanos += System.nanoTime() - phase.startNanos;
+      phase.allocatedBytes +=
+          threads.getThreadAllocatedBytes(owner.getId()) - phase.startAllocatedBytes;
+      synchronized (phase) {
+        phase.active = false;
+        phase.peakHeapBytes = Math.max(phase.peakHeapBytes, usedHeapBytes());
+      }
+      depths.remove(name);
+    } else {
+      depths.put(name, depth - 1);
+    }
+  }
+
+  /** Stops sampling the heap and returns the measurements of each phase, in the order started. */
+  ImmutableMap<String, Measurement> finish() {
+    close();
+    checkState(depths.isEmpty(), "phases were not ended: %s", depths.keySet());
+    ImmutableMap.Builder<String, Measurement> measurements = ImmutableMap.builder();
+    phases.forEach(
+        (name, phase) -> {
+          synchronized (phase) {
+            measurements.put(
+                name,
+                new Measurement(phase.wallNanos, phase.allocatedBytes, phase.peakHeapBytes));
+          }
+        });
+    return measurements.build();
+  }
+
+  @Override
+  public void close() {
+    sampler.interrupt();
+  }
+
+  private void checkOwner() {
+    checkState(
+        Thread.currentThread() == owner,
+        "phases must be recorded on %s, not %s",
+        owner.getName(),
+        Thread.currentThread().getName());
+  }
+
+  private long usedHeapBytes() {
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private void sampleHeap() {
+    while (!Thread.currentThread().isInterrupted()) {
+      long used = usedHeapBytes();
+      // The owner thread only adds phases while holding the map's lock.
+      Phase[] snapshot;
+      synchronized (phases) {
+        snapshot = phases.values().toArray(new Phase[0]);
+      }
+      for (Phase phase : snapshot) {
+        synchronized (phase) {
+          if (phase.active) {
+            phase.peakHeapBytes = Math.max(phase.peakHeapBytes, used);
+          }
+        }
+      }
+      try {
+        TimeUnit.MILLISECONDS.sleep(SAMPLE_INTERVAL_MILLIS);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private static final class Phase {
+    // Only accessed by the owner thread.
+    long startNanos;
+    long startAllocatedBytes;
+    long wallNanos;
+    long allocatedBytes;
+
+    // Guarded by this.
+    boolean active;
+    long peakHeapBytes;
+  }
+
+  /** The measurements of a phase of one compilation. */
+  static final class Measurement {
+    final long wallNanos;
+    final long allocatedBytes;
+    final long peakHeapBytes;
+
+    Measurement(long wallNanos, long allocatedBytes, long peakHeapBytes) {
+      this.wallNanos = wallNanos;
+      this.allocatedBytes = allocatedBytes;
+      this.peakHeapBytes = peakHeapBytes;
+    }
+  }
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import androidx.room.compiler.processing.util.Source;
+import androidx.room.compiler.processing.util.compiler.TestCompilationArguments;
+import androidx.room.compiler.processing.util.compiler.TestCompilationResult;
+import androidx.room.compiler.processing.util.compiler.TestKotlinCompilerKt;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.devtools.ksp.processing.Resolver;
+import com.google.devtools.ksp.processing.SymbolProcessor;
+import com.google.devtools.ksp.processing.SymbolProcessorEnvironment;
+import com.google.devtools.ksp.processing.SymbolProcessorProvider;
+import com.google.devtools.ksp.symbol.KSAnnotated;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import dagger.internal.codegen.ComponentProcessor;
+import dagger.internal.codegen.KspComponentProcessor;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Measures the Dagger processor on {@linkplain SyntheticGraph synthetic projects}, under javac and
+ * KSP.
+ *
+ * <p>Each project is compiled a number of times with each backend, and the median wall time,
+ * allocation and peak heap of each phase are printed. With both backends, {@code total} is the
+ * whole compilation and {@code dagger} is the time spent in {@link ComponentProcessor} or {@link
+ * KspComponentProcessor}. Under javac, the other phases are javac's own ({@code parse}, {@code
+ * enter}, {@code annotation_processing}, {@code analyze} and {@code generate}).
+ *
+ * <p>Usage: {@code ProcessorBenchmark [--graphs=deep-subcomponents,...] [--backends=javac,ksp]
+ * [--scale=1] [--warmup=2] [--iterations=5] [-Adagger.option=value ...]}. The graphs are the names
+ * of the {@linkplain SyntheticGraph#PRESETS presets}, and the {@code -A} flags are passed to the
+ * processor.
+ */
+public final class ProcessorBenchmark {
+  private static final Splitter COMMA = Splitter.on(',').omitEmptyStrings().trimResults();
+  private static final String DAGGER_PHASE = "dagger";
+
+  /** A compiler that the processor can run in. */
+  enum Backend {
+    JAVAC {
+      @Override
+      ImmutableMap<String, PhaseRecorder.Measurement> compile(
+          ImmutableMap<String, String> sources, Map<String, String> options, Path workingDir)
+          throws IOException {
+        return compileWithJavac(sources, options, workingDir);
+      }
+    },
+    KSP {
+      @Override
+      ImmutableMap<String, PhaseRecorder.Measurement> compile(
+          ImmutableMap<String, String> sources, Map<String, String> options, Path workingDir) {
+        return compileWithKsp(sources, options, workingDir);
+      }
+    };
+
+    /**
+     * Compiles the given sources with the Dagger processor, and returns the measurements of each
+     * phase.
+     */
+    abstract ImmutableMap<String, PhaseRecorder.Measurement> compile(
+        ImmutableMap<String, String> sources, Map<String, String> options, Path workingDir)
+        throws IOException;
+  }
+
+  public static void main(String[] args) throws IOException {
+    List<String> graphs = new ArrayList<>(SyntheticGraph.PRESETS.keySet());
+    List<Backend> backends = ImmutableList.copyOf(Backend.values());
+    int scale = 1;
+    int warmup = 2;
+    int iterations = 5;
+    Map<String, String> options = new LinkedHashMap<>();
+    for (String arg : args) {
+      if (arg.startsWith("--graphs=")) {
+        graphs = COMMA.splitToList(value(arg));
+      } else if (arg.startsWith("--backends=")) {
+        backends =
+            COMMA.splitToList(value(arg)).stream()
+                .map(backend -> Backend.valueOf(backend.toUpperCase(Locale.ROOT)))
+                .collect(toImmutableList());
+      } else if (arg.startsWith("--scale=")) {
+        scale = Integer.parseInt(value(arg));
+      } else if (arg.startsWith("--warmup=")) {
+        warmup = Integer.parseInt(value(arg));
+      } else if (arg.startsWith("--iterations=")) {
+        iterations = Integer.parseInt(value(arg));
+      } else if (arg.startsWith("-A")) {
+        List<String> option = Splitter.on('=').limit(2).splitToList(arg.substring(2));
+        options.put(option.get(0), option.size() > 1 ? option.get(1) : "");
+      } else {
+        throw new IllegalArgumentException("unknown argument: " + arg);
+      }
+    }
+    checkArgument(iterations > 0, "iterations must be positive: %s", iterations);
+
+    PrintStream out = System.out;
+    out.printf(
+        "%-24s %-7s %-28s %10s %10s %10s%n",
+        "graph", "backend", "phase", "wall ms", "alloc MB", "peak MB");
+    for (String name : graphs) {
+      SyntheticGraph graph = SyntheticGraph.PRESETS.get(name);
+      checkArgument(
+          graph != null,
+          "unknown graph %s; expected one of %s",
+          name,
+          SyntheticGraph.PRESETS.keySet());
+      ImmutableMap<String, String> sources = graph.scaledBy(scale).sources();
+      for (Backend backend : backends) {
+        List<ImmutableMap<String, PhaseRecorder.Measurement>> runs = new ArrayList<>();
+        for (int i = 0; i < warmup + iterations; i++) {
+          Path workingDir = Files.createTempDirectory("dagger-benchmark");
+          try {
+            ImmutableMap<String, PhaseRecorder.Measurement> run =
+                backend.compile(sources, options, workingDir);
+            if (i >= warmup) {
+              runs.add(run);
+            }
+          } finally {
+            MoreFiles.deleteRecursively(workingDir, RecursiveDeleteOption.ALLOW_INSECURE);
+          }
+        }
+        for (String phase : runs.get(0).keySet()) {
+          out.printf(
+              "%-24s %-7s %-28s %10.1f %10.1f %10.1f%n",
+              name,
+              backend.name().toLowerCase(Locale.ROOT),
+              phase,
+              median(runs, phase, m -> m.wallNanos) / 1e6,
+              median(runs, phase, m -> m.allocatedBytes) / (1024.0 * 1024),
+              median(runs, phase, m -> m.peakHeapBytes) / (1024.0 * 1024));
+        }
+      }
+    }
+  }
+
+  private static String value(String arg) {
+    return arg.substring(arg.indexOf('=') + 1);
+  }
+
+  private interface MeasurementValue {
+    long of(PhaseRecorder.Measurement measurement);
+  }
+
+  private static double median(
+      List<ImmutableMap<String, PhaseRecorder.Measurement>> runs,
+      String phase,
+      MeasurementValue value) {
+    List<Long> values = new ArrayList<>();
+    for (ImmutableMap<String, PhaseRecorder.Measurement> run : runs) {
+      PhaseRecorder.Measurement measurement = run.get(phase);
+      values.add(measurement == null ? 0 : value.of(measurement));
+    }
+    Collections.sort(values);
+    int middle = values.size() / 2;
+    return values.size() % 2 == 1
+        ? values.get(middle)
+        : (values.get(middle - 1) + values.get(middle)) / 2.0;
+  }
+
+  private static ImmutableMap<String, PhaseRecorder.Measurement> compileWithJavac(
+      ImmutableMap<String, String> sources, Map<String, String> options, Path workingDir)
+      throws IOException {
+    Path sourceDir = Files.createDirectories(workingDir.resolve("src"));
+    Path classDir = Files.createDirectories(workingDir.resolve("classes"));
+    Path generatedDir = Files.createDirectories(workingDir.resolve("generated"));
+    List<Path> sourceFiles = new ArrayList<>();
+    for (Map.Entry<String, String> source : sources.entrySet()) {
+      Path file = sourceDir.resolve(source.getKey().replace('.', '/') + ".java");
+      Files.createDirectories(file.getParent());
+      Files.write(file, source.getValue().getBytes(UTF_8));
+      sourceFiles.add(file);
+    }
+
+    List<String> javacOptions = new ArrayList<>();
+    javacOptions.add("-classpath");
+    javacOptions.add(System.getProperty("java.class.path"));
+    javacOptions.add("-d");
+    javacOptions.add(classDir.toString());
+    javacOptions.add("-s");
+    javacOptions.add(generatedDir.toString());
+    options.forEach((key, value) -> javacOptions.add("-A" + key + "=" + value));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager =
+            compiler.getStandardFileManager(diagnostics, Locale.ROOT, UTF_8);
+        PhaseRecorder recorder = new PhaseRecorder()) {
+      JavacTask task =
+          (JavacTask)
+              compiler.getTask(
+                  null,
+                  fileManager,
+                  diagnostics,
+                  javacOptions,
+                  null,
+                  fileManager.getJavaFileObjectsFromPaths(sourceFiles));
+      task.setProcessors(ImmutableList.of(new TimedProcessor(new ComponentProcessor(), recorder)));
+      task.addTaskListener(
+          new TaskListener() {
+            @Override
+            public void started(TaskEvent event) {
+              if (isPhase(event)) {
+                recorder.start(phaseName(event));
+              }
+            }
+
+            @Override
+            public void finished(TaskEvent event) {
+              if (isPhase(event)) {
+                recorder.end(phaseName(event));
+              }
+            }
+          });
+      recorder.start("total");
+      boolean success = task.call();
+      recorder.end("total");
+      if (!success) {
+        throw new IllegalStateException("compilation failed: " + errors(diagnostics));
+      }
+      return recorder.finish();
+    }
+  }
+
+  /** Returns false for the event of the whole compilation, which is recorded as {@code total}. */
+  private static boolean isPhase(TaskEvent event) {
+    // TaskEvent.Kind.COMPILATION doesn't exist before JDK 9.
+    return !event.getKind().name().equals("COMPILATION");
+  }
+
+  private static String phaseName(TaskEvent event) {
+    return event.getKind().name().toLowerCase(Locale.ROOT);
+  }
+
+  private static String errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+    return diagnostics.getDiagnostics().stream()
+        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+        .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+        .collect(toImmutableList())
+        .toString();
+  }
+
+  private static ImmutableMap<String, PhaseRecorder.Measurement> compileWithKsp(
+      ImmutableMap<String, String> sources, Map<String, String> options, Path workingDir) {
+    ImmutableList<Source> kspSources =
+        sources.entrySet().stream()
+            .map(source -> Source.Companion.java(source.getKey(), source.getValue()))
+            .collect(toImmutableList());
+    try (PhaseRecorder recorder = new PhaseRecorder()) {
+      recorder.start("total");
+      TestCompilationResult result =
+          TestKotlinCompilerKt.compile(
+              workingDir.toFile(),
+              new TestCompilationArguments(
+                  kspSources,
+                  /*classpath=*/ ImmutableList.of(),
+                  /*inheritClasspath=*/ true,
+                  /*javacArguments=*/ ImmutableList.of(),
+                  /*kotlincArguments=*/ ImmutableList.of(),
+                  /*kaptProcessors=*/ ImmutableList.of(),
+                  /*symbolProcessorProviders=*/ ImmutableList.of(
+                      new TimedSymbolProcessorProvider(
+                          new KspComponentProcessor.Provider(), recorder)),
+                  /*processorOptions=*/ options));
+      recorder.end("total");
+      if (!result.getSuccess()) {
+        throw new IllegalStateException(
+            "compilation failed: " + result.getDiagnostics().get(Diagnostic.Kind.ERROR));
+      }
+      return recorder.finish();
+    }
+  }
+
+  /** A processor that records the time spent in its delegate as the {@code dagger} phase. */
+  private static final class TimedProcessor implements Processor {
+    private final Processor delegate;
+    private final PhaseRecorder recorder;
+
+    TimedProcessor(Processor delegate, PhaseRecorder recorder) {
+      this.delegate = delegate;
+      this.recorder = recorder;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+      return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+      recorder.start(DAGGER_PHASE);
+      try {
+        delegate.init(processingEnv);
+      } finally {
+        recorder.end(DAGGER_PHASE);
+      }
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      recorder.start(DAGGER_PHASE);
+      try {
+        return delegate.process(annotations, roundEnv);
+      } finally {
+        recorder.end(DAGGER_PHASE);
+      }
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(
+        Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+      return delegate.getCompletions(element, annotation, member, userText);
+    }
+  }
+
+  /**
+   * A symbol processor provider whose processors record the time spent in the delegate's
+   * processors as the {@code dagger} phase.
+   */
+  private static final class TimedSymbolProcessorProvider implements SymbolProcessorProvider {
+    private final SymbolProcessorProvider delegate;
+    private final PhaseRecorder recorder;
+
+    TimedSymbolProcessorProvider(SymbolProcessorProvider delegate, PhaseRecorder recorder) {
+      this.delegate = delegate;
+      this.recorder = recorder;
+    }
+
+    @Override
+    public SymbolProcessor create(SymbolProcessorEnvironment environment) {
+      recorder.start(DAGGER_PHASE);
+      SymbolProcessor processor;
+      try {
+        processor = delegate.create(environment);
+      } finally {
+        recorder.end(DAGGER_PHASE);
+      }
+      return new SymbolProcessor() {
+        @Override
+        public List<KSAnnotated> process(Resolver resolver) {
+          recorder.start(DAGGER_PHASE);
+          try {
+            return processor.process(resolver);
+          } finally {
+            recorder.end(DAGGER_PHASE);
+          }
+        }
+
+        @Override
+        public void finish() {
+          recorder.start(DAGGER_PHASE);
+          try {
+            processor.finish();
+          } finally {
+            recorder.end(DAGGER_PHASE);
+          }
+        }
+
+        @Override
+        public void onError() {
+          processor.onError();
+        }
+      };
+    }
+  }
+
+  private ProcessorBenchmark() {}
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The shape of a synthetic Dagger project, whose sources are generated for {@link
+ * ProcessorBenchmark}.
+ *
+ * <p>The project has a root {@code @Component} with a chain of {@code @Subcomponent}s below it.
+ * Each component installs its own modules, and each module contributes a chain of bindings, which
+ * alternate between {@code @Inject} constructors and {@code @Provides} methods. The first binding
+ * of each module depends on the last binding of the previous module, or of the parent component,
+ * so the graph is connected from the deepest subcomponent to the root. Each module may also
+ * contribute to a set and a map multibinding, and declare {@code @AssistedFactory} types. If the
+ * project has producer modules, they are installed in a separate {@code @ProductionComponent}.
+ */
+@AutoValue
+abstract class SyntheticGraph {
+  static final String PACKAGE = "bench";
+
+  /** The graphs that {@link ProcessorBenchmark} runs by default. */
+  static final ImmutableMap<String, SyntheticGraph> PRESETS =
+      ImmutableMap.of(
+          "deep-subcomponents",
+          builder().subcomponentDepth(12).modulesPerComponent(4).bindingsPerModule(25).build(),
+          "wide-multibindings",
+          builder()
+              .modulesPerComponent(20)
+              .bindingsPerModule(5)
+              .multibindingsPerModule(200)
+              .build(),
+          "many-modules",
+          builder().modulesPerComponent(200).bindingsPerModule(20).build(),
+          "assisted-and-producers",
+          builder()
+              .subcomponentDepth(2)
+              .modulesPerComponent(10)
+              .bindingsPerModule(20)
+              .assistedFactoriesPerModule(5)
+              .producerModules(10)
+              .bindingsPerProducerModule(20)
+              .build());
+
+  /** The number of subcomponents below the root component. */
+  abstract int subcomponentDepth();
+
+  abstract int modulesPerComponent();
+
+  abstract int bindingsPerModule();
+
+  /** The number of set and map contributions of each module. */
+  abstract int multibindingsPerModule();
+
+  abstract int assistedFactoriesPerModule();
+
+  /** The number of modules in the production component, or 0 for no production component. */
+  abstract int producerModules();
+
+  abstract int bindingsPerProducerModule();
+
+  static Builder builder() {
+    return new AutoValue_SyntheticGraph.Builder()
+        .subcomponentDepth(0)
+        .modulesPerComponent(1)
+        .bindingsPerModule(1)
+        .multibindingsPerModule(0)
+        .assistedFactoriesPerModule(0)
+        .producerModules(0)
+        .bindingsPerProducerModule(1);
+  }
+
+  abstract Builder toBuilder();
+
+  /** Returns a graph with this shape and the numbers of modules multiplied by {@code scale}. */
+  SyntheticGraph scaledBy(int scale) {
+    checkArgument(scale > 0, "scale must be positive: %s", scale);
+    return toBuilder()
+        .modulesPerComponent(modulesPerComponent() * scale)
+        .producerModules(producerModules() * scale)
+        .build();
+  }
+
+  /** Returns the total number of bindings that the modules of the project declare. */
+  int bindingCount() {
+    int perModule =
+        bindingsPerModule() + 2 * multibindingsPerModule() + 2 * assistedFactoriesPerModule();
+    return (subcomponentDepth() + 1) * modulesPerComponent() * perModule
+        + producerModules() * bindingsPerProducerModule();
+  }
+
+  /** Returns the sources of the project, by the qualified names of their top-level classes. */
+  ImmutableMap<String, String> sources() {
+    ImmutableMap.Builder<String, String> sources = ImmutableMap.builder();
+    for (int level = 0; level <= subcomponentDepth(); level++) {
+      for (int module = 0; module < modulesPerComponent(); module++) {
+        sources.put(qualifiedName(moduleName(level, module)), moduleSource(level, module));
+      }
+      sources.put(qualifiedName(componentName(level)), componentSource(level));
+    }
+    if (producerModules() > 0) {
+      for (int module = 0; module < producerModules(); module++) {
+        sources.put(qualifiedName(producerModuleName(module)), producerModuleSource(module));
+      }
+      sources.put(qualifiedName("BenchExecutorModule"), executorModuleSource());
+      sources.put(qualifiedName("BenchProductionComponent"), productionComponentSource());
+    }
+    return sources.build();
+  }
+
+  private static String qualifiedName(String className) {
+    return PACKAGE + "." + className;
+  }
+
+  private static String moduleName(int level, int module) {
+    return "L" + level + "M" + module;
+  }
+
+  private static String componentName(int level) {
+    return "L" + level + "Component";
+  }
+
+  private static String producerModuleName(int module) {
+    return "P" + module;
+  }
+
+  /** Returns the type of the last binding in the given module, which other modules depend on. */
+  private String lastNode(int level, int module) {
+    return moduleName(level, module) + ".N" + (bindingsPerModule() - 1);
+  }
+
+  /** Returns the type that the first binding in the given module depends on, if any. */
+  private String upstreamNode(int level, int module) {
+    if (module > 0) {
+      return lastNode(level, module - 1);
+    } else if (level > 0) {
+      return lastNode(level - 1, modulesPerComponent() - 1);
+    }
+    return null;
+  }
+
+  private String moduleSource(int level, int module) {
+    String name = moduleName(level, module);
+    StringBuilder source = header();
+    source.append("@Module\n");
+    source.append("public final class ").append(name).append(" {\n");
+    for (int node = 0; node < bindingsPerModule(); node++) {
+      String dependency = node > 0 ? "N" + (node - 1) : upstreamNode(level, module);
+      String parameter = dependency == null ? "" : dependency + " dependency";
+      if (node % 2 == 0) {
+        if (level == 0 && node % 4 == 0) {
+          source.append("  @Singleton\n");
+        }
+        source.append("  public static final class N").append(node).append(" {\n");
+        source.append("    @Inject N").append(node).append("(").append(parameter).append(") {}\n");
+        source.append("  }\n\n");
+      } else {
+        source.append("  public static final class N").append(node).append(" {}\n\n");
+        source.append("  @Provides\n");
+        source.append("  static N").append(node).append(" provideN").append(node);
+        source.append("(").append(parameter).append(") {\n");
+        source.append("    return new N").append(node).append("();\n");
+        source.append("  }\n\n");
+      }
+    }
+    for (int contribution = 0; contribution < multibindingsPerModule(); contribution++) {
+      String key = name + "K" + contribution;
+      source.append("  @Provides @IntoSet static String set").append(contribution).append("() {\n");
+      source.append("    return \"").append(key).append("\";\n");
+      source.append("  }\n\n");
+      source.append("  @Provides @IntoMap @StringKey(\"").append(key).append("\")\n");
+      source.append("  static Integer map").append(contribution).append("() {\n");
+      source.append("    return ").append(contribution).append(";\n");
+      source.append("  }\n\n");
+    }
+    for (int assisted = 0; assisted < assistedFactoriesPerModule(); assisted++) {
+      source.append("  public static final class A").append(assisted).append(" {\n");
+      source.append("    @AssistedInject A").append(assisted);
+      source.append("(@Assisted int id, N0 dependency) {}\n");
+      source.append("  }\n\n");
+      source.append("  @AssistedFactory\n");
+      source.append("  public interface A").append(assisted).append("Factory {\n");
+      source.append("    A").append(assisted).append(" create(int id);\n");
+      source.append("  }\n\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private String componentSource(int level) {
+    String name = componentName(level);
+    StringBuilder source = header();
+    List<String> modules = new ArrayList<>();
+    for (int module = 0; module < modulesPerComponent(); module++) {
+      modules.add(moduleName(level, module) + ".class");
+    }
+    String modulesList = String.join(", ", modules);
+    if (level == 0) {
+      source.append("@Singleton\n");
+      source.append("@Component(modules = {").append(modulesList).append("})\n");
+    } else {
+      source.append("@Subcomponent(modules = {").append(modulesList).append("})\n");
+    }
+    source.append("public interface ").append(name).append(" {\n");
+    for (int module = 0; module < modulesPerComponent(); module++) {
+      source.append("  ").append(lastNode(level, module)).append(" entry").append(module);
+      source.append("();\n");
+      for (int assisted = 0; assisted < assistedFactoriesPerModule(); assisted++) {
+        source.append("  ").append(moduleName(level, module)).append(".A").append(assisted);
+        source.append("Factory assisted").append(module).append("_").append(assisted);
+        source.append("();\n");
+      }
+    }
+    if (multibindingsPerModule() > 0) {
+      source.append("  Set<String> strings();\n");
+      source.append("  Map<String, Integer> integers();\n");
+    }
+    if (level < subcomponentDepth()) {
+      source.append("  ").append(componentName(level + 1)).append(" child();\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private String producerModuleSource(int module) {
+    String name = producerModuleName(module);
+    StringBuilder source = header();
+    source.append("@ProducerModule\n");
+    source.append("public final class ").append(name).append(" {\n");
+    for (int node = 0; node < bindingsPerProducerModule(); node++) {
+      String dependency =
+          node > 0
+              ? "R" + (node - 1)
+              : module > 0 ? producerModuleName(module - 1) + ".R" + lastProducerNode() : null;
+      source.append("  public static final class R").append(node).append(" {}\n\n");
+      source.append("  @Produces\n");
+      if (node % 3 == 0) {
+        source.append("  static ListenableFuture<R").append(node).append("> produceR");
+        source.append(node).append("(");
+        if (dependency != null) {
+          source.append(dependency).append(" dependency");
+        }
+        source.append(") {\n");
+        source.append("    return Futures.immediateFuture(new R").append(node).append("());\n");
+      } else {
+        source.append("  static R").append(node).append(" produceR").append(node).append("(");
+        // Every other synchronous producer requests its dependency conditionally.
+        source.append(node % 2 == 0 ? "Producer<" + dependency + ">" : dependency);
+        source.append(" dependency) {\n");
+        source.append("    return new R").append(node).append("();\n");
+      }
+      source.append("  }\n\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private int lastProducerNode() {
+    return bindingsPerProducerModule() - 1;
+  }
+
+  private static String executorModuleSource() {
+    return header()
+        .append("@Module\n")
+        .append("public final class BenchExecutorModule {\n")
+        .append("  @Provides @Production\n")
+        .append("  static Executor executor() {\n")
+        .append("    return MoreExecutors.directExecutor();\n")
+        .append("  }\n")
+        .append("}\n")
+        .toString();
+  }
+
+  private String productionComponentSource() {
+    StringBuilder source = header();
+    List<String> modules = new ArrayList<>();
+    modules.add("BenchExecutorModule.class");
+    for (int module = 0; module < producerModules(); module++) {
+      modules.add(producerModuleName(module) + ".class");
+    }
+    source.append("@ProductionComponent(modules = {").append(String.join(", ", modules));
+    source.append("})\n");
+    source.append("public interface BenchProductionComponent {\n");
+    for (int module = 0; module < producerModules(); module++) {
+      source.append("  ListenableFuture<").append(producerModuleName(module)).append(".R");
+      source.append(lastProducerNode()).append("> entry").append(module).append("();\n");
+    }
+    return source.append("}\n").toString();
+  }
+
+  private static StringBuilder header() {
+    return new StringBuilder()
+        .append("package ").append(PACKAGE).append(";\n\n")
+        .append("import com.google.common.util.concurrent.Futures;\n")
+        .append("import com.google.common.util.concurrent.ListenableFuture;\n")
+        .append("import com.google.common.util.concurrent.MoreExecutors;\n")
+        .append("import dagger.Component;\n")
+        .append("import dagger.Module;\n")
+        .append("import dagger.Provides;\n")
+        .append("import dagger.Subcomponent;\n")
+        .append("import dagger.assisted.Assisted;\n")
+        .append("import dagger.assisted.AssistedFactory;\n")
+        .append("import dagger.assisted.AssistedInject;\n")
+        .append("import dagger.multibindings.IntoMap;\n")
+        .append("import dagger.multibindings.IntoSet;\n")
+        .append("import dagger.multibindings.StringKey;\n")
+        .append("import dagger.producers.Producer;\n")
+        .append("import dagger.producers.ProducerModule;\n")
+        .append("import dagger.producers.Produces;\n")
+        .append("import dagger.producers.Production;\n")
+        .append("import dagger.producers.ProductionComponent;\n")
+        .append("import java.util.Map;\n")
+        .append("import java.util.Set;\n")
+        .append("import java.util.concurrent.Executor;\n")
+        .append("import javax.inject.Inject;\n")
+        .append("import javax.inject.Singleton;\n\n");
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+    abstract Builder subcomponentDepth(int subcomponentDepth);
+
+    abstract Builder modulesPerComponent(int modulesPerComponent);
+
+    abstract Builder bindingsPerModule(int bindingsPerModule);
+
+    abstract Builder multibindingsPerModule(int multibindingsPerModule);
+
+    abstract Builder assistedFactoriesPerModule(int assistedFactoriesPerModule);
+
+    abstract Builder producerModules(int producerModules);
+
+    abstract Builder bindingsPerProducerModule(int bindingsPerProducerModule);
+
+    abstract SyntheticGraph build();
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmark;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.room.compiler.processing.util.Source;
+import com.google.common.collect.ImmutableList;
+import dagger.testing.compile.CompilerTests;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SyntheticGraphTest {
+  @Test
+  public void sources_compileWithoutErrors() {
+    SyntheticGraph graph =
+        SyntheticGraph.builder()
+            .subcomponentDepth(2)
+            .modulesPerComponent(2)
+            .bindingsPerModule(5)
+            .multibindingsPerModule(2)
+            .assistedFactoriesPerModule(1)
+            .producerModules(2)
+            .bindingsPerProducerModule(7)
+            .build();
+    ImmutableList<Source> sources =
+        graph.sources().entrySet().stream()
+            .map(source -> CompilerTests.javaSource(source.getKey(), source.getValue()))
+            .collect(toImmutableList());
+
+    CompilerTests.daggerCompiler(sources).compile(subject -> subject.hasErrorCount(0));
+  }
+
+  @Test
+  public void scaledBy_multipliesModules() {
+    SyntheticGraph graph =
+        SyntheticGraph.builder()
+            .subcomponentDepth(1)
+            .modulesPerComponent(3)
+            .bindingsPerModule(4)
+            .producerModules(2)
+            .build();
+
+    SyntheticGraph scaled = graph.scaledBy(2);
+
+    assertThat(scaled.modulesPerComponent()).isEqualTo(6);
+    assertThat(scaled.producerModules()).isEqualTo(4);
+    assertThat(scaled.bindingCount()).isEqualTo(2 * graph.bindingCount());
+    // Two levels of 6 modules and a component each, plus 4 producer modules, the executor module
+    // and the production component.
+    assertThat(scaled.sources()).hasSize(2 * 7 + 4 + 2);
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package dagger.internal.codegen.writing;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import com.squareup.javapoet.CodeBlock;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BytecodeSizeEstimatorTest {
+  private static final ImmutableSet<String> PARAMETERS =
+      ImmutableSet.of("module", "mayInterruptIfRunning");
+
+  /** Statements like those of generated initialize() and cancelProducers() methods. */
+  private static final ImmutableList<String> STATEMENTS =
+      ImmutableList.of(
+          "this.fooProvider = barProvider;",
+          "this.fooProvider = InstanceFactory.create(module);",
+          "this.fooProvider = Foo_Factory.create(module, barProvider);",
+          "this.fooProvider = DoubleCheck.provider(Foo_Factory.create(barProvider, bazProvider));",
+          "this.fooProvider = DelegateFactory.provider(DoubleCheck.provider(barProvider));",
+          "this.fooProvider = new SwitchingProvider<>(component, 0);",
+          "this.fooProvider = SetFactory.<Object>builder(2, 0).addProvider(barProvider)"
+              + ".addProvider(bazProvider).build();",
+          "this.fooProducer = Producers.producerFromProvider(barProvider);",
+          "Producers.cancel(fooProducer, mayInterruptIfRunning);",
+          "Producers.cancel(this.fooProducer, mayInterruptIfRunning);",
+          "Object local = barProvider.get(); this.foo = local;");
+
+  @Test
+  public void estimate_isAtLeastJavacsCodeSize() throws IOException {
+    for (String statement : STATEMENTS) {
+      int actual = codeSize(statement);
+      int estimate = BytecodeSizeEstimator.estimate(CodeBlock.of("$L", statement), PARAMETERS);
+      assertWithMessage(statement).that(estimate).isAtLeast(actual);
+      assertWithMessage(statement).that(estimate).isAtMost(actual + actual / 4);
+    }
+  }
+
+  @Test
+  public void estimate_unqualifiedFieldReadLoadsThis() {
+    assertThat(estimate("this.fooProvider = barProvider;"))
+        .isEqualTo(estimate("this.fooProvider = this.barProvider;"));
+    assertThat(estimate("this.fooProvider = barProvider;"))
+        .isGreaterThan(estimate("this.fooProvider = module;"));
+  }
+
+  private static int estimate(String statement) {
+    return BytecodeSizeEstimator.estimate(CodeBlock.of("$L", statement), PARAMETERS);
+  }
+
+  /**
+   * Returns the size of the bytecode that javac emits for {@code statement}, without the method's
+   * return instruction.
+   */
+  private static int codeSize(String statement) throws IOException {
+    JavaFileObject source =
+        JavaFileObjects.forSourceLines(
+            "test.Sample",
+            "package test;",
+            "",
+            "interface Provider { Object get(); }",
+            "",
+            "final class Foo_Factory {",
+            "  static Provider create(Object a, Object b) { return null; }",
+            "}",
+            "",
+            "final class InstanceFactory {",
+            "  static Provider create(Object instance) { return null; }",
+            "}",
+            "",
+            "final class DoubleCheck {",
+            "  static Provider provider(Provider provider) { return provider; }",
+            "}",
+            "",
+            "final class DelegateFactory {",
+            "  static Provider provider(Provider provider) { return provider; }",
+            "}",
+            "",
+            "final class SwitchingProvider<T> implements Provider {",
+            "  SwitchingProvider(Object component, int id) {}",
+            "  @Override public Object get() { return null; }",
+            "}",
+            "",
+            "final class SetFactory {",
+            "  static <T> SetFactory builder(int individual, int collections) { return null; }",
+            "  SetFactory addProvider(Provider provider) { return this; }",
+            "  Provider build() { return null; }",
+            "}",
+            "",
+            "final class Producers {",
+            "  static Object producerFromProvider(Provider provider) { return provider; }",
+            "  static void cancel(Object producer, boolean mayInterruptIfRunning) {}",
+            "}",
+            "",
+            "final class Sample {",
+            "  Provider fooProvider;",
+            "  Provider barProvider;",
+            "  Provider bazProvider;",
+            "  Object fooProducer;",
+            "  Object foo;",
+            "  Object component;",
+            "",
+            "  void method(Object module, boolean mayInterruptIfRunning) {",
+            "    " + statement,
+            "  }",
+            "}");
+    Compilation compilation = javac().compile(source);
+    assertThat(compilation).succeeded();
+    JavaFileObject classFile =
+        compilation.generatedFile(StandardLocation.CLASS_OUTPUT, "test", "Sample.class").get();
+    try (InputStream input = classFile.openInputStream()) {
+      return codeLength(ByteStreams.toByteArray(input), "method") - 1;
+    }
+  }
+
+  /** Returns the length of the Code attribute of the method named {@code methodName}. */
+  private static int codeLength(byte[] classFile, String methodName) throws IOException {
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(classFile));
+    input.skipBytes(8); // magic, minor_version, major_version
+    int constantPoolCount = input.readUnsignedShort();
+    String[] utf8Constants = new String[constantPoolCount];
+    for (int i = 1; i < constantPoolCount; i++) {
+      int tag = input.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          utf8Constants[i] = input.readUTF();
+          break;
+        case 5: // Long
+        case 6: // Double
+          input.skipBytes(8);
+          i++;
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          input.skipBytes(2);
+          break;
+        case 15: // MethodHandle
+          input.skipBytes(3);
+          break;
+        default: // Integer, Float, the member refs, NameAndType, Dynamic and InvokeDynamic
+          input.skipBytes(4);
+      }
+    }
+    input.skipBytes(6); // access_flags, this_class, super_class
+    input.skipBytes(2 * input.readUnsignedShort()); // interfaces
+    int fieldCount = input.readUnsignedShort();
+    for (int i = 0; i < fieldCount; i++) {
+      input.skipBytes(6); // access_flags, name_index, descriptor_index
+      int attributeCount = input.readUnsignedShort();
+      for (int j = 0; j < attributeCount; j++) {
+        input.skipBytes(2);
+        input.skipBytes(input.readInt());
+      }
+    }
+    int methodCount = input.readUnsignedShort();
+    for (int i = 0; i < methodCount; i++) {
+      input.skipBytes(2); // access_flags
+      String name = utf8Constants[input.readUnsignedShort()];
+      input.skipBytes(2); // descriptor_index
+      int attributeCount = input.readUnsignedShort();
+      for (int j = 0; j < attributeCount; j++) {
+        String attributeName = utf8Constants[input.readUnsignedShort()];
+        int length = input.readInt();
+        if (name.equals(methodName) && attributeName.equals("Code")) {
+          input.skipBytes(4); // max_stack, max_locals
+          return input.readInt();
+        }
+        input.skipBytes(length);
+      }
+    }
+    throw new AssertionError("No method named " + methodName);
+  }
+}
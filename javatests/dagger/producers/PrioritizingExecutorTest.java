@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PrioritizingExecutorTest {
+  /** An executor that queues tasks until they are run by the test. */
+  private static final class QueueingExecutor implements Executor {
+    final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable runnable) {
+      tasks.add(runnable);
+    }
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        tasks.remove().run();
+      }
+    }
+  }
+
+  private static Runnable add(final List<String> list, final String value) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        list.add(value);
+      }
+    };
+  }
+
+  @Test
+  public void runsHighestPriorityFirst() {
+    QueueingExecutor delegate = new QueueingExecutor();
+    PrioritizingExecutor executor = PrioritizingExecutor.wrap(delegate);
+    List<String> order = new ArrayList<>();
+    executor.execute(add(order, "low"), 1);
+    executor.execute(add(order, "default"));
+    executor.execute(add(order, "high"), 5);
+    executor.execute(add(order, "medium1"), 3);
+    executor.execute(add(order, "medium2"), 3);
+
+    delegate.runAll();
+    assertThat(order).containsExactly("high", "medium1", "medium2", "low", "default").inOrder();
+  }
+
+  @Test
+  public void wrapIsIdempotent() {
+    PrioritizingExecutor executor = PrioritizingExecutor.wrap(new QueueingExecutor());
+    assertThat(PrioritizingExecutor.wrap(executor)).isSameInstanceAs(executor);
+  }
+
+  @Test
+  public void rejectedTaskIsNotQueued() {
+    final QueueingExecutor queue = new QueueingExecutor();
+    Executor rejecting =
+        new Executor() {
+          boolean reject = true;
+
+          @Override
+          public void execute(Runnable runnable) {
+            if (reject) {
+              reject = false;
+              throw new RejectedExecutionException();
+            }
+            queue.execute(runnable);
+          }
+        };
+    PrioritizingExecutor executor = PrioritizingExecutor.wrap(rejecting);
+    List<String> order = new ArrayList<>();
+    try {
+      executor.execute(add(order, "rejected"), 10);
+      fail();
+    } catch (RejectedExecutionException expected) {
+    }
+    executor.execute(add(order, "accepted"), 1);
+
+    queue.runAll();
+    assertThat(order).containsExactly("accepted");
+  }
+
+  @Test
+  public void rejectedTaskAlreadyTakenByDelegateRunsOnce() {
+    final QueueingExecutor queue = new QueueingExecutor();
+    Executor rejecting =
+        new Executor() {
+          int submissions = 0;
+
+          @Override
+          public void execute(Runnable runnable) {
+            if (++submissions == 2) {
+              // A thread of the delegate drains the queue, including the task being rejected.
+              queue.runAll();
+              throw new RejectedExecutionException();
+            }
+            queue.execute(runnable);
+          }
+        };
+    PrioritizingExecutor executor = PrioritizingExecutor.wrap(rejecting);
+    List<String> order = new ArrayList<>();
+    executor.execute(add(order, "first"), 1);
+    executor.execute(add(order, "second"), 10);
+
+    assertThat(order).containsExactly("second", "first").inOrder();
+  }
+
+  @Test
+  public void rejectionIsThrownWhileOtherTasksAreQueued() {
+    final QueueingExecutor queue = new QueueingExecutor();
+    Executor rejecting =
+        new Executor() {
+          int submissions = 0;
+
+          @Override
+          public void execute(Runnable runnable) {
+            if (++submissions == 2) {
+              throw new RejectedExecutionException();
+            }
+            queue.execute(runnable);
+          }
+        };
+    PrioritizingExecutor executor = PrioritizingExecutor.wrap(rejecting);
+    List<String> order = new ArrayList<>();
+    executor.execute(add(order, "low"), 1);
+    try {
+      executor.execute(add(order, "rejected"), 10);
+      fail();
+    } catch (RejectedExecutionException expected) {
+    }
+    executor.execute(add(order, "high"), 5);
+
+    assertThat(order).isEmpty();
+    queue.runAll();
+    assertThat(order).containsExactly("high", "low").inOrder();
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.benchmark;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Producer;
+import dagger.producers.internal.AbstractProducer;
+import dagger.producers.internal.Producers;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the allocation of the producers runtime on the paths that every request of a production
+ * component takes, such as requesting a producer's dependency views or a {@code Produced} value.
+ *
+ * <p>Each case runs an operation many times on the benchmark's thread, and the bytes that the
+ * thread allocated per operation are printed. The binary runs with {@code -XX:-DoEscapeAnalysis},
+ * so that allocations are counted even where the JIT could eliminate them in this simple loop.
+ *
+ * <p>Usage: {@code ProducerAllocationBenchmark [--cases=dependency-views-pending,...] [--warmup=3]
+ * [--iterations=1000000]}.
+ */
+public final class ProducerAllocationBenchmark {
+  private static final Splitter COMMA = Splitter.on(',').omitEmptyStrings().trimResults();
+  /** The number of dependents of each producer in the dependency view cases. */
+  private static final int DEPENDENTS = 8;
+
+  /** The completed input of the {@link Case#PRODUCED_DONE} case. */
+  private static final ListenableFuture<Integer> DONE = Futures.immediateFuture(1);
+
+  /** Keeps the results of each operation reachable, so that they can't be optimized away. */
+  private static volatile Object sink;
+
+  /** An operation whose allocation is measured. */
+  enum Case {
+    /** Creates a producer that hasn't completed, and requests it through each dependent's view. */
+    DEPENDENCY_VIEWS_PENDING {
+      @Override
+      Object run() {
+        return requestDependencyViews(new BenchmarkProducer(SettableFuture.<Integer>create()));
+      }
+    },
+    /** Creates a producer that has completed, and requests it through each dependent's view. */
+    DEPENDENCY_VIEWS_DONE {
+      @Override
+      Object run() {
+        return requestDependencyViews(new BenchmarkProducer(Futures.immediateFuture(1)));
+      }
+    },
+    /** Requests a {@code Produced} of a future that hasn't completed. */
+    PRODUCED_PENDING {
+      @Override
+      Object run() {
+        return Producers.createFutureProduced(SettableFuture.<Integer>create());
+      }
+    },
+    /** Requests a {@code Produced} of a future that has completed. */
+    PRODUCED_DONE {
+      @Override
+      Object run() {
+        return Producers.createFutureProduced(DONE);
+      }
+    };
+
+    /** Runs the operation once, and returns its result. */
+    abstract Object run();
+
+    String displayName() {
+      return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+  }
+
+  public static void main(String[] args) {
+    List<Case> cases = ImmutableList.copyOf(Case.values());
+    int warmup = 3;
+    int iterations = 1_000_000;
+    for (String arg : args) {
+      if (arg.startsWith("--cases=")) {
+        cases =
+            COMMA.splitToList(value(arg)).stream()
+                .map(name -> Case.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_')))
+                .collect(toImmutableList());
+      } else if (arg.startsWith("--warmup=")) {
+        warmup = Integer.parseInt(value(arg));
+      } else if (arg.startsWith("--iterations=")) {
+        iterations = Integer.parseInt(value(arg));
+      } else {
+        throw new IllegalArgumentException("unknown argument: " + arg);
+      }
+    }
+    checkArgument(iterations > 0, "iterations must be positive: %s", iterations);
+
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    PrintStream out = System.out;
+    out.printf("%-28s %14s%n", "case", "bytes/op");
+    for (Case benchmarkCase : cases) {
+      for (int i = 0; i < warmup; i++) {
+        runAll(benchmarkCase, iterations);
+      }
+      long start = threads.getThreadAllocatedBytes(threadId);
+      runAll(benchmarkCase, iterations);
+      long allocated = threads.getThreadAllocatedBytes(threadId) - start;
+      out.printf("%-28s %14.1f%n", benchmarkCase.displayName(), (double) allocated / iterations);
+    }
+  }
+
+  private static void runAll(Case benchmarkCase, int iterations) {
+    for (int i = 0; i < iterations; i++) {
+      sink = benchmarkCase.run();
+    }
+  }
+
+  private static Object requestDependencyViews(AbstractProducer<Integer> producer) {
+    Object[] futures = new Object[DEPENDENTS];
+    for (int i = 0; i < DEPENDENTS; i++) {
+      Producer<Integer> view = Producers.nonCancellationPropagatingViewOf(producer);
+      futures[i] = view.get();
+    }
+    return futures;
+  }
+
+  private static String value(String arg) {
+    return arg.substring(arg.indexOf('=') + 1);
+  }
+
+  /** A producer whose computed future is given. */
+  private static final class BenchmarkProducer extends AbstractProducer<Integer> {
+    private final ListenableFuture<Integer> future;
+
+    BenchmarkProducer(ListenableFuture<Integer> future) {
+      this.future = future;
+    }
+
+    @Override
+    protected ListenableFuture<Integer> compute() {
+      return future;
+    }
+  }
+
+  private ProducerAllocationBenchmark() {}
+}
@@ -21,7 +21,9 @@ import static org.junit.Assert.fail;
 
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -57,6 +59,47 @@ public class AbstractProducerTest {
     assertThat(producer.get().get()).isEqualTo(0);
   }
 
+  @Test
+  public void dependencyView_isSharedAndDoesNotPropagateCancellation() throws Exception {
+    SettableFuture<Integer> delegate = SettableFuture.create();
+    DelegateProducer<Integer> producer = new DelegateProducer<>(delegate);
+    Producer<Integer> view = producer.newDependencyView();
+    assertThat(producer.newDependencyView()).isSameInstanceAs(view);
+
+    // Each dependent can cancel its own future, without cancelling the producer or the others.
+    ListenableFuture<Integer> cancelled = view.get();
+    ListenableFuture<Integer> other = view.get();
+    assertThat(cancelled.cancel(true)).isTrue();
+    assertThat(cancelled.isCancelled()).isTrue();
+    assertThat(other.isCancelled()).isFalse();
+    assertThat(producer.get().isCancelled()).isFalse();
+    assertThat(delegate.isCancelled()).isFalse();
+
+    delegate.set(42);
+    assertThat(other.get()).isEqualTo(42);
+    // Once the producer has completed, dependents share its own future.
+    assertThat(view.get()).isSameInstanceAs(producer.get());
+  }
+
+  @Test
+  public void entryPointView_notifiesListenerWhenCancelled() {
+    SettableFuture<Integer> delegate = SettableFuture.create();
+    DelegateProducer<Integer> producer = new DelegateProducer<>(delegate);
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    Producer<Integer> entryPoint =
+        producer.newEntryPointView(
+            new CancellationListener() {
+              @Override
+              public void onProducerFutureCancelled(boolean mayInterruptIfRunning) {
+                cancelled.set(true);
+              }
+            });
+
+    assertThat(entryPoint.get().cancel(true)).isTrue();
+    assertThat(cancelled.get()).isTrue();
+    assertThat(producer.get().isCancelled()).isFalse();
+  }
+
   static final class DelegateProducer<T> extends AbstractProducer<T> {
     private final ListenableFuture<T> delegate;
 
@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -28,17 +29,23 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Bulkhead;
 import dagger.producers.Producer;
+import dagger.producers.monitoring.ProducerGraph;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import javax.inject.Provider;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -112,6 +119,165 @@ public class AbstractProducesMethodProducerTest {
     return any(ListenableFuture.class);
   }
 
+  @Test
+  public void withProducerGraph_usesIndexedToken() throws Exception {
+    ProducerToken token = ProducerToken.create("token");
+    ProducerGraph graph =
+        ProducerGraph.create(new ProducerToken[] {token}, new int[][] {{}}, new int[] {0});
+    DelegateProducer<Integer> producer =
+        Producers.withProducerGraph(
+            new DelegateProducer<>(componentMonitorProvider, token, Futures.immediateFuture(42)),
+            graph,
+            0);
+
+    assertThat(producer.get().get()).isEqualTo(42);
+    ArgumentCaptor<ProducerToken> tokenCaptor = ArgumentCaptor.forClass(ProducerToken.class);
+    verify(componentMonitor).producerMonitorFor(tokenCaptor.capture());
+    assertThat(tokenCaptor.getValue()).isEqualTo(token);
+    assertThat(tokenCaptor.getValue().index()).isEqualTo(0);
+  }
+
+  @Test
+  public void withProducerGraph_keepsProducerTokenThatDiffersFromGraph() throws Exception {
+    // The module was compiled with a different token format than the component.
+    ProducerToken producerToken = ProducerToken.create("a");
+    ProducerGraph graph =
+        ProducerGraph.create(
+            new ProducerToken[] {ProducerToken.create(Object.class)},
+            new int[][] {{}},
+            new int[] {0});
+    DelegateProducer<Integer> producer =
+        Producers.withProducerGraph(
+            new DelegateProducer<>(
+                componentMonitorProvider, producerToken, Futures.immediateFuture(42)),
+            graph,
+            0);
+
+    assertThat(producer.get().get()).isEqualTo(42);
+    ArgumentCaptor<ProducerToken> tokenCaptor = ArgumentCaptor.forClass(ProducerToken.class);
+    verify(componentMonitor).producerMonitorFor(tokenCaptor.capture());
+    assertThat(tokenCaptor.getValue()).isEqualTo(producerToken);
+    assertThat(tokenCaptor.getValue().index()).isEqualTo(0);
+    assertThat(graph.contains(tokenCaptor.getValue())).isTrue();
+    assertThat(graph.priorityOf(tokenCaptor.getValue())).isEqualTo(1);
+  }
+
+  @Test
+  public void bulkhead_queuesWhenSaturated() throws Exception {
+    BulkheadGroup group = BulkheadGroup.named("queue", 1);
+    SettableFuture<Integer> first = SettableFuture.create();
+    SettableFuture<Integer> second = SettableFuture.create();
+    Producer<Integer> firstProducer =
+        new DelegateProducer<>(componentMonitorProvider, first, group, Bulkhead.Saturation.QUEUE);
+    Producer<Integer> secondProducer =
+        new DelegateProducer<>(componentMonitorProvider, second, group, Bulkhead.Saturation.QUEUE);
+
+    ListenableFuture<Integer> firstFuture = firstProducer.get();
+    ListenableFuture<Integer> secondFuture = secondProducer.get();
+    verify(monitor).bulkheadSaturated("queue");
+    verify(monitor).methodStarting();
+    assertThat(group.inFlight()).isEqualTo(1);
+    assertThat(group.queued()).isEqualTo(1);
+
+    first.set(1);
+    assertThat(firstFuture.get()).isEqualTo(1);
+    verify(monitor, times(2)).methodStarting();
+    assertThat(group.inFlight()).isEqualTo(1);
+    assertThat(group.queued()).isEqualTo(0);
+
+    second.set(2);
+    assertThat(secondFuture.get()).isEqualTo(2);
+    assertThat(group.inFlight()).isEqualTo(0);
+  }
+
+  @Test
+  public void bulkhead_failsWhenSaturated() throws Exception {
+    BulkheadGroup group = BulkheadGroup.named("fail", 1);
+    SettableFuture<Integer> first = SettableFuture.create();
+    Producer<Integer> firstProducer =
+        new DelegateProducer<>(componentMonitorProvider, first, group, Bulkhead.Saturation.FAIL);
+    Producer<Integer> secondProducer =
+        new DelegateProducer<>(
+            componentMonitorProvider,
+            Futures.immediateFuture(2),
+            group,
+            Bulkhead.Saturation.FAIL);
+
+    ListenableFuture<Integer> firstFuture = firstProducer.get();
+    ListenableFuture<Integer> secondFuture = secondProducer.get();
+    verify(monitor).bulkheadSaturated("fail");
+    try {
+      secondFuture.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e).hasCauseThat().isInstanceOf(RejectedExecutionException.class);
+    }
+    verify(monitor).methodStarting();
+
+    first.set(1);
+    assertThat(firstFuture.get()).isEqualTo(1);
+    assertThat(group.inFlight()).isEqualTo(0);
+  }
+
+  @Test
+  public void bulkhead_cancelledWhileQueued_doesNotLeakPermit() throws Exception {
+    BulkheadGroup group = BulkheadGroup.named("cancel", 1);
+    SettableFuture<Integer> first = SettableFuture.create();
+    Producer<Integer> firstProducer =
+        new DelegateProducer<>(componentMonitorProvider, first, group, Bulkhead.Saturation.QUEUE);
+    DelegateProducer<Integer> secondProducer =
+        new DelegateProducer<>(
+            componentMonitorProvider,
+            Futures.immediateFuture(2),
+            group,
+            Bulkhead.Saturation.QUEUE);
+
+    firstProducer.get();
+    secondProducer.get();
+    secondProducer.cancel(true);
+    first.set(1);
+    assertThat(group.inFlight()).isEqualTo(0);
+    assertThat(group.queued()).isEqualTo(0);
+    verify(monitor).methodStarting();
+  }
+
+  @Test
+  public void bulkheadGroup_differentMaxInFlight_keepsFirstLimit() {
+    BulkheadGroup group = BulkheadGroup.named("mismatch", 1);
+    BulkheadGroup other = BulkheadGroup.named("mismatch", 2);
+    assertThat(other).isSameInstanceAs(group);
+    assertThat(other.maxInFlight()).isEqualTo(1);
+  }
+
+  @Test
+  public void conditionalDependency_setContributionsInCompletionOrder() throws Exception {
+    SettableFuture<Integer> slowFuture = SettableFuture.create();
+    SetProducer<Integer> setProducer =
+        SetProducer.<Integer>builder(2, 0)
+            .addProducer(dagger.producers.Producers.<Integer>immediateProducer(1))
+            .addProducer(
+                new Producer<Integer>() {
+                  @Override
+                  public ListenableFuture<Integer> get() {
+                    return slowFuture;
+                  }
+                })
+            .build();
+    DelegateProducer<Integer> producer =
+        new DelegateProducer<>(componentMonitorProvider, Futures.immediateFuture(42));
+    Producer<Set<Integer>> dependency =
+        producer.conditionalDependency("set", setProducer.newDependencyView());
+
+    List<ListenableFuture<Set<Integer>>> contributions =
+        dagger.producers.Producers.setContributionsInCompletionOrder(dependency);
+    assertThat(contributions).hasSize(2);
+    assertThat(contributions.get(0).get()).containsExactly(1);
+    assertThat(contributions.get(1).isDone()).isFalse();
+
+    slowFuture.set(2);
+    assertThat(contributions.get(1).get()).containsExactly(2);
+  }
+
   @Test(expected = NullPointerException.class)
   public void monitor_null() throws Exception {
     new DelegateProducer<>(null, Futures.immediateFuture(42));
@@ -123,9 +289,16 @@ public class AbstractProducesMethodProducerTest {
     DelegateProducer(
         Provider<ProductionComponentMonitor> componentMonitorProvider,
         ListenableFuture<T> delegate) {
+      this(componentMonitorProvider, null, delegate);
+    }
+
+    DelegateProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        ProducerToken token,
+        ListenableFuture<T> delegate) {
       super(
           componentMonitorProvider,
-          null, // token
+          token,
           new Provider<Executor>() {
             @Override
             public Executor get() {
@@ -135,6 +308,25 @@ public class AbstractProducesMethodProducerTest {
       this.delegate = delegate;
     }
 
+    DelegateProducer(
+        Provider<ProductionComponentMonitor> componentMonitorProvider,
+        ListenableFuture<T> delegate,
+        BulkheadGroup bulkhead,
+        Bulkhead.Saturation onSaturation) {
+      super(
+          componentMonitorProvider,
+          null,
+          new Provider<Executor>() {
+            @Override
+            public Executor get() {
+              return MoreExecutors.directExecutor();
+            }
+          },
+          bulkhead,
+          onSaturation);
+      this.delegate = delegate;
+    }
+
     @Override
     protected ListenableFuture<Void> collectDependencies() {
       return Futures.immediateFuture(null);
@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Bulkhead;
+import dagger.producers.Producer;
+import dagger.producers.monitoring.ProducerMonitor;
+import dagger.producers.monitoring.ProducerToken;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link AdmissionController}. */
+@RunWith(JUnit4.class)
+public final class AdmissionControllerTest {
+  private final List<SettableFuture<String>> startedExecutions = new ArrayList<>();
+  private final Producer<String> entryPoint =
+      new Producer<String>() {
+        @Override
+        public ListenableFuture<String> get() {
+          SettableFuture<String> future = SettableFuture.create();
+          startedExecutions.add(future);
+          return future;
+        }
+      };
+
+  private final AtomicInteger queuedCount = new AtomicInteger();
+  private final AtomicInteger rejectedCount = new AtomicInteger();
+  private final Provider<ProductionComponentMonitor> monitorProvider =
+      new Provider<ProductionComponentMonitor>() {
+        @Override
+        public ProductionComponentMonitor get() {
+          return new ProductionComponentMonitor() {
+            @Override
+            public ProducerMonitor producerMonitorFor(ProducerToken token) {
+              return ProducerMonitor.noOp();
+            }
+
+            @Override
+            public void executionQueued() {
+              queuedCount.incrementAndGet();
+            }
+
+            @Override
+            public void executionRejected() {
+              rejectedCount.incrementAndGet();
+            }
+          };
+        }
+      };
+
+  @Test
+  public void queue_startsExecutionWhenPermitIsReleased() throws Exception {
+    AdmissionController controller =
+        AdmissionController.create("Component", 1, Bulkhead.Saturation.QUEUE);
+
+    ListenableFuture<String> first = newExecutionView(controller).get();
+    ListenableFuture<String> second = newExecutionView(controller).get();
+    assertThat(startedExecutions).hasSize(1);
+    assertThat(controller.inFlight()).isEqualTo(1);
+    assertThat(controller.queued()).isEqualTo(1);
+    assertThat(queuedCount.get()).isEqualTo(1);
+
+    startedExecutions.get(0).set("first");
+    assertThat(first.get()).isEqualTo("first");
+    assertThat(startedExecutions).hasSize(2);
+    assertThat(controller.queued()).isEqualTo(0);
+
+    startedExecutions.get(1).set("second");
+    assertThat(second.get()).isEqualTo("second");
+    assertThat(controller.inFlight()).isEqualTo(0);
+  }
+
+  @Test
+  public void queue_cancelledWhileQueued_isNeverStarted() {
+    AdmissionController controller =
+        AdmissionController.create("Component", 1, Bulkhead.Saturation.QUEUE);
+
+    ListenableFuture<String> first = newExecutionView(controller).get();
+    ListenableFuture<String> second = newExecutionView(controller).get();
+    second.cancel(true);
+    startedExecutions.get(0).set("first");
+
+    assertThat(first.isDone()).isTrue();
+    assertThat(startedExecutions).hasSize(1);
+    assertThat(controller.inFlight()).isEqualTo(0);
+    assertThat(controller.queued()).isEqualTo(0);
+  }
+
+  @Test
+  public void fail_rejectsExecutionWhileSaturated() throws Exception {
+    AdmissionController controller =
+        AdmissionController.create("Component", 1, Bulkhead.Saturation.FAIL);
+
+    ListenableFuture<String> first = newExecutionView(controller).get();
+    ListenableFuture<String> second = newExecutionView(controller).get();
+    assertThat(startedExecutions).hasSize(1);
+    assertThat(rejectedCount.get()).isEqualTo(1);
+    try {
+      second.get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected).hasCauseThat().isInstanceOf(RejectedExecutionException.class);
+    }
+
+    startedExecutions.get(0).set("first");
+    assertThat(first.get()).isEqualTo("first");
+    assertThat(controller.inFlight()).isEqualTo(0);
+    newExecutionView(controller).get();
+    assertThat(startedExecutions).hasSize(2);
+  }
+
+  @Test
+  public void failedExecution_releasesPermit() {
+    AdmissionController controller =
+        AdmissionController.create("Component", 1, Bulkhead.Saturation.FAIL);
+
+    newExecutionView(controller).get();
+    startedExecutions.get(0).setException(new IllegalStateException());
+    assertThat(controller.inFlight()).isEqualTo(0);
+    assertThat(rejectedCount.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void execution_sharesOnePermitAcrossEntryPoints() throws Exception {
+    AdmissionController controller =
+        AdmissionController.create("Component", 1, Bulkhead.Saturation.FAIL);
+    AdmissionController.Execution execution = controller.newExecution();
+    Producer<String> a = execution.admissionControlledView(entryPoint, monitorProvider);
+    Producer<String> b = execution.admissionControlledView(entryPoint, monitorProvider);
+
+    ListenableFuture<String> first = a.get();
+    ListenableFuture<String> second = b.get();
+    ListenableFuture<String> third = a.get();
+    assertThat(startedExecutions).hasSize(3);
+    assertThat(controller.inFlight()).isEqualTo(1);
+    assertThat(rejectedCount.get()).isEqualTo(0);
+
+    startedExecutions.get(0).set("first");
+    startedExecutions.get(1).set("second");
+    assertThat(controller.inFlight()).isEqualTo(1);
+    startedExecutions.get(2).set("third");
+    assertThat(controller.inFlight()).isEqualTo(0);
+    assertThat(first.get() + second.get() + third.get()).isEqualTo("firstsecondthird");
+  }
+
+  @Test
+  public void queue_queuedExecutionStartsAllOfItsEntryPoints() throws Exception {
+    AdmissionController controller =
+        AdmissionController.create("Component", 1, Bulkhead.Saturation.QUEUE);
+    ListenableFuture<String> first = newExecutionView(controller).get();
+    AdmissionController.Execution execution = controller.newExecution();
+    Producer<String> a = execution.admissionControlledView(entryPoint, monitorProvider);
+    Producer<String> b = execution.admissionControlledView(entryPoint, monitorProvider);
+
+    ListenableFuture<String> second = a.get();
+    ListenableFuture<String> third = b.get();
+    third.cancel(true);
+    assertThat(queuedCount.get()).isEqualTo(1);
+    assertThat(controller.queued()).isEqualTo(1);
+
+    startedExecutions.get(0).set("first");
+    assertThat(first.get()).isEqualTo("first");
+    // Only the entry point whose caller didn't give up is started, with the execution's permit.
+    assertThat(startedExecutions).hasSize(2);
+    assertThat(controller.inFlight()).isEqualTo(1);
+    startedExecutions.get(1).set("second");
+    assertThat(second.get()).isEqualTo("second");
+    assertThat(controller.inFlight()).isEqualTo(0);
+  }
+
+  private Producer<String> newExecutionView(AdmissionController controller) {
+    return controller.newExecution().admissionControlledView(entryPoint, monitorProvider);
+  }
+}
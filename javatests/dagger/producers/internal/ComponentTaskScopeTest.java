@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Producer;
+import dagger.producers.ProductionTaskScope;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Provider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link ComponentTaskScope}. */
+@RunWith(JUnit4.class)
+public final class ComponentTaskScopeTest {
+  private final List<Boolean> cancellations = new ArrayList<>();
+  private final ProductionTaskScopeComponent component =
+      new ProductionTaskScopeComponent() {
+        @Override
+        public ProductionTaskScope productionTaskScopeForStructuredConcurrency() {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancelProducersForStructuredConcurrency(boolean mayInterruptIfRunning) {
+          cancellations.add(mayInterruptIfRunning);
+        }
+      };
+  private final List<Runnable> tasks = new ArrayList<>();
+  private final Provider<Executor> executorProvider =
+      new Provider<Executor>() {
+        @Override
+        public Executor get() {
+          return new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+              tasks.add(runnable);
+            }
+          };
+        }
+      };
+
+  @Test
+  public void successfulEntryPoints_leaveScopeOpen() {
+    ComponentTaskScope scope = ComponentTaskScope.create(component, true);
+    SettableFuture<String> first = SettableFuture.create();
+    assertThat(scope.scopedEntryPointView(producerOf(first)).get()).isSameInstanceAs(first);
+    first.set("first");
+    assertThat(scope.isClosed()).isFalse();
+
+    // Entry points may be called one after another, and again once they've completed.
+    ListenableFuture<String> second = Futures.immediateFuture("second");
+    assertThat(scope.scopedEntryPointView(producerOf(second)).get()).isSameInstanceAs(second);
+    assertThat(scope.scopedEntryPointView(producerOf(first)).get()).isSameInstanceAs(first);
+    assertThat(scope.isClosed()).isFalse();
+    assertThat(cancellations).isEmpty();
+  }
+
+  @Test
+  public void failedEntryPoint_closesScope() {
+    ComponentTaskScope scope = ComponentTaskScope.create(component, true);
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<String> second = SettableFuture.create();
+    scope.scopedEntryPointView(producerOf(first)).get();
+    scope.scopedEntryPointView(producerOf(second)).get();
+
+    first.setException(new RuntimeException());
+    assertThat(scope.isClosed()).isTrue();
+    assertThat(cancellations).containsExactly(true);
+
+    assertThat(scope.scopedEntryPointView(producerOf(second)).get().isCancelled()).isTrue();
+    scope.close();
+    assertThat(cancellations).hasSize(1);
+  }
+
+  @Test
+  public void cancelledEntryPoint_closesScope() {
+    ComponentTaskScope scope = ComponentTaskScope.create(component, false);
+    SettableFuture<String> first = SettableFuture.create();
+    scope.scopedEntryPointView(producerOf(first)).get();
+
+    first.cancel(true);
+    assertThat(scope.isClosed()).isTrue();
+    assertThat(cancellations).containsExactly(false);
+  }
+
+  @Test
+  public void closedScope_doesNotCallProducesMethod() throws Exception {
+    ComponentTaskScope scope = ComponentTaskScope.create(component, false);
+    CountingProducer producer = Producers.withTaskScope(new CountingProducer(), scope);
+    ListenableFuture<String> future = producer.get();
+    assertThat(tasks).hasSize(1);
+
+    scope.close();
+    tasks.get(0).run();
+    assertThat(producer.calls).isEqualTo(0);
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(scope.awaitTermination(0, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void join_waitsForRunningProducesMethod() throws Exception {
+    final ComponentTaskScope scope = ComponentTaskScope.create(component, false);
+    final CountDownLatch methodStarted = new CountDownLatch(1);
+    final CountDownLatch finishMethod = new CountDownLatch(1);
+    CountingProducer producer =
+        Producers.withTaskScope(
+            new CountingProducer() {
+              @Override
+              protected ListenableFuture<String> callProducesMethod(Void asyncDependencies)
+                  throws Exception {
+                methodStarted.countDown();
+                finishMethod.await();
+                return super.callProducesMethod(asyncDependencies);
+              }
+            },
+            scope);
+    producer.get();
+    Thread thread = new Thread(tasks.get(0));
+    thread.start();
+    methodStarted.await();
+    assertThat(scope.runningTasks()).isEqualTo(1);
+
+    scope.close();
+    assertThat(scope.awaitTermination(10, TimeUnit.MILLISECONDS)).isFalse();
+    finishMethod.countDown();
+    scope.join();
+    assertThat(scope.runningTasks()).isEqualTo(0);
+    thread.join();
+  }
+
+  @Test
+  public void join_waitsForFutureOfAsyncProducesMethod() throws Exception {
+    final ComponentTaskScope scope = ComponentTaskScope.create(component, false);
+    final SettableFuture<String> methodFuture = SettableFuture.create();
+    CountingProducer producer =
+        Producers.withTaskScope(
+            new CountingProducer() {
+              @Override
+              protected ListenableFuture<String> callProducesMethod(Void asyncDependencies) {
+                calls++;
+                return methodFuture;
+              }
+            },
+            scope);
+    ListenableFuture<String> future = producer.get();
+    tasks.get(0).run();
+    assertThat(producer.calls).isEqualTo(1);
+    assertThat(scope.runningTasks()).isEqualTo(1);
+
+    scope.close();
+    assertThat(scope.awaitTermination(10, TimeUnit.MILLISECONDS)).isFalse();
+    methodFuture.set("value");
+    assertThat(scope.awaitTermination(0, TimeUnit.SECONDS)).isTrue();
+    assertThat(scope.runningTasks()).isEqualTo(0);
+    assertThat(future.get()).isEqualTo("value");
+  }
+
+  @Test
+  public void join_endsTaskOfThrowingProducesMethod() throws Exception {
+    ComponentTaskScope scope = ComponentTaskScope.create(component, false);
+    CountingProducer producer =
+        Producers.withTaskScope(
+            new CountingProducer() {
+              @Override
+              protected ListenableFuture<String> callProducesMethod(Void asyncDependencies) {
+                throw new IllegalStateException();
+              }
+            },
+            scope);
+    ListenableFuture<String> future = producer.get();
+    tasks.get(0).run();
+    assertThat(future.isDone()).isTrue();
+    assertThat(scope.runningTasks()).isEqualTo(0);
+
+    scope.close();
+    assertThat(scope.awaitTermination(0, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void forComponent() {
+    final ComponentTaskScope scope = ComponentTaskScope.create(component, false);
+    ProductionTaskScopeComponent scopedComponent =
+        new ProductionTaskScopeComponent() {
+          @Override
+          public ProductionTaskScope productionTaskScopeForStructuredConcurrency() {
+            return scope;
+          }
+
+          @Override
+          public void cancelProducersForStructuredConcurrency(boolean mayInterruptIfRunning) {}
+        };
+    assertThat(ProductionTaskScope.forComponent(scopedComponent)).isSameInstanceAs(scope);
+    assertThat(ProductionTaskScope.forComponent(new Object())).isNull();
+  }
+
+  private static <T> Producer<T> producerOf(final ListenableFuture<T> future) {
+    return new Producer<T>() {
+      @Override
+      public ListenableFuture<T> get() {
+        return future;
+      }
+    };
+  }
+
+  private class CountingProducer extends AbstractProducesMethodProducer<Void, String> {
+    int calls;
+
+    CountingProducer() {
+      super(
+          new Provider<ProductionComponentMonitor>() {
+            @Override
+            public ProductionComponentMonitor get() {
+              return ProductionComponentMonitor.noOp();
+            }
+          },
+          null,
+          executorProvider);
+    }
+
+    @Override
+    protected ListenableFuture<Void> collectDependencies() {
+      return Futures.immediateFuture(null);
+    }
+
+    @Override
+    protected ListenableFuture<String> callProducesMethod(Void asyncDependencies)
+        throws Exception {
+      calls++;
+      return Futures.immediateFuture("value");
+    }
+  }
+}
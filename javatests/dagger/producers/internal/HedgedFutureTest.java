@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.Bulkhead;
+import dagger.producers.monitoring.ProducerMonitor;
+import dagger.producers.monitoring.ProducerToken;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Provider;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests {@link HedgedFuture} and {@link HedgePolicy}. */
+@RunWith(JUnit4.class)
+public final class HedgedFutureTest {
+  private static final long LONG_DELAY_MILLIS = 60_000;
+
+  // A single thread, so that each test's calls run in the order they are submitted.
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final AtomicInteger hedgeCount = new AtomicInteger();
+  private final CountDownLatch hedgeStarted = new CountDownLatch(1);
+  private final Provider<ProductionComponentMonitor> componentMonitorProvider =
+      new Provider<ProductionComponentMonitor>() {
+        @Override
+        public ProductionComponentMonitor get() {
+          return new ProductionComponentMonitor() {
+            @Override
+            public ProducerMonitor producerMonitorFor(ProducerToken token) {
+              return new ProducerMonitor() {
+                @Override
+                public void hedgeStarted() {
+                  hedgeCount.incrementAndGet();
+                  hedgeStarted.countDown();
+                }
+              };
+            }
+          };
+        }
+      };
+
+  @After
+  public void shutDownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void fastCall_isNotHedged() throws Exception {
+    HedgedProducer producer =
+        new HedgedProducer(HedgePolicy.create(0, 0), Futures.immediateFuture(1));
+    assertThat(producer.get().get()).isEqualTo(1);
+    assertThat(producer.calls.isEmpty()).isTrue();
+    assertThat(hedgeCount.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void slowCall_isHedged() throws Exception {
+    SettableFuture<Integer> slowCall = SettableFuture.create();
+    HedgedProducer producer =
+        new HedgedProducer(HedgePolicy.create(0, 0), slowCall, Futures.immediateFuture(2));
+    assertThat(producer.get().get(10, SECONDS)).isEqualTo(2);
+    assertThat(hedgeCount.get()).isEqualTo(1);
+    assertThat(slowCall.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void firstSuccessWins() throws Exception {
+    SettableFuture<Integer> firstCall = SettableFuture.create();
+    SettableFuture<Integer> secondCall = SettableFuture.create();
+    HedgedProducer producer = new HedgedProducer(HedgePolicy.create(0, 0), firstCall, secondCall);
+    ListenableFuture<Integer> future = producer.get();
+    hedgeStarted.await(10, SECONDS);
+
+    secondCall.setException(new RuntimeException("second"));
+    assertThat(future.isDone()).isFalse();
+    firstCall.set(1);
+    assertThat(future.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void allCallsFail() throws Exception {
+    SettableFuture<Integer> firstCall = SettableFuture.create();
+    SettableFuture<Integer> secondCall = SettableFuture.create();
+    HedgedProducer producer = new HedgedProducer(HedgePolicy.create(0, 0), firstCall, secondCall);
+    ListenableFuture<Integer> future = producer.get();
+    hedgeStarted.await(10, SECONDS);
+
+    firstCall.setException(new RuntimeException("first"));
+    RuntimeException e = new RuntimeException("second");
+    secondCall.setException(e);
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected).hasCauseThat().isSameInstanceAs(e);
+    }
+  }
+
+  @Test
+  public void failureBeforeDelay_isNotHedged() throws Exception {
+    RuntimeException e = new RuntimeException("first");
+    HedgedProducer producer =
+        new HedgedProducer(
+            HedgePolicy.create(LONG_DELAY_MILLIS, 0), Futures.<Integer>immediateFailedFuture(e));
+    try {
+      producer.get().get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected).hasCauseThat().isSameInstanceAs(e);
+    }
+    assertThat(hedgeCount.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void cancellation_cancelsCalls() throws Exception {
+    SettableFuture<Integer> firstCall = SettableFuture.create();
+    HedgedProducer producer =
+        new HedgedProducer(
+            MoreExecutors.directExecutor(), HedgePolicy.create(LONG_DELAY_MILLIS, 0), firstCall);
+    producer.get();
+    producer.cancel(true);
+    assertThat(firstCall.isCancelled()).isTrue();
+    assertThat(hedgeCount.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void policy_usesPercentileOnceObserved() {
+    HedgePolicy policy = HedgePolicy.create(1, 90);
+    assertThat(policy.delayNanos()).isEqualTo(1_000_000);
+    for (int i = 0; i < HedgePolicy.MIN_OBSERVED_LATENCIES; i++) {
+      policy.recordLatency(i < HedgePolicy.MIN_OBSERVED_LATENCIES * 0.9 ? 1_000 : 1_000_000);
+    }
+    // 1,000ns is in the bucket of [512, 1023].
+    assertThat(policy.delayNanos()).isEqualTo(1_023);
+  }
+
+  @Test
+  public void hedgedCall_recordsItsOwnLatency() throws Exception {
+    long delayMillis = 2;
+    HedgePolicy policy = HedgePolicy.create(delayMillis, 50);
+    // The latency is recorded on the executor's thread just after each future completes, so an
+    // extra call, whose second call runs on the same thread, ensures that the others have been
+    // recorded.
+    for (int i = 0; i <= HedgePolicy.MIN_OBSERVED_LATENCIES; i++) {
+      SettableFuture<Integer> slowCall = SettableFuture.create();
+      HedgedProducer producer = new HedgedProducer(policy, slowCall, Futures.immediateFuture(2));
+      assertThat(producer.get().get(10, SECONDS)).isEqualTo(2);
+    }
+    // Each second call completed immediately, so the hedge delay isn't part of its latency.
+    assertThat(policy.delayNanos()).isLessThan(MILLISECONDS.toNanos(delayMillis));
+  }
+
+  @Test
+  public void directExecutor_doesNotCallMethodOnTimerThread() throws Exception {
+    SettableFuture<Integer> slowCall = SettableFuture.create();
+    HedgedProducer producer =
+        new HedgedProducer(
+            MoreExecutors.directExecutor(),
+            HedgePolicy.create(0, 0),
+            slowCall,
+            Futures.immediateFuture(2));
+    ListenableFuture<Integer> future = producer.get();
+    awaitTimer();
+
+    assertThat(hedgeCount.get()).isEqualTo(0);
+    assertThat(producer.calls).hasSize(1);
+    slowCall.set(1);
+    assertThat(future.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void saturatedBulkhead_isNotHedged() throws Exception {
+    BulkheadGroup bulkhead = BulkheadGroup.unshared("backend", 1);
+    SettableFuture<Integer> slowCall = SettableFuture.create();
+    HedgedProducer producer =
+        new HedgedProducer(
+            bulkhead, HedgePolicy.create(0, 0), slowCall, Futures.immediateFuture(2));
+    ListenableFuture<Integer> future = producer.get();
+    awaitExecutor();
+    awaitTimer();
+
+    assertThat(hedgeCount.get()).isEqualTo(0);
+    slowCall.set(1);
+    assertThat(future.get()).isEqualTo(1);
+    assertThat(bulkhead.tryAcquire()).isTrue();
+  }
+
+  @Test
+  public void hedge_takesItsOwnBulkheadPermit() throws Exception {
+    BulkheadGroup bulkhead = BulkheadGroup.unshared("backend", 2);
+    SettableFuture<Integer> slowCall = SettableFuture.create();
+    SettableFuture<Integer> secondCall = SettableFuture.create();
+    HedgedProducer producer =
+        new HedgedProducer(bulkhead, HedgePolicy.create(0, 0), slowCall, secondCall);
+    ListenableFuture<Integer> future = producer.get();
+    hedgeStarted.await(10, SECONDS);
+
+    assertThat(bulkhead.tryAcquire()).isFalse();
+    secondCall.set(2);
+    assertThat(future.get()).isEqualTo(2);
+    assertThat(bulkhead.tryAcquire()).isTrue();
+    assertThat(bulkhead.tryAcquire()).isTrue();
+  }
+
+  @Test
+  public void policy_invalidPercentile() {
+    try {
+      HedgePolicy.create(1, 100);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  /** Waits for the tasks that were submitted to the executor so far to run. */
+  private void awaitExecutor() throws Exception {
+    executor
+        .submit(
+            new Runnable() {
+              @Override
+              public void run() {}
+            })
+        .get(10, SECONDS);
+  }
+
+  /** Waits for the hedge timer's tasks that are already due to run. */
+  private static void awaitTimer() throws Exception {
+    HedgePolicy.schedule(
+            new Runnable() {
+              @Override
+              public void run() {}
+            },
+            0)
+        .get(10, SECONDS);
+  }
+
+  private static Provider<Executor> providerOf(final Executor executor) {
+    return new Provider<Executor>() {
+      @Override
+      public Executor get() {
+        return executor;
+      }
+    };
+  }
+
+  private final class HedgedProducer extends AbstractProducesMethodProducer<Void, Integer> {
+    final Queue<ListenableFuture<Integer>> calls;
+
+    @SafeVarargs
+    HedgedProducer(HedgePolicy policy, ListenableFuture<Integer>... calls) {
+      this(executor, policy, calls);
+    }
+
+    @SafeVarargs
+    HedgedProducer(Executor executor, HedgePolicy policy, ListenableFuture<Integer>... calls) {
+      super(componentMonitorProvider, null, providerOf(executor));
+      this.calls = new ConcurrentLinkedQueue<>(Arrays.asList(calls));
+      hedgeWith(policy);
+    }
+
+    @SafeVarargs
+    HedgedProducer(
+        BulkheadGroup bulkhead, HedgePolicy policy, ListenableFuture<Integer>... calls) {
+      super(
+          componentMonitorProvider,
+          null,
+          providerOf(executor),
+          bulkhead,
+          Bulkhead.Saturation.QUEUE);
+      this.calls = new ConcurrentLinkedQueue<>(Arrays.asList(calls));
+      hedgeWith(policy);
+    }
+
+    @Override
+    protected ListenableFuture<Void> collectDependencies() {
+      return Futures.immediateFuture(null);
+    }
+
+    @Override
+    protected ListenableFuture<Integer> callProducesMethod(Void asyncDependencies) {
+      return calls.remove();
+    }
+  }
+}
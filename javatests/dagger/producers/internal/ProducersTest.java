@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
@@ -74,6 +75,53 @@ public class ProducersTest {
         .isInstanceOf(CancellationException.class);
   }
 
+  @Test public void createFutureProduced_pendingSuccess() throws Exception {
+    SettableFuture<String> future = SettableFuture.create();
+    ListenableFuture<Produced<String>> producedFuture = Producers.createFutureProduced(future);
+    assertThat(producedFuture.isDone()).isFalse();
+    future.set("monkey");
+    assertThat(producedFuture.isDone()).isTrue();
+    assertThat(producedFuture.get().get()).isEqualTo("monkey");
+  }
+
+  @Test public void createFutureProduced_pendingFailure() throws Exception {
+    SettableFuture<String> future = SettableFuture.create();
+    ListenableFuture<Produced<String>> producedFuture = Producers.createFutureProduced(future);
+    future.setException(new RuntimeException("monkey"));
+    assertThat(producedFuture.isDone()).isTrue();
+    assertThat(getProducedException(producedFuture.get()))
+        .hasCauseThat()
+        .hasMessageThat()
+        .isEqualTo("monkey");
+  }
+
+  @Test public void createFutureProduced_alreadyCancelled() throws Exception {
+    ListenableFuture<String> future = Futures.immediateCancelledFuture();
+    ListenableFuture<Produced<String>> producedFuture = Producers.createFutureProduced(future);
+    assertThat(producedFuture.isDone()).isTrue();
+    assertThat(producedFuture.isCancelled()).isFalse();
+    assertThat(getProducedException(producedFuture.get()))
+        .hasCauseThat()
+        .isInstanceOf(CancellationException.class);
+  }
+
+  @Test public void createFutureProduced_cancelPropagatesInterruption() throws Exception {
+    InterruptibleFuture future = new InterruptibleFuture();
+    ListenableFuture<Produced<String>> producedFuture = Producers.createFutureProduced(future);
+    producedFuture.cancel(true);
+    assertThat(future.isCancelled()).isTrue();
+    assertThat(future.interrupted).isTrue();
+  }
+
+  private static final class InterruptibleFuture extends AbstractFuture<String> {
+    boolean interrupted;
+
+    @Override
+    protected void interruptTask() {
+      interrupted = true;
+    }
+  }
+
   private <T> ExecutionException getProducedException(Produced<T> produced) {
     try {
       T value = produced.get();
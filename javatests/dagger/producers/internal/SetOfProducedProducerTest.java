@@ -21,11 +21,14 @@ import static com.google.common.truth.Truth.assertThat;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
 import dagger.producers.Producers;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import org.junit.Test;
@@ -145,4 +148,46 @@ public class SetOfProducedProducerTest {
       return new Results<T>(successes.build(), failures.build());
     }
   }
+
+  @Test
+  public void contributions() throws Exception {
+    RuntimeException e = new RuntimeException("monkey");
+    Producer<Set<Produced<Integer>>> producer =
+        SetOfProducedProducer.<Integer>builder(2, 0)
+            .addProducer(Producers.<Integer>immediateFailedProducer(e))
+            .addProducer(Producers.immediateProducer(1))
+            .build();
+    List<ListenableFuture<Set<Produced<Integer>>>> contributions =
+        Producers.setContributionsInCompletionOrder(producer);
+    assertThat(contributions).hasSize(2);
+    assertThat(contributions.get(0).get()).containsExactly(Produced.<Integer>failed(e));
+    assertThat(contributions.get(1).get()).containsExactly(Produced.successful(1));
+  }
+
+  @Test
+  public void cancelledContributionDoesNotCancelSet() throws Exception {
+    final SettableFuture<Integer> slowFuture = SettableFuture.create();
+    Producer<Integer> slowProducer =
+        new Producer<Integer>() {
+          @Override
+          public ListenableFuture<Integer> get() {
+            return slowFuture;
+          }
+        };
+    SetOfProducedProducer<Integer> setProducer =
+        SetOfProducedProducer.<Integer>builder(2, 0)
+            .addProducer(slowProducer)
+            .addProducer(Producers.immediateProducer(1))
+            .build();
+    Producer<Set<Produced<Integer>>> view = setProducer.newDependencyView();
+
+    List<ListenableFuture<Set<Produced<Integer>>>> contributions =
+        Producers.setContributionsInCompletionOrder(view);
+    assertThat(contributions.get(0).get()).containsExactly(Produced.successful(1));
+    assertThat(contributions.get(1).cancel(true)).isTrue();
+    assertThat(slowFuture.isCancelled()).isFalse();
+
+    slowFuture.set(3);
+    assertThat(view.get().get()).containsExactly(Produced.successful(1), Produced.successful(3));
+  }
 }
@@ -21,9 +21,11 @@ import static org.junit.Assert.fail;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
 import dagger.producers.Producers;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import org.junit.Test;
@@ -91,4 +93,121 @@ public class SetProducerTest {
       assertThat(e).hasCauseThat().isInstanceOf(NullPointerException.class);
     }
   }
+
+  @Test
+  public void contributionsInCompletionOrder() throws Exception {
+    final SettableFuture<Integer> slowFuture = SettableFuture.create();
+    Producer<Integer> slowProducer =
+        new Producer<Integer>() {
+          @Override
+          public ListenableFuture<Integer> get() {
+            return slowFuture;
+          }
+        };
+    SetProducer<Integer> setProducer =
+        SetProducer.<Integer>builder(2, 1)
+            .addProducer(slowProducer)
+            .addProducer(Producers.immediateProducer(1))
+            .addCollectionProducer(Producers.<Set<Integer>>immediateProducer(ImmutableSet.of(5, 7)))
+            .build();
+    Producer<Set<Integer>> view = setProducer.newDependencyView();
+
+    List<ListenableFuture<Set<Integer>>> contributions =
+        Producers.setContributionsInCompletionOrder(view);
+    assertThat(contributions).hasSize(3);
+    assertThat(contributions.get(0).get()).containsExactly(1);
+    assertThat(contributions.get(1).get()).containsExactly(5, 7);
+    assertThat(contributions.get(2).isDone()).isFalse();
+    assertThat(view.get().isDone()).isFalse();
+
+    slowFuture.set(3);
+    assertThat(contributions.get(2).get()).containsExactly(3);
+    assertThat(view.get().get()).containsExactly(1, 3, 5, 7);
+  }
+
+  @Test
+  public void contributionsInCompletionOrder_cancelledContributionDoesNotCancelSet()
+      throws Exception {
+    final SettableFuture<Integer> slowFuture = SettableFuture.create();
+    Producer<Integer> slowProducer =
+        new Producer<Integer>() {
+          @Override
+          public ListenableFuture<Integer> get() {
+            return slowFuture;
+          }
+        };
+    SetProducer<Integer> setProducer =
+        SetProducer.<Integer>builder(2, 0)
+            .addProducer(slowProducer)
+            .addProducer(Producers.immediateProducer(1))
+            .build();
+    Producer<Set<Integer>> view = setProducer.newDependencyView();
+
+    List<ListenableFuture<Set<Integer>>> contributions =
+        Producers.setContributionsInCompletionOrder(view);
+    assertThat(contributions.get(0).get()).containsExactly(1);
+    assertThat(contributions.get(1).cancel(true)).isTrue();
+    assertThat(slowFuture.isCancelled()).isFalse();
+
+    slowFuture.set(3);
+    assertThat(view.get().get()).containsExactly(1, 3);
+  }
+
+  @Test
+  public void contributionsInCompletionOrder_throughDelegateProducerView() throws Exception {
+    final SettableFuture<Integer> slowFuture = SettableFuture.create();
+    Producer<Integer> slowProducer =
+        new Producer<Integer>() {
+          @Override
+          public ListenableFuture<Integer> get() {
+            return slowFuture;
+          }
+        };
+    SetProducer<Integer> setProducer =
+        SetProducer.<Integer>builder(2, 0)
+            .addProducer(slowProducer)
+            .addProducer(Producers.immediateProducer(1))
+            .build();
+    DelegateProducer<Set<Integer>> delegateProducer = new DelegateProducer<>();
+    DelegateProducer.setDelegate(delegateProducer, setProducer);
+    Producer<Set<Integer>> view = delegateProducer.newDependencyView();
+
+    List<ListenableFuture<Set<Integer>>> contributions =
+        Producers.setContributionsInCompletionOrder(view);
+    assertThat(contributions).hasSize(2);
+    assertThat(contributions.get(0).get()).containsExactly(1);
+    assertThat(contributions.get(1).isDone()).isFalse();
+
+    slowFuture.set(3);
+    assertThat(contributions.get(1).get()).containsExactly(3);
+    assertThat(view.get().get()).containsExactly(1, 3);
+  }
+
+  @Test
+  public void contributionsOfFailedSet() throws Exception {
+    RuntimeException e = new RuntimeException("monkey");
+    Producer<Set<Integer>> producer =
+        SetProducer.<Integer>builder(2, 0)
+            .addProducer(Producers.<Integer>immediateFailedProducer(e))
+            .addProducer(Producers.immediateProducer(1))
+            .build();
+    List<ListenableFuture<Set<Integer>>> contributions =
+        Producers.setContributionsInCompletionOrder(producer);
+    try {
+      contributions.get(0).get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertThat(expected).hasCauseThat().isSameInstanceAs(e);
+    }
+    assertThat(contributions.get(1).get()).containsExactly(1);
+  }
+
+  @Test
+  public void contributionsOfNonMultibinding() throws Exception {
+    Producer<Set<Integer>> producer = Producers.<Set<Integer>>immediateProducer(ImmutableSet.of(1));
+    List<ListenableFuture<Set<Integer>>> contributions =
+        Producers.setContributionsInCompletionOrder(producer);
+    assertThat(contributions).hasSize(1);
+    assertThat(contributions.get(0).get()).containsExactly(1);
+  }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import dagger.producers.monitoring.CriticalPathRecorder.NodeStatistics;
+import dagger.producers.monitoring.internal.ProducerGraphComponent;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CriticalPathRecorderTest {
+  private static final ProducerToken A = ProducerToken.create("A");
+  private static final ProducerToken B = ProducerToken.create("B");
+  private static final ProducerToken C = ProducerToken.create("C");
+
+  /** C depends on A and B, and is the entry point. */
+  private static final ProducerGraph GRAPH =
+      ProducerGraph.create(
+          new ProducerToken[] {A, B, C}, new int[][] {{}, {}, {0, 1}}, new int[] {2});
+
+  private static final class FakeComponent implements ProducerGraphComponent {
+    @Override
+    public ProducerGraph producerGraphForMonitoring() {
+      return GRAPH;
+    }
+  }
+
+  @Test
+  public void graph() {
+    assertThat(ProducerGraph.forComponent(new FakeComponent())).isSameInstanceAs(GRAPH);
+    assertThat(ProducerGraph.forComponent(new Object())).isNull();
+    assertThat(GRAPH.tokens()).containsExactly(A, B, C).inOrder();
+    assertThat(GRAPH.dependenciesOf(C)).containsExactly(A, B).inOrder();
+    assertThat(GRAPH.dependenciesOf(A)).isEmpty();
+    assertThat(GRAPH.entryPoints()).containsExactly(C);
+    assertThat(GRAPH.contains(ProducerToken.create("D"))).isFalse();
+  }
+
+  @Test
+  public void graphTokensAreIndexed() {
+    assertThat(A.index()).isEqualTo(-1);
+    for (int i = 0; i < GRAPH.tokens().size(); i++) {
+      assertThat(GRAPH.tokens().get(i).index()).isEqualTo(i);
+      assertThat(GRAPH.indexOf(GRAPH.tokens().get(i))).isEqualTo(i);
+    }
+    assertThat(GRAPH.tokens().get(0)).isEqualTo(A);
+    assertThat(GRAPH.indexOf(C)).isEqualTo(2);
+    assertThat(GRAPH.indexOf(ProducerToken.create("D"))).isEqualTo(-1);
+  }
+
+  @Test
+  public void priorities() {
+    assertThat(GRAPH.priorityOf(A)).isEqualTo(2);
+    assertThat(GRAPH.priorityOf(B)).isEqualTo(2);
+    assertThat(GRAPH.priorityOf(C)).isEqualTo(1);
+
+    // D depends on B and C, C depends on A and B, and B depends on A.
+    ProducerToken d = ProducerToken.create("D");
+    ProducerGraph graph =
+        ProducerGraph.create(
+            new ProducerToken[] {d, C, B, A}, new int[][] {{1, 2}, {2, 3}, {3}, {}}, new int[] {0});
+    assertThat(graph.priorityOf(d)).isEqualTo(1);
+    assertThat(graph.priorityOf(C)).isEqualTo(2);
+    assertThat(graph.priorityOf(B)).isEqualTo(3);
+    assertThat(graph.priorityOf(A)).isEqualTo(4);
+  }
+
+  @Test
+  public void componentWithoutGraph_isNotRecorded() {
+    CriticalPathRecorder recorder = new CriticalPathRecorder();
+    assertThat(recorder.create(new Object()))
+        .isSameInstanceAs(TimingRecorders.noOpProductionComponentTimingRecorder());
+  }
+
+  @Test
+  public void criticalPathFollowsLatestDependency() {
+    CriticalPathRecorder recorder = new CriticalPathRecorder();
+    ProductionComponentTimingRecorder componentRecorder = recorder.create(new FakeComponent());
+
+    ProducerTimingRecorder a = componentRecorder.producerTimingRecorderFor(A);
+    ProducerTimingRecorder b = componentRecorder.producerTimingRecorderFor(B);
+    ProducerTimingRecorder c = componentRecorder.producerTimingRecorderFor(C);
+    a.recordMethod(0, 1);
+    b.recordMethod(0, 1);
+    a.recordSuccess(10);
+    b.recordSuccess(30);
+    c.recordMethod(35, 1);
+    c.recordSuccess(5);
+
+    assertThat(recorder.executionCount()).isEqualTo(1);
+    assertThat(recorder.totalCriticalPathNanos()).isEqualTo(40);
+    ImmutableList<NodeStatistics> statistics = recorder.statistics();
+    assertThat(statistics).hasSize(2);
+    assertThat(statistics.get(0).token()).isEqualTo(B);
+    assertThat(statistics.get(0).totalLatencyNanos()).isEqualTo(30);
+    assertThat(statistics.get(0).totalQueueNanos()).isEqualTo(0);
+    assertThat(statistics.get(1).token()).isEqualTo(C);
+    assertThat(statistics.get(1).totalLatencyNanos()).isEqualTo(5);
+    assertThat(statistics.get(1).totalQueueNanos()).isEqualTo(5);
+  }
+
+  @Test
+  public void statisticsAreAggregatedAcrossComponents() {
+    CriticalPathRecorder recorder = new CriticalPathRecorder();
+    for (int i = 0; i < 3; i++) {
+      ProductionComponentTimingRecorder componentRecorder = recorder.create(new FakeComponent());
+      ProducerTimingRecorder a = componentRecorder.producerTimingRecorderFor(A);
+      ProducerTimingRecorder c = componentRecorder.producerTimingRecorderFor(C);
+      a.recordMethod(0, 1);
+      a.recordFailure(new RuntimeException(), 10);
+      c.recordMethod(10, 1);
+      c.recordSuccess(1);
+    }
+
+    assertThat(recorder.executionCount()).isEqualTo(3);
+    ImmutableList<NodeStatistics> statistics = recorder.statistics();
+    assertThat(statistics.get(0).token()).isEqualTo(A);
+    assertThat(statistics.get(0).criticalPathCount()).isEqualTo(3);
+    assertThat(statistics.get(0).totalLatencyNanos()).isEqualTo(30);
+
+    recorder.reset();
+    assertThat(recorder.executionCount()).isEqualTo(0);
+    assertThat(recorder.statistics()).isEmpty();
+  }
+
+  @Test
+  public void unknownToken_returnsNoOp() {
+    ProductionComponentTimingRecorder componentRecorder =
+        new CriticalPathRecorder().create(new FakeComponent());
+    assertThat(componentRecorder.producerTimingRecorderFor(ProducerToken.create("D")))
+        .isSameInstanceAs(ProducerTimingRecorder.noOp());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import dagger.producers.monitoring.LatencyHistogramRecorder.Snapshot;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LatencyHistogramRecorderTest {
+  private static final ProducerToken A = ProducerToken.create("A");
+  private static final ProducerToken B = ProducerToken.create("B");
+
+  @Test
+  public void bucketsCoverAllValues() {
+    long previousUpperBound = -1;
+    for (int i = 0; i <= LatencyHistogramRecorder.bucketIndex(Long.MAX_VALUE); i++) {
+      long lowerBound = LatencyHistogramRecorder.bucketLowerBound(i);
+      long upperBound = LatencyHistogramRecorder.bucketUpperBound(i);
+      assertThat(lowerBound).isEqualTo(previousUpperBound + 1);
+      assertThat(LatencyHistogramRecorder.bucketIndex(lowerBound)).isEqualTo(i);
+      assertThat(LatencyHistogramRecorder.bucketIndex(upperBound)).isEqualTo(i);
+      assertThat((double) (upperBound - lowerBound)).isAtMost(lowerBound / 8.0);
+      previousUpperBound = upperBound;
+    }
+    assertThat(previousUpperBound).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  public void percentiles() {
+    LatencyHistogramRecorder recorder = new LatencyHistogramRecorder();
+    ProducerTimingRecorder producerRecorder =
+        recorder.create(new Object()).producerTimingRecorderFor(A);
+    for (int i = 1; i <= 1000; i++) {
+      producerRecorder.recordSuccess(i * 1000L);
+    }
+
+    Snapshot snapshot = recorder.snapshot().get(A);
+    assertThat(snapshot.count()).isEqualTo(1000);
+    assertThat(snapshot.failureCount()).isEqualTo(0);
+    assertThat(snapshot.maxNanos()).isEqualTo(1000000);
+    assertThat(snapshot.meanNanos()).isWithin(0.1).of(500500);
+    assertThat((double) snapshot.percentileNanos(50)).isWithin(500000 * 0.125).of(500000);
+    assertThat((double) snapshot.percentileNanos(99)).isWithin(990000 * 0.125).of(990000);
+    assertThat(snapshot.percentileNanos(100)).isEqualTo(1000000);
+  }
+
+  @Test
+  public void recordersAreSharedAcrossComponents() {
+    LatencyHistogramRecorder recorder = new LatencyHistogramRecorder();
+    recorder.create(new Object()).producerTimingRecorderFor(A).recordSuccess(10);
+    recorder.create(new Object()).producerTimingRecorderFor(A).recordFailure(new Exception(), 20);
+    recorder.create(new Object()).producerTimingRecorderFor(B).recordSkip(new Exception());
+
+    ImmutableMap<ProducerToken, Snapshot> snapshots = recorder.snapshot();
+    assertThat(snapshots.keySet()).containsExactly(A);
+    assertThat(snapshots.get(A).count()).isEqualTo(2);
+    assertThat(snapshots.get(A).failureCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void snapshotAndReset() {
+    LatencyHistogramRecorder recorder = new LatencyHistogramRecorder();
+    ProducerTimingRecorder producerRecorder =
+        recorder.create(new Object()).producerTimingRecorderFor(A);
+    producerRecorder.recordSuccess(10);
+
+    assertThat(recorder.snapshotAndReset().get(A).count()).isEqualTo(1);
+    assertThat(recorder.snapshot()).isEmpty();
+
+    producerRecorder.recordSuccess(10);
+    assertThat(recorder.snapshot().get(A).count()).isEqualTo(1);
+    recorder.reset();
+    assertThat(recorder.snapshot()).isEmpty();
+  }
+
+  @Test
+  public void emptySnapshot() {
+    Snapshot snapshot = new Snapshot(new long[8], 0, 0, 0);
+    assertThat(snapshot.percentileNanos(99)).isEqualTo(0);
+    assertThat(snapshot.meanNanos()).isEqualTo(0.0);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Ticker;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+@RunWith(JUnit4.class)
+public final class SamplingProductionComponentMonitorFactoryTest {
+  @Mock private ProductionComponentMonitor.Factory mockProductionComponentMonitorFactory;
+  @Mock private ProductionComponentMonitor mockProductionComponentMonitor;
+
+  @Before
+  public void initMocks() {
+    MockitoAnnotations.initMocks(this);
+    when(mockProductionComponentMonitorFactory.create(any(Object.class)))
+        .thenReturn(mockProductionComponentMonitor);
+  }
+
+  @Test
+  public void probability_zeroAndOne() {
+    assertThat(
+            SamplingProductionComponentMonitorFactory.withProbability(
+                mockProductionComponentMonitorFactory, 0))
+        .isSameInstanceAs(ProductionComponentMonitor.Factory.noOp());
+    assertThat(
+            SamplingProductionComponentMonitorFactory.withProbability(
+                mockProductionComponentMonitorFactory, 1))
+        .isSameInstanceAs(mockProductionComponentMonitorFactory);
+  }
+
+  @Test
+  public void probability_samplesSomeComponents() {
+    ProductionComponentMonitor.Factory factory =
+        SamplingProductionComponentMonitorFactory.withProbability(
+            mockProductionComponentMonitorFactory, 0.5);
+    int sampled = 0;
+    int unsampled = 0;
+    for (int i = 0; i < 1000; i++) {
+      ProductionComponentMonitor monitor = factory.create(new Object());
+      if (monitor == mockProductionComponentMonitor) {
+        sampled++;
+      } else {
+        assertThat(monitor).isSameInstanceAs(ProductionComponentMonitor.noOp());
+        unsampled++;
+      }
+    }
+    assertThat(sampled).isGreaterThan(0);
+    assertThat(unsampled).isGreaterThan(0);
+  }
+
+  @Test
+  public void rateLimit() {
+    FakeTicker ticker = new FakeTicker();
+    ProductionComponentMonitor.Factory factory =
+        SamplingProductionComponentMonitorFactory.withRateLimit(
+            mockProductionComponentMonitorFactory, 10, ticker);
+
+    assertThat(factory.create(new Object())).isSameInstanceAs(mockProductionComponentMonitor);
+    assertThat(factory.create(new Object())).isSameInstanceAs(ProductionComponentMonitor.noOp());
+
+    ticker.advance(50, TimeUnit.MILLISECONDS);
+    assertThat(factory.create(new Object())).isSameInstanceAs(ProductionComponentMonitor.noOp());
+
+    ticker.advance(50, TimeUnit.MILLISECONDS);
+    assertThat(factory.create(new Object())).isSameInstanceAs(mockProductionComponentMonitor);
+    assertThat(factory.create(new Object())).isSameInstanceAs(ProductionComponentMonitor.noOp());
+  }
+
+  private static final class FakeTicker extends Ticker {
+    private long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+
+    void advance(long duration, TimeUnit unit) {
+      nanos += unit.toNanos(duration);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SpeculativePrefetchRecorderTest {
+  private static final ProducerToken A = ProducerToken.create("A");
+  private static final ProducerToken B = ProducerToken.create("B");
+
+  @Test
+  public void prefetchesOnceThresholdIsReached() {
+    SpeculativePrefetchRecorder recorder = SpeculativePrefetchRecorder.withThreshold(0.75, 4);
+    ProducerMonitor monitor = recorder.create(new Object()).producerMonitorFor(A);
+    assertThat(monitor.shouldPrefetch("p")).isFalse();
+
+    monitor.conditionalDependencyObserved("p", true);
+    monitor.conditionalDependencyObserved("p", true);
+    monitor.conditionalDependencyObserved("p", true);
+    // Every observation requested the parameter, but there aren't enough observations yet.
+    assertThat(monitor.shouldPrefetch("p")).isFalse();
+
+    monitor.conditionalDependencyObserved("p", false);
+    assertThat(recorder.observationCount(A, "p")).isEqualTo(4);
+    assertThat(recorder.requestProbability(A, "p")).isEqualTo(0.75);
+    assertThat(monitor.shouldPrefetch("p")).isTrue();
+
+    monitor.conditionalDependencyObserved("p", false);
+    assertThat(monitor.shouldPrefetch("p")).isFalse();
+  }
+
+  @Test
+  public void statisticsAreSharedAcrossComponentsAndKeptPerParameter() {
+    SpeculativePrefetchRecorder recorder = SpeculativePrefetchRecorder.withThreshold(0.5, 2);
+    recorder.create(new Object()).producerMonitorFor(A).conditionalDependencyObserved("p", true);
+    recorder.create(new Object()).producerMonitorFor(A).conditionalDependencyObserved("p", true);
+    recorder.create(new Object()).producerMonitorFor(A).conditionalDependencyObserved("q", false);
+    recorder.create(new Object()).producerMonitorFor(A).conditionalDependencyObserved("q", false);
+
+    ProducerMonitor monitor = recorder.create(new Object()).producerMonitorFor(A);
+    assertThat(monitor.shouldPrefetch("p")).isTrue();
+    assertThat(monitor.shouldPrefetch("q")).isFalse();
+    assertThat(recorder.create(new Object()).producerMonitorFor(B).shouldPrefetch("p")).isFalse();
+    assertThat(recorder.observationCount(B, "p")).isEqualTo(0);
+    assertThat(recorder.requestProbability(B, "p")).isEqualTo(0.0);
+  }
+
+  @Test
+  public void reset() {
+    SpeculativePrefetchRecorder recorder = SpeculativePrefetchRecorder.withThreshold(1, 1);
+    recorder.create(new Object()).producerMonitorFor(A).conditionalDependencyObserved("p", true);
+    assertThat(recorder.create(new Object()).producerMonitorFor(A).shouldPrefetch("p")).isTrue();
+
+    recorder.reset();
+    assertThat(recorder.observationCount(A, "p")).isEqualTo(0);
+    assertThat(recorder.create(new Object()).producerMonitorFor(A).shouldPrefetch("p")).isFalse();
+  }
+
+  @Test
+  public void invalidArguments() {
+    try {
+      SpeculativePrefetchRecorder.withThreshold(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      SpeculativePrefetchRecorder.withThreshold(1.5);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      SpeculativePrefetchRecorder.withThreshold(0.5, 0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2023 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Ticker;
+import dagger.producers.monitoring.internal.ProducerGraphComponent;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class TraceEventRecorderTest {
+  private static final ProducerToken A = ProducerToken.create("A");
+  private static final ProducerToken B = ProducerToken.create("B");
+
+  /** B depends on A, and is the entry point. */
+  private static final ProducerGraph GRAPH =
+      ProducerGraph.create(new ProducerToken[] {B, A}, new int[][] {{1}, {}}, new int[] {0});
+
+  private static final class FakeComponent implements ProducerGraphComponent {
+    @Override
+    public ProducerGraph producerGraphForMonitoring() {
+      return GRAPH;
+    }
+  }
+
+  private static final class FakeTicker extends Ticker {
+    long nanos;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final StringWriter output = new StringWriter();
+
+  @Test
+  public void writesSpansOfEachProducer() throws Exception {
+    TraceEventRecorder recorder = TraceEventRecorder.toWriter(output, 100, ticker);
+    ProducerMonitor monitor = recorder.create(new Object()).producerMonitorFor(A);
+    ticker.nanos = 1000;
+    monitor.requested();
+    ticker.nanos = 3000;
+    monitor.ready();
+    ticker.nanos = 7000;
+    monitor.methodStarting();
+    ticker.nanos = 12000;
+    monitor.methodFinished();
+    ticker.nanos = 20000;
+    monitor.succeeded("a");
+    recorder.close();
+
+    String trace = output.toString();
+    assertThat(trace).startsWith("[\n");
+    assertThat(trace).endsWith("{}]\n");
+    assertThat(trace)
+        .contains(
+            "{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,"
+                + "\"args\":{\"name\":\"Object #1\"}}");
+    assertThat(trace)
+        .contains("{\"name\":\"A\",\"cat\":\"producer\",\"ph\":\"b\",\"id\":1,\"pid\":1,\"tid\":");
+    assertThat(trace)
+        .contains(
+            "\"ts\":20,\"args\":{\"outcome\":\"succeeded\",\"wait_us\":2,\"queue_us\":4,"
+                + "\"run_us\":5}}");
+    assertThat(trace).contains("\"cat\":\"method\",\"ph\":\"X\"");
+    assertThat(trace).contains("\"ts\":7,\"dur\":5,\"args\":{\"thread\":");
+    assertThat(recorder.droppedEventCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void skippedProducer_hasNoMethodSpan() throws Exception {
+    TraceEventRecorder recorder = TraceEventRecorder.toWriter(output, 100, ticker);
+    ProducerMonitor monitor = recorder.create(new Object()).producerMonitorFor(A);
+    monitor.requested();
+    monitor.ready();
+    monitor.failed(new RuntimeException());
+    recorder.close();
+
+    String trace = output.toString();
+    assertThat(trace).contains("\"outcome\":\"skipped\"");
+    assertThat(trace).doesNotContain("\"ph\":\"X\"");
+  }
+
+  @Test
+  public void spansListDependenciesFromGraph() throws Exception {
+    TraceEventRecorder recorder = TraceEventRecorder.toWriter(output, 100, ticker);
+    ProductionComponentMonitor componentMonitor = recorder.create(new FakeComponent());
+    for (ProducerToken token : new ProducerToken[] {A, B}) {
+      ProducerMonitor monitor = componentMonitor.producerMonitorFor(token);
+      monitor.requested();
+      monitor.succeeded(token);
+    }
+    recorder.close();
+
+    String trace = output.toString();
+    assertThat(trace).contains("\"outcome\":\"succeeded\",\"dependencies\":[\"A\"]}");
+    assertThat(trace).contains("\"outcome\":\"succeeded\"}");
+  }
+
+  @Test
+  public void fullBuffer_dropsEvents() throws Exception {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    Writer blockingWriter =
+        new StringWriter() {
+          private boolean started;
+
+          @Override
+          public void write(String string) {
+            if (started) {
+              writing.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                throw new AssertionError(e);
+              }
+            }
+            started = true;
+            super.write(string);
+          }
+        };
+    TraceEventRecorder recorder = TraceEventRecorder.toWriter(blockingWriter, 1, ticker);
+    ProductionComponentMonitor componentMonitor = recorder.create(new Object());
+    writing.await();
+
+    ProducerMonitor a = componentMonitor.producerMonitorFor(A);
+    a.requested();
+    a.succeeded("a");
+    ProducerMonitor b = componentMonitor.producerMonitorFor(B);
+    b.requested();
+    b.succeeded("b");
+    assertThat(recorder.droppedEventCount()).isEqualTo(1);
+
+    release.countDown();
+    recorder.flush();
+    assertThat(blockingWriter.toString()).contains("\"name\":\"A\"");
+    assertThat(blockingWriter.toString()).doesNotContain("\"name\":\"B\"");
+    recorder.close();
+  }
+
+  @Test
+  public void eventsAfterClose_areDropped() throws IOException {
+    TraceEventRecorder recorder = TraceEventRecorder.toWriter(output, 100, ticker);
+    recorder.close();
+    assertThat(recorder.create(new Object())).isSameInstanceAs(ProductionComponentMonitor.noOp());
+    assertThat(output.toString()).isEqualTo("[\n{}]\n");
+  }
+
+  @Test
+  public void appendString_escapes() {
+    StringBuilder json = new StringBuilder();
+    TraceEventRecorder.appendString(json, "a\"b\\c\nd\u0001");
+    assertThat(json.toString()).isEqualTo("\"a\\\"b\\\\c\\nd\\u0001\"");
+  }
+}